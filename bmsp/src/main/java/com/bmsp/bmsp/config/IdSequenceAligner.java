@@ -0,0 +1,64 @@
+package com.bmsp.bmsp.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled id sequences past ids that were handed out while these
+ * tables still used IDENTITY columns.
+ *
+ * On databases without native sequences (MySQL) Hibernate emulates each
+ * sequence with a one-row {@code <name>_seq} table that starts at 1, and the
+ * pooled optimizer hands out the block {@code (next_val - allocationSize, next_val]}.
+ * Existing rows would otherwise collide with the first blocks. Native sequences
+ * are created by the schema tooling and are left alone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequenceAligner implements SmartInitializingSingleton {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "transactions", "transactions_seq",
+            "emi_records", "emi_records_seq",
+            "audit_logs", "audit_logs_seq",
+            "loans", "loans_seq",
+            "kyc_details", "kyc_details_seq");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean nativeSequences = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().supportsSequences();
+        if (nativeSequences) {
+            return;
+        }
+        SEQUENCES.forEach(this::align);
+    }
+
+    private void align(String table, String sequenceTable) {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            long floor = (maxId == null ? 0 : maxId) + ALLOCATION_SIZE + 1;
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + sequenceTable + " SET next_val = ? WHERE next_val < ?", floor, floor);
+            if (updated > 0) {
+                log.info("Moved {} to {} past existing ids of {}", sequenceTable, floor, table);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not align {} with {}: {}", sequenceTable, table, e.getMessage());
+        }
+    }
+}
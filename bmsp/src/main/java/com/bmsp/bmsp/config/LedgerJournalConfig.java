@@ -0,0 +1,20 @@
+package com.bmsp.bmsp.config;
+
+import com.bmsp.bmsp.service.transaction.journal.LedgerJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "app.ledger.journal.enabled", havingValue = "true")
+public class LedgerJournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public LedgerJournal ledgerJournal(@Value("${app.ledger.journal.dir:./ledger-journal}") String directory,
+                                       @Value("${app.ledger.journal.segment-records:65536}") int segmentRecords) {
+        return new LedgerJournal(Path.of(directory), segmentRecords);
+    }
+}
@@ -1,6 +1,15 @@
 package com.bmsp.bmsp.controller.admin;
 
-import com.bmsp.bmsp.service.report.ReportService;
+import com.bmsp.bmsp.dto.response.admin.ReportJobResponse;
+import com.bmsp.bmsp.exception.ReportFailedException;
+import com.bmsp.bmsp.exception.ReportNotReadyException;
+import com.bmsp.bmsp.exception.ResourceNotFoundException;
+import com.bmsp.bmsp.service.report.job.ReportJob;
+import com.bmsp.bmsp.service.report.job.ReportJobQueue;
+import com.bmsp.bmsp.service.report.job.ReportRequest;
+import com.bmsp.bmsp.service.report.job.ReportType;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -9,103 +18,115 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/admin/reports")
 @PreAuthorize("hasRole('ADMIN')")
 public class ReportController {
 
-    private final ReportService reportService;
+    private final ReportJobQueue reportJobQueue;
 
-    public ReportController(ReportService reportService) {
-        this.reportService = reportService;
+    public ReportController(ReportJobQueue reportJobQueue) {
+        this.reportJobQueue = reportJobQueue;
     }
 
     @GetMapping("/transactions/pdf")
-    public ResponseEntity<byte[]> generateTransactionReportPDF(
+    public CompletableFuture<ResponseEntity<Resource>> generateTransactionReportPDF(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) String transactionType) {
-        try {
-            byte[] pdfBytes = reportService.generateTransactionReportPDF(startDate, endDate, transactionType);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=transaction-report.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body(("Failed to generate transaction PDF report: " + e.getMessage()).getBytes());
-        }
+        return render(new ReportRequest(ReportType.TRANSACTIONS_PDF, startDate, endDate, transactionType),
+                "transaction-report.pdf");
     }
 
     @GetMapping("/transactions/excel")
-    public ResponseEntity<byte[]> generateTransactionReportExcel(
+    public CompletableFuture<ResponseEntity<Resource>> generateTransactionReportExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) String transactionType) {
-        try {
-            byte[] excelBytes = reportService.generateTransactionReportExcel(startDate, endDate, transactionType);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=transaction-report.xlsx")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(excelBytes);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body(("Failed to generate transaction Excel report: " + e.getMessage()).getBytes());
-        }
+        return render(new ReportRequest(ReportType.TRANSACTIONS_EXCEL, startDate, endDate, transactionType),
+                "transaction-report.xlsx");
     }
 
     @GetMapping("/loans/pdf")
-    public ResponseEntity<byte[]> generateLoanReportPDF(
+    public CompletableFuture<ResponseEntity<Resource>> generateLoanReportPDF(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) String loanStatus) {
-        try {
-            byte[] pdfBytes = reportService.generateLoanReportPDF(startDate, endDate, loanStatus);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=loan-report.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body(("Failed to generate loan PDF report: " + e.getMessage()).getBytes());
-        }
+        return render(new ReportRequest(ReportType.LOANS_PDF, startDate, endDate, loanStatus), "loan-report.pdf");
     }
 
     @GetMapping("/customers/pdf")
-    public ResponseEntity<byte[]> generateCustomerReportPDF(
+    public CompletableFuture<ResponseEntity<Resource>> generateCustomerReportPDF(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        try {
-            byte[] pdfBytes = reportService.generateCustomerReportPDF(startDate, endDate);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=customer-report.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body(("Failed to generate customer PDF report: " + e.getMessage()).getBytes());
-        }
+        return render(new ReportRequest(ReportType.CUSTOMERS_PDF, startDate, endDate, null), "customer-report.pdf");
     }
 
     @GetMapping("/financial-summary")
-    public ResponseEntity<byte[]> generateFinancialSummaryReport(
+    public CompletableFuture<ResponseEntity<Resource>> generateFinancialSummaryReport(
             @RequestParam int year,
             @RequestParam int month) {
-        try {
-            byte[] pdfBytes = reportService.generateFinancialSummaryReport(year, month);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=financial-summary.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body(("Failed to generate financial summary report: " + e.getMessage()).getBytes());
+        return render(ReportRequest.financialSummary(year, month), "financial-summary.pdf");
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<ReportJobResponse> submitReportJob(
+            @RequestParam ReportType type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String filter) {
+        ReportJob job = reportJobQueue.submit(new ReportRequest(type, startDate, endDate, filter));
+        return ResponseEntity.accepted().body(mapToReportJobResponse(job));
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReportJobResponse> getReportJob(@PathVariable String id) {
+        return ResponseEntity.ok(mapToReportJobResponse(findJob(id)));
+    }
+
+    // Range requests are answered with the requested parts, so large reports can be resumed
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<Resource> downloadReport(@PathVariable String id) {
+        ReportJob job = findJob(id);
+        return download(job, "report-" + id.substring(0, 12) + "." + job.getType().getExtension());
+    }
+
+    // The request thread is released while the report renders on the report workers
+    private CompletableFuture<ResponseEntity<Resource>> render(ReportRequest request, String filename) {
+        return reportJobQueue.submit(request).getCompletion().thenApply(job -> download(job, filename));
+    }
+
+    private ReportJob findJob(String id) {
+        return reportJobQueue.find(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Report job not found: " + id));
+    }
+
+    private static ResponseEntity<Resource> download(ReportJob job, String filename) {
+        if (job.getStatus() == ReportJob.Status.FAILED) {
+            throw new ReportFailedException("Report failed: " + job.getError());
+        }
+        if (job.getStatus() != ReportJob.Status.COMPLETED) {
+            throw new ReportNotReadyException("Report is not ready yet");
         }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(MediaType.parseMediaType(job.getType().getContentType()))
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    private static ReportJobResponse mapToReportJobResponse(ReportJob job) {
+        boolean completed = job.getStatus() == ReportJob.Status.COMPLETED;
+        return ReportJobResponse.builder()
+                .id(job.getId())
+                .type(job.getType().name())
+                .status(job.getStatus().name())
+                .submittedAt(job.getSubmittedAt())
+                .completedAt(job.getCompletedAt())
+                .size(completed ? job.getSize() : null)
+                .error(job.getError())
+                .downloadUrl(completed ? "/api/admin/reports/jobs/" + job.getId() + "/download" : null)
+                .build();
     }
-}
\ No newline at end of file
+}
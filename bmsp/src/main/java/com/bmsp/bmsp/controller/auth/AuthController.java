@@ -13,6 +13,8 @@ import com.bmsp.bmsp.security.JwtUtils;
 import com.bmsp.bmsp.security.UserDetailsImpl;
 import com.bmsp.bmsp.service.AuthService;
 import com.bmsp.bmsp.service.EmailService;
+import com.bmsp.bmsp.service.admin.SystemCounters;
+import com.bmsp.bmsp.service.metrics.LiveMetrics;
 import com.bmsp.bmsp.util.OTPGenerator;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -68,6 +70,12 @@ public class AuthController {
     @Autowired
     UserDetailsService userDetailsService;
 
+    @Autowired
+    LiveMetrics liveMetrics;
+
+    @Autowired
+    SystemCounters systemCounters;
+
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         try {
@@ -90,6 +98,7 @@ public class AuthController {
             String jwt = jwtUtils.generateJwtToken(authentication);
 
             UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            liveMetrics.userLoggedIn(userDetails.getUsername());
             List<String> roles = userDetails.getAuthorities().stream()
                     .map(GrantedAuthority::getAuthority)
                     .collect(Collectors.toList());
@@ -188,6 +197,8 @@ public class AuthController {
             emailService.sendVerificationEmail(user.getEmail(), otp);
 
             userRepository.save(user);
+            systemCounters.created(SystemCounters.USERS, user.getStatus());
+            liveMetrics.userRegistered();
 
             return ResponseEntity
                     .status(HttpStatus.CREATED)
@@ -282,6 +293,8 @@ public class AuthController {
             emailService.sendVerificationEmail(user.getEmail(), otp);
 
             userRepository.save(user);
+            systemCounters.created(SystemCounters.USERS, user.getStatus());
+            liveMetrics.userRegistered();
 
             return ResponseEntity
                     .status(HttpStatus.CREATED)
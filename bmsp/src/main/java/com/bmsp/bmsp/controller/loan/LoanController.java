@@ -12,6 +12,7 @@ import com.bmsp.bmsp.exception.UnauthorizedAccessException;
 import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.security.UserDetailsImpl;
 import com.bmsp.bmsp.service.loan.LoanService;
+import com.bmsp.bmsp.service.transaction.IdempotencyService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,9 +35,11 @@ public class LoanController {
 
     private static final Logger logger = LoggerFactory.getLogger(LoanController.class);
     private final LoanService loanService;
+    private final IdempotencyService idempotencyService;
 
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, IdempotencyService idempotencyService) {
         this.loanService = loanService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping
@@ -137,10 +140,12 @@ public class LoanController {
     public ResponseEntity<?> payEMI(
             @PathVariable Long loanId,
             @RequestBody @Valid EMIPaymentRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         try {
             User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
-            String response = loanService.payEMI(loanId, request.getInstallmentNumber(), user);
+            String response = idempotencyService.execute(idempotencyKey, user, "pay-emi:" + loanId, request,
+                    String.class, () -> loanService.payEMI(loanId, request.getInstallmentNumber(), user));
             return ResponseEntity.ok(new HashMap<String, String>() {{
                 put("message", response);
                 put("timestamp", LocalDateTime.now().toString());
@@ -1,17 +1,26 @@
 // TransactionController.java
 package com.bmsp.bmsp.controller.transaction;
 
+import com.bmsp.bmsp.dto.request.transaction.BatchTransferRequest;
 import com.bmsp.bmsp.dto.request.transaction.TransactionRequest;
 import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.dto.response.transaction.BatchTransferResponse;
+import com.bmsp.bmsp.dto.response.transaction.StatementResponse;
 import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionSliceResponse;
 import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.security.UserDetailsImpl;
+import com.bmsp.bmsp.service.transaction.ExportFormat;
+import com.bmsp.bmsp.service.transaction.IdempotencyService;
 import com.bmsp.bmsp.service.transaction.TransactionService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -21,35 +30,52 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, IdempotencyService idempotencyService) {
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/deposit")
     public ResponseEntity<TransactionResponse> deposit(
             @Valid @RequestBody TransactionRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
-        TransactionResponse response = transactionService.deposit(request, user);
+        TransactionResponse response = idempotencyService.execute(idempotencyKey, user, "deposit", request,
+                TransactionResponse.class, () -> transactionService.deposit(request, user));
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/withdraw")
     public ResponseEntity<TransactionResponse> withdraw(
             @Valid @RequestBody TransactionRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
-        TransactionResponse response = transactionService.withdraw(request, user);
+        TransactionResponse response = idempotencyService.execute(idempotencyKey, user, "withdraw", request,
+                TransactionResponse.class, () -> transactionService.withdraw(request, user));
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/transfer")
     public ResponseEntity<TransactionResponse> transfer(
             @Valid @RequestBody TransferRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
-        TransactionResponse response = transactionService.transfer(request, user);
+        TransactionResponse response = idempotencyService.execute(idempotencyKey, user, "transfer", request,
+                TransactionResponse.class, () -> transactionService.transfer(request, user));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponse> batchTransfer(
+            @Valid @RequestBody BatchTransferRequest request,
+            Authentication authentication) {
+        User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
+        BatchTransferResponse response = transactionService.batchTransfer(request, user);
         return ResponseEntity.ok(response);
     }
 
@@ -88,4 +114,48 @@ public class TransactionController {
                 accountNumber, page, size, user);
         return ResponseEntity.ok(transactions);
     }
+
+    @GetMapping("/history/{accountNumber}/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            Authentication authentication) {
+        User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
+        ExportFormat exportFormat = ExportFormat.from(format);
+        // Fail before the response is committed; rows are written on the async thread
+        transactionService.checkHistoryAccess(accountNumber, user);
+        StreamingResponseBody body = out -> transactionService.exportTransactionHistory(
+                accountNumber, startDate, endDate, exportFormat, user, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-" + accountNumber + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/statement/{accountNumber}")
+    public ResponseEntity<StatementResponse> getStatement(
+            @PathVariable String accountNumber,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            Authentication authentication) {
+        User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
+        StatementResponse statement =
+            transactionService.getStatement(accountNumber, startDate, endDate, user);
+        return ResponseEntity.ok(statement);
+    }
+
+    @GetMapping("/history/{accountNumber}/cursor")
+    public ResponseEntity<TransactionSliceResponse> getTransactionHistorySlice(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        User user = ((UserDetailsImpl) authentication.getPrincipal()).getUser();
+        TransactionSliceResponse transactions =
+            transactionService.getTransactionHistorySlice(accountNumber, cursor, size, user);
+        return ResponseEntity.ok(transactions);
+    }
 }
\ No newline at end of file
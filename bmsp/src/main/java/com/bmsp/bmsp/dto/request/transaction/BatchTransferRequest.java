@@ -0,0 +1,14 @@
+package com.bmsp.bmsp.dto.request.transaction;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+    @NotEmpty
+    @Valid
+    private List<TransferRequest> transfers;
+}
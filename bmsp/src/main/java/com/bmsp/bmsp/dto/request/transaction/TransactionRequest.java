@@ -11,6 +11,7 @@ public class TransactionRequest {
     @DecimalMin("0.01")
     private BigDecimal amount;
     
+    @Size(max = 255)
     private String description;
 
     public TransactionRequest() {
@@ -15,6 +15,7 @@ public class TransferRequest {
     @DecimalMin("0.01")
     private BigDecimal amount;
     
+    @Size(max = 255)
     private String description;
 
     // Getters and setters
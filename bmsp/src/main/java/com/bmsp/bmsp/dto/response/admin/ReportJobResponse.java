@@ -0,0 +1,19 @@
+package com.bmsp.bmsp.dto.response.admin;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ReportJobResponse {
+    private String id;
+    private String type;
+    private String status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    private Long size;
+    private String error;
+    private String downloadUrl;
+}
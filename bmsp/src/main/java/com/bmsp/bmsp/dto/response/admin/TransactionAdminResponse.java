@@ -1,6 +1,7 @@
 package com.bmsp.bmsp.dto.response.admin;
 
 import com.bmsp.bmsp.model.transaction.TransactionType;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import java.math.BigDecimal;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Builder
+@AllArgsConstructor // used by the projection queries in TransactionRepository
 public class TransactionAdminResponse {
     private Long id;
     private String accountNumber;
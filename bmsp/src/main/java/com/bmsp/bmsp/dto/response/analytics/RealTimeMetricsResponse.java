@@ -3,13 +3,22 @@ package com.bmsp.bmsp.dto.response.analytics;
 import lombok.Builder;
 import lombok.Data;
 import java.math.BigDecimal;
+import java.util.Map;
 
 @Data
 @Builder
 public class RealTimeMetricsResponse {
     private int activeSessions;
     private BigDecimal transactionsLastHour;
+    private long transactionCountLastHour;
+    private Map<String, Long> transactionCountByType;
+    private Map<String, BigDecimal> transactionAmountByType;
+    private BigDecimal transactionsPerSecond;
     private int newUsersLastHour;
+    // Share of requests in the last hour answered without a server error
     private BigDecimal systemUptime;
+    private long uptimeSeconds;
     private int responseTimeMs;
-}
\ No newline at end of file
+    private BigDecimal p50ResponseTimeMs;
+    private BigDecimal p99ResponseTimeMs;
+}
@@ -0,0 +1,29 @@
+package com.bmsp.bmsp.dto.response.transaction;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+public class BatchTransferResponse {
+    private int totalProcessed;
+    private int successCount;
+    private int failureCount;
+    private List<ItemResult> results;
+
+    @Data
+    @Builder
+    public static class ItemResult {
+        private int index;
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private BigDecimal amount;
+        private String status; // SUCCESS, FAILED
+        private String referenceNumber;
+        private BigDecimal balanceAfter;
+        private String message;
+    }
+}
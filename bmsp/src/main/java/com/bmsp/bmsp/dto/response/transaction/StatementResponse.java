@@ -0,0 +1,21 @@
+package com.bmsp.bmsp.dto.response.transaction;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class StatementResponse {
+    private String accountNumber;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal openingBalance;
+    private BigDecimal totalCredits;
+    private BigDecimal totalDebits;
+    private BigDecimal closingBalance;
+    private List<TransactionResponse> transactions; // oldest first
+}
@@ -1,12 +1,16 @@
 package com.bmsp.bmsp.dto.response.transaction;
 
 import com.bmsp.bmsp.model.transaction.TransactionType;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor // used by the projection queries in TransactionRepository
 public class TransactionResponse {
     private Long id;
     private String transactionId;
@@ -0,0 +1,15 @@
+package com.bmsp.bmsp.dto.response.transaction;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TransactionSliceResponse {
+    private List<TransactionResponse> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor; // pass back as ?cursor= to fetch the next slice, null on the last one
+}
@@ -0,0 +1,7 @@
+package com.bmsp.bmsp.exception;
+
+public class ReportFailedException extends RuntimeException {
+    public ReportFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.bmsp.bmsp.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ReportQueueFullException extends RuntimeException {
+
+    // How long callers are asked to wait before submitting again
+    private final long retryAfterSeconds;
+
+    public ReportQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
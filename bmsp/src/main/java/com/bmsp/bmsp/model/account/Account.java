@@ -4,6 +4,8 @@ package com.bmsp.bmsp.model.account;
 import com.bmsp.bmsp.model.auth.User;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,6 +13,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "accounts")
 @Data
+@DynamicUpdate
 public class Account {
     @Id
     @Column(unique = true, nullable = false)
@@ -47,4 +50,9 @@ public class Account {
     private BigDecimal interestRate;
     private boolean allowOverdraft;
     private BigDecimal overdraftLimit;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
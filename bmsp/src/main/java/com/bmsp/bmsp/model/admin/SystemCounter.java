@@ -0,0 +1,38 @@
+package com.bmsp.bmsp.model.admin;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * One slot of a materialized count behind the admin dashboard, such as the
+ * number of users or of pending loans. The services add to it in the same
+ * database transaction as the change it counts; like the ledger totals, a
+ * count is spread over several slots and readers sum them.
+ */
+@Data
+@Entity
+@Table(name = "system_counters")
+@IdClass(SystemCounter.Key.class)
+public class SystemCounter {
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Id
+    private int slot;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String name;
+        private int slot;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bmsp.bmsp.model.audit;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Audit entry moved out of {@code audit_logs} by the archival job.
+ */
+@Data
+@Entity
+@Table(name = "audit_logs_archive", indexes = {
+        @Index(name = "idx_audit_logs_archive_timestamp", columnList = "timestamp")
+})
+public class ArchivedAuditLog {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String action;
+
+    @Column(length = 1000)
+    private String details;
+
+    private String targetId;
+
+    private String performedBy;
+
+    private LocalDateTime timestamp;
+
+    @Column(length = 45)
+    private String ipAddress;
+
+    private String userAgent;
+}
@@ -75,6 +75,10 @@ public class User {
     @Column(name = "last_login")
     private LocalDateTime lastLogin;
 
+    // Moves on every change to the row, so cached customer reports can tell they are stale
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "user_roles",
@@ -242,6 +246,16 @@ public class User {
         this.lastLogin = lastLogin;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     public Set<Role> getRoles() {
         return roles;
     }
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @Data
 public class KYC {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "kyc_details_seq")
+    @SequenceGenerator(name = "kyc_details_seq", sequenceName = "kyc_details_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
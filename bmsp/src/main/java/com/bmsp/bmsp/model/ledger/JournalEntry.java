@@ -0,0 +1,34 @@
+package com.bmsp.bmsp.model.ledger;
+
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Header of a balanced double-entry journal entry. Its lines are the
+ * {@link JournalPosting}s carrying its id; they always sum to zero.
+ */
+@Data
+@Entity
+@Table(name = "journal_entry", indexes = {
+        @Index(name = "idx_journal_entry_reference", columnList = "referenceNumber"),
+        @Index(name = "idx_journal_entry_posted_at", columnList = "postedAt")
+})
+public class JournalEntry {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String referenceNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType entryType;
+
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime postedAt;
+}
@@ -0,0 +1,36 @@
+package com.bmsp.bmsp.model.ledger;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One line of a {@link JournalEntry}: a signed amount against a ledger
+ * account, positive for a debit and negative for a credit. Customer accounts
+ * are ledger accounts named by their account number, internal ones are the
+ * {@code GL:} accounts of {@code LedgerAccounts}.
+ */
+@Data
+@Entity
+@Table(name = "posting", indexes = {
+        @Index(name = "idx_posting_journal_entry", columnList = "journal_entry_id"),
+        @Index(name = "idx_posting_account_posted_at", columnList = "ledgerAccount, postedAt")
+})
+public class JournalPosting {
+    @Id
+    private Long id;
+
+    @Column(name = "journal_entry_id", nullable = false)
+    private Long journalEntryId;
+
+    @Column(nullable = false)
+    private String ledgerAccount;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime postedAt;
+}
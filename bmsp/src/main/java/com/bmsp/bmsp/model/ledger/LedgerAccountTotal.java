@@ -0,0 +1,49 @@
+package com.bmsp.bmsp.model.ledger;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Running debit and credit totals of a ledger account for one day, maintained
+ * by the posting engine in the same database transaction as the postings.
+ * Busy internal accounts spread their updates over several slots so that
+ * concurrent postings do not all queue on one row; readers sum the slots.
+ */
+@Data
+@Entity
+@Table(name = "ledger_account_total")
+@IdClass(LedgerAccountTotal.Key.class)
+public class LedgerAccountTotal {
+    @Id
+    private String ledgerAccount;
+
+    @Id
+    private LocalDate totalDate;
+
+    @Id
+    private int slot;
+
+    @Column(nullable = false)
+    private BigDecimal debitTotal;
+
+    @Column(nullable = false)
+    private BigDecimal creditTotal;
+
+    @Column(nullable = false)
+    private long postingCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String ledgerAccount;
+        private LocalDate totalDate;
+        private int slot;
+    }
+}
@@ -3,6 +3,7 @@ package com.bmsp.bmsp.model.loan;
 import com.bmsp.bmsp.model.transaction.Transaction;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -12,7 +13,8 @@ import java.time.LocalDate;
 @Data
 public class EMIRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "emi_records_seq")
+    @SequenceGenerator(name = "emi_records_seq", sequenceName = "emi_records_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -47,6 +49,11 @@ public class EMIRecord {
     @JoinColumn(name = "transaction_id")
     private Transaction transaction;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public enum EMIStatus {
         PENDING,
         PAID,
@@ -2,6 +2,7 @@ package com.bmsp.bmsp.model.loan;
 
 import com.bmsp.bmsp.model.account.Account;
 import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.util.SnowflakeIdGenerator;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.ColumnDefault;
@@ -16,7 +17,8 @@ import java.util.List;
 @Data
 public class Loan {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loans_seq")
+    @SequenceGenerator(name = "loans_seq", sequenceName = "loans_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -75,13 +77,18 @@ public class Loan {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "loan", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<EMIRecord> emiRecords;
 
     @PrePersist
     public void generateLoanAccountNumber() {
         if (this.loanAccountNumber == null) {
-            this.loanAccountNumber = "LN" + System.currentTimeMillis();
+            this.loanAccountNumber = "LN" + SnowflakeIdGenerator.shared().nextId();
         }
     }
 
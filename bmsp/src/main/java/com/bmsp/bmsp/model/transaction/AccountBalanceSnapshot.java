@@ -0,0 +1,37 @@
+package com.bmsp.bmsp.model.transaction;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Closing balance of an account at the end of a day on which it moved. Days
+ * without movements have no row; the latest earlier row still applies.
+ */
+@Data
+@Entity
+@Table(name = "account_balance_snapshot", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_snapshot_account_date", columnNames = {"account_number", "balance_date"})
+})
+public class AccountBalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_balance_snapshot_seq")
+    @SequenceGenerator(name = "account_balance_snapshot_seq", sequenceName = "account_balance_snapshot_seq",
+            allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate balanceDate;
+
+    @Column(nullable = false)
+    private BigDecimal closingBalance;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
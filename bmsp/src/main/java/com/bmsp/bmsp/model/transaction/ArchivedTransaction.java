@@ -0,0 +1,50 @@
+package com.bmsp.bmsp.model.transaction;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger row moved out of {@code transactions} by the archival job. Same
+ * columns and ids as the hot table; the account is kept as a plain column so
+ * the archive has no foreign keys to maintain.
+ */
+@Entity
+@Table(name = "transactions_archive", indexes = {
+        @Index(name = "idx_transactions_archive_account_date_id", columnList = "account_id, transactionDate, id"),
+        @Index(name = "idx_transactions_archive_date", columnList = "transactionDate")
+})
+@Data
+public class ArchivedTransaction {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String transactionId;
+
+    @Column(name = "account_id", nullable = false)
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private BigDecimal balanceAfter;
+
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime transactionDate;
+
+    @Column(nullable = false)
+    private String referenceNumber;
+
+    @Column(nullable = false)
+    private String status;
+}
@@ -0,0 +1,53 @@
+package com.bmsp.bmsp.model.transaction;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Claim on, and then stored outcome of, a request sent with an
+ * {@code Idempotency-Key} header, keyed by the caller and the key so clients
+ * cannot read each other's results. The row is inserted as PENDING before the
+ * request runs and completed in the transaction that moves the money.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt"))
+public class IdempotencyRecord {
+
+    public enum Status {
+        PENDING,
+        COMPLETED
+    }
+
+    @Id
+    @Column(length = 150)
+    private String scopedKey;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    // Only the holder of a PENDING claim may complete or release it
+    @Column(nullable = false, length = 36)
+    private String claimToken;
+
+    @Column(nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Lob
+    private String responseBody;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,20 @@
+package com.bmsp.bmsp.model.transaction;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Last ledger journal sequence projected into {@code transactions}. Updated in
+ * the same database transaction as the rows it covers.
+ */
+@Data
+@Entity
+@Table(name = "ledger_journal_checkpoints")
+public class LedgerJournalCheckpoint {
+    @Id
+    @Column(length = 50)
+    private String journal;
+
+    @Column(nullable = false)
+    private Long appliedSequence;
+}
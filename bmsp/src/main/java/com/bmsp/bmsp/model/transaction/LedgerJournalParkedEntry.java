@@ -0,0 +1,57 @@
+package com.bmsp.bmsp.model.transaction;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger journal entry the database refused to take into {@code transactions}.
+ * The balance change it records has committed, so it is kept here as written
+ * for an operator to correct and replay instead of holding back the journal.
+ */
+@Data
+@Entity
+@Table(name = "ledger_journal_parked_entries")
+public class LedgerJournalParkedEntry {
+    @Id
+    private Long sequence;
+
+    @Column(nullable = false)
+    private Long groupSequence;
+
+    @Column(nullable = false, length = 20)
+    private String outcome;
+
+    @Column(nullable = false)
+    private String transactionId;
+
+    @Column(nullable = false)
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private BigDecimal balanceAfter;
+
+    @Column(length = 1000)
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime transactionDate;
+
+    private String referenceNumber;
+
+    private String status;
+
+    @Column(length = 1000)
+    private String reason;
+
+    @Column(nullable = false)
+    private LocalDateTime parkedAt;
+}
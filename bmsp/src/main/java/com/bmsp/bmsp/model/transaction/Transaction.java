@@ -1,19 +1,23 @@
 package com.bmsp.bmsp.model.transaction;
 
 import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.util.SnowflakeIdGenerator;
 import jakarta.persistence.*;
 import lombok.Data;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_account_date_id", columnList = "account_id, transactionDate, id"),
+        @Index(name = "idx_transactions_status", columnList = "status")
+})
 @Data
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -35,7 +39,7 @@ public class Transaction {
 
     private String description;
 
-    @CreationTimestamp
+    // Set by the service when the money moves; rows written later from the ledger journal keep it
     @Column(nullable = false, updatable = false)
     private LocalDateTime transactionDate;
 
@@ -47,6 +51,11 @@ public class Transaction {
 
     @PrePersist
     public void generateTransactionId() {
-        this.transactionId = "TXN" + System.currentTimeMillis();
+        if (this.transactionId == null) {
+            this.transactionId = "TXN" + SnowflakeIdGenerator.shared().nextId();
+        }
+        if (this.transactionDate == null) {
+            this.transactionDate = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
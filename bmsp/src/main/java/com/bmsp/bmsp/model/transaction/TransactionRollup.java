@@ -0,0 +1,51 @@
+package com.bmsp.bmsp.model.transaction;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Number and total amount of the ledger rows of one type in an hour or a day,
+ * keyed by the start of the bucket. Maintained by the rollup job from the rows
+ * behind its watermark; a day bucket grows as the hours of that day roll up.
+ */
+@Data
+@Entity
+@Table(name = "transaction_rollup")
+@IdClass(TransactionRollup.Key.class)
+public class TransactionRollup {
+    @Id
+    private LocalDateTime bucketStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Granularity granularity;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 50)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private BigDecimal sumAmount;
+
+    public enum Granularity { HOUR, DAY }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDateTime bucketStart;
+        private Granularity granularity;
+        private TransactionType type;
+    }
+}
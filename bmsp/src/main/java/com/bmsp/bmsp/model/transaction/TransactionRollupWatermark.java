@@ -0,0 +1,23 @@
+package com.bmsp.bmsp.model.transaction;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger rows dated before {@code rolledUpTo} are counted in
+ * {@code transaction_rollup}. Locked and moved forward in the same database
+ * transaction as the rollup rows it covers.
+ */
+@Data
+@Entity
+@Table(name = "transaction_rollup_watermark")
+public class TransactionRollupWatermark {
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime rolledUpTo;
+}
@@ -7,5 +7,12 @@ public enum TransactionType {
     TRANSFER_IN,
     BILL_PAYMENT,
     INTEREST_CREDIT,
-    FEE_CHARGE
+    FEE_CHARGE;
+
+    /**
+     * Whether this type adds to the account balance.
+     */
+    public boolean isCredit() {
+        return this == DEPOSIT || this == TRANSFER_IN || this == INTEREST_CREDIT;
+    }
 }
\ No newline at end of file
@@ -3,11 +3,16 @@ package com.bmsp.bmsp.repository.account;
 import com.bmsp.bmsp.model.account.Account;
 import com.bmsp.bmsp.model.account.AccountStatus;
 import com.bmsp.bmsp.model.auth.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,9 +21,43 @@ public interface AccountRepository extends JpaRepository<Account, String> {
     List<Account> findByUser(User user);
     Optional<Account> findByAccountNumberAndUser(String accountNumber, User user);
     boolean existsByAccountNumber(String accountNumber);
+
+    // Row locks are always taken in account number order so concurrent
+    // multi-account operations cannot deadlock in the database
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.accountNumber")
+    List<Account> findAllForUpdate(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // Conditional balance updates: the WHERE clause carries every precondition
+    // (ownership, status, available funds) so the row is checked and changed
+    // atomically. A null ownerId skips the ownership check for admin operations.
+    // Both return the affected row count; 0 means the precondition failed.
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.version = a.version + 1 " +
+           "WHERE a.accountNumber = :accountNumber AND a.status = 'ACTIVE' " +
+           "AND (:ownerId IS NULL OR a.user.id = :ownerId)")
+    int creditBalance(@Param("accountNumber") String accountNumber,
+                      @Param("amount") BigDecimal amount,
+                      @Param("ownerId") Long ownerId);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.version = a.version + 1 " +
+           "WHERE a.accountNumber = :accountNumber AND a.status = 'ACTIVE' " +
+           "AND (:ownerId IS NULL OR a.user.id = :ownerId) " +
+           "AND a.balance + CASE WHEN a.allowOverdraft = true THEN COALESCE(a.overdraftLimit, 0) ELSE 0 END >= :amount")
+    int debitBalance(@Param("accountNumber") String accountNumber,
+                     @Param("amount") BigDecimal amount,
+                     @Param("ownerId") Long ownerId);
+
+    @Query("SELECT a.balance FROM Account a WHERE a.accountNumber = :accountNumber")
+    BigDecimal findBalance(@Param("accountNumber") String accountNumber);
     
     // Admin methods
     long countByStatus(AccountStatus status);
+
+    // (status, count) of every status in use, to reconcile the system counters
+    @Query("SELECT a.status, COUNT(a) FROM Account a GROUP BY a.status")
+    List<Object[]> countGroupedByStatus();
     
     @Query("SELECT COALESCE(SUM(a.balance), 0) FROM Account a WHERE a.status = 'ACTIVE'")
     BigDecimal sumTotalBalance();
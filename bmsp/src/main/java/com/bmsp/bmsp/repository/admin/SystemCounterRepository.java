@@ -0,0 +1,76 @@
+package com.bmsp.bmsp.repository.admin;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC access to {@code system_counters}: additive upserts and deletes
+ * on the connection of the surrounding transaction, and one grouped read of
+ * every counter.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SystemCounterRepository {
+
+    private static final String ADD_MYSQL =
+            "INSERT INTO system_counters (name, slot, total) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total = total + VALUES(total)";
+
+    private static final String ADD_MERGE =
+            "MERGE INTO system_counters c USING (VALUES (CAST(? AS VARCHAR(50)), CAST(? AS INTEGER), " +
+            "CAST(? AS BIGINT))) s (name, slot, total) ON c.name = s.name AND c.slot = s.slot " +
+            "WHEN MATCHED THEN UPDATE SET total = c.total + s.total " +
+            "WHEN NOT MATCHED THEN INSERT (name, slot, total) VALUES (s.name, s.slot, s.total)";
+
+    private static final String DELETE = "DELETE FROM system_counters WHERE name = ?";
+
+    private static final String SUM_ALL = "SELECT name, SUM(total) FROM system_counters GROUP BY name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String add;
+
+    /**
+     * Adds the deltas to one slot of each counter, creating missing rows.
+     * Callers pass them in name order so concurrent changes lock rows in the
+     * same order.
+     */
+    public void add(Map<String, Long> deltas, int slot) {
+        List<Map.Entry<String, Long>> rows = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(addStatement(), rows, rows.size(), (ps, delta) -> {
+            ps.setString(1, delta.getKey());
+            ps.setInt(2, slot);
+            ps.setLong(3, delta.getValue());
+        });
+    }
+
+    public void delete(List<String> names) {
+        jdbcTemplate.batchUpdate(DELETE, names, names.size(), (ps, name) -> ps.setString(1, name));
+    }
+
+    public Map<String, Long> sumAll() {
+        Map<String, Long> totals = new HashMap<>();
+        jdbcTemplate.query(SUM_ALL, row -> {
+            totals.put(row.getString(1), row.getLong(2));
+        });
+        return totals;
+    }
+
+    // MySQL has no MERGE; everything else used here has the standard one
+    private String addStatement() {
+        String statement = add;
+        if (statement == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            statement = product != null && product.toLowerCase().contains("mysql") ? ADD_MYSQL : ADD_MERGE;
+            add = statement;
+        }
+        return statement;
+    }
+}
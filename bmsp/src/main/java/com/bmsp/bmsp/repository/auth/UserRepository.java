@@ -2,16 +2,25 @@ package com.bmsp.bmsp.repository.auth;
 
 import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.model.auth.UserStatus;
+import com.bmsp.bmsp.repository.dto.CustomerReportRowDTO;
+import com.bmsp.bmsp.repository.dto.GeographicDistributionDTO;
+import com.bmsp.bmsp.repository.dto.UserSignupDTO;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -21,6 +30,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Admin methods
     long countByStatus(UserStatus status);
+
+    // (status, count) of every status in use, to reconcile the system counters
+    @Query("SELECT u.status, COUNT(u) FROM User u GROUP BY u.status")
+    List<Object[]> countGroupedByStatus();
     
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     
@@ -29,9 +42,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT COUNT(u) FROM User u WHERE u.riskScore > :riskScore")
     long countByRiskScoreGreaterThan(@Param("riskScore") int riskScore);
     
-    @Query("SELECT COUNT(u) FROM User u WHERE u.lastLogin >= :timestamp")
-    int countActiveSessions(@Param("timestamp") LocalDateTime timestamp);
-    
     @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :timestamp")
     int countByCreatedAtAfter(@Param("timestamp") LocalDateTime timestamp);
     
@@ -64,14 +74,38 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "ORDER BY YEAR(u.createdAt), MONTH(u.createdAt)")
     List<Object[]> getMonthlyUserGrowth(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT u.city, u.state, COUNT(u) " +
-           "FROM User u " +
-           "WHERE u.city IS NOT NULL AND u.state IS NOT NULL " +
+    // Customers and the balances of their accounts per city, largest first
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.GeographicDistributionDTO(" +
+           "u.city, u.state, COUNT(DISTINCT u.id), COALESCE(SUM(a.balance), 0)) " +
+           "FROM Customer u LEFT JOIN Account a ON a.user = u " +
            "GROUP BY u.city, u.state " +
-           "ORDER BY COUNT(u) DESC")
-    List<Object[]> getGeographicDistribution();
+           "ORDER BY COUNT(DISTINCT u.id) DESC")
+    List<GeographicDistributionDTO> getGeographicDistribution();
+
+    // Sign-ups of [startDate, endDate) for the analytics engine, one narrow row each
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.UserSignupDTO(u.createdAt, u.status) FROM User u " +
+           "WHERE u.createdAt >= :startDate AND u.createdAt < :endDate")
+    Stream<UserSignupDTO> streamSignups(@Param("startDate") LocalDateTime startDate,
+                                        @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT u FROM User u WHERE u.createdAt BETWEEN :startDate AND :endDate")
-    List<User> findByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, 
-                                     @Param("endDate") LocalDateTime endDate);
+    // Report rows behind a server-side cursor
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.CustomerReportRowDTO(" +
+           "u.id, u.fullName, u.email, u.phone, u.createdAt) FROM User u " +
+           "WHERE u.createdAt BETWEEN :startDate AND :endDate ORDER BY u.createdAt ASC, u.id ASC")
+    Stream<CustomerReportRowDTO> streamReportRows(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
+
+    // (count, highest id, latest change) of the users a report covers
+    @Query("SELECT COUNT(u), COALESCE(MAX(u.id), 0), MAX(u.updatedAt) FROM User u " +
+           "WHERE u.createdAt BETWEEN :startDate AND :endDate")
+    List<Object[]> reportWatermark(@Param("startDate") LocalDateTime startDate,
+                                   @Param("endDate") LocalDateTime endDate);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.bmsp.bmsp.repository.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class ClosingBalanceDTO {
+    private String accountNumber;
+    private BigDecimal balance;
+}
@@ -0,0 +1,16 @@
+package com.bmsp.bmsp.repository.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class CustomerReportRowDTO {
+    private Long id;
+    private String fullName;
+    private String email;
+    private String phone;
+    private LocalDateTime createdAt;
+}
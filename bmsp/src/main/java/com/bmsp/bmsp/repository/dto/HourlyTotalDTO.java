@@ -0,0 +1,27 @@
+package com.bmsp.bmsp.repository.dto;
+
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger rows of one type within one hour, grouped straight from the ledger
+ * tables.
+ */
+@Data
+public class HourlyTotalDTO {
+    private LocalDateTime hourStart;
+    private TransactionType type;
+    private long count;
+    private BigDecimal amount;
+
+    public HourlyTotalDTO(Number year, Number month, Number day, Number hour, TransactionType type,
+                          Number count, BigDecimal amount) {
+        this.hourStart = LocalDateTime.of(year.intValue(), month.intValue(), day.intValue(), hour.intValue(), 0);
+        this.type = type;
+        this.count = count.longValue();
+        this.amount = amount;
+    }
+}
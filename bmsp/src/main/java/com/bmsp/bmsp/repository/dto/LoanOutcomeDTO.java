@@ -0,0 +1,20 @@
+package com.bmsp.bmsp.repository.dto;
+
+import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.model.loan.LoanType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class LoanOutcomeDTO {
+    private LocalDateTime createdAt;
+    private LoanType loanType;
+    private LoanStatus status;
+    private BigDecimal loanAmount;
+    private BigDecimal paidAmount;
+    private BigDecimal recoveredAmount;
+}
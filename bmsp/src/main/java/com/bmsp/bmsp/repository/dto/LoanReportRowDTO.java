@@ -0,0 +1,20 @@
+package com.bmsp.bmsp.repository.dto;
+
+import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.model.loan.LoanType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class LoanReportRowDTO {
+    private String loanAccountNumber;
+    private String customerName;
+    private LoanType loanType;
+    private BigDecimal loanAmount;
+    private LoanStatus status;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,14 @@
+package com.bmsp.bmsp.repository.dto;
+
+import com.bmsp.bmsp.model.auth.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class UserSignupDTO {
+    private LocalDateTime createdAt;
+    private UserStatus status;
+}
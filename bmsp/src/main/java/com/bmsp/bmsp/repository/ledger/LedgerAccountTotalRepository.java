@@ -0,0 +1,45 @@
+package com.bmsp.bmsp.repository.ledger;
+
+import com.bmsp.bmsp.model.ledger.LedgerAccountTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Aggregates over the daily running totals; each is a primary key range
+ * read of one row per account, day and slot.
+ */
+@Repository
+public interface LedgerAccountTotalRepository extends JpaRepository<LedgerAccountTotal, LedgerAccountTotal.Key> {
+
+    @Query("SELECT COALESCE(SUM(t.creditTotal), 0) FROM LedgerAccountTotal t WHERE " +
+           "t.ledgerAccount IN :ledgerAccounts AND t.totalDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumCredits(@Param("ledgerAccounts") Collection<String> ledgerAccounts,
+                          @Param("startDate") LocalDate startDate,
+                          @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT COALESCE(SUM(t.debitTotal), 0) FROM LedgerAccountTotal t WHERE " +
+           "t.ledgerAccount IN :ledgerAccounts AND t.totalDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumDebits(@Param("ledgerAccounts") Collection<String> ledgerAccounts,
+                         @Param("startDate") LocalDate startDate,
+                         @Param("endDate") LocalDate endDate);
+
+    // Credits per day and account, slots summed: (totalDate, ledgerAccount, credits)
+    @Query("SELECT t.totalDate, t.ledgerAccount, SUM(t.creditTotal) FROM LedgerAccountTotal t WHERE " +
+           "t.ledgerAccount IN :ledgerAccounts AND t.totalDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY t.totalDate, t.ledgerAccount")
+    List<Object[]> sumCreditsByDay(@Param("ledgerAccounts") Collection<String> ledgerAccounts,
+                                   @Param("startDate") LocalDate startDate,
+                                   @Param("endDate") LocalDate endDate);
+
+    // Debits less credits over the account's whole life
+    @Query("SELECT COALESCE(SUM(t.debitTotal - t.creditTotal), 0) FROM LedgerAccountTotal t " +
+           "WHERE t.ledgerAccount = :ledgerAccount")
+    BigDecimal findNetDebit(@Param("ledgerAccount") String ledgerAccount);
+}
@@ -0,0 +1,98 @@
+package com.bmsp.bmsp.repository.ledger;
+
+import com.bmsp.bmsp.model.ledger.JournalEntry;
+import com.bmsp.bmsp.model.ledger.JournalPosting;
+import com.bmsp.bmsp.model.ledger.LedgerAccountTotal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Plain JDBC batch writes for journal entries, postings and the running
+ * totals. Runs on the connection of the surrounding JPA transaction, so a
+ * whole posting batch is three batched statements whatever its size.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PostingBatchRepository {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String INSERT_ENTRY =
+            "INSERT INTO journal_entry (id, reference_number, entry_type, description, posted_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_POSTING =
+            "INSERT INTO posting (id, journal_entry_id, ledger_account, amount, posted_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String ADD_TOTAL_MYSQL =
+            "INSERT INTO ledger_account_total " +
+            "(ledger_account, total_date, slot, debit_total, credit_total, posting_count) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE debit_total = debit_total + VALUES(debit_total), " +
+            "credit_total = credit_total + VALUES(credit_total), posting_count = posting_count + VALUES(posting_count)";
+
+    private static final String ADD_TOTAL_MERGE =
+            "MERGE INTO ledger_account_total t USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS DATE), " +
+            "CAST(? AS INTEGER), CAST(? AS DECIMAL(38, 2)), CAST(? AS DECIMAL(38, 2)), CAST(? AS BIGINT))) " +
+            "s (ledger_account, total_date, slot, debit_total, credit_total, posting_count) " +
+            "ON t.ledger_account = s.ledger_account AND t.total_date = s.total_date AND t.slot = s.slot " +
+            "WHEN MATCHED THEN UPDATE SET debit_total = t.debit_total + s.debit_total, " +
+            "credit_total = t.credit_total + s.credit_total, posting_count = t.posting_count + s.posting_count " +
+            "WHEN NOT MATCHED THEN INSERT (ledger_account, total_date, slot, debit_total, credit_total, posting_count) " +
+            "VALUES (s.ledger_account, s.total_date, s.slot, s.debit_total, s.credit_total, s.posting_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String addTotal;
+
+    public void insertEntries(List<JournalEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, entries, BATCH_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.getId());
+            ps.setString(2, entry.getReferenceNumber());
+            ps.setString(3, entry.getEntryType().name());
+            ps.setString(4, entry.getDescription());
+            ps.setTimestamp(5, Timestamp.valueOf(entry.getPostedAt()));
+        });
+    }
+
+    public void insertPostings(List<JournalPosting> postings) {
+        jdbcTemplate.batchUpdate(INSERT_POSTING, postings, BATCH_SIZE, (ps, posting) -> {
+            ps.setLong(1, posting.getId());
+            ps.setLong(2, posting.getJournalEntryId());
+            ps.setString(3, posting.getLedgerAccount());
+            ps.setBigDecimal(4, posting.getAmount());
+            ps.setTimestamp(5, Timestamp.valueOf(posting.getPostedAt()));
+        });
+    }
+
+    /**
+     * Adds the deltas to the running totals, creating missing rows. Callers
+     * pass them in key order so concurrent batches lock rows in the same order.
+     */
+    public void addToTotals(List<LedgerAccountTotal> deltas) {
+        jdbcTemplate.batchUpdate(addTotalStatement(), deltas, BATCH_SIZE, (ps, delta) -> {
+            ps.setString(1, delta.getLedgerAccount());
+            ps.setDate(2, Date.valueOf(delta.getTotalDate()));
+            ps.setInt(3, delta.getSlot());
+            ps.setBigDecimal(4, delta.getDebitTotal());
+            ps.setBigDecimal(5, delta.getCreditTotal());
+            ps.setLong(6, delta.getPostingCount());
+        });
+    }
+
+    // MySQL has no MERGE; everything else used here has the standard one
+    private String addTotalStatement() {
+        String statement = addTotal;
+        if (statement == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            statement = product != null && product.toLowerCase().contains("mysql") ? ADD_TOTAL_MYSQL : ADD_TOTAL_MERGE;
+            addTotal = statement;
+        }
+        return statement;
+    }
+}
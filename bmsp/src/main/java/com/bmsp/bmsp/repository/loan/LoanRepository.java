@@ -3,10 +3,14 @@ package com.bmsp.bmsp.repository.loan;
 import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.model.loan.Loan;
 import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.repository.dto.LoanOutcomeDTO;
+import com.bmsp.bmsp.repository.dto.LoanReportRowDTO;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -14,6 +18,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
@@ -25,22 +33,33 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     
     // Add the missing methods
     long countByStatus(LoanStatus status);
+
+    // (status, count, sum of loan amounts, sum of paid amounts) of every status in use
+    @Query("SELECT l.status, COUNT(l), COALESCE(SUM(l.loanAmount), 0), COALESCE(SUM(l.paidAmount), 0) " +
+           "FROM Loan l GROUP BY l.status")
+    List<Object[]> sumGroupedByStatus();
     
     @Query("SELECT COALESCE(SUM(l.loanAmount), 0) FROM Loan l")
     Optional<BigDecimal> sumTotalLoanAmount();
     
-    @Query("SELECT COALESCE(SUM(l.loanAmount - l.paidAmount), 0) FROM Loan l WHERE l.status IN ('DISBURSED', 'DEFAULTED')")
-    Optional<BigDecimal> sumOutstandingAmount();
-    
-    @Query("SELECT COALESCE(SUM(l.loanAmount - l.paidAmount), 0) FROM Loan l WHERE l.status = 'DEFAULTED'")
-    Optional<BigDecimal> sumDefaultedAmount();
-    
-    @Query("SELECT COALESCE(SUM(l.paidAmount), 0) FROM Loan l WHERE l.status = 'CLOSED'")
-    BigDecimal sumRecoveredAmount();
-    
-    @Query("SELECT l FROM Loan l WHERE l.createdAt BETWEEN :startDate AND :endDate")
-    List<Loan> findByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, 
-                                     @Param("endDate") LocalDateTime endDate);
+    // Report rows behind a server-side cursor, status optional
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.LoanReportRowDTO(" +
+           "l.loanAccountNumber, u.fullName, l.loanType, l.loanAmount, l.status, l.createdAt) " +
+           "FROM Loan l LEFT JOIN l.user u WHERE l.createdAt BETWEEN :startDate AND :endDate AND " +
+           "(:status IS NULL OR l.status = :status) ORDER BY l.createdAt ASC, l.id ASC")
+    Stream<LoanReportRowDTO> streamReportRows(@Param("status") LoanStatus status,
+                                              @Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate);
+
+    // (count, highest id, sum of versions) of the loans a report covers; the versions move on every update
+    @Query("SELECT COUNT(l), COALESCE(MAX(l.id), 0), COALESCE(SUM(l.version), 0) FROM Loan l " +
+           "WHERE l.createdAt BETWEEN :startDate AND :endDate")
+    List<Object[]> reportWatermark(@Param("startDate") LocalDateTime startDate,
+                                   @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.createdAt BETWEEN :startDate AND :endDate")
     long countByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, 
@@ -48,4 +67,15 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     
     @Query("SELECT l FROM Loan l WHERE l.user = :user AND (l.status = 'PENDING' OR l.status = 'APPROVED' OR l.status = 'DISBURSED')")
     List<Loan> findActiveOrPendingLoansByUser(@Param("user") User user);
-}
\ No newline at end of file
+
+    // Loans applied for in [startDate, endDate) for the analytics engine, one narrow row each
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.LoanOutcomeDTO(" +
+           "l.createdAt, l.loanType, l.status, l.loanAmount, l.paidAmount, l.recoveredAmount) FROM Loan l " +
+           "WHERE l.createdAt >= :startDate AND l.createdAt < :endDate")
+    Stream<LoanOutcomeDTO> streamOutcomes(@Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate);
+}
@@ -0,0 +1,23 @@
+package com.bmsp.bmsp.repository.transaction;
+
+import com.bmsp.bmsp.model.transaction.AccountBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface AccountBalanceSnapshotRepository extends JpaRepository<AccountBalanceSnapshot, Long> {
+
+    // Served by uk_balance_snapshot_account_date
+    Optional<AccountBalanceSnapshot> findFirstByAccountNumberAndBalanceDateLessThanOrderByBalanceDateDesc(
+            String accountNumber, LocalDate before);
+
+    @Modifying
+    @Query("DELETE FROM AccountBalanceSnapshot s WHERE s.balanceDate = :date")
+    int deleteByBalanceDate(@Param("date") LocalDate date);
+}
@@ -0,0 +1,125 @@
+package com.bmsp.bmsp.repository.transaction;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Plain JDBC moves of date-ranged rows from the hot tables into their archive
+ * tables, plus the MySQL partition maintenance that goes with them. Partitions
+ * are read from {@code information_schema}; on other databases, or on tables
+ * that are not partitioned, {@link #findPartitions} is empty and rows are moved
+ * by date range instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ArchivalRepository {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String FIND_PARTITIONS =
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean mySql;
+
+    public enum ArchivedTable {
+        TRANSACTIONS("transactions", "transactions_archive", "transaction_date",
+                List.of("id", "transaction_id", "account_id", "type", "amount", "balance_after", "description",
+                        "transaction_date", "reference_number", "status")),
+        AUDIT_LOGS("audit_logs", "audit_logs_archive", "timestamp",
+                List.of("id", "action", "details", "target_id", "performed_by", "timestamp", "ip_address",
+                        "user_agent"));
+
+        final String table;
+        final String archive;
+        final String dateColumn;
+        final String columns;
+
+        ArchivedTable(String table, String archive, String dateColumn, List<String> columns) {
+            this.table = table;
+            this.archive = archive;
+            this.dateColumn = dateColumn;
+            this.columns = String.join(", ", columns);
+        }
+    }
+
+    /**
+     * A range partition; {@code lessThan} is null for the {@code MAXVALUE} one.
+     */
+    public record Partition(String name, LocalDateTime lessThan) {
+    }
+
+    public List<Partition> findPartitions(ArchivedTable table) {
+        if (!isMySql()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(FIND_PARTITIONS, (rs, row) -> {
+            String bound = rs.getString(2).replace("'", "");
+            return new Partition(rs.getString(1),
+                    "MAXVALUE".equals(bound) ? null : Timestamp.valueOf(bound).toLocalDateTime());
+        }, table.table);
+    }
+
+    public Optional<LocalDateTime> findOldest(ArchivedTable table) {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(" + table.dateColumn + ") FROM " + table.table, Timestamp.class);
+        return Optional.ofNullable(oldest).map(Timestamp::toLocalDateTime);
+    }
+
+    /**
+     * Copies the rows of {@code [start, end)}, optionally read from a single
+     * partition, replacing whatever an earlier interrupted run copied.
+     */
+    public int copyToArchive(ArchivedTable table, String partition, LocalDateTime start, LocalDateTime end) {
+        String range = " WHERE " + table.dateColumn + " >= ? AND " + table.dateColumn + " < ?";
+        jdbcTemplate.update("DELETE FROM " + table.archive + range, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        String source = partition == null ? table.table : table.table + " PARTITION (" + partition + ")";
+        return jdbcTemplate.update("INSERT INTO " + table.archive + " (" + table.columns + ") SELECT " +
+                table.columns + " FROM " + source + range, Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    public int deleteRange(ArchivedTable table, LocalDateTime start, LocalDateTime end) {
+        return jdbcTemplate.update("DELETE FROM " + table.table + " WHERE " + table.dateColumn + " >= ? AND " +
+                table.dateColumn + " < ?", Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    // DDL: commits implicitly, so callers run it after the copy has committed
+    public void dropPartition(ArchivedTable table, String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + table.table + " DROP PARTITION " + partition);
+    }
+
+    /**
+     * Splits monthly partitions off the front of the {@code MAXVALUE} partition.
+     */
+    public void addMonthlyPartitions(ArchivedTable table, String maxPartition, List<YearMonth> months) {
+        String added = months.stream()
+                .map(month -> "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" +
+                        month.plusMonths(1).atDay(1) + "')")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE " + table.table + " REORGANIZE PARTITION " + maxPartition + " INTO (" +
+                added + ", PARTITION " + maxPartition + " VALUES LESS THAN (MAXVALUE))");
+    }
+
+    private boolean isMySql() {
+        Boolean known = mySql;
+        if (known == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            known = product != null && product.toLowerCase().contains("mysql");
+            mySql = known;
+        }
+        return known;
+    }
+}
@@ -0,0 +1,103 @@
+package com.bmsp.bmsp.repository.transaction;
+
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.model.transaction.ArchivedTransaction;
+import com.bmsp.bmsp.repository.dto.HourlyTotalDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Read side of {@code transactions_archive}, mirroring the history views of
+ * {@link TransactionRepository}.
+ */
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+
+    String HISTORY_VIEW = "SELECT new com.bmsp.bmsp.dto.response.transaction.TransactionResponse(" +
+            "a.id, a.transactionId, a.accountNumber, a.type, a.amount, a.balanceAfter, " +
+            "a.description, a.transactionDate, a.referenceNumber, a.status) FROM ArchivedTransaction a ";
+
+    @Query("SELECT MAX(a.transactionDate) FROM ArchivedTransaction a")
+    Optional<LocalDateTime> findLatestTransactionDate();
+
+    @Query("SELECT MIN(a.transactionDate) FROM ArchivedTransaction a WHERE a.transactionDate >= :from")
+    Optional<LocalDateTime> findFirstTransactionDateFrom(@Param("from") LocalDateTime from);
+
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.HourlyTotalDTO(" +
+           "EXTRACT(YEAR FROM a.transactionDate), EXTRACT(MONTH FROM a.transactionDate), " +
+           "EXTRACT(DAY FROM a.transactionDate), EXTRACT(HOUR FROM a.transactionDate), " +
+           "a.type, COUNT(a), COALESCE(SUM(a.amount), 0)) FROM ArchivedTransaction a " +
+           "WHERE a.transactionDate >= :start AND a.transactionDate < :end " +
+           "GROUP BY EXTRACT(YEAR FROM a.transactionDate), EXTRACT(MONTH FROM a.transactionDate), " +
+           "EXTRACT(DAY FROM a.transactionDate), EXTRACT(HOUR FROM a.transactionDate), a.type")
+    List<HourlyTotalDTO> sumByHour(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query(HISTORY_VIEW + "WHERE a.accountNumber = :accountNumber ORDER BY a.transactionDate DESC, a.id DESC")
+    List<TransactionResponse> findHistoryView(@Param("accountNumber") String accountNumber);
+
+    @Query(HISTORY_VIEW + "WHERE a.accountNumber = :accountNumber AND " +
+           "a.transactionDate BETWEEN :startDate AND :endDate ORDER BY a.transactionDate DESC, a.id DESC")
+    List<TransactionResponse> findHistoryViewBetween(@Param("accountNumber") String accountNumber,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT COUNT(a) FROM ArchivedTransaction a WHERE a.accountNumber = :accountNumber")
+    long countByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query(HISTORY_VIEW + "WHERE a.accountNumber = :accountNumber ORDER BY a.transactionDate DESC, a.id DESC")
+    List<TransactionResponse> findHistoryFirstSlice(@Param("accountNumber") String accountNumber, Limit limit);
+
+    @Query(HISTORY_VIEW + "WHERE a.accountNumber = :accountNumber AND " +
+           "(a.transactionDate < :date OR (a.transactionDate = :date AND a.id < :id)) " +
+           "ORDER BY a.transactionDate DESC, a.id DESC")
+    List<TransactionResponse> findHistorySliceBefore(@Param("accountNumber") String accountNumber,
+                                                     @Param("date") LocalDateTime date,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(HISTORY_VIEW + "WHERE a.accountNumber = :accountNumber AND " +
+           "a.transactionDate BETWEEN :startDate AND :endDate ORDER BY a.transactionDate ASC, a.id ASC")
+    Stream<TransactionResponse> streamHistory(@Param("accountNumber") String accountNumber,
+                                              @Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate);
+
+    @Query(HISTORY_VIEW + "WHERE a.accountNumber = :accountNumber AND " +
+           "a.transactionDate >= :startDate AND a.transactionDate < :endDate " +
+           "ORDER BY a.transactionDate ASC, a.id ASC")
+    List<TransactionResponse> findStatementView(@Param("accountNumber") String accountNumber,
+                                                @Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT a.balanceAfter FROM ArchivedTransaction a WHERE a.accountNumber = :accountNumber AND " +
+           "a.transactionDate >= :from AND a.transactionDate < :until " +
+           "ORDER BY a.transactionDate DESC, a.id DESC")
+    List<BigDecimal> findLatestBalance(@Param("accountNumber") String accountNumber,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("until") LocalDateTime until,
+                                       Limit limit);
+
+    @Query(HISTORY_VIEW + "WHERE a.accountNumber = :accountNumber AND a.transactionDate >= :from " +
+           "ORDER BY a.transactionDate ASC, a.id ASC")
+    List<TransactionResponse> findFirstMovementFrom(@Param("accountNumber") String accountNumber,
+                                                    @Param("from") LocalDateTime from,
+                                                    Limit limit);
+}
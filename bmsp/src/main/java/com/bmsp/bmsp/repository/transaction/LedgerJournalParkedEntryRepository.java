@@ -0,0 +1,9 @@
+package com.bmsp.bmsp.repository.transaction;
+
+import com.bmsp.bmsp.model.transaction.LedgerJournalParkedEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerJournalParkedEntryRepository extends JpaRepository<LedgerJournalParkedEntry, Long> {
+}
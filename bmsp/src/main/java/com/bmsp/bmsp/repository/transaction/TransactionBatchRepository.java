@@ -0,0 +1,35 @@
+package com.bmsp.bmsp.repository.transaction;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC batch writes for bulk balance changes. Runs on the connection of
+ * the surrounding JPA transaction. On MySQL the driver only collapses a batch
+ * into multi-row statements when the URL sets {@code rewriteBatchedStatements=true}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchRepository {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String UPDATE_BALANCE =
+            "UPDATE accounts SET balance = ?, version = version + 1 WHERE account_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void updateBalances(Map<String, BigDecimal> balances) {
+        List<Map.Entry<String, BigDecimal>> rows = new ArrayList<>(balances.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setBigDecimal(1, row.getValue());
+            ps.setString(2, row.getKey());
+        });
+    }
+}
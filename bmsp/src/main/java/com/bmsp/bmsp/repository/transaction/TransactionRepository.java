@@ -1,19 +1,32 @@
 package com.bmsp.bmsp.repository.transaction;
 
+import com.bmsp.bmsp.dto.response.admin.TransactionAdminResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
 import com.bmsp.bmsp.model.account.Account;
 import com.bmsp.bmsp.model.transaction.Transaction;
 import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.dto.ClosingBalanceDTO;
+import com.bmsp.bmsp.repository.dto.HourlyTotalDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -22,16 +35,106 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByAccountAndTransactionDateBetweenOrderByTransactionDateDesc(
             Account account, LocalDateTime startDate, LocalDateTime endDate);
     boolean existsByReferenceNumber(String referenceNumber);
+
+    // Read-side projections: select only the response columns, no managed entities
+    String HISTORY_VIEW = "SELECT new com.bmsp.bmsp.dto.response.transaction.TransactionResponse(" +
+            "t.id, t.transactionId, t.account.accountNumber, t.type, t.amount, t.balanceAfter, " +
+            "t.description, t.transactionDate, t.referenceNumber, t.status) FROM Transaction t ";
+
+    @Query(HISTORY_VIEW + "WHERE t.account.accountNumber = :accountNumber ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findHistoryView(@Param("accountNumber") String accountNumber);
+
+    @Query(value = HISTORY_VIEW + "WHERE t.account.accountNumber = :accountNumber ORDER BY t.transactionDate DESC, t.id DESC",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.account.accountNumber = :accountNumber")
+    Page<TransactionResponse> findHistoryView(@Param("accountNumber") String accountNumber, Pageable pageable);
+
+    @Query(HISTORY_VIEW + "WHERE t.account.accountNumber = :accountNumber AND " +
+           "t.transactionDate BETWEEN :startDate AND :endDate ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findHistoryViewBetween(@Param("accountNumber") String accountNumber,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate);
+
+    // Keyset history, newest first; served by idx_transactions_account_date_id
+    @Query(HISTORY_VIEW + "WHERE t.account.accountNumber = :accountNumber " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findHistoryFirstSlice(@Param("accountNumber") String accountNumber, Limit limit);
+
+    @Query(HISTORY_VIEW + "WHERE t.account.accountNumber = :accountNumber AND " +
+           "(t.transactionDate < :date OR (t.transactionDate = :date AND t.id < :id)) " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findHistorySliceBefore(@Param("accountNumber") String accountNumber,
+                                                     @Param("date") LocalDateTime date,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    // Server-side cursor for exports; MySQL only streams with useCursorFetch=true on the JDBC URL
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.account = :account AND " +
+           "t.transactionDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY t.transactionDate ASC, t.id ASC")
+    Stream<Transaction> streamHistory(@Param("account") Account account,
+                                      @Param("startDate") LocalDateTime startDate,
+                                      @Param("endDate") LocalDateTime endDate);
+
+    // Statement rows, oldest first, end exclusive
+    @Query(HISTORY_VIEW + "WHERE t.account.accountNumber = :accountNumber AND " +
+           "t.transactionDate >= :startDate AND t.transactionDate < :endDate " +
+           "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<TransactionResponse> findStatementView(@Param("accountNumber") String accountNumber,
+                                                @Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+
+    // Balance after the last movement in [from, until); a single index seek
+    @Query("SELECT t.balanceAfter FROM Transaction t WHERE t.account.accountNumber = :accountNumber AND " +
+           "t.transactionDate >= :from AND t.transactionDate < :until " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<BigDecimal> findLatestBalance(@Param("accountNumber") String accountNumber,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("until") LocalDateTime until,
+                                       Limit limit);
+
+    List<Transaction> findByStatusOrderByTransactionDateAscIdAsc(String status, Limit limit);
+
+    List<Transaction> findByReferenceNumberAndStatus(String referenceNumber, String status);
+
+    // The account's movements after the given one, in the order they happened
+    @Query("SELECT t FROM Transaction t WHERE t.account.accountNumber = :accountNumber AND " +
+           "(t.transactionDate > :date OR (t.transactionDate = :date AND t.id > :id)) " +
+           "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<Transaction> findMovementsAfter(@Param("accountNumber") String accountNumber,
+                                         @Param("date") LocalDateTime date,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    @Query(HISTORY_VIEW + "WHERE t.account.accountNumber = :accountNumber AND t.transactionDate >= :from " +
+           "ORDER BY t.transactionDate ASC, t.id ASC")
+    List<TransactionResponse> findFirstMovementFrom(@Param("accountNumber") String accountNumber,
+                                                    @Param("from") LocalDateTime from,
+                                                    Limit limit);
+
+    // Last row of the day for every account that moved in [start, end)
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.ClosingBalanceDTO(t.account.accountNumber, t.balanceAfter) " +
+           "FROM Transaction t WHERE t.transactionDate >= :start AND t.transactionDate < :end AND NOT EXISTS (" +
+           "SELECT later.id FROM Transaction later WHERE later.account = t.account AND later.transactionDate < :end AND " +
+           "(later.transactionDate > t.transactionDate OR (later.transactionDate = t.transactionDate AND later.id > t.id)))")
+    List<ClosingBalanceDTO> findClosingBalances(@Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
     
     // Admin methods
-    @Query(value = "SELECT COALESCE(SUM(t.amount), 0) FROM transactions t WHERE DATE(t.transaction_date) = CURRENT_DATE", nativeQuery = true)
-    Optional<BigDecimal> sumTodayTransactions();
-    
-    @Query(value = "SELECT COALESCE(SUM(t.amount), 0) FROM transactions t WHERE t.transaction_date >= NOW() - INTERVAL 1 HOUR", nativeQuery = true)
-    Optional<BigDecimal> sumTransactionsLastHour();
-    
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.transactionDate >= :thirtyDaysAgo AND t.amount > 10000")
-    int countSuspiciousTransactionsLast30Days();
+    // A bare range on transaction_date, so MySQL prunes to today's partition;
+    // DATE(transaction_date) = CURRENT_DATE would have to read every partition
+    default Optional<BigDecimal> sumTodayTransactions() {
+        LocalDate today = LocalDate.now();
+        return sumAmountFrom(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+    }
+
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE " +
+           "t.transactionDate >= :startDate AND t.transactionDate < :endDate")
+    Optional<BigDecimal> sumAmountFrom(@Param("startDate") LocalDateTime startDate,
+                                       @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT t FROM Transaction t WHERE " +
            "(:type IS NULL OR t.type = :type) AND " +
@@ -42,68 +145,57 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
                                   @Param("startDate") LocalDateTime startDate,
                                   @Param("endDate") LocalDateTime endDate,
                                   Pageable pageable);
+
+    @Query(value = "SELECT new com.bmsp.bmsp.dto.response.admin.TransactionAdminResponse(" +
+           "t.id, t.account.accountNumber, t.type, t.amount, t.referenceNumber, t.description, " +
+           "t.transactionDate, t.balanceAfter) FROM Transaction t WHERE " +
+           "(:type IS NULL OR t.type = :type) AND " +
+           "(:startDate IS NULL OR t.transactionDate >= :startDate) AND " +
+           "(:endDate IS NULL OR t.transactionDate <= :endDate) " +
+           "ORDER BY t.transactionDate DESC",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE " +
+           "(:type IS NULL OR t.type = :type) AND " +
+           "(:startDate IS NULL OR t.transactionDate >= :startDate) AND " +
+           "(:endDate IS NULL OR t.transactionDate <= :endDate)")
+    Page<TransactionAdminResponse> findAdminViewByFilters(@Param("type") TransactionType type,
+                                                          @Param("startDate") LocalDateTime startDate,
+                                                          @Param("endDate") LocalDateTime endDate,
+                                                          Pageable pageable);
+
+    // Report rows behind a server-side cursor; same filters as findAdminViewByFilters
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.bmsp.bmsp.dto.response.admin.TransactionAdminResponse(" +
+           "t.id, t.account.accountNumber, t.type, t.amount, t.referenceNumber, t.description, " +
+           "t.transactionDate, t.balanceAfter) FROM Transaction t WHERE " +
+           "(:type IS NULL OR t.type = :type) AND " +
+           "(:startDate IS NULL OR t.transactionDate >= :startDate) AND " +
+           "(:endDate IS NULL OR t.transactionDate <= :endDate) " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    Stream<TransactionAdminResponse> streamReportRows(@Param("type") TransactionType type,
+                                                      @Param("startDate") LocalDateTime startDate,
+                                                      @Param("endDate") LocalDateTime endDate);
+
+    // (count, highest id) of the rows a report covers; moves whenever a row is added to or removed from the range
+    @Query("SELECT COUNT(t), COALESCE(MAX(t.id), 0) FROM Transaction t " +
+           "WHERE t.transactionDate BETWEEN :startDate AND :endDate")
+    List<Object[]> reportWatermark(@Param("startDate") LocalDateTime startDate,
+                                   @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE " +
-           "t.type IN ('INTEREST', 'FEE') AND " +
-           "t.transactionDate BETWEEN :startDate AND :endDate")
-    Optional<BigDecimal> calculateRevenue(@Param("startDate") LocalDateTime startDate, 
-                              @Param("endDate") LocalDateTime endDate);
-    
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE " +
-           "t.type = 'INTEREST' AND " +
-           "t.transactionDate BETWEEN :startDate AND :endDate")
-    Optional<BigDecimal> calculateInterestRevenue(@Param("startDate") LocalDateTime startDate, 
-                                      @Param("endDate") LocalDateTime endDate);
-    
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE " +
-           "t.type = 'FEE' AND " +
-           "t.transactionDate BETWEEN :startDate AND :endDate")
-    Optional<BigDecimal> calculateFeeRevenue(@Param("startDate") LocalDateTime startDate, 
-                                 @Param("endDate") LocalDateTime endDate);
-    
-    @Query("SELECT YEAR(t.transactionDate) as year, MONTH(t.transactionDate) as month, t.type, COALESCE(SUM(t.amount), 0) " +
-           "FROM Transaction t " +
-           "WHERE t.transactionDate BETWEEN :startDate AND :endDate " +
-           "GROUP BY YEAR(t.transactionDate), MONTH(t.transactionDate), t.type " +
-           "ORDER BY YEAR(t.transactionDate), MONTH(t.transactionDate)")
-    List<Object[]> getMonthlyRevenueBreakdown(@Param("startDate") LocalDateTime startDate, 
-                                            @Param("endDate") LocalDateTime endDate);
-    
-    @Query("SELECT COALESCE(AVG(t.amount), 0) FROM Transaction t WHERE " +
-           "t.transactionDate BETWEEN :startDate AND :endDate")
-    Optional<BigDecimal> findAverageTransactionValue(@Param("startDate") LocalDateTime startDate, 
-                                       @Param("endDate") LocalDateTime endDate);
-    
-    @Query(value = "SELECT EXTRACT(HOUR FROM t.transaction_date) as hour, COUNT(t) as count " +
-           "FROM transactions t " +
-           "WHERE t.transaction_date BETWEEN :startDate AND :endDate " +
-           "GROUP BY EXTRACT(HOUR FROM t.transaction_date) " +
-           "ORDER BY COUNT(t) DESC", nativeQuery = true)
-    List<Object[]> getPeakTransactionHour(@Param("startDate") LocalDateTime startDate, 
-                                        @Param("endDate") LocalDateTime endDate);
-    
-    @Query("SELECT t.type, COUNT(t) FROM Transaction t " +
-           "WHERE t.transactionDate BETWEEN :startDate AND :endDate " +
-           "GROUP BY t.type " +
-           "ORDER BY COUNT(t) DESC")
-    List<Object[]> getMostCommonTransactionType(@Param("startDate") LocalDateTime startDate, 
-                                              @Param("endDate") LocalDateTime endDate);
-    
-    @Query(value = "SELECT EXTRACT(HOUR FROM t.transaction_date) as hour, COUNT(t), COALESCE(SUM(t.amount), 0) " +
-           "FROM transactions t " +
-           "WHERE t.transaction_date BETWEEN :startDate AND :endDate " +
-           "GROUP BY EXTRACT(HOUR FROM t.transaction_date) " +
-           "ORDER BY EXTRACT(HOUR FROM t.transaction_date)", nativeQuery = true)
-    List<Object[]> getHourlyTransactionPatterns(@Param("startDate") LocalDateTime startDate, 
-                                              @Param("endDate") LocalDateTime endDate);
-    
-    @Query(value = "SELECT DAYOFWEEK(t.transaction_date) as day, COUNT(t), COALESCE(SUM(t.amount), 0) " +
-           "FROM transactions t " +
-           "WHERE t.transaction_date BETWEEN :startDate AND :endDate " +
-           "GROUP BY DAYOFWEEK(t.transaction_date) " +
-           "ORDER BY DAYOFWEEK(t.transaction_date)", nativeQuery = true)
-    List<Object[]> getWeeklyTransactionPatterns(@Param("startDate") LocalDateTime startDate, 
-                                              @Param("endDate") LocalDateTime endDate);
+    // Rows per hour and type in [start, end), for the rollup job and the live tail of rollup reads
+    @Query("SELECT new com.bmsp.bmsp.repository.dto.HourlyTotalDTO(" +
+           "EXTRACT(YEAR FROM t.transactionDate), EXTRACT(MONTH FROM t.transactionDate), " +
+           "EXTRACT(DAY FROM t.transactionDate), EXTRACT(HOUR FROM t.transactionDate), " +
+           "t.type, COUNT(t), COALESCE(SUM(t.amount), 0)) FROM Transaction t " +
+           "WHERE t.transactionDate >= :start AND t.transactionDate < :end " +
+           "GROUP BY EXTRACT(YEAR FROM t.transactionDate), EXTRACT(MONTH FROM t.transactionDate), " +
+           "EXTRACT(DAY FROM t.transactionDate), EXTRACT(HOUR FROM t.transactionDate), t.type")
+    List<HourlyTotalDTO> sumByHour(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t WHERE t.transactionDate >= :from")
+    Optional<LocalDateTime> findFirstTransactionDateFrom(@Param("from") LocalDateTime from);
     
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.transactionDate BETWEEN :startDate AND :endDate")
     Long countByTransactionDateBetween(@Param("startDate") LocalDateTime startDate, 
@@ -0,0 +1,34 @@
+package com.bmsp.bmsp.repository.transaction;
+
+import com.bmsp.bmsp.model.transaction.TransactionRollup;
+import com.bmsp.bmsp.model.transaction.TransactionRollup.Granularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads over {@code transaction_rollup}; each is a primary key range read
+ * whose size depends on the number of buckets, not of ledger rows.
+ */
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, TransactionRollup.Key> {
+
+    @Query("SELECT r FROM TransactionRollup r WHERE r.granularity = :granularity AND " +
+           "r.bucketStart >= :start AND r.bucketStart < :end")
+    List<TransactionRollup> findBuckets(@Param("granularity") Granularity granularity,
+                                        @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end);
+
+    // Hour of day, row count and amount of the hourly buckets in [start, end)
+    @Query("SELECT EXTRACT(HOUR FROM r.bucketStart), SUM(r.transactionCount), SUM(r.sumAmount) " +
+           "FROM TransactionRollup r WHERE r.granularity = :granularity AND " +
+           "r.bucketStart >= :start AND r.bucketStart < :end " +
+           "GROUP BY EXTRACT(HOUR FROM r.bucketStart)")
+    List<Object[]> sumByHourOfDay(@Param("granularity") Granularity granularity,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end);
+}
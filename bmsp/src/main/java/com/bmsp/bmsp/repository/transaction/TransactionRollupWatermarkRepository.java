@@ -0,0 +1,20 @@
+package com.bmsp.bmsp.repository.transaction;
+
+import com.bmsp.bmsp.model.transaction.TransactionRollupWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TransactionRollupWatermarkRepository extends JpaRepository<TransactionRollupWatermark, String> {
+
+    // Serialises rollup runs across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM TransactionRollupWatermark w WHERE w.name = :name")
+    Optional<TransactionRollupWatermark> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,193 @@
+package com.bmsp.bmsp.service.account;
+
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountStatus;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded, expiring cache of account snapshots keyed by account number, with
+ * an index of each user's account numbers.
+ *
+ * Mutations are written through once their transaction commits, replacing
+ * just the changed fields. Every write takes a stamp from a shared clock, and a
+ * snapshot loaded from the database is only installed when no write has
+ * touched the account since the load started, so a slow read can never put
+ * back a value older than a committed write. A write to an account that is
+ * not cached leaves a marker that serves that purpose. Changes made by other
+ * nodes are picked up when entries expire. Hits and misses are published as
+ * {@code bmsp.account.cache.*} metrics.
+ */
+@Component
+public class AccountCache {
+
+    private final AccountRepository accountRepository;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry<AccountSnapshot>> accounts = new ConcurrentHashMap<>();
+    private final Map<Long, Entry<List<String>>> userAccounts = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public AccountCache(AccountRepository accountRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.account-cache.ttl-seconds:60}") long ttlSeconds,
+                        @Value("${app.account-cache.max-size:10000}") int maxEntries) {
+        this.accountRepository = accountRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("bmsp.account.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("bmsp.account.cache.requests", "result", "miss");
+        Gauge.builder("bmsp.account.cache.size", accounts, Map::size).register(meterRegistry);
+        Gauge.builder("bmsp.account.cache.hit.ratio", this, AccountCache::hitRatio).register(meterRegistry);
+    }
+
+    public Optional<AccountSnapshot> get(String accountNumber) {
+        AccountSnapshot cached = live(accounts.get(accountNumber));
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        long started = clock.get();
+        Optional<AccountSnapshot> loaded = accountRepository.findById(accountNumber).map(AccountSnapshot::of);
+        loaded.ifPresent(snapshot -> install(accounts, accountNumber, snapshot, started));
+        return loaded;
+    }
+
+    public List<AccountSnapshot> getUserAccounts(User user) {
+        List<String> accountNumbers = live(userAccounts.get(user.getId()));
+        if (accountNumbers != null) {
+            List<AccountSnapshot> snapshots = new ArrayList<>(accountNumbers.size());
+            for (String accountNumber : accountNumbers) {
+                AccountSnapshot snapshot = live(accounts.get(accountNumber));
+                if (snapshot == null) {
+                    break;
+                }
+                snapshots.add(snapshot);
+            }
+            if (snapshots.size() == accountNumbers.size()) {
+                hits.increment();
+                return snapshots;
+            }
+        }
+        misses.increment();
+        long started = clock.get();
+        List<AccountSnapshot> snapshots = accountRepository.findByUser(user).stream()
+                .map(AccountSnapshot::of)
+                .toList();
+        snapshots.forEach(snapshot -> install(accounts, snapshot.accountNumber(), snapshot, started));
+        install(userAccounts, user.getId(), snapshots.stream().map(AccountSnapshot::accountNumber).toList(), started);
+        return snapshots;
+    }
+
+    public void balanceChanged(String accountNumber, BigDecimal balance) {
+        afterCommit(() -> update(accountNumber, snapshot -> snapshot.withBalance(balance)));
+    }
+
+    public void statusChanged(String accountNumber, AccountStatus status, LocalDateTime changedAt) {
+        afterCommit(() -> update(accountNumber, snapshot -> snapshot.withStatus(status, changedAt)));
+    }
+
+    public void accountCreated(Account account) {
+        AccountSnapshot created = AccountSnapshot.of(account);
+        afterCommit(() -> {
+            long stamp = clock.incrementAndGet();
+            accounts.put(created.accountNumber(), new Entry<>(created, stamp, expiry()));
+            userAccounts.compute(created.ownerId(), (ownerId, entry) -> {
+                List<String> current = live(entry);
+                if (current == null) {
+                    return new Entry<>(null, stamp, expiry());
+                }
+                List<String> extended = new ArrayList<>(current);
+                extended.add(created.accountNumber());
+                return new Entry<>(List.copyOf(extended), stamp, expiry());
+            });
+            evictIfFull();
+        });
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void update(String accountNumber, UnaryOperator<AccountSnapshot> change) {
+        long stamp = clock.incrementAndGet();
+        accounts.compute(accountNumber, (key, entry) -> {
+            AccountSnapshot current = live(entry);
+            return new Entry<>(current == null ? null : change.apply(current), stamp, expiry());
+        });
+        evictIfFull();
+    }
+
+    private <K, V> void install(Map<K, Entry<V>> map, K key, V value, long loadStarted) {
+        map.compute(key, (k, entry) -> entry != null && entry.stamp > loadStarted
+                ? entry
+                : new Entry<>(value, loadStarted, expiry()));
+        evictIfFull();
+    }
+
+    // Commit order is preserved for balances: the account stripes are only released
+    // in afterCompletion, which runs after every afterCommit callback
+    private static void afterCommit(Runnable write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write.run();
+            }
+        });
+    }
+
+    private void evictIfFull() {
+        evictIfFull(accounts);
+        evictIfFull(userAccounts);
+    }
+
+    private <K, V> void evictIfFull(Map<K, Entry<V>> map) {
+        if (map.size() <= maxEntries) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        map.values().removeIf(entry -> entry.expiresAtMillis <= now);
+        var iterator = map.values().iterator();
+        while (map.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private static <V> V live(Entry<V> entry) {
+        return entry == null || entry.expiresAtMillis <= System.currentTimeMillis() ? null : entry.value;
+    }
+
+    // A null value marks a write to something that was not cached
+    private record Entry<V>(V value, long stamp, long expiresAtMillis) {
+    }
+}
@@ -6,9 +6,13 @@ import com.bmsp.bmsp.dto.response.account.AccountResponse;
 import com.bmsp.bmsp.model.account.Account;
 import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.service.admin.SystemCounters;
 import com.bmsp.bmsp.service.kyc.KYCService;
+import com.bmsp.bmsp.service.transaction.shard.AccountShardEngine;
 import com.bmsp.bmsp.util.AccountNumberGenerator;
+import com.bmsp.bmsp.util.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.bmsp.bmsp.model.account.AccountStatus;
@@ -24,6 +28,9 @@ public class AccountServiceImpl implements AccountService {
     private final AccountRepository accountRepository;
     private final AccountNumberGenerator accountNumberGenerator;
     private final KYCService kycService;
+    private final ObjectProvider<AccountShardEngine> accountShards;
+    private final AccountCache accountCache;
+    private final SystemCounters systemCounters;
 
     @Override
     @Transactional
@@ -57,25 +64,29 @@ public class AccountServiceImpl implements AccountService {
         account.setOverdraftLimit(request.getOverdraftLimit());
 
         Account savedAccount = accountRepository.save(account);
+        systemCounters.created(SystemCounters.ACCOUNTS, savedAccount.getStatus());
+        accountCache.accountCreated(savedAccount);
         return mapToAccountResponse(savedAccount);
     }
 
     @Override
     public List<AccountResponse> getUserAccounts(User user) {
-        return accountRepository.findByUser(user).stream()
-                .map(this::mapToAccountResponse)
+        return accountCache.getUserAccounts(user).stream()
+                .map(AccountSnapshot::toResponse)
                 .collect(Collectors.toList());
     }
 
     @Override
     public AccountResponse getAccountDetails(String accountNumber, User user) {
-        Account account = accountRepository.findByAccountNumberAndUser(accountNumber, user)
+        return accountCache.get(accountNumber)
+                .filter(account -> account.ownerId().equals(user.getId()))
+                .map(AccountSnapshot::toResponse)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
-        return mapToAccountResponse(account);
     }
 
     @Override
     @Transactional
+    @OptimisticRetry
     public void deleteAccount(String accountNumber, User user) {
         Account account = accountRepository.findByAccountNumberAndUser(accountNumber, user)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
@@ -84,9 +95,12 @@ public class AccountServiceImpl implements AccountService {
             throw new RuntimeException("Account has balance and cannot be closed");
         }
         
+        systemCounters.statusChanged(SystemCounters.ACCOUNTS, account.getStatus(), AccountStatus.CLOSED);
         account.setStatus(AccountStatus.CLOSED);
         account.setUpdatedAt(LocalDateTime.now());
         accountRepository.save(account);
+        accountCache.statusChanged(accountNumber, AccountStatus.CLOSED, account.getUpdatedAt());
+        accountShards.ifAvailable(shards -> shards.refreshAfterCommit(accountNumber));
     }
 
     private AccountResponse mapToAccountResponse(Account account) {
@@ -0,0 +1,53 @@
+package com.bmsp.bmsp.service.account;
+
+import com.bmsp.bmsp.dto.response.account.AccountResponse;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountStatus;
+import com.bmsp.bmsp.model.account.AccountType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of an account row as held by {@link AccountCache}.
+ */
+public record AccountSnapshot(String accountNumber, Long ownerId, AccountType accountType, AccountStatus status,
+                              BigDecimal balance, LocalDateTime createdAt, LocalDateTime updatedAt,
+                              String branchCode, String branchName, String ifscCode, BigDecimal minimumBalance,
+                              BigDecimal interestRate, boolean allowOverdraft, BigDecimal overdraftLimit) {
+
+    public static AccountSnapshot of(Account account) {
+        return new AccountSnapshot(account.getAccountNumber(), account.getUser().getId(), account.getAccountType(),
+                account.getStatus(), account.getBalance(), account.getCreatedAt(), account.getUpdatedAt(),
+                account.getBranchCode(), account.getBranchName(), account.getIfscCode(), account.getMinimumBalance(),
+                account.getInterestRate(), account.isAllowOverdraft(), account.getOverdraftLimit());
+    }
+
+    AccountSnapshot withBalance(BigDecimal newBalance) {
+        return new AccountSnapshot(accountNumber, ownerId, accountType, status, newBalance, createdAt, updatedAt,
+                branchCode, branchName, ifscCode, minimumBalance, interestRate, allowOverdraft, overdraftLimit);
+    }
+
+    AccountSnapshot withStatus(AccountStatus newStatus, LocalDateTime changedAt) {
+        return new AccountSnapshot(accountNumber, ownerId, accountType, newStatus, balance, createdAt, changedAt,
+                branchCode, branchName, ifscCode, minimumBalance, interestRate, allowOverdraft, overdraftLimit);
+    }
+
+    public AccountResponse toResponse() {
+        AccountResponse response = new AccountResponse();
+        response.setAccountNumber(accountNumber);
+        response.setAccountType(accountType);
+        response.setStatus(status);
+        response.setBalance(balance);
+        response.setCreatedAt(createdAt);
+        response.setUpdatedAt(updatedAt);
+        response.setBranchCode(branchCode);
+        response.setBranchName(branchName);
+        response.setIfscCode(ifscCode);
+        response.setMinimumBalance(minimumBalance);
+        response.setInterestRate(interestRate);
+        response.setAllowOverdraft(allowOverdraft);
+        response.setOverdraftLimit(overdraftLimit);
+        return response;
+    }
+}
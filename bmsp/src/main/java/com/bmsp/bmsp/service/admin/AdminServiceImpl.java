@@ -8,14 +8,19 @@ import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.model.auth.UserStatus;
 
 import com.bmsp.bmsp.model.loan.LoanStatus;
-import com.bmsp.bmsp.model.transaction.Transaction;
 import com.bmsp.bmsp.model.transaction.TransactionType;
 import com.bmsp.bmsp.repository.account.AccountRepository;
 import com.bmsp.bmsp.repository.audit.AuditLogRepository;
 import com.bmsp.bmsp.repository.loan.LoanRepository;
 import com.bmsp.bmsp.repository.transaction.TransactionRepository;
 import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.service.account.AccountCache;
+import com.bmsp.bmsp.service.loan.LoanPortfolioStats;
+import com.bmsp.bmsp.service.transaction.rollup.TransactionRollups;
+import com.bmsp.bmsp.service.transaction.shard.AccountShardEngine;
+import com.bmsp.bmsp.util.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,11 +28,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,35 +44,35 @@ public class AdminServiceImpl implements AdminService {
     private final AccountRepository accountRepository;
     private final LoanRepository loanRepository;
     private final AuditLogRepository auditLogRepository;
+    private final ObjectProvider<AccountShardEngine> accountShards;
+    private final AccountCache accountCache;
+    private final TransactionRollups transactionRollups;
+    private final SystemCounters systemCounters;
+    private final ParallelQueries parallelQueries;
+    private final LoanPortfolioStats loanPortfolioStats;
 
     @Override
     public AdminDashboardStats getDashboardStats() {
-        long totalUsers = userRepository.count();
-        long activeUsers = userRepository.countByStatus(UserStatus.ACTIVE);
-        long totalAccounts = accountRepository.count();
-        long activeAccounts = accountRepository.countByStatus(AccountStatus.ACTIVE);
-        
-        // Fixed: Properly handle Optional return values
-        BigDecimal totalBalance = accountRepository.sumTotalBalance();
-        BigDecimal todayTransactionVolume = transactionRepository.sumTodayTransactions().orElse(BigDecimal.ZERO);
-        
-        long pendingLoans = loanRepository.countByStatus(LoanStatus.PENDING);
+        // Counts and today's volume come from the materialized counters and loan figures from memory;
+        // the balance sum runs alongside
+        LoanPortfolioStats.Snapshot loans = loanPortfolioStats.snapshot();
+        try (ParallelQueries.Scope queries = parallelQueries.open()) {
+            Future<SystemCounters.Counts> counts = queries.fork(systemCounters::read);
+            Future<BigDecimal> totalBalance = queries.fork(accountRepository::sumTotalBalance);
 
-        // Fixed: Handle Optional return values from loan repository
-        BigDecimal totalLoanAmount = loanRepository.sumTotalLoanAmount().orElse(BigDecimal.ZERO);
-        BigDecimal totalOutstandingAmount = loanRepository.sumOutstandingAmount().orElse(BigDecimal.ZERO);
-
-        return AdminDashboardStats.builder()
-                .totalUsers(totalUsers)
-                .activeUsers(activeUsers)
-                .totalAccounts(totalAccounts)
-                .activeAccounts(activeAccounts)
-                .totalBalance(totalBalance)
-                .todayTransactionVolume(todayTransactionVolume)
-                .pendingLoans(pendingLoans)
-                .totalLoanAmount(totalLoanAmount)
-                .totalOutstandingAmount(totalOutstandingAmount)
-                .build();
+            SystemCounters.Counts counters = queries.join(counts);
+            return AdminDashboardStats.builder()
+                    .totalUsers(counters.total(SystemCounters.USERS))
+                    .activeUsers(counters.count(SystemCounters.USERS, UserStatus.ACTIVE))
+                    .totalAccounts(counters.total(SystemCounters.ACCOUNTS))
+                    .activeAccounts(counters.count(SystemCounters.ACCOUNTS, AccountStatus.ACTIVE))
+                    .totalBalance(queries.join(totalBalance))
+                    .todayTransactionVolume(counters.volume(LocalDate.now()))
+                    .pendingLoans(loans.count(LoanStatus.PENDING))
+                    .totalLoanAmount(loans.totalLoanAmount())
+                    .totalOutstandingAmount(loans.outstandingAmount())
+                    .build();
+        }
     }
 
     @Override
@@ -127,6 +132,7 @@ public class AdminServiceImpl implements AdminService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
+        systemCounters.statusChanged(SystemCounters.USERS, user.getStatus(), request.getStatus());
         user.setStatus(request.getStatus());
         if (request.getStatus() == UserStatus.SUSPENDED) {
             user.setSuspensionReason(request.getReason());
@@ -148,6 +154,7 @@ public class AdminServiceImpl implements AdminService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<TransactionAdminResponse> getAllTransactions(int page, int size, String type, LocalDate startDate, LocalDate endDate) {
         Pageable pageable = PageRequest.of(page, size);
         TransactionType transactionType = null;
@@ -162,63 +169,39 @@ public class AdminServiceImpl implements AdminService {
         LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
         LocalDateTime endDateTime = endDate != null ? endDate.atTime(23, 59, 59) : null;
 
-        Page<Transaction> transactions = transactionRepository.findByFilters(
+        return transactionRepository.findAdminViewByFilters(
             transactionType, startDateTime, endDateTime, pageable);
-        
-        return transactions.map(this::mapToTransactionAdminResponse);
     }
 
     @Override
     public LoanStatsResponse getLoanStatistics() {
-        long totalLoans = loanRepository.count();
-        long pendingLoans = loanRepository.countByStatus(LoanStatus.PENDING);
-        long approvedLoans = loanRepository.countByStatus(LoanStatus.APPROVED);
-        long disbursedLoans = loanRepository.countByStatus(LoanStatus.DISBURSED);
-        long rejectedLoans = loanRepository.countByStatus(LoanStatus.REJECTED);
-        long closedLoans = loanRepository.countByStatus(LoanStatus.CLOSED);
-        long defaultedLoans = loanRepository.countByStatus(LoanStatus.DEFAULTED);
-        
-        // Fixed: Properly handle Optional return values
-        BigDecimal totalLoanAmount = loanRepository.sumTotalLoanAmount().orElse(BigDecimal.ZERO);
-        BigDecimal totalOutstandingAmount = loanRepository.sumOutstandingAmount().orElse(BigDecimal.ZERO);
-        BigDecimal defaultedAmount = loanRepository.sumDefaultedAmount().orElse(BigDecimal.ZERO);
-        BigDecimal recoveredAmount = loanRepository.sumRecoveredAmount();
+        // Kept in memory per status and reconciled with the loans table in the background
+        LoanPortfolioStats.Snapshot loans = loanPortfolioStats.snapshot();
 
         return LoanStatsResponse.builder()
-                .totalLoans(totalLoans)
-                .pendingLoans(pendingLoans)
-                .approvedLoans(approvedLoans)
-                .disbursedLoans(disbursedLoans)
-                .rejectedLoans(rejectedLoans)
-                .closedLoans(closedLoans)
-                .defaultedLoans(defaultedLoans)
-                .totalLoanAmount(totalLoanAmount)
-                .totalOutstandingAmount(totalOutstandingAmount)
-                .defaultedAmount(defaultedAmount)
-                .recoveredAmount(recoveredAmount)
+                .totalLoans(loans.totalLoans())
+                .pendingLoans(loans.count(LoanStatus.PENDING))
+                .approvedLoans(loans.count(LoanStatus.APPROVED))
+                .disbursedLoans(loans.count(LoanStatus.DISBURSED))
+                .rejectedLoans(loans.count(LoanStatus.REJECTED))
+                .closedLoans(loans.count(LoanStatus.CLOSED))
+                .defaultedLoans(loans.count(LoanStatus.DEFAULTED))
+                .totalLoanAmount(loans.totalLoanAmount())
+                .totalOutstandingAmount(loans.outstandingAmount())
+                .defaultedAmount(loans.defaultedAmount())
+                .recoveredAmount(loans.recoveredAmount())
                 .build();
     }
 
     @Override
     public TransactionAnalyticsResponse getTransactionAnalytics(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        Long totalTransactions = transactionRepository.countByTransactionDateBetween(startDateTime, endDateTime);
-        
-        // Fixed: Properly handle Optional return values
-        BigDecimal totalAmount = transactionRepository.sumAmountByTransactionDateBetween(startDateTime, endDateTime)
-                .orElse(BigDecimal.ZERO);
-        
-        BigDecimal averageTransaction = totalTransactions > 0 ? 
-                totalAmount.divide(BigDecimal.valueOf(totalTransactions), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+        // Rollup buckets plus the live tail, so the cost does not grow with the range
+        TransactionRollups.Summary summary = transactionRollups.summarize(startDate, endDate);
         
-        // Find peak hour by counting transactions per hour
-        Integer peakHour = 12; // Default value
-        List<Object[]> peakHourResults = transactionRepository.getPeakTransactionHour(startDateTime, endDateTime);
-        if (!peakHourResults.isEmpty()) {
-            peakHour = ((Number) peakHourResults.get(0)[0]).intValue();
-        }
+        Long totalTransactions = summary.count();
+        BigDecimal totalAmount = summary.amount();
+        BigDecimal averageTransaction = summary.averageAmount();
+        Integer peakHour = summary.peakHour().orElse(12); // Default value
 
         return TransactionAnalyticsResponse.builder()
                 .totalTransactions(totalTransactions)
@@ -247,6 +230,7 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     @Transactional
+    @OptimisticRetry
     public BulkOperationResponse bulkUpdateAccountStatus(List<String> accountNumbers, String status) {
         int totalProcessed = accountNumbers.size();
         int successCount = 0;
@@ -264,8 +248,11 @@ public class AdminServiceImpl implements AdminService {
                 Optional<Account> accountOpt = accountRepository.findById(accountNumber);
                 if (accountOpt.isPresent()) {
                     Account account = accountOpt.get();
+                    systemCounters.statusChanged(SystemCounters.ACCOUNTS, account.getStatus(), accountStatus);
                     account.setStatus(accountStatus);
                     accountRepository.save(account);
+                    accountCache.statusChanged(accountNumber, accountStatus, account.getUpdatedAt());
+                    accountShards.ifAvailable(shards -> shards.refreshAfterCommit(accountNumber));
                     successCount++;
                 } else {
                     failureCount++;
@@ -340,17 +327,4 @@ public class AdminServiceImpl implements AdminService {
                 .lastLogin(user.getLastLogin())
                 .build();
     }
-
-    private TransactionAdminResponse mapToTransactionAdminResponse(Transaction transaction) {
-        return TransactionAdminResponse.builder()
-                .id(transaction.getId())
-                .accountNumber(transaction.getAccount().getAccountNumber())
-                .type(transaction.getType())
-                .amount(transaction.getAmount())
-                .referenceNumber(transaction.getReferenceNumber())
-                .description(transaction.getDescription())
-                .transactionDate(transaction.getTransactionDate())
-                .balanceAfter(transaction.getBalanceAfter())
-                .build();
-    }
 }
\ No newline at end of file
@@ -1,52 +1,64 @@
 package com.bmsp.bmsp.service.admin;
 
 import com.bmsp.bmsp.dto.response.analytics.*;
-import com.bmsp.bmsp.model.loan.LoanStatus;
-import com.bmsp.bmsp.repository.loan.LoanRepository;
-import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.model.loan.LoanType;
+import com.bmsp.bmsp.model.transaction.TransactionType;
 import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.dto.GeographicDistributionDTO;
+import com.bmsp.bmsp.service.analytics.AnalyticsEngine;
+import com.bmsp.bmsp.service.analytics.RangeAnalytics;
+import com.bmsp.bmsp.service.metrics.LiveMetrics;
+import com.bmsp.bmsp.service.transaction.rollup.TransactionRollups;
+import com.bmsp.bmsp.service.transaction.velocity.VelocityEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsServiceImpl implements AnalyticsService {
 
-    private final TransactionRepository transactionRepository;
+    private static final DateTimeFormatter LONG_MONTH = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter SHORT_MONTH = DateTimeFormatter.ofPattern("MMM yyyy", Locale.ENGLISH);
+
     private final UserRepository userRepository;
-    private final LoanRepository loanRepository;
+    private final AnalyticsEngine analyticsEngine;
+    private final VelocityEngine velocityEngine;
+    private final LiveMetrics liveMetrics;
+    private final TransactionRollups transactionRollups;
 
     @Override
     public RevenueAnalyticsResponse getRevenueAnalytics(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        Optional<BigDecimal> totalRevenueOpt = transactionRepository.calculateRevenue(startDateTime, endDateTime);
-        Optional<BigDecimal> interestRevenueOpt = transactionRepository.calculateInterestRevenue(startDateTime, endDateTime);
-        Optional<BigDecimal> feeRevenueOpt = transactionRepository.calculateFeeRevenue(startDateTime, endDateTime);
-        
-        BigDecimal totalRevenue = totalRevenueOpt.orElse(BigDecimal.ZERO);
-        BigDecimal interestRevenue = interestRevenueOpt.orElse(BigDecimal.ZERO);
-        BigDecimal feeRevenue = feeRevenueOpt.orElse(BigDecimal.ZERO);
+        // Income is what the income accounts were credited with, per day and month of the range
+        RangeAnalytics analytics = analyticsEngine.analyze(startDate, endDate);
+        TransactionRollups.Summary summary = transactionRollups.summarize(startDate, endDate);
+        BigDecimal interestRevenue = analytics.interestIncome();
+        BigDecimal feeRevenue = analytics.feeIncome();
+        BigDecimal totalRevenue = interestRevenue.add(feeRevenue);
         
         List<RevenueAnalyticsResponse.MonthlyRevenue> monthlyBreakdown = new ArrayList<>();
-        
-        monthlyBreakdown.add(RevenueAnalyticsResponse.MonthlyRevenue.builder()
-                .month("January 2024")
-                .revenue(new BigDecimal("15000.00"))
-                .build());
-        monthlyBreakdown.add(RevenueAnalyticsResponse.MonthlyRevenue.builder()
-                .month("February 2024")
-                .revenue(new BigDecimal("18000.00"))
-                .build());
+        for (int month = 0; month < analytics.months(); month++) {
+            // Fees are ledger rows of their own and come from the rollups; loan interest only exists as postings
+            YearMonth yearMonth = analytics.month(month);
+            monthlyBreakdown.add(RevenueAnalyticsResponse.MonthlyRevenue.builder()
+                    .month(yearMonth.format(LONG_MONTH))
+                    .revenue(analytics.interestIncome(month)
+                            .add(summary.amountIn(yearMonth, TransactionType.FEE_CHARGE)))
+                    .build());
+        }
         
         return RevenueAnalyticsResponse.builder()
                 .totalRevenue(totalRevenue)
@@ -58,26 +70,23 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     @Override
     public CustomerGrowthAnalyticsResponse getCustomerGrowthAnalytics(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        RangeAnalytics analytics = analyticsEngine.analyze(startDate, endDate);
         
         long totalCustomers = userRepository.count();
-        long newCustomers = userRepository.countByCreatedAtBetween(startDateTime, endDateTime);
+        long newCustomers = analytics.newCustomers();
         long activeCustomers = userRepository.countByLastLoginAfter(LocalDateTime.now().minusMonths(1));
         
         List<CustomerGrowthAnalyticsResponse.MonthlyGrowth> monthlyGrowth = new ArrayList<>();
-        monthlyGrowth.add(CustomerGrowthAnalyticsResponse.MonthlyGrowth.builder()
-                .month("Jan 2024")
-                .newCustomers(150L)
-                .churnedCustomers(20L)
-                .netGrowth(130L)
-                .build());
-        monthlyGrowth.add(CustomerGrowthAnalyticsResponse.MonthlyGrowth.builder()
-                .month("Feb 2024")
-                .newCustomers(180L)
-                .churnedCustomers(15L)
-                .netGrowth(165L)
-                .build());
+        for (int month = 0; month < analytics.months(); month++) {
+            long joined = analytics.newCustomers(month);
+            long churned = analytics.churnedCustomers(month);
+            monthlyGrowth.add(CustomerGrowthAnalyticsResponse.MonthlyGrowth.builder()
+                    .month(analytics.month(month).format(SHORT_MONTH))
+                    .newCustomers(joined)
+                    .churnedCustomers(churned)
+                    .netGrowth(joined - churned)
+                    .build());
+        }
         
         return CustomerGrowthAnalyticsResponse.builder()
                 .totalCustomers(totalCustomers)
@@ -89,61 +98,50 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     @Override
     public LoanPerformanceAnalyticsResponse getLoanPerformanceAnalytics(LocalDate startDate, LocalDate endDate) {
-        BigDecimal totalPortfolio = new BigDecimal("5000000.00");
-        BigDecimal averageLoanSize = new BigDecimal("25000.00");
-        BigDecimal defaultRate = calculateDefaultRate();
-        BigDecimal recoveryRate = calculateRecoveryRate();
+        RangeAnalytics analytics = analyticsEngine.analyze(startDate, endDate);
         
         List<LoanPerformanceAnalyticsResponse.LoanTypePerformance> performanceByType = new ArrayList<>();
-        performanceByType.add(LoanPerformanceAnalyticsResponse.LoanTypePerformance.builder()
-                .loanType("PERSONAL")
-                .totalLoans(150L)
-                .totalAmount(new BigDecimal("750000.00"))
-                .defaultRate(new BigDecimal("2.5"))
-                .build());
-        performanceByType.add(LoanPerformanceAnalyticsResponse.LoanTypePerformance.builder()
-                .loanType("HOME")
-                .totalLoans(80L)
-                .totalAmount(new BigDecimal("2000000.00"))
-                .defaultRate(new BigDecimal("1.2"))
-                .build());
+        for (LoanType loanType : LoanType.values()) {
+            performanceByType.add(LoanPerformanceAnalyticsResponse.LoanTypePerformance.builder()
+                    .loanType(loanType.name())
+                    .totalLoans(analytics.loansLent(loanType))
+                    .totalAmount(analytics.amountLent(loanType))
+                    .defaultRate(analytics.defaultRate(loanType))
+                    .build());
+        }
         
         return LoanPerformanceAnalyticsResponse.builder()
-                .totalPortfolio(totalPortfolio)
-                .averageLoanSize(averageLoanSize)
-                .defaultRate(defaultRate)
-                .recoveryRate(recoveryRate)
+                .totalPortfolio(analytics.amountLent())
+                .averageLoanSize(analytics.averageLoanSize())
+                .defaultRate(analytics.defaultRate())
+                .recoveryRate(analytics.recoveryRate())
                 .performanceByType(performanceByType)
                 .build();
     }
 
     @Override
     public TransactionPatternAnalyticsResponse getTransactionPatternAnalytics(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        Optional<BigDecimal> avgTransactionValueOpt = transactionRepository.findAverageTransactionValue(startDateTime, endDateTime);
-        BigDecimal averageTransactionValue = avgTransactionValueOpt.orElse(BigDecimal.ZERO);
+        TransactionRollups.Summary summary = transactionRollups.summarize(startDate, endDate);
         
-        Integer peakHour = 12;
-        String mostCommonType = "TRANSFER";
+        BigDecimal averageTransactionValue = summary.averageAmount();
+        Integer peakHour = summary.peakHour().orElse(12);
+        String mostCommonType = summary.mostCommonType().map(Enum::name).orElse(null);
         
         List<TransactionPatternAnalyticsResponse.HourlyPattern> hourlyPatterns = new ArrayList<>();
-        for (int i = 9; i <= 17; i++) {
+        for (int hour = 0; hour < 24; hour++) {
             hourlyPatterns.add(TransactionPatternAnalyticsResponse.HourlyPattern.builder()
-                    .hour(i)
-                    .transactionCount(100L + i * 10L)
-                    .totalAmount(new BigDecimal(5000 + i * 1000))
+                    .hour(hour)
+                    .transactionCount(summary.countAtHour(hour))
+                    .totalAmount(summary.amountAtHour(hour))
                     .build());
         }
         
         List<TransactionPatternAnalyticsResponse.WeeklyPattern> weeklyPatterns = new ArrayList<>();
-        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        for (int i = 0; i < days.length; i++) {
+        for (DayOfWeek day : DayOfWeek.values()) {
             weeklyPatterns.add(TransactionPatternAnalyticsResponse.WeeklyPattern.builder()
-                    .dayOfWeek(days[i])
-                    .transactionCount(500L + i * 50L)
-                    .totalAmount(new BigDecimal(25000 + i * 5000))
+                    .dayOfWeek(day.getDisplayName(TextStyle.FULL, Locale.ENGLISH))
+                    .transactionCount(summary.countOn(day))
+                    .totalAmount(summary.amountOn(day))
                     .build());
         }
         
@@ -159,21 +157,13 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     @Override
     public List<GeographicDistributionResponse> getGeographicDistribution() {
         List<GeographicDistributionResponse> distribution = new ArrayList<>();
-        distribution.add(GeographicDistributionResponse.builder()
-                .region("North America")
-                .customerCount(1500L)
-                .totalBalance(new BigDecimal("25000000.00"))
-                .build());
-        distribution.add(GeographicDistributionResponse.builder()
-                .region("Europe")
-                .customerCount(1200L)
-                .totalBalance(new BigDecimal("18000000.00"))
-                .build());
-        distribution.add(GeographicDistributionResponse.builder()
-                .region("Asia")
-                .customerCount(2000L)
-                .totalBalance(new BigDecimal("30000000.00"))
-                .build());
+        for (GeographicDistributionDTO city : userRepository.getGeographicDistribution()) {
+            distribution.add(GeographicDistributionResponse.builder()
+                    .region(region(city))
+                    .customerCount(city.getUserCount())
+                    .totalBalance(city.getTotalBalance())
+                    .build());
+        }
         
         return distribution;
     }
@@ -181,21 +171,19 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     @Override
     public RiskAssessmentResponse getRiskAssessment() {
         int highRiskAccounts = (int) userRepository.countByRiskScoreGreaterThan(80);
-        int suspiciousTransactions = transactionRepository.countSuspiciousTransactionsLast30Days();
-        
-        BigDecimal potentialExposure = new BigDecimal("500000.00");
-        
+        int suspiciousTransactions = (int) velocityEngine.suspiciousCount();
+
+        // Rule hits of the last 30 days as seen by this node's velocity engine
+        BigDecimal potentialExposure = BigDecimal.ZERO;
         List<RiskAssessmentResponse.RiskFactor> topRiskFactors = new ArrayList<>();
-        topRiskFactors.add(RiskAssessmentResponse.RiskFactor.builder()
-                .factor("High transaction frequency")
-                .count(45)
-                .exposure(new BigDecimal("120000.00"))
-                .build());
-        topRiskFactors.add(RiskAssessmentResponse.RiskFactor.builder()
-                .factor("Large cash withdrawals")
-                .count(32)
-                .exposure(new BigDecimal("85000.00"))
-                .build());
+        for (VelocityEngine.RuleHits hits : velocityEngine.ruleHits()) {
+            potentialExposure = potentialExposure.add(hits.exposure());
+            topRiskFactors.add(RiskAssessmentResponse.RiskFactor.builder()
+                    .factor(hits.rule())
+                    .count((int) hits.count())
+                    .exposure(hits.exposure())
+                    .build());
+        }
         
         BigDecimal overallRiskScore = calculateOverallRiskScore(highRiskAccounts, suspiciousTransactions, potentialExposure);
         
@@ -210,50 +198,38 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     @Override
     public RealTimeMetricsResponse getRealTimeMetrics() {
-        LocalDateTime oneHourAgo = LocalDateTime.now().minusHours(1);
-        LocalDateTime thirtyMinutesAgo = LocalDateTime.now().minusMinutes(30);
-        
-        int activeSessions = userRepository.countActiveSessions(thirtyMinutesAgo);
-        
-        Optional<BigDecimal> transactionsLastHourOpt = transactionRepository.sumTransactionsLastHour();
-        BigDecimal transactionsLastHour = transactionsLastHourOpt.orElse(BigDecimal.ZERO);
-        
-        int newUsersLastHour = userRepository.countByCreatedAtAfter(oneHourAgo);
-        BigDecimal systemUptime = BigDecimal.valueOf(99.95);
-        int responseTimeMs = 150;
+        // Answered from this node's in-memory buckets; nothing is read from the database
+        LiveMetrics.Snapshot metrics = liveMetrics.snapshot();
+
+        Map<String, Long> countByType = new LinkedHashMap<>();
+        metrics.countByTypeLastHour().forEach((type, count) -> countByType.put(type.name(), count));
+        Map<String, BigDecimal> amountByType = new LinkedHashMap<>();
+        metrics.amountByTypeLastHour().forEach((type, amount) -> amountByType.put(type.name(), amount));
 
         return RealTimeMetricsResponse.builder()
-                .activeSessions(activeSessions)
-                .transactionsLastHour(transactionsLastHour)
-                .newUsersLastHour(newUsersLastHour)
-                .systemUptime(systemUptime)
-                .responseTimeMs(responseTimeMs)
+                .activeSessions(metrics.activeSessions())
+                .transactionsLastHour(metrics.amountLastHour())
+                .transactionCountLastHour(metrics.transactionsLastHour())
+                .transactionCountByType(countByType)
+                .transactionAmountByType(amountByType)
+                .transactionsPerSecond(metrics.transactionsPerSecond())
+                .newUsersLastHour((int) metrics.newUsersLastHour())
+                .systemUptime(metrics.availabilityPercent())
+                .uptimeSeconds(metrics.uptimeSeconds())
+                .responseTimeMs(metrics.p50LatencyMs().setScale(0, RoundingMode.CEILING).intValue())
+                .p50ResponseTimeMs(metrics.p50LatencyMs())
+                .p99ResponseTimeMs(metrics.p99LatencyMs())
                 .build();
     }
 
-    private BigDecimal calculateDefaultRate() {
-        long defaultedLoans = loanRepository.countByStatus(LoanStatus.DEFAULTED);
-        long totalDisbursedLoans = loanRepository.countByStatus(LoanStatus.DISBURSED);
-        
-        if (totalDisbursedLoans == 0) {
-            return BigDecimal.ZERO;
+    private static String region(GeographicDistributionDTO city) {
+        if (city.getCity() == null && city.getState() == null) {
+            return "Unknown";
         }
-        
-        return BigDecimal.valueOf(defaultedLoans)
-                .divide(BigDecimal.valueOf(totalDisbursedLoans), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-    }
-
-    private BigDecimal calculateRecoveryRate() {
-        BigDecimal totalRecovered = new BigDecimal("50000.00");
-        BigDecimal totalDefaulted = new BigDecimal("75000.00");
-        
-        if (totalDefaulted.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ZERO;
+        if (city.getCity() == null || city.getState() == null) {
+            return city.getCity() != null ? city.getCity() : city.getState();
         }
-        
-        return totalRecovered.divide(totalDefaulted, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+        return city.getCity() + ", " + city.getState();
     }
 
     private BigDecimal calculateOverallRiskScore(int highRiskAccounts, int suspiciousTransactions, BigDecimal potentialExposure) {
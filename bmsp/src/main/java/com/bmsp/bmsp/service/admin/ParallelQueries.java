@@ -0,0 +1,72 @@
+package com.bmsp.bmsp.service.admin;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the independent queries of one admin request concurrently, each on
+ * its own virtual thread, so the request takes as long as its slowest query
+ * rather than the sum of them. All queries of a request share one deadline;
+ * past it the request fails and the queries still running are interrupted.
+ */
+@Component
+public class ParallelQueries {
+
+    private final long timeoutMillis;
+
+    public ParallelQueries(@Value("${app.admin.query-timeout-ms:5000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Starts the deadline of a request; close the scope once its results are in.
+     */
+    public Scope open() {
+        return new Scope(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final ExecutorService executor =
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("admin-query-", 0).factory());
+        private final long deadline;
+
+        private Scope(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public <T> Future<T> fork(Callable<T> query) {
+            return executor.submit(query);
+        }
+
+        public <T> T join(Future<T> query) {
+            try {
+                return query.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new QueryTimeoutException("Admin queries did not complete within " + timeoutMillis + " ms");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Admin query failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for admin queries", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+}
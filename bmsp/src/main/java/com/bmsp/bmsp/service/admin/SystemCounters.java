@@ -0,0 +1,200 @@
+package com.bmsp.bmsp.service.admin;
+
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.admin.SystemCounterRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Materialized counts of users and accounts, in total and per status, and
+ * the transaction volume of each day, kept in {@code system_counters} so the
+ * dashboard reads them in one query instead of counting and summing the
+ * tables.
+ *
+ * The services report every row they create and every status they change,
+ * and the ledger writers every transaction row they insert; the counters are
+ * updated in the same database transaction. Each update
+ * goes to a random slot of the counters so concurrent changes rarely wait on
+ * the same row. Anything written around the services, such as scripts or
+ * restored data, is corrected by a periodic reconciliation against the tables.
+ */
+@Slf4j
+@Component
+public class SystemCounters {
+
+    public static final String USERS = "users";
+    public static final String ACCOUNTS = "accounts";
+
+    private static final String RECONCILE_LOCK = "reconcile.lock";
+    private static final String VOLUME = "transactions.volume.";
+
+    private final SystemCounterRepository counterRepository;
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate reconcileTemplate;
+    private final int slots;
+
+    public SystemCounters(SystemCounterRepository counterRepository,
+                          UserRepository userRepository,
+                          AccountRepository accountRepository,
+                          TransactionRepository transactionRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.system-counters.slots:4}") int slots) {
+        this.counterRepository = counterRepository;
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.reconcileTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.slots = slots;
+    }
+
+    /**
+     * Counts a new row of {@code kind} with the given status.
+     */
+    public void created(String kind, Enum<?> status) {
+        Map<String, Long> deltas = new TreeMap<>();
+        deltas.put(kind, 1L);
+        if (status != null) {
+            deltas.put(name(kind, status), 1L);
+        }
+        counterRepository.add(deltas, ThreadLocalRandom.current().nextInt(slots));
+    }
+
+    public void statusChanged(String kind, Enum<?> from, Enum<?> to) {
+        if (from == to) {
+            return;
+        }
+        Map<String, Long> deltas = new TreeMap<>();
+        if (from != null) {
+            deltas.put(name(kind, from), -1L);
+        }
+        if (to != null) {
+            deltas.put(name(kind, to), 1L);
+        }
+        counterRepository.add(deltas, ThreadLocalRandom.current().nextInt(slots));
+    }
+
+    /**
+     * Adds transaction rows to the volume of the day they are dated, in minor
+     * units.
+     */
+    public void recorded(List<Transaction> rows) {
+        Map<String, Long> deltas = new TreeMap<>();
+        for (Transaction row : rows) {
+            deltas.merge(volume(row.getTransactionDate().toLocalDate()), minorUnits(row.getAmount()), Long::sum);
+        }
+        if (!deltas.isEmpty()) {
+            counterRepository.add(deltas, ThreadLocalRandom.current().nextInt(slots));
+        }
+    }
+
+    public Counts read() {
+        return new Counts(counterRepository.sumAll());
+    }
+
+    /**
+     * Adds to each counter the difference between the table and the counter.
+     * Both are read from one snapshot, taken once any other reconciliation
+     * has committed, so changes committed meanwhile are neither lost nor
+     * counted twice. Volumes of past days are dropped; only today's is
+     * read.
+     */
+    @Scheduled(fixedDelayString = "${app.system-counters.reconcile-interval-ms:3600000}",
+               initialDelayString = "${app.system-counters.reconcile-initial-delay-ms:0}")
+    public void reconcile() {
+        Map<String, Long> corrections = reconcileTemplate.execute(status -> {
+            counterRepository.add(Map.of(RECONCILE_LOCK, 0L), 0);
+            Map<String, Long> actual = new HashMap<>();
+            addGrouped(actual, USERS, userRepository.countGroupedByStatus());
+            addGrouped(actual, ACCOUNTS, accountRepository.countGroupedByStatus());
+            String today = volume(LocalDate.now());
+            actual.put(today, minorUnits(transactionRepository.sumTodayTransactions().orElse(BigDecimal.ZERO)));
+
+            Map<String, Long> counted = counterRepository.sumAll();
+            counted.remove(RECONCILE_LOCK);
+            List<String> pastVolumes = counted.keySet().stream()
+                    .filter(name -> name.startsWith(VOLUME) && !name.equals(today))
+                    .toList();
+            if (!pastVolumes.isEmpty()) {
+                counterRepository.delete(pastVolumes);
+                counted.keySet().removeAll(pastVolumes);
+            }
+            Map<String, Long> deltas = new TreeMap<>();
+            actual.forEach((name, count) -> deltas.put(name, count - counted.getOrDefault(name, 0L)));
+            counted.forEach((name, count) -> deltas.putIfAbsent(name, -count));
+            deltas.values().removeIf(delta -> delta == 0);
+            if (!deltas.isEmpty()) {
+                counterRepository.add(deltas, 0);
+            }
+            return deltas;
+        });
+        if (corrections != null && !corrections.isEmpty()) {
+            log.info("Corrected system counters to match their tables: {}", corrections);
+        }
+    }
+
+    private static void addGrouped(Map<String, Long> into, String kind, List<Object[]> countsByStatus) {
+        for (Object[] row : countsByStatus) {
+            long count = ((Number) row[1]).longValue();
+            into.merge(kind, count, Long::sum);
+            if (row[0] != null) {
+                into.merge(name(kind, (Enum<?>) row[0]), count, Long::sum);
+            }
+        }
+    }
+
+    private static String name(String kind, Enum<?> status) {
+        return kind + "." + status.name();
+    }
+
+    private static String volume(LocalDate day) {
+        return VOLUME + day;
+    }
+
+    private static long minorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * Counter values as of one read.
+     */
+    public static final class Counts {
+
+        private final Map<String, Long> totals;
+
+        private Counts(Map<String, Long> totals) {
+            this.totals = totals;
+        }
+
+        public long total(String kind) {
+            return totals.getOrDefault(kind, 0L);
+        }
+
+        public long count(String kind, Enum<?> status) {
+            return totals.getOrDefault(name(kind, status), 0L);
+        }
+
+        public BigDecimal volume(LocalDate day) {
+            return BigDecimal.valueOf(totals.getOrDefault(SystemCounters.volume(day), 0L), 2);
+        }
+    }
+}
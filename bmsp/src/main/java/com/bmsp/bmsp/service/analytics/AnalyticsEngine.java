@@ -0,0 +1,179 @@
+package com.bmsp.bmsp.service.analytics;
+
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.dto.LoanOutcomeDTO;
+import com.bmsp.bmsp.repository.dto.UserSignupDTO;
+import com.bmsp.bmsp.repository.ledger.LedgerAccountTotalRepository;
+import com.bmsp.bmsp.repository.loan.LoanRepository;
+import com.bmsp.bmsp.service.ledger.LedgerAccounts;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Computes the revenue, customer growth and loan performance figures of a date
+ * range in one pass.
+ *
+ * The range is split into day-aligned sub-ranges, about one per worker of a
+ * dedicated fork-join pool. Each sub-range reads the income accounts' daily
+ * totals and streams narrow sign-up and loan rows in its own read-only
+ * transaction, adding them to a {@link RangeAnalytics}, and the sub-range
+ * figures are merged as the tasks join. The dashboard asks for several of
+ * these figures for the same range at once, so a computation is shared by
+ * every caller asking for that range while it runs and for a few seconds
+ * after.
+ */
+@Component
+public class AnalyticsEngine {
+
+    private static final List<String> INCOME_ACCOUNTS =
+            List.of(LedgerAccounts.INTEREST_INCOME, LedgerAccounts.FEE_INCOME);
+
+    private final LedgerAccountTotalRepository ledgerAccountTotalRepository;
+    private final UserRepository userRepository;
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate readOnly;
+    private final ForkJoinPool pool;
+    private final int minChunkDays;
+    private final long cacheMillis;
+    private final Map<Range, Computation> computations = new ConcurrentHashMap<>();
+
+    public AnalyticsEngine(LedgerAccountTotalRepository ledgerAccountTotalRepository,
+                           UserRepository userRepository,
+                           LoanRepository loanRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.analytics.parallelism:4}") int parallelism,
+                           @Value("${app.analytics.min-chunk-days:7}") int minChunkDays,
+                           @Value("${app.analytics.cache-ms:10000}") long cacheMillis) {
+        this.ledgerAccountTotalRepository = ledgerAccountTotalRepository;
+        this.userRepository = userRepository;
+        this.loanRepository = loanRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism);
+        this.minChunkDays = minChunkDays;
+        this.cacheMillis = cacheMillis;
+    }
+
+    /**
+     * Figures of {@code startDate} through {@code endDate}.
+     */
+    public RangeAnalytics analyze(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        Range range = new Range(startDate, endDate);
+        long now = System.currentTimeMillis();
+        CompletableFuture<RangeAnalytics> result = new CompletableFuture<>();
+        Computation computation = computations.compute(range, (key, current) ->
+                current != null && current.shareable(now, cacheMillis) ? current : new Computation(result));
+        if (computation.result == result) {
+            computations.values().removeIf(other -> !other.shareable(now, cacheMillis));
+            run(range, computation);
+        }
+        try {
+            return computation.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void run(Range range, Computation computation) {
+        long days = ChronoUnit.DAYS.between(range.startDate, range.endDate) + 1;
+        long chunkDays = Math.max(minChunkDays, (days + pool.getParallelism() - 1) / pool.getParallelism());
+        try {
+            RangeAnalytics analytics = pool.invoke(new SubRange(range, range.startDate, range.endDate, chunkDays));
+            computation.finishedAt = System.currentTimeMillis();
+            computation.result.complete(analytics);
+        } catch (Throwable e) {
+            // Callers waiting on the computation get the failure from join
+            computations.remove(range, computation);
+            computation.result.completeExceptionally(e);
+        }
+    }
+
+    // Days from..to of the range, split in halves down to chunkDays
+    private final class SubRange extends RecursiveTask<RangeAnalytics> {
+
+        private final Range range;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final long chunkDays;
+
+        private SubRange(Range range, LocalDate from, LocalDate to, long chunkDays) {
+            this.range = range;
+            this.from = from;
+            this.to = to;
+            this.chunkDays = chunkDays;
+        }
+
+        @Override
+        protected RangeAnalytics compute() {
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            if (days <= chunkDays) {
+                return scan(range, from, to);
+            }
+            LocalDate middle = from.plusDays(days / 2);
+            SubRange left = new SubRange(range, from, middle.minusDays(1), chunkDays);
+            left.fork();
+            RangeAnalytics right = new SubRange(range, middle, to, chunkDays).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private RangeAnalytics scan(Range range, LocalDate from, LocalDate to) {
+        RangeAnalytics analytics = new RangeAnalytics(range.startDate, range.endDate);
+        readOnly.executeWithoutResult(status -> {
+            for (Object[] day : ledgerAccountTotalRepository.sumCreditsByDay(INCOME_ACCOUNTS, from, to)) {
+                analytics.addIncome((LocalDate) day[0], LedgerAccounts.INTEREST_INCOME.equals(day[1]),
+                        (BigDecimal) day[2]);
+            }
+            try (Stream<UserSignupDTO> signups = userRepository.streamSignups(
+                    from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                signups.forEach(analytics::addSignup);
+            }
+            try (Stream<LoanOutcomeDTO> loans = loanRepository.streamOutcomes(
+                    from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                loans.forEach(analytics::addLoan);
+            }
+        });
+        return analytics;
+    }
+
+    private record Range(LocalDate startDate, LocalDate endDate) {
+    }
+
+    private static final class Computation {
+
+        private final CompletableFuture<RangeAnalytics> result;
+        private volatile long finishedAt;
+
+        private Computation(CompletableFuture<RangeAnalytics> result) {
+            this.result = result;
+        }
+
+        // Still running, or finished successfully less than cacheMillis ago
+        private boolean shareable(long now, long cacheMillis) {
+            return !result.isDone() || !result.isCompletedExceptionally() && finishedAt + cacheMillis > now;
+        }
+    }
+}
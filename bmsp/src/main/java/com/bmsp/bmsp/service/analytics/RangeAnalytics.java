@@ -0,0 +1,198 @@
+package com.bmsp.bmsp.service.analytics;
+
+import com.bmsp.bmsp.model.auth.UserStatus;
+import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.model.loan.LoanType;
+import com.bmsp.bmsp.repository.dto.LoanOutcomeDTO;
+import com.bmsp.bmsp.repository.dto.UserSignupDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Revenue, customer and loan figures of a date range, kept in flat arrays
+ * indexed by month of the range or by loan type. Amounts are held in minor
+ * units, so adding a row or merging the figures of another sub-range is plain
+ * long arithmetic.
+ *
+ * Users carry no date of leaving, so a churned customer counts against the
+ * month they signed up in. Loans count from the month they were applied for;
+ * only disbursed, closed and defaulted ones were lent.
+ */
+public final class RangeAnalytics {
+
+    private static final LoanType[] LOAN_TYPES = LoanType.values();
+
+    private final YearMonth firstMonth;
+    private final long[] interestIncome;
+    private final long[] feeIncome;
+    private final long[] newCustomers;
+    private final long[] churnedCustomers;
+    private final long[] loansLent = new long[LOAN_TYPES.length];
+    private final long[] amountLent = new long[LOAN_TYPES.length];
+    private final long[] loansDefaulted = new long[LOAN_TYPES.length];
+    private final long[] exposureAtDefault = new long[LOAN_TYPES.length];
+    private final long[] amountRecovered = new long[LOAN_TYPES.length];
+
+    RangeAnalytics(LocalDate startDate, LocalDate endDate) {
+        this.firstMonth = YearMonth.from(startDate);
+        int months = (int) firstMonth.until(YearMonth.from(endDate), ChronoUnit.MONTHS) + 1;
+        this.interestIncome = new long[months];
+        this.feeIncome = new long[months];
+        this.newCustomers = new long[months];
+        this.churnedCustomers = new long[months];
+    }
+
+    public int months() {
+        return interestIncome.length;
+    }
+
+    public YearMonth month(int month) {
+        return firstMonth.plusMonths(month);
+    }
+
+    public BigDecimal interestIncome() {
+        return money(sum(interestIncome));
+    }
+
+    public BigDecimal feeIncome() {
+        return money(sum(feeIncome));
+    }
+
+    public BigDecimal interestIncome(int month) {
+        return money(interestIncome[month]);
+    }
+
+    public BigDecimal revenue(int month) {
+        return money(interestIncome[month] + feeIncome[month]);
+    }
+
+    public long newCustomers() {
+        return sum(newCustomers);
+    }
+
+    public long newCustomers(int month) {
+        return newCustomers[month];
+    }
+
+    public long churnedCustomers(int month) {
+        return churnedCustomers[month];
+    }
+
+    public long loansLent() {
+        return sum(loansLent);
+    }
+
+    public BigDecimal amountLent() {
+        return money(sum(amountLent));
+    }
+
+    public BigDecimal averageLoanSize() {
+        long loans = loansLent();
+        return loans == 0 ? BigDecimal.ZERO
+                : money(sum(amountLent)).divide(BigDecimal.valueOf(loans), 2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal defaultRate() {
+        return percent(sum(loansDefaulted), sum(loansLent));
+    }
+
+    // Recovered share of what was outstanding when the loans defaulted
+    public BigDecimal recoveryRate() {
+        return percent(sum(amountRecovered), sum(exposureAtDefault));
+    }
+
+    public long loansLent(LoanType type) {
+        return loansLent[type.ordinal()];
+    }
+
+    public BigDecimal amountLent(LoanType type) {
+        return money(amountLent[type.ordinal()]);
+    }
+
+    public BigDecimal defaultRate(LoanType type) {
+        return percent(loansDefaulted[type.ordinal()], loansLent[type.ordinal()]);
+    }
+
+    void addIncome(LocalDate date, boolean interest, BigDecimal credits) {
+        long[] income = interest ? interestIncome : feeIncome;
+        income[monthOf(date)] += units(credits);
+    }
+
+    void addSignup(UserSignupDTO signup) {
+        int month = monthOf(signup.getCreatedAt().toLocalDate());
+        newCustomers[month]++;
+        if (signup.getStatus() == UserStatus.INACTIVE || signup.getStatus() == UserStatus.SUSPENDED) {
+            churnedCustomers[month]++;
+        }
+    }
+
+    void addLoan(LoanOutcomeDTO loan) {
+        LoanStatus status = loan.getStatus();
+        if (status != LoanStatus.DISBURSED && status != LoanStatus.CLOSED && status != LoanStatus.DEFAULTED) {
+            return;
+        }
+        int type = loan.getLoanType().ordinal();
+        loansLent[type]++;
+        amountLent[type] += units(loan.getLoanAmount());
+        if (status == LoanStatus.DEFAULTED) {
+            loansDefaulted[type]++;
+            exposureAtDefault[type] += units(loan.getLoanAmount()) - units(loan.getPaidAmount());
+            amountRecovered[type] += units(loan.getRecoveredAmount());
+        }
+    }
+
+    /**
+     * Adds the figures of another sub-range of the same range into these.
+     */
+    RangeAnalytics merge(RangeAnalytics other) {
+        add(interestIncome, other.interestIncome);
+        add(feeIncome, other.feeIncome);
+        add(newCustomers, other.newCustomers);
+        add(churnedCustomers, other.churnedCustomers);
+        add(loansLent, other.loansLent);
+        add(amountLent, other.amountLent);
+        add(loansDefaulted, other.loansDefaulted);
+        add(exposureAtDefault, other.exposureAtDefault);
+        add(amountRecovered, other.amountRecovered);
+        return this;
+    }
+
+    private int monthOf(LocalDate date) {
+        return (date.getYear() - firstMonth.getYear()) * 12 + date.getMonthValue() - firstMonth.getMonthValue();
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static long units(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static BigDecimal money(long units) {
+        return BigDecimal.valueOf(units, 2);
+    }
+
+    private static BigDecimal percent(long part, long whole) {
+        if (whole == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(part)
+                .divide(BigDecimal.valueOf(whole), 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100));
+    }
+}
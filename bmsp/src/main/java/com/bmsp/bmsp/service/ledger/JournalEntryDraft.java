@@ -0,0 +1,30 @@
+package com.bmsp.bmsp.service.ledger;
+
+import com.bmsp.bmsp.model.transaction.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A journal entry to post: one operation with any number of legs, for example
+ * a fee split across income accounts or an EMI split into principal and
+ * interest. The legs must sum to zero.
+ */
+public record JournalEntryDraft(String referenceNumber, TransactionType type, String description,
+                                LocalDateTime postedAt, List<Leg> legs) {
+
+    /**
+     * Signed amount against a ledger account: positive debits, negative credits.
+     */
+    public record Leg(String ledgerAccount, BigDecimal amount) {
+
+        public static Leg debit(String ledgerAccount, BigDecimal amount) {
+            return new Leg(ledgerAccount, amount);
+        }
+
+        public static Leg credit(String ledgerAccount, BigDecimal amount) {
+            return new Leg(ledgerAccount, amount.negate());
+        }
+    }
+}
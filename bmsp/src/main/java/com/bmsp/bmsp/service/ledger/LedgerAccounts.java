@@ -0,0 +1,39 @@
+package com.bmsp.bmsp.service.ledger;
+
+import com.bmsp.bmsp.model.transaction.TransactionType;
+
+/**
+ * The bank's internal ledger accounts. Customer accounts take part in the
+ * ledger under their own account numbers.
+ */
+public final class LedgerAccounts {
+
+    public static final String CASH = "GL:CASH";
+    public static final String FEE_INCOME = "GL:FEE_INCOME";
+    public static final String INTEREST_INCOME = "GL:INTEREST_INCOME";
+    public static final String INTEREST_EXPENSE = "GL:INTEREST_EXPENSE";
+    public static final String LOANS_RECEIVABLE = "GL:LOANS_RECEIVABLE";
+    public static final String BILL_PAYMENTS = "GL:BILL_PAYMENTS";
+
+    private LedgerAccounts() {
+    }
+
+    public static boolean isInternal(String ledgerAccount) {
+        return ledgerAccount.startsWith("GL:");
+    }
+
+    /**
+     * Internal account on the other side of a movement that only touches one
+     * customer account. Interest credited to a customer is an expense; the
+     * interest customers pay on loans reaches {@link #INTEREST_INCOME} through
+     * the entry that splits each EMI payment into principal and interest.
+     */
+    public static String counterpart(TransactionType type) {
+        return switch (type) {
+            case DEPOSIT, WITHDRAWAL, TRANSFER_IN, TRANSFER_OUT -> CASH;
+            case FEE_CHARGE -> FEE_INCOME;
+            case INTEREST_CREDIT -> INTEREST_EXPENSE;
+            case BILL_PAYMENT -> BILL_PAYMENTS;
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package com.bmsp.bmsp.service.ledger;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.ledger.JournalEntry;
+import com.bmsp.bmsp.model.ledger.JournalPosting;
+import com.bmsp.bmsp.model.ledger.LedgerAccountTotal;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.repository.ledger.PostingBatchRepository;
+import com.bmsp.bmsp.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Double-entry posting: writes balanced journal entries and keeps the daily
+ * running totals of every ledger account they touch.
+ *
+ * A batch of entries, however many legs each has, is written as one batched
+ * insert of headers, one of postings and one upsert of the totals, all inside
+ * the caller's database transaction. Ids come from the Snowflake generator so
+ * postings can reference their header without a round trip.
+ */
+@Component
+public class PostingEngine {
+
+    private static final Comparator<LedgerAccountTotal.Key> KEY_ORDER =
+            Comparator.comparing(LedgerAccountTotal.Key::getLedgerAccount)
+                    .thenComparing(LedgerAccountTotal.Key::getTotalDate)
+                    .thenComparingInt(LedgerAccountTotal.Key::getSlot);
+
+    private final PostingBatchRepository postingBatchRepository;
+    private final int totalSlots;
+
+    public PostingEngine(PostingBatchRepository postingBatchRepository,
+                         @Value("${app.ledger.total-slots:8}") int totalSlots) {
+        this.postingBatchRepository = postingBatchRepository;
+        this.totalSlots = totalSlots;
+    }
+
+    public void post(List<JournalEntryDraft> drafts) {
+        if (drafts.isEmpty()) {
+            return;
+        }
+        SnowflakeIdGenerator ids = SnowflakeIdGenerator.shared();
+        List<JournalEntry> entries = new ArrayList<>(drafts.size());
+        List<JournalPosting> postings = new ArrayList<>(drafts.size() * 2);
+        Map<LedgerAccountTotal.Key, LedgerAccountTotal> totals = new TreeMap<>(KEY_ORDER);
+        Map<String, Integer> slots = new HashMap<>();
+
+        for (JournalEntryDraft draft : drafts) {
+            checkBalanced(draft);
+            JournalEntry entry = new JournalEntry();
+            entry.setId(ids.nextId());
+            entry.setReferenceNumber(draft.referenceNumber());
+            entry.setEntryType(draft.type());
+            entry.setDescription(draft.description());
+            entry.setPostedAt(draft.postedAt());
+            entries.add(entry);
+
+            for (JournalEntryDraft.Leg leg : draft.legs()) {
+                JournalPosting posting = new JournalPosting();
+                posting.setId(ids.nextId());
+                posting.setJournalEntryId(entry.getId());
+                posting.setLedgerAccount(leg.ledgerAccount());
+                posting.setAmount(leg.amount());
+                posting.setPostedAt(draft.postedAt());
+                postings.add(posting);
+
+                int slot = slots.computeIfAbsent(leg.ledgerAccount(), this::slotFor);
+                LedgerAccountTotal total = totals.computeIfAbsent(
+                        new LedgerAccountTotal.Key(leg.ledgerAccount(), draft.postedAt().toLocalDate(), slot),
+                        PostingEngine::emptyTotal);
+                if (leg.amount().signum() > 0) {
+                    total.setDebitTotal(total.getDebitTotal().add(leg.amount()));
+                } else {
+                    total.setCreditTotal(total.getCreditTotal().subtract(leg.amount()));
+                }
+                total.setPostingCount(total.getPostingCount() + 1);
+            }
+        }
+
+        postingBatchRepository.insertEntries(entries);
+        postingBatchRepository.insertPostings(postings);
+        postingBatchRepository.addToTotals(new ArrayList<>(totals.values()));
+    }
+
+    /**
+     * Posts ledger rows as journal entries. Rows sharing a reference number
+     * are one entry, so a transfer's two rows become one balanced entry; a
+     * movement touching a single customer account is balanced against the
+     * internal account of its type.
+     */
+    public void postMovements(List<Transaction> rows) {
+        Map<String, List<Transaction>> movements = new LinkedHashMap<>();
+        for (Transaction row : rows) {
+            movements.computeIfAbsent(row.getReferenceNumber(), reference -> new ArrayList<>(2)).add(row);
+        }
+        List<JournalEntryDraft> drafts = new ArrayList<>(movements.size());
+        for (List<Transaction> movement : movements.values()) {
+            Transaction first = movement.get(0);
+            List<JournalEntryDraft.Leg> legs = new ArrayList<>(movement.size() + 1);
+            BigDecimal net = BigDecimal.ZERO;
+            for (Transaction row : movement) {
+                // A credit to a customer account is a credit in the bank's ledger too
+                JournalEntryDraft.Leg leg = row.getType().isCredit()
+                        ? JournalEntryDraft.Leg.credit(row.getAccount().getAccountNumber(), row.getAmount())
+                        : JournalEntryDraft.Leg.debit(row.getAccount().getAccountNumber(), row.getAmount());
+                legs.add(leg);
+                net = net.add(leg.amount());
+            }
+            if (net.signum() != 0) {
+                legs.add(new JournalEntryDraft.Leg(LedgerAccounts.counterpart(first.getType()), net.negate()));
+            }
+            drafts.add(new JournalEntryDraft(first.getReferenceNumber(), first.getType(), first.getDescription(),
+                    first.getTransactionDate(), legs));
+        }
+        post(drafts);
+    }
+
+    private static void checkBalanced(JournalEntryDraft draft) {
+        if (draft.legs().size() < 2) {
+            throw new TransactionException("Journal entry " + draft.referenceNumber() + " needs at least two legs");
+        }
+        BigDecimal sum = BigDecimal.ZERO;
+        for (JournalEntryDraft.Leg leg : draft.legs()) {
+            if (leg.amount().signum() == 0) {
+                throw new TransactionException("Journal entry " + draft.referenceNumber() + " has a zero leg");
+            }
+            sum = sum.add(leg.amount());
+        }
+        if (sum.signum() != 0) {
+            throw new TransactionException("Journal entry " + draft.referenceNumber() + " does not balance by " + sum);
+        }
+    }
+
+    // Customer accounts are already serialised by their account lock; internal ones are spread
+    private int slotFor(String ledgerAccount) {
+        return LedgerAccounts.isInternal(ledgerAccount) ? ThreadLocalRandom.current().nextInt(totalSlots) : 0;
+    }
+
+    private static LedgerAccountTotal emptyTotal(LedgerAccountTotal.Key key) {
+        LedgerAccountTotal total = new LedgerAccountTotal();
+        total.setLedgerAccount(key.getLedgerAccount());
+        total.setTotalDate(key.getTotalDate());
+        total.setSlot(key.getSlot());
+        total.setDebitTotal(BigDecimal.ZERO);
+        total.setCreditTotal(BigDecimal.ZERO);
+        total.setPostingCount(0);
+        return total;
+    }
+}
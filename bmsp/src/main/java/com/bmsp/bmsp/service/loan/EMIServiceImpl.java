@@ -2,15 +2,22 @@ package com.bmsp.bmsp.service.loan;
 
 import com.bmsp.bmsp.dto.request.transaction.TransactionRequest;
 import com.bmsp.bmsp.dto.response.loan.EMIScheduleResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
 import com.bmsp.bmsp.exception.*;
 import com.bmsp.bmsp.model.account.Account;
 import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.model.loan.*;
+import com.bmsp.bmsp.model.transaction.TransactionType;
 import com.bmsp.bmsp.repository.loan.EMIRepository;
 import com.bmsp.bmsp.repository.loan.LoanRepository;
+import com.bmsp.bmsp.service.ledger.JournalEntryDraft;
+import com.bmsp.bmsp.service.ledger.LedgerAccounts;
+import com.bmsp.bmsp.service.ledger.PostingEngine;
 import com.bmsp.bmsp.service.transaction.TransactionService;
+import com.bmsp.bmsp.util.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +37,8 @@ public class EMIServiceImpl implements EMIService {
     private final EMIRepository emiRepository;
     private final LoanRepository loanRepository;
     private final TransactionService transactionService;
+    private final LoanPortfolioStats loanPortfolioStats;
+    private final PostingEngine postingEngine;
 
     @Override
     @Transactional
@@ -108,6 +117,7 @@ public class EMIServiceImpl implements EMIService {
 
     @Override
     @Transactional
+    @OptimisticRetry
     public String payEMI(Long loanId, Integer installmentNumber, User user) {
         log.info("Processing EMI payment - Loan ID: {}, Installment: {}, User: {}", 
             loanId, installmentNumber, user.getId());
@@ -154,7 +164,6 @@ public class EMIServiceImpl implements EMIService {
         // Check if EMI is overdue
         if (emiRecord.getDueDate().isBefore(LocalDate.now())) {
             log.warn("EMI installment #{} is overdue. Due date: {}", installmentNumber, emiRecord.getDueDate());
-            emiRecord.setStatus(EMIRecord.EMIStatus.LATE);
         }
 
         Account account = loan.getLinkedAccount();
@@ -178,34 +187,68 @@ public class EMIServiceImpl implements EMIService {
             transactionRequest.setDescription("EMI payment for " + loan.getLoanAccountNumber() + 
                     " (Installment #" + installmentNumber + ")");
 
-            transactionService.withdraw(transactionRequest, user);
-            
-            // Update EMI record
-            emiRecord.setPaymentDate(LocalDate.now());
-            emiRecord.setStatus(EMIRecord.EMIStatus.PAID);
-            emiRepository.save(emiRecord);
-            
-            // Update loan status
-            loan.setPaidAmount(loan.getPaidAmount().add(emiRecord.getAmount()));
-            loan.setRecoveredAmount(loan.getRecoveredAmount().add(emiRecord.getPrincipalAmount()));
-            
-            // Check if all EMIs are paid
-            long pendingEMIs = emiRepository.countByLoanAndStatus(loan, EMIRecord.EMIStatus.PENDING);
-            if (pendingEMIs == 0) {
-                loan.setStatus(LoanStatus.CLOSED);
-                log.info("All EMIs paid. Loan {} is now CLOSED", loanId);
-            }
-            
-            loanRepository.save(loan);
+            // The EMI is settled in the database transaction that records the withdrawal, also when
+            // the money moves on the account shards, so a rollback or a retry cannot separate them
+            Long emiRecordId = emiRecord.getId();
+            transactionService.withdraw(transactionRequest, user, payment -> settleEMI(emiRecordId, payment));
             
             return "EMI payment successful for installment #" + installmentNumber;
             
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Let the retry around this method re-run the payment on fresh state
+            throw e;
         } catch (Exception e) {
             log.error("Error processing EMI payment: {}", e.getMessage(), e);
             throw new LoanException("Failed to process EMI payment: " + e.getMessage());
         }
     }
 
+    private void settleEMI(Long emiRecordId, TransactionResponse payment) {
+        EMIRecord emiRecord = emiRepository.findById(emiRecordId)
+                .orElseThrow(() -> new ResourceNotFoundException("EMI record not found: " + emiRecordId));
+        if (emiRecord.getStatus() == EMIRecord.EMIStatus.PAID) {
+            throw new LoanException("EMI installment #" + emiRecord.getInstallmentNumber() + " is already paid");
+        }
+
+        // Update EMI record
+        emiRecord.setPaymentDate(LocalDate.now());
+        emiRecord.setStatus(EMIRecord.EMIStatus.PAID);
+        emiRepository.save(emiRecord);
+        postRepayment(emiRecord, payment);
+
+        // Update loan status
+        Loan loan = emiRecord.getLoan();
+        LoanPortfolioStats.LoanState before = LoanPortfolioStats.stateOf(loan);
+        loan.setPaidAmount(loan.getPaidAmount().add(emiRecord.getAmount()));
+        loan.setRecoveredAmount(loan.getRecoveredAmount().add(emiRecord.getPrincipalAmount()));
+
+        // Check if all EMIs are paid
+        long pendingEMIs = emiRepository.countByLoanAndStatus(loan, EMIRecord.EMIStatus.PENDING);
+        if (pendingEMIs == 0) {
+            loan.setStatus(LoanStatus.CLOSED);
+            log.info("All EMIs paid. Loan {} is now CLOSED", loan.getId());
+        }
+
+        loanRepository.save(loan);
+        loanPortfolioStats.changedAfterCommit(before, loan);
+    }
+
+    // The withdrawal posts against cash like any other; this entry moves it on to the loan
+    // receivable for the principal and to interest income for the interest
+    private void postRepayment(EMIRecord emiRecord, TransactionResponse payment) {
+        List<JournalEntryDraft.Leg> legs = new ArrayList<>(3);
+        legs.add(JournalEntryDraft.Leg.debit(LedgerAccounts.CASH, emiRecord.getAmount()));
+        if (emiRecord.getPrincipalAmount().signum() != 0) {
+            legs.add(JournalEntryDraft.Leg.credit(LedgerAccounts.LOANS_RECEIVABLE, emiRecord.getPrincipalAmount()));
+        }
+        if (emiRecord.getInterestAmount().signum() != 0) {
+            legs.add(JournalEntryDraft.Leg.credit(LedgerAccounts.INTEREST_INCOME, emiRecord.getInterestAmount()));
+        }
+        postingEngine.post(List.of(new JournalEntryDraft(payment.getReferenceNumber(), TransactionType.WITHDRAWAL,
+                "EMI installment #" + emiRecord.getInstallmentNumber() + " principal and interest",
+                payment.getTransactionDate(), legs)));
+    }
+
     @Override
     public List<EMIScheduleResponse> getEMISchedule(Long loanId, User user) {
         Loan loan = loanRepository.findById(loanId)
@@ -0,0 +1,177 @@
+package com.bmsp.bmsp.service.loan;
+
+import com.bmsp.bmsp.model.loan.Loan;
+import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.repository.loan.LoanRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Loan counts and amounts per status, answered from memory.
+ *
+ * For every status this keeps the number of loans and the sums of their loan
+ * and paid amounts in minor units, which is all the portfolio figures are
+ * made of. The loan services report each loan they create and each status or
+ * payment change once its transaction commits. Every so often one grouped
+ * query over the loans corrects the counters, which picks up changes made on
+ * other nodes or around the services. The correction is the difference
+ * between the query and the counters as read just before it, so changes
+ * reported while the query runs are kept.
+ */
+@Component
+public class LoanPortfolioStats {
+
+    private static final LoanStatus[] STATUSES = LoanStatus.values();
+    private static final int COUNT = 0;
+    private static final int LOAN_AMOUNT = 1;
+    private static final int PAID_AMOUNT = 2;
+    private static final int FIGURES = 3;
+
+    private final LoanRepository loanRepository;
+    private final AtomicLongArray figures = new AtomicLongArray(STATUSES.length * FIGURES);
+
+    public LoanPortfolioStats(LoanRepository loanRepository) {
+        this.loanRepository = loanRepository;
+    }
+
+    /**
+     * What the counters know of a loan: capture it before changing the loan.
+     */
+    public record LoanState(LoanStatus status, long loanAmount, long paidAmount) {
+    }
+
+    public static LoanState stateOf(Loan loan) {
+        return new LoanState(loan.getStatus(), units(loan.getLoanAmount()), units(loan.getPaidAmount()));
+    }
+
+    public void createdAfterCommit(Loan loan) {
+        LoanState after = stateOf(loan);
+        afterCommit(() -> add(after, 1));
+    }
+
+    public void changedAfterCommit(LoanState before, Loan loan) {
+        LoanState after = stateOf(loan);
+        if (before.equals(after)) {
+            return;
+        }
+        afterCommit(() -> {
+            add(before, -1);
+            add(after, 1);
+        });
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(read());
+    }
+
+    @Scheduled(fixedDelayString = "${app.loan-stats.reconcile-interval-ms:300000}",
+               initialDelayString = "${app.loan-stats.reconcile-initial-delay-ms:0}")
+    public void reconcile() {
+        long[] counted = read();
+        long[] actual = new long[counted.length];
+        for (Object[] row : loanRepository.sumGroupedByStatus()) {
+            int status = ((LoanStatus) row[0]).ordinal() * FIGURES;
+            actual[status + COUNT] = ((Number) row[1]).longValue();
+            actual[status + LOAN_AMOUNT] = units((BigDecimal) row[2]);
+            actual[status + PAID_AMOUNT] = units((BigDecimal) row[3]);
+        }
+        for (int i = 0; i < actual.length; i++) {
+            figures.addAndGet(i, actual[i] - counted[i]);
+        }
+    }
+
+    private long[] read() {
+        long[] copy = new long[figures.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = figures.get(i);
+        }
+        return copy;
+    }
+
+    private void add(LoanState state, int sign) {
+        if (state.status() == null) {
+            return;
+        }
+        int status = state.status().ordinal() * FIGURES;
+        figures.addAndGet(status + COUNT, sign);
+        figures.addAndGet(status + LOAN_AMOUNT, sign * state.loanAmount());
+        figures.addAndGet(status + PAID_AMOUNT, sign * state.paidAmount());
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static long units(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * Portfolio figures as of one read. Amounts are in major units.
+     */
+    public static final class Snapshot {
+
+        private final long[] figures;
+
+        private Snapshot(long[] figures) {
+            this.figures = figures;
+        }
+
+        public long count(LoanStatus status) {
+            return figures[status.ordinal() * FIGURES + COUNT];
+        }
+
+        public long totalLoans() {
+            long total = 0;
+            for (LoanStatus status : STATUSES) {
+                total += count(status);
+            }
+            return total;
+        }
+
+        public BigDecimal totalLoanAmount() {
+            long total = 0;
+            for (LoanStatus status : STATUSES) {
+                total += loanAmount(status);
+            }
+            return BigDecimal.valueOf(total, 2);
+        }
+
+        // Still owed on disbursed and defaulted loans
+        public BigDecimal outstandingAmount() {
+            return BigDecimal.valueOf(owed(LoanStatus.DISBURSED) + owed(LoanStatus.DEFAULTED), 2);
+        }
+
+        public BigDecimal defaultedAmount() {
+            return BigDecimal.valueOf(owed(LoanStatus.DEFAULTED), 2);
+        }
+
+        // Paid on loans that were paid off
+        public BigDecimal recoveredAmount() {
+            return BigDecimal.valueOf(figures[LoanStatus.CLOSED.ordinal() * FIGURES + PAID_AMOUNT], 2);
+        }
+
+        private long loanAmount(LoanStatus status) {
+            return figures[status.ordinal() * FIGURES + LOAN_AMOUNT];
+        }
+
+        private long owed(LoanStatus status) {
+            return loanAmount(status) - figures[status.ordinal() * FIGURES + PAID_AMOUNT];
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.bmsp.bmsp.repository.account.AccountRepository;
 import com.bmsp.bmsp.repository.loan.LoanRepository;
 import com.bmsp.bmsp.repository.loan.EMIRepository;
 import com.bmsp.bmsp.service.kyc.KYCService;
+import com.bmsp.bmsp.util.OptimisticRetry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -34,6 +35,7 @@ public class LoanServiceImpl implements LoanService {
     private final AccountRepository accountRepository;
     private final EMIService emiService;
     private final KYCService kycService;
+    private final LoanPortfolioStats loanPortfolioStats;
 
     @Override
     @Transactional
@@ -81,6 +83,7 @@ public class LoanServiceImpl implements LoanService {
 
     @Override
     @Transactional
+    @OptimisticRetry
     public LoanResponse approveLoan(Long loanId, User adminUser) {
         Loan loan = loanRepository.findById(loanId)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found"));
@@ -94,6 +97,7 @@ public class LoanServiceImpl implements LoanService {
         
         // Set approval details and dates
         LocalDate startDate = LocalDate.now();
+        LoanPortfolioStats.LoanState before = LoanPortfolioStats.stateOf(loan);
         loan.approve(startDate, adminUser.getEmail());
 
         // Check if EMI records already exist before generating new ones
@@ -117,11 +121,13 @@ public class LoanServiceImpl implements LoanService {
         }
 
         Loan updatedLoan = loanRepository.save(loan);
+        loanPortfolioStats.changedAfterCommit(before, updatedLoan);
         return mapToLoanResponse(updatedLoan);
     }
 
     @Override
     @Transactional
+    @OptimisticRetry
     public LoanResponse rejectLoan(Long loanId, String rejectionReason, User adminUser) {
         Loan loan = loanRepository.findById(loanId)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found"));
@@ -130,8 +136,10 @@ public class LoanServiceImpl implements LoanService {
             throw new LoanException("Loan is not in pending state");
         }
 
+        LoanPortfolioStats.LoanState before = LoanPortfolioStats.stateOf(loan);
         loan.reject(rejectionReason, adminUser.getEmail());
         Loan updatedLoan = loanRepository.save(loan);
+        loanPortfolioStats.changedAfterCommit(before, updatedLoan);
         return mapToLoanResponse(updatedLoan);
     }
 
@@ -230,7 +238,9 @@ public class LoanServiceImpl implements LoanService {
         loan.setStartDate(null); // Will be set when approved
         loan.setEndDate(null);   // Will be set when approved
         
-        return loanRepository.save(loan);
+        Loan savedLoan = loanRepository.save(loan);
+        loanPortfolioStats.createdAfterCommit(savedLoan);
+        return savedLoan;
     }
 
     private BigDecimal calculateInterestRate(LoanType loanType) {
@@ -0,0 +1,238 @@
+package com.bmsp.bmsp.service.metrics;
+
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Real-time operational metrics, answered from memory.
+ *
+ * Committed ledger rows, registrations and served requests are added to two
+ * rings of time buckets: 60 one-second buckets for the last minute and 60
+ * one-minute buckets for the last hour. Each bucket counts rows and their
+ * amounts per transaction type, new users, requests, server errors and a
+ * histogram of request latency with four bins per power of two of
+ * microseconds, so percentiles are accurate to within a fifth. Reading the
+ * metrics sums at most one ring and never touches the database.
+ *
+ * Logins are tracked per user for the active session count. Like the other
+ * figures it covers this node only.
+ */
+@Component
+public class LiveMetrics {
+
+    private static final long SECOND = TimeUnit.SECONDS.toMillis(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long SESSION_IDLE = TimeUnit.MINUTES.toMillis(30);
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final int COUNT = 0;
+    private static final int AMOUNT = TYPES.length;
+    private static final int NEW_USERS = 2 * TYPES.length;
+    private static final int REQUESTS = NEW_USERS + 1;
+    private static final int SERVER_ERRORS = REQUESTS + 1;
+    private static final int LATENCY = SERVER_ERRORS + 1;
+    private static final int LATENCY_BINS = 128;
+    private static final int COUNTERS = LATENCY + LATENCY_BINS;
+
+    private final MetricsRing lastMinute = new MetricsRing(SECOND, 60, COUNTERS);
+    private final MetricsRing lastHour = new MetricsRing(MINUTE, 60, COUNTERS);
+    private final Map<String, Long> logins = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final long startedAt;
+
+    @Autowired
+    public LiveMetrics() {
+        this(System::currentTimeMillis);
+    }
+
+    LiveMetrics(LongSupplier clock) {
+        this.clock = clock;
+        this.startedAt = clock.getAsLong();
+    }
+
+    /**
+     * Counts ledger rows once the surrounding transaction commits, or right
+     * away outside of one.
+     */
+    public void transactionsAfterCommit(List<Transaction> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Runnable record = () -> rows.forEach(row -> transaction(row.getType(), row.getAmount()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record.run();
+            }
+        });
+    }
+
+    public void transaction(TransactionType type, BigDecimal amount) {
+        long now = clock.getAsLong();
+        long units = amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        add(now, COUNT + type.ordinal(), 1);
+        add(now, AMOUNT + type.ordinal(), units);
+    }
+
+    public void userRegistered() {
+        add(clock.getAsLong(), NEW_USERS, 1);
+    }
+
+    public void userLoggedIn(String username) {
+        logins.put(username, clock.getAsLong());
+    }
+
+    public void request(long latencyNanos, int status) {
+        long now = clock.getAsLong();
+        add(now, REQUESTS, 1);
+        if (status >= 500) {
+            add(now, SERVER_ERRORS, 1);
+        }
+        add(now, LATENCY + latencyBin(TimeUnit.NANOSECONDS.toMicros(latencyNanos)), 1);
+    }
+
+    public Snapshot snapshot() {
+        long now = clock.getAsLong();
+        long[] hour = lastHour.totals(now);
+        long[] minute = lastMinute.totals(now);
+
+        long transactions = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        Map<TransactionType, Long> countByType = new EnumMap<>(TransactionType.class);
+        Map<TransactionType, BigDecimal> amountByType = new EnumMap<>(TransactionType.class);
+        for (TransactionType type : TYPES) {
+            long count = hour[COUNT + type.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            BigDecimal typeAmount = BigDecimal.valueOf(hour[AMOUNT + type.ordinal()], 2);
+            countByType.put(type, count);
+            amountByType.put(type, typeAmount);
+            transactions += count;
+            amount = amount.add(typeAmount);
+        }
+        long minuteTransactions = 0;
+        for (TransactionType type : TYPES) {
+            minuteTransactions += minute[COUNT + type.ordinal()];
+        }
+
+        long requests = hour[REQUESTS];
+        BigDecimal availability = requests == 0
+                ? new BigDecimal("100.00")
+                : BigDecimal.valueOf(requests - hour[SERVER_ERRORS])
+                        .multiply(BigDecimal.valueOf(100))
+                        .divide(BigDecimal.valueOf(requests), 2, RoundingMode.HALF_UP);
+
+        return new Snapshot(
+                transactions,
+                amount,
+                countByType,
+                amountByType,
+                BigDecimal.valueOf(minuteTransactions).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP),
+                hour[NEW_USERS],
+                activeSessions(now),
+                minute[REQUESTS],
+                percentileMillis(minute, 0.50),
+                percentileMillis(minute, 0.99),
+                availability,
+                (now - startedAt) / SECOND);
+    }
+
+    // Logins older than a session's idle limit no longer count
+    @Scheduled(fixedDelayString = "${app.live-metrics.session-cleanup-interval-ms:300000}")
+    public void evictIdleSessions() {
+        long idleSince = clock.getAsLong() - SESSION_IDLE;
+        logins.values().removeIf(loggedInAt -> loggedInAt < idleSince);
+    }
+
+    /**
+     * Figures of the last hour, except for rate and latency which cover the
+     * last minute. Amounts are in major units, latencies in milliseconds.
+     */
+    public record Snapshot(long transactionsLastHour,
+                           BigDecimal amountLastHour,
+                           Map<TransactionType, Long> countByTypeLastHour,
+                           Map<TransactionType, BigDecimal> amountByTypeLastHour,
+                           BigDecimal transactionsPerSecond,
+                           long newUsersLastHour,
+                           int activeSessions,
+                           long requestsLastMinute,
+                           BigDecimal p50LatencyMs,
+                           BigDecimal p99LatencyMs,
+                           BigDecimal availabilityPercent,
+                           long uptimeSeconds) {
+    }
+
+    private void add(long now, int counter, long delta) {
+        lastMinute.add(now, counter, delta);
+        lastHour.add(now, counter, delta);
+    }
+
+    private int activeSessions(long now) {
+        long idleSince = now - SESSION_IDLE;
+        int active = 0;
+        for (long loggedInAt : logins.values()) {
+            if (loggedInAt >= idleSince) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    // Upper bound of the bin holding the requested rank
+    private static BigDecimal percentileMillis(long[] totals, double quantile) {
+        long requests = 0;
+        for (int bin = 0; bin < LATENCY_BINS; bin++) {
+            requests += totals[LATENCY + bin];
+        }
+        if (requests == 0) {
+            return BigDecimal.ZERO;
+        }
+        long rank = (long) Math.ceil(quantile * requests);
+        long seen = 0;
+        int bin = 0;
+        for (; bin < LATENCY_BINS - 1; bin++) {
+            seen += totals[LATENCY + bin];
+            if (seen >= rank) {
+                break;
+            }
+        }
+        return BigDecimal.valueOf(binFloor(bin + 1)).divide(BigDecimal.valueOf(1000), 2, RoundingMode.HALF_UP);
+    }
+
+    // 0-3us exactly, then four bins per power of two: [4,5,6,7], [8,10,12,14], ...
+    static int latencyBin(long micros) {
+        if (micros < 4) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int bin = (exponent - 1) * 4 + (int) ((micros >>> (exponent - 2)) & 3);
+        return Math.min(bin, LATENCY_BINS - 1);
+    }
+
+    static long binFloor(int bin) {
+        if (bin < 4) {
+            return bin;
+        }
+        int exponent = bin / 4 + 1;
+        return (4L + bin % 4) << (exponent - 2);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bmsp.bmsp.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring of fixed-width time buckets, each holding a fixed set of counters.
+ * A bucket is swapped for an empty one by compare-and-set when its slot comes
+ * round to a new period; within its period writers just add to its counters,
+ * so recording is a couple of atomic increments. Totals cover the buckets of
+ * the last {@code buckets} periods, so they are accurate to one bucket width.
+ */
+final class MetricsRing {
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final int counters;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    MetricsRing(long bucketMillis, int buckets, int counters) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+        this.counters = counters;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    void add(long nowMillis, int counter, long delta) {
+        Bucket bucket = bucket(nowMillis);
+        if (bucket != null) {
+            bucket.counters.addAndGet(counter, delta);
+        }
+    }
+
+    /**
+     * Sums every counter over the window, into a fresh array.
+     */
+    long[] totals(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - buckets;
+        long[] totals = new long[counters];
+        for (int i = 0; i < buckets; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket == null || bucket.period <= oldest) {
+                continue;
+            }
+            for (int counter = 0; counter < counters; counter++) {
+                totals[counter] += bucket.counters.get(counter);
+            }
+        }
+        return totals;
+    }
+
+    // Null when the slot already moved past this period, i.e. for a writer stalled over a whole window
+    private Bucket bucket(long nowMillis) {
+        long period = nowMillis / bucketMillis;
+        int index = (int) (period % buckets);
+        while (true) {
+            Bucket current = ring.get(index);
+            if (current != null && current.period >= period) {
+                return current.period == period ? current : null;
+            }
+            Bucket next = new Bucket(period, new AtomicLongArray(counters));
+            if (ring.compareAndSet(index, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private record Bucket(long period, AtomicLongArray counters) {
+    }
+}
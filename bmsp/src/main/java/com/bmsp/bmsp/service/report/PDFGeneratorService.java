@@ -1,9 +1,9 @@
 package com.bmsp.bmsp.service.report;
 
+import com.bmsp.bmsp.dto.response.admin.TransactionAdminResponse;
 import com.bmsp.bmsp.dto.response.admin.TransactionAnalyticsResponse;
-import com.bmsp.bmsp.model.loan.Loan;
-import com.bmsp.bmsp.model.transaction.Transaction;
-import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.dto.CustomerReportRowDTO;
+import com.bmsp.bmsp.repository.dto.LoanReportRowDTO;
 import com.bmsp.bmsp.service.admin.AdminService;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfPCell;
@@ -14,52 +14,64 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Writes the admin PDF reports straight to an output stream.
+ *
+ * Table rows are taken from a stream and added in chunks of ROW_CHUNK to a
+ * table marked incomplete, so each chunk is laid out, written and released
+ * before the next is read. Memory stays flat and the first pages go out
+ * while later rows are still being fetched.
+ */
 @Service
 @RequiredArgsConstructor
 public class PDFGeneratorService {
 
     private static final Logger logger = LoggerFactory.getLogger(PDFGeneratorService.class);
+
+    private static final int ROW_CHUNK = 200;
+
+    // Resolved once; fonts are only read while the document is laid out
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private static final Font SUBTITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA, 12);
+    private static final Font SECTION_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
+    private static final Font LABEL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+    private static final Font VALUE_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private static final Font DATA_FONT = FontFactory.getFont(FontFactory.HELVETICA, 9);
+
+    private static final String[] TRANSACTION_HEADERS = {"Date", "Type", "Account", "Amount", "Reference", "Description"};
+    private static final float[] TRANSACTION_WIDTHS = {1.5f, 1f, 2f, 1.5f, 2f, 3f};
+    private static final String[] LOAN_HEADERS = {"Loan ID", "Customer", "Loan Type", "Amount", "Status", "Disbursed Date"};
+    private static final float[] LOAN_WIDTHS = {1.5f, 2f, 1.5f, 1.5f, 1.5f, 1.5f};
+    private static final String[] CUSTOMER_HEADERS = {"Customer ID", "Name", "Email", "Phone", "Join Date"};
+    private static final float[] CUSTOMER_WIDTHS = {1.5f, 2f, 2.5f, 1.5f, 1.5f};
+
     private final AdminService adminService;
 
-    public byte[] generateTransactionReport(LocalDate startDate, LocalDate endDate, String transactionType, List<Transaction> transactions) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    public void writeTransactionReport(LocalDate startDate, LocalDate endDate, String transactionType,
+                                       Stream<TransactionAdminResponse> transactions, OutputStream out) {
+        try {
             Document document = new Document(PageSize.A4.rotate()); // Landscape for better table view
-            PdfWriter.getInstance(document, outputStream);
-            document.open();
-
-            // Add title
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-            Paragraph title = new Paragraph("Transaction Report", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
-            document.add(title);
-
-            // Add date range
-            Font subTitleFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            String dateRange = "Period: " + startDate.format(DateTimeFormatter.ISO_DATE) + 
-                             " to " + endDate.format(DateTimeFormatter.ISO_DATE);
-            Paragraph period = new Paragraph(dateRange, subTitleFont);
-            period.setAlignment(Element.ALIGN_CENTER);
-            period.setSpacingAfter(20);
-            document.add(period);
+            PdfWriter writer = open(document, out);
+            addHeading(document, "Transaction Report", period(startDate, endDate));
 
             // Add transaction type filter info
             if (transactionType != null && !transactionType.isEmpty()) {
-                Paragraph typeInfo = new Paragraph("Transaction Type: " + transactionType, subTitleFont);
-                typeInfo.setAlignment(Element.ALIGN_CENTER);
-                typeInfo.setSpacingAfter(20);
-                document.add(typeInfo);
+                addCentered(document, "Transaction Type: " + transactionType);
             }
 
+            Iterator<TransactionAdminResponse> rows = transactions.iterator();
+
             // Add summary statistics if transactions are available
             try {
-                if (transactions != null && !transactions.isEmpty()) {
+                if (rows.hasNext()) {
                     TransactionAnalyticsResponse analytics = adminService.getTransactionAnalytics(startDate, endDate);
                     if (analytics != null) {
                         addSummarySection(document, analytics);
@@ -70,20 +82,127 @@ public class PDFGeneratorService {
                 // Continue without analytics section
             }
 
-            // Add transaction table
-            addTransactionTable(document, transactions);
+            addStreamedTable(document, writer, rows, "No transactions found for the selected criteria.",
+                    TRANSACTION_HEADERS, TRANSACTION_WIDTHS, (table, transaction) -> {
+                addTableCell(table, transaction.getTransactionDate() != null ?
+                    transaction.getTransactionDate().format(DateTimeFormatter.ISO_DATE) : "N/A");
+                addTableCell(table, transaction.getType() != null ? transaction.getType().name() : "N/A");
+                addTableCell(table, transaction.getAccountNumber() != null ? transaction.getAccountNumber() : "N/A");
+                addTableCell(table, transaction.getAmount() != null ? "₹" + transaction.getAmount() : "₹0.00");
+                addTableCell(table, transaction.getReferenceNumber() != null ? transaction.getReferenceNumber() : "N/A");
+                addTableCell(table, transaction.getDescription() != null ? transaction.getDescription() : "N/A");
+            });
 
             document.close();
-            return outputStream.toByteArray();
         } catch (Exception e) {
             logger.error("Failed to generate PDF report", e);
             throw new RuntimeException("Failed to generate PDF report: " + e.getMessage(), e);
         }
     }
 
+    public void writeLoanReport(LocalDate startDate, LocalDate endDate, String loanStatus,
+                                Stream<LoanReportRowDTO> loans, OutputStream out) {
+        try {
+            Document document = new Document(PageSize.A4.rotate());
+            PdfWriter writer = open(document, out);
+            addHeading(document, "Loan Report", period(startDate, endDate));
+
+            // Add loan status filter info
+            if (loanStatus != null && !loanStatus.isEmpty()) {
+                addCentered(document, "Loan Status: " + loanStatus);
+            }
+
+            addStreamedTable(document, writer, loans.iterator(), "No loans found for the selected criteria.",
+                    LOAN_HEADERS, LOAN_WIDTHS, (table, loan) -> {
+                addTableCell(table, loan.getLoanAccountNumber() != null ? loan.getLoanAccountNumber() : "N/A");
+                addTableCell(table, loan.getCustomerName() != null ? loan.getCustomerName() : "N/A");
+                addTableCell(table, loan.getLoanType() != null ? loan.getLoanType().name() : "N/A");
+                addTableCell(table, loan.getLoanAmount() != null ? "₹" + loan.getLoanAmount() : "₹0.00");
+                addTableCell(table, loan.getStatus() != null ? loan.getStatus().name() : "N/A");
+                addTableCell(table, loan.getCreatedAt() != null ?
+                    loan.getCreatedAt().format(DateTimeFormatter.ISO_DATE) : "N/A");
+            });
+
+            document.close();
+        } catch (Exception e) {
+            logger.error("Failed to generate loan report", e);
+            throw new RuntimeException("Failed to generate loan report: " + e.getMessage(), e);
+        }
+    }
+
+    public void writeCustomerReport(LocalDate startDate, LocalDate endDate,
+                                    Stream<CustomerReportRowDTO> customers, OutputStream out) {
+        try {
+            Document document = new Document();
+            PdfWriter writer = open(document, out);
+            addHeading(document, "Customer Report", period(startDate, endDate));
+
+            addStreamedTable(document, writer, customers.iterator(), "No customers found for the selected criteria.",
+                    CUSTOMER_HEADERS, CUSTOMER_WIDTHS, (table, customer) -> {
+                addTableCell(table, customer.getId() != null ? customer.getId().toString() : "N/A");
+                addTableCell(table, customer.getFullName() != null ? customer.getFullName() : "N/A");
+                addTableCell(table, customer.getEmail() != null ? customer.getEmail() : "N/A");
+                addTableCell(table, customer.getPhone() != null ? customer.getPhone() : "N/A");
+                addTableCell(table, customer.getCreatedAt() != null ?
+                    customer.getCreatedAt().format(DateTimeFormatter.ISO_DATE) : "N/A");
+            });
+
+            document.close();
+        } catch (Exception e) {
+            logger.error("Failed to generate customer report", e);
+            throw new RuntimeException("Failed to generate customer report: " + e.getMessage(), e);
+        }
+    }
+
+    public void writeFinancialSummaryReport(int year, int month,
+            long totalCustomers, long totalTransactions, BigDecimal totalTransactionAmount,
+            long totalLoans, BigDecimal totalLoanAmount, OutputStream out) {
+        try {
+            Document document = new Document();
+            open(document, out);
+            addHeading(document, "Financial Summary Report", "Period: " + year + "-" + String.format("%02d", month));
+
+            // Add financial summary
+            addFinancialSummary(document, totalCustomers, totalTransactions,
+                    totalTransactionAmount, totalLoans, totalLoanAmount);
+
+            document.close();
+        } catch (Exception e) {
+            logger.error("Failed to generate financial summary report", e);
+            throw new RuntimeException("Failed to generate financial summary report: " + e.getMessage(), e);
+        }
+    }
+
+    private static PdfWriter open(Document document, OutputStream out) throws DocumentException {
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        // The caller owns the stream
+        writer.setCloseStream(false);
+        document.open();
+        return writer;
+    }
+
+    private static String period(LocalDate startDate, LocalDate endDate) {
+        return "Period: " + startDate.format(DateTimeFormatter.ISO_DATE) +
+               " to " + endDate.format(DateTimeFormatter.ISO_DATE);
+    }
+
+    private void addHeading(Document document, String title, String subtitle) throws DocumentException {
+        Paragraph heading = new Paragraph(title, TITLE_FONT);
+        heading.setAlignment(Element.ALIGN_CENTER);
+        heading.setSpacingAfter(20);
+        document.add(heading);
+        addCentered(document, subtitle);
+    }
+
+    private void addCentered(Document document, String text) throws DocumentException {
+        Paragraph paragraph = new Paragraph(text, SUBTITLE_FONT);
+        paragraph.setAlignment(Element.ALIGN_CENTER);
+        paragraph.setSpacingAfter(20);
+        document.add(paragraph);
+    }
+
     private void addSummarySection(Document document, TransactionAnalyticsResponse analytics) throws DocumentException {
-        Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
-        Paragraph summaryHeader = new Paragraph("Summary Statistics", headerFont);
+        Paragraph summaryHeader = new Paragraph("Summary Statistics", SECTION_FONT);
         summaryHeader.setSpacingAfter(10);
         document.add(summaryHeader);
 
@@ -92,27 +211,24 @@ public class PDFGeneratorService {
         summaryTable.setSpacingBefore(10);
         summaryTable.setSpacingAfter(20);
 
-        addSummaryRow(summaryTable, "Total Transactions", 
+        addSummaryRow(summaryTable, "Total Transactions",
             analytics.getTotalTransactions() != null ? analytics.getTotalTransactions().toString() : "0");
-        addSummaryRow(summaryTable, "Total Amount", 
+        addSummaryRow(summaryTable, "Total Amount",
             analytics.getTotalAmount() != null ? analytics.getTotalAmount().toString() : "₹0.00");
-        addSummaryRow(summaryTable, "Average Transaction", 
+        addSummaryRow(summaryTable, "Average Transaction",
             analytics.getAverageTransaction() != null ? analytics.getAverageTransaction().toString() : "₹0.00");
-        addSummaryRow(summaryTable, "Peak Hour", 
+        addSummaryRow(summaryTable, "Peak Hour",
             analytics.getPeakHour() != 0 ? analytics.getPeakHour() + ":00" : "N/A");
 
         document.add(summaryTable);
     }
 
     private void addSummaryRow(PdfPTable table, String label, String value) {
-        Font labelFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
-        Font valueFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
-
-        PdfPCell labelCell = new PdfPCell(new Phrase(label, labelFont));
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, LABEL_FONT));
         labelCell.setBorder(Rectangle.NO_BORDER);
         labelCell.setPadding(5);
 
-        PdfPCell valueCell = new PdfPCell(new Phrase(value, valueFont));
+        PdfPCell valueCell = new PdfPCell(new Phrase(value, VALUE_FONT));
         valueCell.setBorder(Rectangle.NO_BORDER);
         valueCell.setPadding(5);
         valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
@@ -121,268 +237,61 @@ public class PDFGeneratorService {
         table.addCell(valueCell);
     }
 
-    private void addTransactionTable(Document document, List<Transaction> transactions) throws DocumentException {
-        if (transactions == null || transactions.isEmpty()) {
-            Font noDataFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            Paragraph noData = new Paragraph("No transactions found for the selected criteria.", noDataFont);
+    /**
+     * Adds a table with a header row repeated on every page, writing its rows
+     * to the document every ROW_CHUNK rows.
+     */
+    private <T> void addStreamedTable(Document document, PdfWriter writer, Iterator<T> rows, String noDataText,
+                                      String[] headers, float[] widths, BiConsumer<PdfPTable, T> rowWriter)
+            throws DocumentException {
+        if (!rows.hasNext()) {
+            Paragraph noData = new Paragraph(noDataText, SUBTITLE_FONT);
             noData.setAlignment(Element.ALIGN_CENTER);
             noData.setSpacingBefore(20);
             document.add(noData);
             return;
         }
 
-        Font tableHeaderFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
-        
-        PdfPTable table = new PdfPTable(6);
+        PdfPTable table = new PdfPTable(headers.length);
         table.setWidthPercentage(100);
         table.setSpacingBefore(20);
-
-        // Set column widths
-        float[] columnWidths = {1.5f, 1f, 2f, 1.5f, 2f, 3f};
-        table.setWidths(columnWidths);
-
-        // Table headers
-        addTableHeaderCell(table, "Date", tableHeaderFont);
-        addTableHeaderCell(table, "Type", tableHeaderFont);
-        addTableHeaderCell(table, "Account", tableHeaderFont);
-        addTableHeaderCell(table, "Amount", tableHeaderFont);
-        addTableHeaderCell(table, "Reference", tableHeaderFont);
-        addTableHeaderCell(table, "Description", tableHeaderFont);
-
-        // Add transaction data
-        Font dataFont = FontFactory.getFont(FontFactory.HELVETICA, 9);
-        
-        for (Transaction transaction : transactions) {
-            addTableCell(table, transaction.getTransactionDate() != null ? 
-                transaction.getTransactionDate().format(DateTimeFormatter.ISO_DATE) : "N/A", dataFont);
-            addTableCell(table, transaction.getType() != null ? 
-                transaction.getType().name() : "N/A", dataFont);
-            addTableCell(table, transaction.getAccount() != null && transaction.getAccount().getAccountNumber() != null ? 
-                transaction.getAccount().getAccountNumber() : "N/A", dataFont);
-            addTableCell(table, transaction.getAmount() != null ? 
-                "₹" + transaction.getAmount().toString() : "₹0.00", dataFont);
-            addTableCell(table, transaction.getReferenceNumber() != null ? 
-                transaction.getReferenceNumber() : "N/A", dataFont);
-            addTableCell(table, transaction.getDescription() != null ? 
-                transaction.getDescription() : "N/A", dataFont);
+        table.setWidths(widths);
+        table.setHeaderRows(1);
+        // Rows added so far are laid out and dropped from the table each time it is added
+        table.setComplete(false);
+        for (String header : headers) {
+            addTableHeaderCell(table, header);
         }
 
+        int added = 0;
+        while (rows.hasNext()) {
+            rowWriter.accept(table, rows.next());
+            if (++added % ROW_CHUNK == 0) {
+                document.add(table);
+                writer.flush();
+            }
+        }
+        table.setComplete(true);
         document.add(table);
     }
 
-    private void addTableHeaderCell(PdfPTable table, String text, Font font) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+    private void addTableHeaderCell(PdfPTable table, String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, LABEL_FONT));
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
         cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
         cell.setPadding(5);
         table.addCell(cell);
     }
 
-    private void addTableCell(PdfPTable table, String text, Font font) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+    private void addTableCell(PdfPTable table, String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, DATA_FONT));
         cell.setPadding(5);
         table.addCell(cell);
     }
 
-    public byte[] generateLoanReport(LocalDate startDate, LocalDate endDate, String loanStatus, List<Loan> loans) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(document, outputStream);
-            document.open();
-
-            // Add title
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-            Paragraph title = new Paragraph("Loan Report", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
-            document.add(title);
-
-            // Add date range
-            Font subTitleFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            String dateRange = "Period: " + startDate.format(DateTimeFormatter.ISO_DATE) + 
-                             " to " + endDate.format(DateTimeFormatter.ISO_DATE);
-            Paragraph period = new Paragraph(dateRange, subTitleFont);
-            period.setAlignment(Element.ALIGN_CENTER);
-            period.setSpacingAfter(20);
-            document.add(period);
-
-            // Add loan status filter info
-            if (loanStatus != null && !loanStatus.isEmpty()) {
-                Paragraph statusInfo = new Paragraph("Loan Status: " + loanStatus, subTitleFont);
-                statusInfo.setAlignment(Element.ALIGN_CENTER);
-                statusInfo.setSpacingAfter(20);
-                document.add(statusInfo);
-            }
-
-            // Add loan summary table
-            addLoanSummaryTable(document, loans);
-
-            document.close();
-            return outputStream.toByteArray();
-        } catch (Exception e) {
-            logger.error("Failed to generate loan report", e);
-            throw new RuntimeException("Failed to generate loan report: " + e.getMessage(), e);
-        }
-    }
-
-    private void addLoanSummaryTable(Document document, List<Loan> loans) throws DocumentException {
-        if (loans == null || loans.isEmpty()) {
-            Font noDataFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            Paragraph noData = new Paragraph("No loans found for the selected criteria.", noDataFont);
-            noData.setAlignment(Element.ALIGN_CENTER);
-            noData.setSpacingBefore(20);
-            document.add(noData);
-            return;
-        }
-
-        Font tableHeaderFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
-        
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(20);
-
-        // Set column widths
-        float[] columnWidths = {1.5f, 2f, 1.5f, 1.5f, 1.5f, 1.5f};
-        table.setWidths(columnWidths);
-
-        // Table headers
-        addTableHeaderCell(table, "Loan ID", tableHeaderFont);
-        addTableHeaderCell(table, "Customer", tableHeaderFont);
-        addTableHeaderCell(table, "Loan Type", tableHeaderFont);
-        addTableHeaderCell(table, "Amount", tableHeaderFont);
-        addTableHeaderCell(table, "Status", tableHeaderFont);
-        addTableHeaderCell(table, "Disbursed Date", tableHeaderFont);
-
-        // Add loan data
-        Font dataFont = FontFactory.getFont(FontFactory.HELVETICA, 9);
-        
-        for (Loan loan : loans) {
-            addTableCell(table, loan.getLoanAccountNumber() != null ? loan.getLoanAccountNumber() : "N/A", dataFont);
-            addTableCell(table, loan.getUser() != null ? loan.getUser().getFullName() : "N/A", dataFont);
-            addTableCell(table, loan.getLoanType() != null ? loan.getLoanType().name() : "N/A", dataFont);
-            addTableCell(table, loan.getLoanAmount() != null ? "₹" + loan.getLoanAmount().toString() : "₹0.00", dataFont);
-            addTableCell(table, loan.getStatus() != null ? loan.getStatus().name() : "N/A", dataFont);
-            addTableCell(table, loan.getCreatedAt() != null ? 
-                loan.getCreatedAt().format(DateTimeFormatter.ISO_DATE) : "N/A", dataFont);
-        }
-
-        document.add(table);
-    }
-
-    public byte[] generateCustomerReport(LocalDate startDate, LocalDate endDate, List<User> customers) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            Document document = new Document();
-            PdfWriter.getInstance(document, outputStream);
-            document.open();
-
-            // Add title
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-            Paragraph title = new Paragraph("Customer Report", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
-            document.add(title);
-
-            // Add date range
-            Font subTitleFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            String dateRange = "Period: " + startDate.format(DateTimeFormatter.ISO_DATE) + 
-                             " to " + endDate.format(DateTimeFormatter.ISO_DATE);
-            Paragraph period = new Paragraph(dateRange, subTitleFont);
-            period.setAlignment(Element.ALIGN_CENTER);
-            period.setSpacingAfter(20);
-            document.add(period);
-
-            // Add customer summary table
-            addCustomerSummaryTable(document, customers);
-
-            document.close();
-            return outputStream.toByteArray();
-        } catch (Exception e) {
-            logger.error("Failed to generate customer report", e);
-            throw new RuntimeException("Failed to generate customer report: " + e.getMessage(), e);
-        }
-    }
-
-    private void addCustomerSummaryTable(Document document, List<User> customers) throws DocumentException {
-        if (customers == null || customers.isEmpty()) {
-            Font noDataFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            Paragraph noData = new Paragraph("No customers found for the selected criteria.", noDataFont);
-            noData.setAlignment(Element.ALIGN_CENTER);
-            noData.setSpacingBefore(20);
-            document.add(noData);
-            return;
-        }
-
-        Font tableHeaderFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
-        
-        PdfPTable table = new PdfPTable(5);
-        table.setWidthPercentage(100);
-        table.setSpacingBefore(20);
-
-        // Set column widths
-        float[] columnWidths = {1.5f, 2f, 2.5f, 1.5f, 1.5f};
-        table.setWidths(columnWidths);
-
-        // Table headers
-        addTableHeaderCell(table, "Customer ID", tableHeaderFont);
-        addTableHeaderCell(table, "Name", tableHeaderFont);
-        addTableHeaderCell(table, "Email", tableHeaderFont);
-        addTableHeaderCell(table, "Phone", tableHeaderFont);
-        addTableHeaderCell(table, "Join Date", tableHeaderFont);
-
-        // Add customer data
-        Font dataFont = FontFactory.getFont(FontFactory.HELVETICA, 9);
-        
-        for (User customer : customers) {
-            addTableCell(table, customer.getId() != null ? customer.getId().toString() : "N/A", dataFont);
-            addTableCell(table, customer.getFullName() != null ? customer.getFullName() : "N/A", dataFont);
-            addTableCell(table, customer.getEmail() != null ? customer.getEmail() : "N/A", dataFont);
-            addTableCell(table, customer.getPhone() != null ? customer.getPhone() : "N/A", dataFont);
-            addTableCell(table, customer.getCreatedAt() != null ? 
-                customer.getCreatedAt().format(DateTimeFormatter.ISO_DATE) : "N/A", dataFont);
-        }
-
-        document.add(table);
-    }
-
-    public byte[] generateFinancialSummaryReport(int year, int month, 
-            long totalCustomers, long totalTransactions, BigDecimal totalTransactionAmount,
-            long totalLoans, BigDecimal totalLoanAmount) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            Document document = new Document();
-            PdfWriter.getInstance(document, outputStream);
-            document.open();
-
-            // Add title
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-            Paragraph title = new Paragraph("Financial Summary Report", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
-            document.add(title);
-
-            // Add period
-            Font subTitleFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            String periodText = "Period: " + year + "-" + String.format("%02d", month);
-            Paragraph period = new Paragraph(periodText, subTitleFont);
-            period.setAlignment(Element.ALIGN_CENTER);
-            period.setSpacingAfter(20);
-            document.add(period);
-
-            // Add financial summary
-            addFinancialSummary(document, totalCustomers, totalTransactions, 
-                    totalTransactionAmount, totalLoans, totalLoanAmount);
-
-            document.close();
-            return outputStream.toByteArray();
-        } catch (Exception e) {
-            logger.error("Failed to generate financial summary report", e);
-            throw new RuntimeException("Failed to generate financial summary report: " + e.getMessage(), e);
-        }
-    }
-
-    private void addFinancialSummary(Document document, long totalCustomers, long totalTransactions, 
+    private void addFinancialSummary(Document document, long totalCustomers, long totalTransactions,
             BigDecimal totalTransactionAmount, long totalLoans, BigDecimal totalLoanAmount) throws DocumentException {
-        Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
-        Paragraph summaryHeader = new Paragraph("Financial Summary", headerFont);
+        Paragraph summaryHeader = new Paragraph("Financial Summary", SECTION_FONT);
         summaryHeader.setSpacingAfter(10);
         document.add(summaryHeader);
 
@@ -399,4 +308,4 @@ public class PDFGeneratorService {
 
         document.add(summaryTable);
     }
-}
\ No newline at end of file
+}
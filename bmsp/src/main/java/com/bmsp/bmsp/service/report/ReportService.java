@@ -1,11 +1,14 @@
 package com.bmsp.bmsp.service.report;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 
 public interface ReportService {
-    byte[] generateTransactionReportPDF(LocalDate startDate, LocalDate endDate, String transactionType);
-    byte[] generateTransactionReportExcel(LocalDate startDate, LocalDate endDate, String transactionType);
-    byte[] generateLoanReportPDF(LocalDate startDate, LocalDate endDate, String loanStatus);
-    byte[] generateCustomerReportPDF(LocalDate startDate, LocalDate endDate);
-    byte[] generateFinancialSummaryReport(int year, int month);
+    void writeTransactionReportPDF(LocalDate startDate, LocalDate endDate, String transactionType, OutputStream out);
+    void writeTransactionReportExcel(LocalDate startDate, LocalDate endDate, String transactionType,
+                                     OutputStream out) throws IOException;
+    void writeLoanReportPDF(LocalDate startDate, LocalDate endDate, String loanStatus, OutputStream out);
+    void writeCustomerReportPDF(LocalDate startDate, LocalDate endDate, OutputStream out);
+    void writeFinancialSummaryReport(int year, int month, OutputStream out);
 }
\ No newline at end of file
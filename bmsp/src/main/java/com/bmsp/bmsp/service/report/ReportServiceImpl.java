@@ -1,25 +1,30 @@
 package com.bmsp.bmsp.service.report;
 
-import com.bmsp.bmsp.model.loan.Loan;
+import com.bmsp.bmsp.dto.response.admin.TransactionAdminResponse;
 import com.bmsp.bmsp.model.loan.LoanStatus;
-import com.bmsp.bmsp.model.transaction.Transaction;
 import com.bmsp.bmsp.model.transaction.TransactionType;
-import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.dto.CustomerReportRowDTO;
+import com.bmsp.bmsp.repository.dto.LoanReportRowDTO;
 import com.bmsp.bmsp.repository.loan.LoanRepository;
 import com.bmsp.bmsp.repository.transaction.TransactionRepository;
 import com.bmsp.bmsp.repository.auth.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -29,173 +34,170 @@ public class ReportServiceImpl implements ReportService {
     private final LoanRepository loanRepository;
     private final UserRepository userRepository;
     private final PDFGeneratorService pdfGeneratorService;
+    private final PlatformTransactionManager transactionManager;
 
-    @Override
-    public byte[] generateTransactionReportPDF(LocalDate startDate, LocalDate endDate, String transactionType) {
-        try {
-            // Get transactions
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-            TransactionType type = null;
-            
-            if (transactionType != null && !transactionType.isEmpty()) {
-                try {
-                    type = TransactionType.valueOf(transactionType.toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    // Invalid type, will return all transactions
-                }
-            }
-
-            List<Transaction> transactions;
-            try {
-                transactions = transactionRepository.findByFilters(
-                    type, startDateTime, endDateTime, null).getContent();
-            } catch (Exception e) {
-                // Use empty list if repository call fails
-                transactions = List.of();
-            }
+    // Rows of the Excel export held in memory at a time
+    private static final int EXCEL_ROW_WINDOW = 100;
+    private static final int EXCEL_LAST_ROW = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+    private static final String[] EXCEL_HEADERS = {"ID", "Account", "Type", "Amount", "Date", "Reference", "Description"};
+    private static final int[] EXCEL_COLUMN_WIDTHS = {12, 20, 14, 16, 20, 28, 48};
 
-            return pdfGeneratorService.generateTransactionReport(startDate, endDate, transactionType, transactions);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate PDF report", e);
+    @Override
+    @Transactional(readOnly = true)
+    public void writeTransactionReportPDF(LocalDate startDate, LocalDate endDate, String transactionType,
+                                          OutputStream out) {
+        try (Stream<TransactionAdminResponse> transactions = transactionRepository.streamReportRows(
+                parseTransactionType(transactionType), startDate.atStartOfDay(), endDate.atTime(23, 59, 59))) {
+            pdfGeneratorService.writeTransactionReport(startDate, endDate, transactionType, transactions, out);
         }
     }
 
     @Override
-    public byte[] generateTransactionReportExcel(LocalDate startDate, LocalDate endDate, String transactionType) {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            
-            Sheet sheet = workbook.createSheet("Transaction Report");
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "Account", "Type", "Amount", "Date", "Reference", "Description"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerStyle.setFont(headerFont);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // Get transactions
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-            TransactionType type = null;
-            
-            if (transactionType != null && !transactionType.isEmpty()) {
-                try {
-                    type = TransactionType.valueOf(transactionType.toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    // Invalid type, will return all transactions
+    public void writeTransactionReportExcel(LocalDate startDate, LocalDate endDate, String transactionType,
+                                            OutputStream out) throws IOException {
+        // Only the last EXCEL_ROW_WINDOW rows stay in memory; earlier ones are flushed to a compressed temp file
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            ExcelStyles styles = new ExcelStyles(workbook);
+            // The connection is held while the rows are read, and given back before the file is written out
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<TransactionAdminResponse> rows = transactionRepository.streamReportRows(
+                        parseTransactionType(transactionType), startDate.atStartOfDay(), endDate.atTime(23, 59, 59))) {
+                    writeTransactionRows(workbook, styles, rows.iterator());
                 }
-            }
-
-            List<Transaction> transactions;
-            try {
-                transactions = transactionRepository.findByFilters(
-                    type, startDateTime, endDateTime, null).getContent();
-            } catch (Exception e) {
-                // Use empty list if repository call fails
-                transactions = List.of();
-            }
+            });
+            workbook.write(out);
+            out.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
 
-            // Add data rows
-            int rowNum = 1;
-            for (Transaction transaction : transactions) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(transaction.getId() != null ? transaction.getId().toString() : "N/A");
-                row.createCell(1).setCellValue(transaction.getAccount() != null ? 
-                    transaction.getAccount().getAccountNumber() : "N/A");
-                row.createCell(2).setCellValue(transaction.getType() != null ? 
-                    transaction.getType().name() : "N/A");
-                row.createCell(3).setCellValue(transaction.getAmount() != null ? 
-                    transaction.getAmount().doubleValue() : 0.0);
-                row.createCell(4).setCellValue(transaction.getTransactionDate() != null ? 
-                    transaction.getTransactionDate().toString() : "N/A");
-                row.createCell(5).setCellValue(transaction.getReferenceNumber() != null ? 
-                    transaction.getReferenceNumber() : "N/A");
-                row.createCell(6).setCellValue(transaction.getDescription() != null ? 
-                    transaction.getDescription() : "N/A");
+    private static void writeTransactionRows(SXSSFWorkbook workbook, ExcelStyles styles,
+                                             Iterator<TransactionAdminResponse> rows) {
+        Sheet sheet = createTransactionSheet(workbook, styles);
+        int rowNum = 1;
+        while (rows.hasNext()) {
+            if (rowNum > EXCEL_LAST_ROW) {
+                // A sheet holds about a million rows; continue on the next one
+                sheet = createTransactionSheet(workbook, styles);
+                rowNum = 1;
             }
+            writeTransactionRow(sheet.createRow(rowNum++), rows.next(), styles);
+        }
+    }
 
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+    private static Sheet createTransactionSheet(SXSSFWorkbook workbook, ExcelStyles styles) {
+        int number = workbook.getNumberOfSheets() + 1;
+        Sheet sheet = workbook.createSheet(number == 1 ? "Transaction Report" : "Transaction Report " + number);
+        // Fixed widths: autoSizeColumn would have to track every row of the window
+        for (int i = 0; i < EXCEL_COLUMN_WIDTHS.length; i++) {
+            sheet.setColumnWidth(i, EXCEL_COLUMN_WIDTHS[i] * 256);
+        }
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(EXCEL_HEADERS[i]);
+            cell.setCellStyle(styles.header);
+        }
+        sheet.createFreezePane(0, 1);
+        return sheet;
+    }
 
-            workbook.write(baos);
-            return baos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to generate Excel report", e);
+    private static void writeTransactionRow(Row row, TransactionAdminResponse transaction, ExcelStyles styles) {
+        row.createCell(0).setCellValue(transaction.getId());
+        row.createCell(1).setCellValue(orNa(transaction.getAccountNumber()));
+        row.createCell(2).setCellValue(transaction.getType() != null ? transaction.getType().name() : "N/A");
+        Cell amount = row.createCell(3);
+        amount.setCellValue(transaction.getAmount() != null ? transaction.getAmount().doubleValue() : 0.0);
+        amount.setCellStyle(styles.amount);
+        Cell date = row.createCell(4);
+        if (transaction.getTransactionDate() != null) {
+            date.setCellValue(transaction.getTransactionDate());
+            date.setCellStyle(styles.date);
+        } else {
+            date.setCellValue("N/A");
         }
+        row.createCell(5).setCellValue(orNa(transaction.getReferenceNumber()));
+        row.createCell(6).setCellValue(orNa(transaction.getDescription()));
     }
 
-    @Override
-    public byte[] generateLoanReportPDF(LocalDate startDate, LocalDate endDate, String loanStatus) {
-        try {
-            // Get loans
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-            LoanStatus status = null;
-            
-            if (loanStatus != null && !loanStatus.isEmpty()) {
-                try {
-                    status = LoanStatus.valueOf(loanStatus.toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    // Invalid status, will return all loans
-                }
-            }
+    private static String orNa(String value) {
+        return value != null ? value : "N/A";
+    }
 
-            List<Loan> loans;
-            try {
-                loans = loanRepository.findByCreatedAtBetween(startDateTime, endDateTime);
-            } catch (Exception e) {
-                // Use empty list if repository call fails
-                loans = List.of();
-            }
+    private static TransactionType parseTransactionType(String transactionType) {
+        if (transactionType == null || transactionType.isEmpty()) {
+            return null;
+        }
+        try {
+            return TransactionType.valueOf(transactionType.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Invalid type, will return all transactions
+            return null;
+        }
+    }
 
-            // Filter by status if provided
-            if (status != null) {
-                final LoanStatus finalStatus = status;
-                loans = loans.stream()
-                    .filter(loan -> loan.getStatus() == finalStatus)
-                    .toList();
-            }
+    private static LoanStatus parseLoanStatus(String loanStatus) {
+        if (loanStatus == null || loanStatus.isEmpty()) {
+            return null;
+        }
+        try {
+            return LoanStatus.valueOf(loanStatus.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Invalid status, will return all loans
+            return null;
+        }
+    }
 
-            return pdfGeneratorService.generateLoanReport(startDate, endDate, loanStatus, loans);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate loan PDF report", e);
+    /**
+     * Cell styles of one workbook, created once and shared by all its cells;
+     * a workbook holds at most 64000 styles.
+     */
+    private static final class ExcelStyles {
+
+        private final CellStyle header;
+        private final CellStyle amount;
+        private final CellStyle date;
+
+        private ExcelStyles(Workbook workbook) {
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            header = workbook.createCellStyle();
+            header.setFont(headerFont);
+
+            DataFormat format = workbook.createDataFormat();
+            amount = workbook.createCellStyle();
+            amount.setDataFormat(format.getFormat("#,##0.00"));
+            date = workbook.createCellStyle();
+            date.setDataFormat(format.getFormat("yyyy-mm-dd hh:mm:ss"));
         }
     }
 
     @Override
-    public byte[] generateCustomerReportPDF(LocalDate startDate, LocalDate endDate) {
-        try {
-            // Get customers
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-            
-            List<User> customers;
-            try {
-                customers = userRepository.findByCreatedAtBetween(startDateTime, endDateTime);
-            } catch (Exception e) {
-                // Use empty list if repository call fails
-                customers = List.of();
-            }
+    @Transactional(readOnly = true)
+    public void writeLoanReportPDF(LocalDate startDate, LocalDate endDate, String loanStatus, OutputStream out) {
+        try (Stream<LoanReportRowDTO> loans = loanRepository.streamReportRows(
+                parseLoanStatus(loanStatus), startDate.atStartOfDay(), endDate.atTime(23, 59, 59))) {
+            pdfGeneratorService.writeLoanReport(startDate, endDate, loanStatus, loans, out);
+        }
+    }
 
-            return pdfGeneratorService.generateCustomerReport(startDate, endDate, customers);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate customer PDF report", e);
+    @Override
+    @Transactional(readOnly = true)
+    public void writeCustomerReportPDF(LocalDate startDate, LocalDate endDate, OutputStream out) {
+        try (Stream<CustomerReportRowDTO> customers = userRepository.streamReportRows(
+                startDate.atStartOfDay(), endDate.atTime(23, 59, 59))) {
+            pdfGeneratorService.writeCustomerReport(startDate, endDate, customers, out);
         }
     }
 
     @Override
-    public byte[] generateFinancialSummaryReport(int year, int month) {
+    public void writeFinancialSummaryReport(int year, int month, OutputStream out) {
         try {
             // Calculate date range for the month
             LocalDate startDate = LocalDate.of(year, month, 1);
@@ -230,9 +232,9 @@ public class ReportServiceImpl implements ReportService {
                 totalLoanAmount = new BigDecimal("500000.00");
             }
 
-            return pdfGeneratorService.generateFinancialSummaryReport(year, month, 
-                    totalCustomers, totalTransactions, totalTransactionAmount, 
-                    totalLoans, totalLoanAmount);
+            pdfGeneratorService.writeFinancialSummaryReport(year, month,
+                    totalCustomers, totalTransactions, totalTransactionAmount,
+                    totalLoans, totalLoanAmount, out);
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate financial summary report", e);
         }
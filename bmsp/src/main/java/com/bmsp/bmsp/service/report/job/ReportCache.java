@@ -0,0 +1,130 @@
+package com.bmsp.bmsp.service.report.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Rendered reports on local disk, one file per cache key.
+ *
+ * The key is a SHA-256 hash of the report type, its parameters and the data
+ * watermark it was rendered from, so a file never needs invalidating: once
+ * the data moves, requests hash to a new key. Files are written under a
+ * temporary name and moved into place whole, and are deleted some time after
+ * they were rendered.
+ */
+@Slf4j
+@Component
+public class ReportCache {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+    private final long ttlHours;
+
+    public ReportCache(@Value("${app.reports.cache-dir:./report-cache}") String directory,
+                       @Value("${app.reports.cache-ttl-hours:168}") long ttlHours) throws IOException {
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.ttlHours = ttlHours;
+    }
+
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream out) throws IOException;
+    }
+
+    public String key(ReportRequest request, String watermark) {
+        String material = String.join("|", request.type().name(), request.startDate().toString(),
+                request.endDate().toString(), Objects.toString(request.filter(), ""), watermark);
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The report rendered under {@code key}, or null if there is none.
+     */
+    public ReportJob find(String key, ReportType type) {
+        if (!KEY.matcher(key).matches()) {
+            return null;
+        }
+        Path file = file(key, type);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            LocalDateTime renderedAt = LocalDateTime.ofInstant(attributes.lastModifiedTime().toInstant(), ZoneId.systemDefault());
+            return ReportJob.cached(key, type, file, attributes.size(), renderedAt);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public ReportJob find(String key) {
+        for (ReportType type : ReportType.values()) {
+            ReportJob job = find(key, type);
+            if (job != null) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    public Path write(String key, ReportType type, Renderer renderer) throws IOException {
+        Path partial = Files.createTempFile(directory, key, ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+                renderer.render(out);
+            }
+            // Readers see the whole report or no report
+            return Files.move(partial, file(key, type), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reports.cache-evict-interval-ms:3600000}",
+               initialDelayString = "${app.reports.cache-evict-interval-ms:3600000}")
+    public void evict() {
+        Instant cutoff = Instant.now().minus(ttlHours, ChronoUnit.HOURS);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                // Partial files of crashed renders go the same way
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not evict old reports from {}: {}", directory, e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Evicted {} reports older than {} hours", deleted, ttlHours);
+        }
+    }
+
+    private Path file(String key, ReportType type) {
+        return directory.resolve(key + "-" + type.name().toLowerCase() + "." + type.getExtension());
+    }
+}
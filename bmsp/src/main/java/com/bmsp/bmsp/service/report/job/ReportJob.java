@@ -0,0 +1,67 @@
+package com.bmsp.bmsp.service.report.job;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A report being rendered, or found rendered in the cache. The id is the
+ * cache key of the report, so every request for the same report and data
+ * gets the same job.
+ */
+@Getter
+public class ReportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final ReportType type;
+    private final LocalDateTime submittedAt;
+    private volatile Status status;
+    private volatile LocalDateTime completedAt;
+    private volatile Path file;
+    private volatile long size;
+    private volatile String error;
+    // Completes with the job itself once it has completed or failed
+    private final CompletableFuture<ReportJob> completion = new CompletableFuture<>();
+
+    ReportJob(String id, ReportType type) {
+        this.id = id;
+        this.type = type;
+        this.submittedAt = LocalDateTime.now();
+        this.status = Status.QUEUED;
+    }
+
+    static ReportJob cached(String id, ReportType type, Path file, long size, LocalDateTime renderedAt) {
+        ReportJob job = new ReportJob(id, type);
+        job.completed(file, size, renderedAt);
+        return job;
+    }
+
+    void started() {
+        status = Status.RUNNING;
+    }
+
+    void completed(Path file, long size, LocalDateTime at) {
+        this.file = file;
+        this.size = size;
+        this.completedAt = at;
+        this.status = Status.COMPLETED;
+        completion.complete(this);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.completedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+        completion.complete(this);
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+}
@@ -0,0 +1,126 @@
+package com.bmsp.bmsp.service.report.job;
+
+import com.bmsp.bmsp.exception.ReportQueueFullException;
+import com.bmsp.bmsp.service.report.ReportService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders reports on a pool of its own, off the request threads.
+ *
+ * A job's id is the cache key of its report. A report already on disk under
+ * that key is returned right away, a request for a report being rendered
+ * joins its job, and anything else is queued for the workers. Both the
+ * workers and the queue are bounded, so a burst of month-end reports waits
+ * or is refused instead of taking threads from customer traffic. Finished
+ * reports are found on disk by id and survive restarts; failed jobs are kept
+ * for a while so their error can be read, and resubmitting starts over.
+ */
+@Slf4j
+@Component
+public class ReportJobQueue {
+
+    private final ReportService reportService;
+    private final ReportCache reportCache;
+    private final ReportWatermarks reportWatermarks;
+    private final ThreadPoolExecutor workers;
+    private final long failedRetentionMillis;
+    private final long retryAfterSeconds;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    public ReportJobQueue(ReportService reportService,
+                          ReportCache reportCache,
+                          ReportWatermarks reportWatermarks,
+                          @Value("${app.reports.workers:2}") int workers,
+                          @Value("${app.reports.queue-capacity:20}") int queueCapacity,
+                          @Value("${app.reports.failed-retention-ms:600000}") long failedRetentionMillis,
+                          @Value("${app.reports.retry-after-seconds:30}") long retryAfterSeconds) {
+        this.reportService = reportService;
+        this.reportCache = reportCache;
+        this.reportWatermarks = reportWatermarks;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("report-worker-", 0).factory());
+        this.failedRetentionMillis = failedRetentionMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public ReportJob submit(ReportRequest request) {
+        String id = reportCache.key(request, reportWatermarks.of(request));
+        ReportJob cached = reportCache.find(id, request.type());
+        if (cached != null) {
+            return cached;
+        }
+
+        LocalDateTime expired = LocalDateTime.now().minus(failedRetentionMillis, ChronoUnit.MILLIS);
+        jobs.values().removeIf(job -> job.getStatus() == ReportJob.Status.FAILED && job.getCompletedAt().isBefore(expired));
+        ReportJob created = new ReportJob(id, request.type());
+        ReportJob job = jobs.compute(id, (key, current) ->
+                current != null && current.getStatus() != ReportJob.Status.FAILED ? current : created);
+        if (job == created) {
+            try {
+                workers.execute(() -> render(created, request));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(id, created);
+                throw new ReportQueueFullException("Too many reports are queued, try again later", retryAfterSeconds);
+            }
+        }
+        return job;
+    }
+
+    public Optional<ReportJob> find(String id) {
+        ReportJob job = jobs.get(id);
+        return job != null ? Optional.of(job) : Optional.ofNullable(reportCache.find(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void render(ReportJob job, ReportRequest request) {
+        job.started();
+        try {
+            // A job with the same key may have finished since this one was queued
+            ReportJob cached = reportCache.find(job.getId(), job.getType());
+            Path file = cached != null ? cached.getFile()
+                    : reportCache.write(job.getId(), job.getType(), out -> write(request, out));
+            job.completed(file, Files.size(file), LocalDateTime.now());
+            // The cache answers for it from now on
+            jobs.remove(job.getId(), job);
+        } catch (Throwable e) {
+            // Callers waiting on the job get the failure from its status
+            log.error("Report job {} for {} failed", job.getId(), request, e);
+            job.failed(e.getMessage());
+        }
+    }
+
+    private void write(ReportRequest request, OutputStream out) throws IOException {
+        switch (request.type()) {
+            case TRANSACTIONS_PDF -> reportService.writeTransactionReportPDF(
+                    request.startDate(), request.endDate(), request.filter(), out);
+            case TRANSACTIONS_EXCEL -> reportService.writeTransactionReportExcel(
+                    request.startDate(), request.endDate(), request.filter(), out);
+            case LOANS_PDF -> reportService.writeLoanReportPDF(
+                    request.startDate(), request.endDate(), request.filter(), out);
+            case CUSTOMERS_PDF -> reportService.writeCustomerReportPDF(request.startDate(), request.endDate(), out);
+            case FINANCIAL_SUMMARY -> reportService.writeFinancialSummaryReport(
+                    request.startDate().getYear(), request.startDate().getMonthValue(), out);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bmsp.bmsp.service.report.job;
+
+import java.time.LocalDate;
+
+/**
+ * One report to render: its type, period and optional filter (transaction
+ * type or loan status). Requests asking for the same report compare equal.
+ */
+public record ReportRequest(ReportType type, LocalDate startDate, LocalDate endDate, String filter) {
+
+    public ReportRequest {
+        if (type == null || startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Report type, start date and end date are required");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        // "deposit", " DEPOSIT" and "DEPOSIT" select the same rows
+        filter = filter == null || filter.isBlank() ? null : filter.trim().toUpperCase();
+    }
+
+    public static ReportRequest financialSummary(int year, int month) {
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        return new ReportRequest(ReportType.FINANCIAL_SUMMARY, startDate,
+                startDate.withDayOfMonth(startDate.lengthOfMonth()), null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.bmsp.bmsp.service.report.job;
+
+import lombok.Getter;
+
+/**
+ * The reports the job queue renders.
+ *
+ * A report is settled once its period has closed when nothing it shows can
+ * change afterwards, as transactions are never edited. Loan reports show
+ * statuses that keep moving, customer reports show names and contact details
+ * that customers can edit at any time, and the financial summary includes the
+ * whole loan portfolio, so those are checked against the data on every request.
+ */
+@Getter
+public enum ReportType {
+    TRANSACTIONS_PDF("pdf", "application/pdf", true),
+    TRANSACTIONS_EXCEL("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", true),
+    LOANS_PDF("pdf", "application/pdf", false),
+    CUSTOMERS_PDF("pdf", "application/pdf", false),
+    FINANCIAL_SUMMARY("pdf", "application/pdf", false);
+
+    private final String extension;
+    private final String contentType;
+    private final boolean settledOnceClosed;
+
+    ReportType(String extension, String contentType, boolean settledOnceClosed) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.settledOnceClosed = settledOnceClosed;
+    }
+}
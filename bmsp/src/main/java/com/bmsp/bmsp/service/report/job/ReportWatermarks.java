@@ -0,0 +1,72 @@
+package com.bmsp.bmsp.service.report.job;
+
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.loan.LoanRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The version of the data a report is rendered from, as part of its cache key.
+ *
+ * For an open period this is a small aggregate over the rows the report
+ * covers (count and highest id, plus the version sum for loans and the latest
+ * change for users), which moves whenever a row is added, removed or updated.
+ * A settled report whose period closed a while ago cannot change anymore, so
+ * it gets a fixed watermark and is served from disk without touching the
+ * database.
+ */
+@Component
+public class ReportWatermarks {
+
+    private static final String CLOSED = "closed";
+
+    private final TransactionRepository transactionRepository;
+    private final LoanRepository loanRepository;
+    private final UserRepository userRepository;
+    private final int closedAfterDays;
+
+    public ReportWatermarks(TransactionRepository transactionRepository,
+                            LoanRepository loanRepository,
+                            UserRepository userRepository,
+                            @Value("${app.reports.closed-after-days:1}") int closedAfterDays) {
+        this.transactionRepository = transactionRepository;
+        this.loanRepository = loanRepository;
+        this.userRepository = userRepository;
+        this.closedAfterDays = closedAfterDays;
+    }
+
+    public String of(ReportRequest request) {
+        if (request.type().isSettledOnceClosed() && isClosed(request.endDate())) {
+            return CLOSED;
+        }
+        LocalDateTime start = request.startDate().atStartOfDay();
+        LocalDateTime end = request.endDate().atTime(23, 59, 59);
+        return switch (request.type()) {
+            case TRANSACTIONS_PDF, TRANSACTIONS_EXCEL -> join(transactionRepository.reportWatermark(start, end));
+            case LOANS_PDF -> join(loanRepository.reportWatermark(start, end));
+            case CUSTOMERS_PDF -> join(userRepository.reportWatermark(start, end));
+            // The summary also totals the whole portfolio, which grows with every new loan
+            case FINANCIAL_SUMMARY -> String.join("/",
+                    join(transactionRepository.reportWatermark(start, end)),
+                    join(userRepository.reportWatermark(start, end)),
+                    join(loanRepository.reportWatermark(start, end)),
+                    String.valueOf(loanRepository.count()));
+        };
+    }
+
+    // The grace days cover rows dated before midnight that commit just after it
+    private boolean isClosed(LocalDate endDate) {
+        return endDate.plusDays(closedAfterDays).isBefore(LocalDate.now());
+    }
+
+    private static String join(List<Object[]> rows) {
+        return rows.isEmpty() ? "" : Arrays.stream(rows.get(0)).map(String::valueOf).collect(Collectors.joining(":"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-JVM lock table keyed by account number.
+ *
+ * Every money movement locks the stripes of the accounts it touches before it
+ * reads their balances. Stripes are always acquired in ascending stripe index,
+ * so two transfers in opposite directions (or any two multi-account operations)
+ * can never wait on each other in a cycle, even when account numbers collide on
+ * the same stripe. The database row locks taken afterwards by the balance
+ * updates follow a fixed account-number order for the same reason across nodes.
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+
+    public AccountLockManager(@Value("${app.account-lock.stripes:1024}") int stripeCount,
+                              @Value("${app.account-lock.timeout-ms:5000}") long timeoutMillis) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Locks the given accounts until the surrounding transaction completes.
+     * Must be called inside an active transaction, before any of the accounts
+     * are loaded.
+     */
+    public void lockForTransaction(String... accountNumbers) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Account locks require an active transaction");
+        }
+        AccountLocks locks = acquire(accountNumbers);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.close();
+            }
+        });
+    }
+
+    /**
+     * Locks the given accounts and returns a handle that releases them on close.
+     * Gives up with a {@link TransactionException} when a stripe stays busy for
+     * longer than the configured timeout, so callers under heavy contention fail
+     * fast instead of piling up on a hot account.
+     */
+    public AccountLocks acquire(String... accountNumbers) {
+        int[] indexes = stripeIndexes(accountNumbers);
+        int acquired = 0;
+        try {
+            for (; acquired < indexes.length; acquired++) {
+                if (!stripes[indexes[acquired]].tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new TransactionException("Account is busy, please retry");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException("Interrupted while waiting for account lock");
+        } finally {
+            if (acquired < indexes.length) {
+                unlock(indexes, acquired);
+            }
+        }
+        return new AccountLocks(indexes);
+    }
+
+    int stripeFor(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int[] stripeIndexes(String... accountNumbers) {
+        int[] indexes = new int[accountNumbers.length];
+        for (int i = 0; i < accountNumbers.length; i++) {
+            indexes[i] = stripeFor(accountNumbers[i]);
+        }
+        Arrays.sort(indexes);
+        int distinct = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                indexes[distinct++] = indexes[i];
+            }
+        }
+        return Arrays.copyOf(indexes, distinct);
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    public final class AccountLocks implements AutoCloseable {
+        private final int[] indexes;
+        private boolean released;
+
+        private AccountLocks(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                unlock(indexes, indexes.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.model.transaction.AccountBalanceSnapshot;
+import com.bmsp.bmsp.repository.dto.ClosingBalanceDTO;
+import com.bmsp.bmsp.repository.transaction.AccountBalanceSnapshotRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End-of-day job writing {@code account_balance_snapshot} rows. Only accounts
+ * that moved during the day are touched: their closing balance is the
+ * balance after their last ledger row of the day. Re-running a day replaces
+ * its rows, so a day can be backfilled or redone after late ledger rows.
+ */
+@Slf4j
+@Component
+public class BalanceSnapshotJob {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountBalanceSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BalanceSnapshotJob(TransactionRepository transactionRepository,
+                              AccountBalanceSnapshotRepository snapshotRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.balance-snapshots.cron:0 5 0 * * *}")
+    public void snapshotPreviousDay() {
+        LocalDate day = LocalDate.now().minusDays(1);
+        int accounts = snapshotDay(day);
+        log.info("Wrote closing balances of {} account(s) for {}", accounts, day);
+    }
+
+    public int snapshotDay(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+        return transactionTemplate.execute(status -> {
+            List<ClosingBalanceDTO> closing = transactionRepository.findClosingBalances(start, end);
+            snapshotRepository.deleteByBalanceDate(day);
+            LocalDateTime now = LocalDateTime.now();
+            List<AccountBalanceSnapshot> snapshots = new ArrayList<>(closing.size());
+            for (ClosingBalanceDTO balance : closing) {
+                AccountBalanceSnapshot snapshot = new AccountBalanceSnapshot();
+                snapshot.setAccountNumber(balance.getAccountNumber());
+                snapshot.setBalanceDate(day);
+                snapshot.setClosingBalance(balance.getBalance());
+                snapshot.setCreatedAt(now);
+                snapshots.add(snapshot);
+            }
+            snapshotRepository.saveAll(snapshots);
+            return snapshots.size();
+        });
+    }
+}
@@ -0,0 +1,169 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.transaction.IdempotencyRecord;
+import com.bmsp.bmsp.repository.transaction.IdempotencyRecordRepository;
+import com.bmsp.bmsp.util.OptimisticRetry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Database side of {@link IdempotencyService}. The claim on a key is its own
+ * short transaction, so other requests and nodes see it while the request
+ * runs; the response is stored in the request's transaction, or in the
+ * transaction that persists the request's shard postings when the money moves
+ * on the account shards. Concurrent changes to one claim are caught by its
+ * version.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyClaims {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ThreadLocal<Completion<?>> completing = new ThreadLocal<>();
+
+    /**
+     * Inserts a PENDING claim. Throws a {@code DataIntegrityViolationException}
+     * when a row for the key already exists.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void claim(IdempotencyRecord claim) {
+        idempotencyRecordRepository.saveAndFlush(claim);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public Optional<IdempotencyRecord> find(String scopedKey) {
+        return idempotencyRecordRepository.findById(scopedKey);
+    }
+
+    /**
+     * Hands a PENDING claim nobody has completed since {@code staleBefore} to
+     * {@code claimToken}. Returns false when the claim moved on in the meantime.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean takeOver(String scopedKey, long version, String claimToken, LocalDateTime staleBefore) {
+        Optional<IdempotencyRecord> stale = idempotencyRecordRepository.findById(scopedKey)
+                .filter(record -> record.getVersion() == version)
+                .filter(record -> record.getStatus() == IdempotencyRecord.Status.PENDING)
+                .filter(record -> record.getClaimedAt().isBefore(staleBefore));
+        stale.ifPresent(record -> {
+            record.setClaimToken(claimToken);
+            record.setClaimedAt(LocalDateTime.now());
+        });
+        return stale.isPresent();
+    }
+
+    /**
+     * Removes the row for the key if it has expired, so the key can be claimed again.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void removeExpired(String scopedKey, LocalDateTime now) {
+        idempotencyRecordRepository.findById(scopedKey)
+                .filter(record -> !record.getExpiresAt().isAfter(now))
+                .ifPresent(idempotencyRecordRepository::delete);
+    }
+
+    /**
+     * Runs {@code action} and stores its response on the claim in the same
+     * transaction, which the action's own transactional work joins. A claim
+     * that was taken over in the meantime rolls the action back. Work that
+     * commits in a transaction of its own stores the response there instead,
+     * through {@link #completing} and {@link #store}.
+     */
+    @OptimisticRetry
+    @Transactional
+    public <T> T complete(String scopedKey, String claimToken, Class<T> responseType, Supplier<T> action,
+                          Function<T, String> serializer) {
+        // Checked up front as well, so a retry after losing the claim does not run the action again
+        IdempotencyRecord claim = pending(scopedKey, claimToken);
+        Completion<T> completion = new Completion<>(scopedKey, claimToken, responseType, serializer);
+        T response;
+        completing.set(completion);
+        try {
+            response = action.get();
+        } finally {
+            completing.remove();
+        }
+        if (!completion.stored) {
+            claim.setResponseBody(serializer.apply(response));
+            claim.setStatus(IdempotencyRecord.Status.COMPLETED);
+        }
+        return response;
+    }
+
+    /**
+     * The claim the current thread is completing, if its response is a
+     * {@code responseType}.
+     */
+    public <T> Optional<Completion<T>> completing(Class<T> responseType) {
+        Completion<?> completion = completing.get();
+        if (completion == null || completion.responseType != responseType) {
+            return Optional.empty();
+        }
+        @SuppressWarnings("unchecked")
+        Completion<T> typed = (Completion<T>) completion;
+        return Optional.of(typed);
+    }
+
+    /**
+     * Stores {@code response} on the claim in the caller's transaction, which
+     * then commits the claim with its own work. Throws when the claim was
+     * taken over in the meantime, so that work is rolled back.
+     */
+    @Transactional
+    public <T> void store(Completion<T> completion, T response) {
+        IdempotencyRecord claim = pending(completion.scopedKey, completion.claimToken);
+        claim.setResponseBody(completion.serializer.apply(response));
+        claim.setStatus(IdempotencyRecord.Status.COMPLETED);
+        completion.stored = true;
+    }
+
+    /**
+     * Drops the caller's PENDING claim after its request failed, so the key can be retried.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String scopedKey, String claimToken) {
+        idempotencyRecordRepository.findById(scopedKey)
+                .filter(claim -> claim.getStatus() == IdempotencyRecord.Status.PENDING)
+                .filter(claim -> claim.getClaimToken().equals(claimToken))
+                .ifPresent(idempotencyRecordRepository::delete);
+    }
+
+    public void purgeExpired(LocalDateTime now) {
+        idempotencyRecordRepository.deleteExpired(now);
+    }
+
+    private IdempotencyRecord pending(String scopedKey, String claimToken) {
+        return idempotencyRecordRepository.findById(scopedKey)
+                .filter(record -> record.getStatus() == IdempotencyRecord.Status.PENDING)
+                .filter(record -> record.getClaimToken().equals(claimToken))
+                .orElseThrow(() -> new TransactionException(
+                        IdempotencyService.HEADER + " was taken over by another attempt of this request"));
+    }
+
+    /**
+     * A claim being completed by the request running on this thread.
+     */
+    public static final class Completion<T> {
+        private final String scopedKey;
+        private final String claimToken;
+        private final Class<T> responseType;
+        private final Function<T, String> serializer;
+        private volatile boolean stored;
+
+        private Completion(String scopedKey, String claimToken, Class<T> responseType,
+                           Function<T, String> serializer) {
+            this.scopedKey = scopedKey;
+            this.claimToken = claimToken;
+            this.responseType = responseType;
+            this.serializer = serializer;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.IdempotencyRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs money movements at most once per {@code Idempotency-Key}.
+ *
+ * Keys are scoped to the calling user. Before a request runs, its key is
+ * claimed with a PENDING row in {@code idempotency_keys}, and the response is
+ * stored on that row in the same transaction as the money movement, so a crash
+ * leaves either both or neither. A duplicate on any node that finds the claim
+ * waits for the stored response; a claim left PENDING longer than the claim
+ * timeout belongs to a request that died and is taken over. Recent results
+ * and in-flight requests are also held in a bounded in-memory map, so
+ * duplicates on the same node wait without polling. Failed calls release
+ * their claim and can be retried with the same key.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_MILLIS = 100;
+
+    private final IdempotencyClaims idempotencyClaims;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration claimTimeout;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong nextPurgeMillis = new AtomicLong();
+
+    public IdempotencyService(IdempotencyClaims idempotencyClaims,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.claim-timeout-seconds:60}") long claimTimeoutSeconds,
+                              @Value("${app.idempotency.cache-size:10000}") int maxEntries) {
+        this.idempotencyClaims = idempotencyClaims;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Executes {@code action} unless a request with the same key was already
+     * processed for this user, in which case the stored response is returned.
+     * Without a key the action simply runs.
+     */
+    public <T> T execute(String key, User user, String operation, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new TransactionException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = user.getId() + ":" + key;
+        String requestHash = hash(operation, request);
+        purgeExpiredRecords();
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry existing = entries.get(scopedKey);
+            if (existing != null && existing.expiresAtMillis <= now) {
+                entries.remove(scopedKey, existing);
+                continue;
+            }
+            if (existing != null) {
+                checkSameRequest(existing.requestHash, requestHash);
+                return read(existing.await(), responseType);
+            }
+            Entry created = new Entry(requestHash, now + ttl.toMillis());
+            if (entries.putIfAbsent(scopedKey, created) == null) {
+                evictIfFull();
+                return run(scopedKey, created, responseType, action);
+            }
+        }
+    }
+
+    private <T> T run(String scopedKey, Entry entry, Class<T> responseType, Supplier<T> action) {
+        try {
+            String claimToken = UUID.randomUUID().toString();
+            String stored = claim(scopedKey, entry.requestHash, claimToken);
+            if (stored != null) {
+                entry.body.complete(stored);
+                return read(stored, responseType);
+            }
+
+            T response;
+            try {
+                response = idempotencyClaims.complete(scopedKey, claimToken, responseType, action, this::write);
+            } catch (RuntimeException e) {
+                release(scopedKey, claimToken);
+                throw e;
+            }
+            entry.body.complete(write(response));
+            return response;
+        } catch (RuntimeException e) {
+            entries.remove(scopedKey, entry);
+            entry.body.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Claims the key, or returns the response stored for it once the request holding it completes
+    private String claim(String scopedKey, String requestHash, String claimToken) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                idempotencyClaims.claim(newClaim(scopedKey, requestHash, claimToken, now));
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                // Held by an earlier request, possibly on another node
+            }
+
+            Optional<IdempotencyRecord> existing = idempotencyClaims.find(scopedKey);
+            if (existing.isEmpty()) {
+                // Released in the meantime
+                continue;
+            }
+            IdempotencyRecord record = existing.get();
+            if (!record.getExpiresAt().isAfter(now)) {
+                idempotencyClaims.removeExpired(scopedKey, now);
+                continue;
+            }
+            checkSameRequest(record.getRequestHash(), requestHash);
+            if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                return record.getResponseBody();
+            }
+            if (idempotencyClaims.takeOver(scopedKey, record.getVersion(), claimToken, now.minus(claimTimeout))) {
+                log.warn("Idempotency claim {} was not completed within {}, taking it over", scopedKey, claimTimeout);
+                return null;
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransactionException("Interrupted while waiting for the original request");
+            }
+        }
+    }
+
+    private IdempotencyRecord newClaim(String scopedKey, String requestHash, String claimToken, LocalDateTime now) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScopedKey(scopedKey);
+        record.setRequestHash(requestHash);
+        record.setStatus(IdempotencyRecord.Status.PENDING);
+        record.setClaimToken(claimToken);
+        record.setClaimedAt(now);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plus(ttl));
+        return record;
+    }
+
+    private void release(String scopedKey, String claimToken) {
+        try {
+            idempotencyClaims.release(scopedKey, claimToken);
+        } catch (DataAccessException e) {
+            // Retries wait for the claim timeout instead
+            log.warn("Could not release idempotency claim {}: {}", scopedKey, e.getMessage());
+        }
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new TransactionException(HEADER + " was already used for a different request");
+        }
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> e.getValue().expiresAtMillis <= now);
+        var iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            if (iterator.next().getValue().body.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void purgeExpiredRecords() {
+        long now = System.currentTimeMillis();
+        long next = nextPurgeMillis.get();
+        if (now >= next && nextPurgeMillis.compareAndSet(next, now + Duration.ofHours(1).toMillis())) {
+            try {
+                idempotencyClaims.purgeExpired(LocalDateTime.now());
+            } catch (DataAccessException e) {
+                log.warn("Could not purge expired idempotency records: {}", e.getMessage());
+            }
+        }
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response", e);
+        }
+    }
+
+    private static final class Entry {
+        private final String requestHash;
+        private final long expiresAtMillis;
+        private final CompletableFuture<String> body = new CompletableFuture<>();
+
+        private Entry(String requestHash, long expiresAtMillis) {
+            this.requestHash = requestHash;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private String await() {
+            try {
+                return body.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
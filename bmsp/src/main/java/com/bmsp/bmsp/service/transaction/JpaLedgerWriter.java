@@ -0,0 +1,37 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.admin.SystemCounters;
+import com.bmsp.bmsp.service.ledger.PostingEngine;
+import com.bmsp.bmsp.service.metrics.LiveMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default ledger writer: inserts the rows into {@code transactions} and posts
+ * them to the double-entry journal, as part of the movement's own database
+ * transaction, along with the day's volume in {@code system_counters}. The
+ * rows count towards the live metrics once it commits.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.ledger.journal.enabled", havingValue = "false", matchIfMissing = true)
+public class JpaLedgerWriter implements LedgerWriter {
+
+    private final TransactionRepository transactionRepository;
+    private final PostingEngine postingEngine;
+    private final LiveMetrics liveMetrics;
+    private final SystemCounters systemCounters;
+
+    @Override
+    public void write(List<Transaction> entries) {
+        transactionRepository.saveAll(entries);
+        postingEngine.postMovements(entries);
+        systemCounters.recorded(entries);
+        liveMetrics.transactionsAfterCommit(entries);
+    }
+}
@@ -0,0 +1,14 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.model.transaction.Transaction;
+
+import java.util.List;
+
+/**
+ * Records the ledger rows of a money movement. Called inside the movement's
+ * database transaction, after its balance updates.
+ */
+public interface LedgerWriter {
+
+    void write(List<Transaction> entries);
+}
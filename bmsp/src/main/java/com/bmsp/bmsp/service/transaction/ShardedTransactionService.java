@@ -0,0 +1,257 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.dto.request.transaction.BatchTransferRequest;
+import com.bmsp.bmsp.dto.request.transaction.TransactionRequest;
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.dto.response.transaction.BatchTransferResponse;
+import com.bmsp.bmsp.dto.response.transaction.StatementResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionSliceResponse;
+import com.bmsp.bmsp.exception.InsufficientBalanceException;
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.service.transaction.shard.AccountShardEngine;
+import com.bmsp.bmsp.service.transaction.shard.Posting;
+import com.bmsp.bmsp.service.transaction.velocity.VelocityEngine;
+import com.bmsp.bmsp.service.transaction.velocity.VelocityRule.Direction;
+import com.bmsp.bmsp.util.ReferenceNumberGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Sharded execution mode: money movements run on {@link AccountShardEngine}
+ * instead of locking account rows, and return once their rows are persisted.
+ * Reads are served by {@link TransactionServiceImpl} as usual. Velocity
+ * limits are checked before a movement is submitted, without a lock, so
+ * concurrent requests for one account may together overshoot a limit by the
+ * movements in flight. Under an {@code Idempotency-Key} the response is
+ * stored on the claim in the transaction that persists the postings, so the
+ * movement and its claim commit or roll back together.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.transactions.shards.enabled", havingValue = "true")
+public class ShardedTransactionService implements TransactionService {
+
+    private final TransactionServiceImpl delegate;
+    private final AccountShardEngine engine;
+    private final ReferenceNumberGenerator referenceNumberGenerator;
+    private final VelocityEngine velocityEngine;
+    private final IdempotencyClaims idempotencyClaims;
+
+    @Value("${app.transactions.batch-max-size:500}")
+    private int batchMaxSize;
+
+    @Override
+    public TransactionResponse deposit(TransactionRequest request, User user) {
+        velocityEngine.screen(request.getAccountNumber(), Direction.IN, request.getAmount());
+        Posting posting = engine.credit(request.getAccountNumber(), TransactionServiceImpl.ownerId(user),
+                request.getAmount(), TransactionType.DEPOSIT, request.getDescription(),
+                referenceNumberGenerator.generateReferenceNumber(), linkedWrites(null));
+        return confirmed(posting, Direction.IN);
+    }
+
+    @Override
+    public TransactionResponse withdraw(TransactionRequest request, User user) {
+        return withdraw(request, user, null);
+    }
+
+    // The linked write commits with the shard's posting, not with the caller's transaction
+    @Override
+    public TransactionResponse withdraw(TransactionRequest request, User user,
+                                        Consumer<TransactionResponse> linkedWrite) {
+        velocityEngine.screen(request.getAccountNumber(), Direction.OUT, request.getAmount());
+        Posting posting = engine.debit(request.getAccountNumber(), TransactionServiceImpl.ownerId(user),
+                request.getAmount(), TransactionType.WITHDRAWAL, request.getDescription(),
+                referenceNumberGenerator.generateReferenceNumber(), "Insufficient balance for withdrawal",
+                linkedWrites(linkedWrite));
+        return confirmed(posting, Direction.OUT);
+    }
+
+    @Override
+    public TransactionResponse processAdminTransaction(TransactionRequest request, TransactionType type) {
+        String referenceNumber = referenceNumberGenerator.generateReferenceNumber();
+        Posting posting;
+        if (type == TransactionType.DEPOSIT) {
+            posting = engine.credit(request.getAccountNumber(), null, request.getAmount(), type,
+                    request.getDescription(), referenceNumber);
+        } else if (type == TransactionType.WITHDRAWAL) {
+            posting = engine.debit(request.getAccountNumber(), null, request.getAmount(), type,
+                    request.getDescription(), referenceNumber, "Insufficient balance for withdrawal");
+        } else {
+            throw new TransactionException("Invalid transaction type for admin operation");
+        }
+        engine.awaitPersisted(List.of(posting));
+        return TransactionServiceImpl.mapToTransactionResponse(posting.transaction());
+    }
+
+    @Override
+    public TransactionResponse transfer(TransferRequest request, User user) {
+        if (request.getFromAccountNumber().equals(request.getToAccountNumber())) {
+            throw new TransactionException("Cannot transfer to the same account");
+        }
+        screen(request, null);
+        List<Posting> postings = engine.transfer(request.getFromAccountNumber(), request.getToAccountNumber(),
+                TransactionServiceImpl.ownerId(user), request.getAmount(), request.getDescription(),
+                referenceNumberGenerator.generateReferenceNumber(), linkedWrites(null));
+        engine.awaitPersisted(postings);
+        record(request);
+        return TransactionServiceImpl.mapToTransactionResponse(postings.get(1).transaction());
+    }
+
+    // Items go through the shards one after another, so each sees the balances the
+    // previous ones left; persistence of the whole batch is awaited once at the end,
+    // and only the items whose rows were written count towards the velocity windows
+    @Override
+    public BatchTransferResponse batchTransfer(BatchTransferRequest request, User user) {
+        List<TransferRequest> transfers = request.getTransfers();
+        if (transfers.size() > batchMaxSize) {
+            throw new TransactionException("A batch can contain at most " + batchMaxSize + " transfers");
+        }
+        Long ownerId = TransactionServiceImpl.ownerId(user);
+        List<Posting> postings = new ArrayList<>(transfers.size() * 2);
+        List<Map.Entry<TransferRequest, List<Posting>>> moves = new ArrayList<>(transfers.size());
+        VelocityEngine.Pending screened = new VelocityEngine.Pending();
+        List<BatchTransferResponse.ItemResult> results = new ArrayList<>(transfers.size());
+        int successCount = 0;
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            BatchTransferResponse.ItemResult.ItemResultBuilder result = BatchTransferResponse.ItemResult.builder()
+                    .index(i)
+                    .fromAccountNumber(transfer.getFromAccountNumber())
+                    .toAccountNumber(transfer.getToAccountNumber())
+                    .amount(transfer.getAmount());
+            if (transfer.getFromAccountNumber().equals(transfer.getToAccountNumber())) {
+                results.add(result.status("FAILED").message("Cannot transfer to the same account").build());
+                continue;
+            }
+
+            String referenceNumber = referenceNumberGenerator.generateReferenceNumber();
+            try {
+                screen(transfer, screened);
+                List<Posting> moved = engine.transfer(transfer.getFromAccountNumber(), transfer.getToAccountNumber(),
+                        ownerId, transfer.getAmount(), transfer.getDescription(), referenceNumber);
+                postings.addAll(moved);
+                moves.add(Map.entry(transfer, moved));
+                screened.add(transfer.getFromAccountNumber(), Direction.OUT, transfer.getAmount());
+                screened.add(transfer.getToAccountNumber(), Direction.IN, transfer.getAmount());
+                results.add(result.status("SUCCESS")
+                        .referenceNumber(referenceNumber)
+                        .balanceAfter(moved.get(0).transaction().getBalanceAfter())
+                        .build());
+                successCount++;
+            } catch (TransactionException | InsufficientBalanceException e) {
+                results.add(result.status("FAILED").message(e.getMessage()).build());
+            }
+        }
+        try {
+            engine.awaitPersisted(postings);
+        } finally {
+            for (Map.Entry<TransferRequest, List<Posting>> move : moves) {
+                if (move.getValue().stream().allMatch(posting -> posting.persisted().isDone()
+                        && !posting.persisted().isCompletedExceptionally())) {
+                    record(move.getKey());
+                }
+            }
+        }
+
+        return BatchTransferResponse.builder()
+                .totalProcessed(transfers.size())
+                .successCount(successCount)
+                .failureCount(transfers.size() - successCount)
+                .results(results)
+                .build();
+    }
+
+    @Override
+    public List<TransactionResponse> getTransactionHistory(String accountNumber, User user) {
+        return delegate.getTransactionHistory(accountNumber, user);
+    }
+
+    @Override
+    public List<TransactionResponse> getTransactionHistoryBetweenDates(
+            String accountNumber, LocalDate startDate, LocalDate endDate, User user) {
+        return delegate.getTransactionHistoryBetweenDates(accountNumber, startDate, endDate, user);
+    }
+
+    @Override
+    public Page<TransactionResponse> getPaginatedTransactionHistory(
+            String accountNumber, int page, int size, User user) {
+        return delegate.getPaginatedTransactionHistory(accountNumber, page, size, user);
+    }
+
+    @Override
+    public TransactionSliceResponse getTransactionHistorySlice(
+            String accountNumber, String cursor, int size, User user) {
+        return delegate.getTransactionHistorySlice(accountNumber, cursor, size, user);
+    }
+
+    @Override
+    public void checkHistoryAccess(String accountNumber, User user) {
+        delegate.checkHistoryAccess(accountNumber, user);
+    }
+
+    @Override
+    public void exportTransactionHistory(String accountNumber, LocalDate startDate, LocalDate endDate,
+                                         ExportFormat format, User user, OutputStream out) throws IOException {
+        delegate.exportTransactionHistory(accountNumber, startDate, endDate, format, user, out);
+    }
+
+    @Override
+    public BigDecimal getBalanceAsOf(String accountNumber, LocalDateTime at, User user) {
+        return delegate.getBalanceAsOf(accountNumber, at, user);
+    }
+
+    @Override
+    public StatementResponse getStatement(String accountNumber, LocalDate startDate, LocalDate endDate, User user) {
+        return delegate.getStatement(accountNumber, startDate, endDate, user);
+    }
+
+    private TransactionResponse confirmed(Posting posting, Direction direction) {
+        engine.awaitPersisted(List.of(posting));
+        velocityEngine.record(posting.accountNumber(), direction, posting.transaction().getAmount());
+        return TransactionServiceImpl.mapToTransactionResponse(posting.transaction());
+    }
+
+    // The caller's linked write, if any, and the idempotency claim this request is completing
+    private Consumer<Transaction> linkedWrites(Consumer<TransactionResponse> linkedWrite) {
+        Consumer<Transaction> claim = idempotencyClaims.completing(TransactionResponse.class)
+                .<Consumer<Transaction>>map(completion -> row -> idempotencyClaims.store(completion,
+                        TransactionServiceImpl.mapToTransactionResponse(row)))
+                .orElse(null);
+        if (linkedWrite == null) {
+            return claim;
+        }
+        Consumer<Transaction> write = row -> linkedWrite.accept(
+                TransactionServiceImpl.mapToTransactionResponse(row));
+        return claim == null ? write : write.andThen(claim);
+    }
+
+    private void screen(TransferRequest transfer, VelocityEngine.Pending screened) {
+        velocityEngine.screen(transfer.getFromAccountNumber(), Direction.OUT, transfer.getAmount(), screened);
+        velocityEngine.screen(transfer.getToAccountNumber(), Direction.IN, transfer.getAmount(), screened);
+    }
+
+    private void record(TransferRequest transfer) {
+        velocityEngine.record(transfer.getFromAccountNumber(), Direction.OUT, transfer.getAmount());
+        velocityEngine.record(transfer.getToAccountNumber(), Direction.IN, transfer.getAmount());
+    }
+}
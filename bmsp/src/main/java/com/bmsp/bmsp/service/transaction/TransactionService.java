@@ -1,23 +1,48 @@
 package com.bmsp.bmsp.service.transaction;
 
+import com.bmsp.bmsp.dto.request.transaction.BatchTransferRequest;
 import com.bmsp.bmsp.dto.request.transaction.TransactionRequest;
 import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.dto.response.transaction.BatchTransferResponse;
 import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.dto.response.transaction.StatementResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionSliceResponse;
 import com.bmsp.bmsp.model.auth.User;
 import com.bmsp.bmsp.model.transaction.TransactionType;
 import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionService {
     TransactionResponse deposit(TransactionRequest request, User user);
     TransactionResponse withdraw(TransactionRequest request, User user);
+
+    /**
+     * Withdraws and hands the recorded withdrawal to {@code linkedWrite} in the
+     * database transaction that records it, so that neither commits without
+     * the other.
+     */
+    TransactionResponse withdraw(TransactionRequest request, User user, Consumer<TransactionResponse> linkedWrite);
+
     TransactionResponse transfer(TransferRequest request, User user);
+    BatchTransferResponse batchTransfer(BatchTransferRequest request, User user);
     TransactionResponse processAdminTransaction(TransactionRequest request, TransactionType type);
     List<TransactionResponse> getTransactionHistory(String accountNumber, User user);
     List<TransactionResponse> getTransactionHistoryBetweenDates(
             String accountNumber, LocalDate startDate, LocalDate endDate, User user);
     Page<TransactionResponse> getPaginatedTransactionHistory(
             String accountNumber, int page, int size, User user);
+    TransactionSliceResponse getTransactionHistorySlice(
+            String accountNumber, String cursor, int size, User user);
+    void checkHistoryAccess(String accountNumber, User user);
+    void exportTransactionHistory(String accountNumber, LocalDate startDate, LocalDate endDate,
+            ExportFormat format, User user, OutputStream out) throws IOException;
+    BigDecimal getBalanceAsOf(String accountNumber, LocalDateTime at, User user);
+    StatementResponse getStatement(String accountNumber, LocalDate startDate, LocalDate endDate, User user);
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.bmsp.bmsp.service.transaction.archive;
+
+import com.bmsp.bmsp.repository.transaction.ArchivalRepository;
+import com.bmsp.bmsp.repository.transaction.ArchivalRepository.ArchivedTable;
+import com.bmsp.bmsp.repository.transaction.ArchivalRepository.Partition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Moves ledger and audit rows older than the retention window into the
+ * compressed archive tables, and keeps monthly partitions open ahead of time.
+ *
+ * On partitioned MySQL tables every partition that ends on or before the
+ * cutoff is copied into the archive and then dropped, which is a metadata
+ * change instead of a row-by-row delete. Elsewhere the same happens one
+ * calendar month at a time with a copy and a range delete in one transaction.
+ * A copy replaces whatever an interrupted earlier run left for its range, so
+ * the job can always be re-run.
+ */
+@Slf4j
+@Component
+public class LedgerArchivalJob {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ArchivalRepository archivalRepository;
+    private final LedgerArchive ledgerArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionMonths;
+    private final int partitionsAhead;
+
+    public LedgerArchivalJob(ArchivalRepository archivalRepository,
+                             LedgerArchive ledgerArchive,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.ledger-archive.retention-months:24}") int retentionMonths,
+                             @Value("${app.ledger-archive.partitions-ahead:3}") int partitionsAhead) {
+        this.archivalRepository = archivalRepository;
+        this.ledgerArchive = ledgerArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionMonths = retentionMonths;
+        this.partitionsAhead = partitionsAhead;
+    }
+
+    @Scheduled(cron = "${app.ledger-archive.cron:0 30 1 * * *}")
+    public void run() {
+        YearMonth current = YearMonth.now();
+        for (ArchivedTable table : ArchivedTable.values()) {
+            openPartitionsThrough(table, current.plusMonths(partitionsAhead));
+        }
+        int moved = archiveBefore(current.minusMonths(retentionMonths));
+        if (moved > 0) {
+            log.info("Archived {} row(s) older than {} month(s)", moved, retentionMonths);
+        }
+    }
+
+    /**
+     * Archives every row dated before the first day of {@code cutoff}.
+     */
+    public int archiveBefore(YearMonth cutoff) {
+        LocalDateTime boundary = cutoff.atDay(1).atStartOfDay();
+        int moved = 0;
+        for (ArchivedTable table : ArchivedTable.values()) {
+            List<Partition> partitions = archivalRepository.findPartitions(table);
+            moved += partitions.isEmpty() ? archiveByMonth(table, boundary) : archivePartitions(table, partitions, boundary);
+        }
+        ledgerArchive.refresh();
+        return moved;
+    }
+
+    private int archivePartitions(ArchivedTable table, List<Partition> partitions, LocalDateTime boundary) {
+        int moved = 0;
+        LocalDateTime lower = EPOCH;
+        for (Partition partition : partitions) {
+            LocalDateTime upper = partition.lessThan();
+            if (upper == null || upper.isAfter(boundary)) {
+                break;
+            }
+            LocalDateTime start = lower;
+            moved += transactionTemplate.execute(
+                    status -> archivalRepository.copyToArchive(table, partition.name(), start, upper));
+            archivalRepository.dropPartition(table, partition.name());
+            lower = upper;
+        }
+        return moved;
+    }
+
+    private int archiveByMonth(ArchivedTable table, LocalDateTime boundary) {
+        Optional<LocalDateTime> oldest = archivalRepository.findOldest(table);
+        if (oldest.isEmpty()) {
+            return 0;
+        }
+        int moved = 0;
+        for (YearMonth month = YearMonth.from(oldest.get()); month.atDay(1).atStartOfDay().isBefore(boundary);
+             month = month.plusMonths(1)) {
+            LocalDateTime start = month.atDay(1).atStartOfDay();
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            moved += transactionTemplate.execute(status -> {
+                int copied = archivalRepository.copyToArchive(table, null, start, end);
+                archivalRepository.deleteRange(table, start, end);
+                return copied;
+            });
+        }
+        return moved;
+    }
+
+    private void openPartitionsThrough(ArchivedTable table, YearMonth last) {
+        List<Partition> partitions = archivalRepository.findPartitions(table);
+        if (partitions.isEmpty() || partitions.get(partitions.size() - 1).lessThan() != null) {
+            return;
+        }
+        YearMonth next = partitions.size() > 1
+                ? YearMonth.from(partitions.get(partitions.size() - 2).lessThan())
+                : YearMonth.now();
+        List<YearMonth> months = new ArrayList<>();
+        for (; !next.isAfter(last); next = next.plusMonths(1)) {
+            months.add(next);
+        }
+        if (!months.isEmpty()) {
+            archivalRepository.addMonthlyPartitions(table, partitions.get(partitions.size() - 1).name(), months);
+            log.info("Opened {} partition(s) of {} through {}", months.size(), table, last);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bmsp.bmsp.service.transaction.archive;
+
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.repository.transaction.ArchivedTransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tells history reads whether they need {@code transactions_archive} at all.
+ *
+ * Archived rows are always older than every row left in {@code transactions},
+ * so a read only has to look at the archive when its range starts at or before
+ * the newest archived row. That date is cached and re-read periodically, which
+ * keeps reads of recent history from touching the archive.
+ */
+@Component
+public class LedgerArchive {
+
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final EntityManager entityManager;
+    private final long refreshMillis;
+    private volatile Watermark watermark;
+
+    public LedgerArchive(ArchivedTransactionRepository archivedTransactionRepository,
+                         EntityManager entityManager,
+                         @Value("${app.ledger-archive.watermark-refresh-seconds:60}") long refreshSeconds) {
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.entityManager = entityManager;
+        this.refreshMillis = refreshSeconds * 1000;
+    }
+
+    /**
+     * Whether archived rows may fall at or after {@code from}; a null
+     * {@code from} stands for the whole history.
+     */
+    public boolean reaches(LocalDateTime from) {
+        Watermark current = watermark;
+        if (current == null || current.readAtMillis + refreshMillis <= System.currentTimeMillis()) {
+            current = refresh();
+        }
+        return current.latest != null && (from == null || !from.isAfter(current.latest));
+    }
+
+    public Watermark refresh() {
+        Watermark current = new Watermark(archivedTransactionRepository.findLatestTransactionDate().orElse(null),
+                System.currentTimeMillis());
+        watermark = current;
+        return current;
+    }
+
+    // Offset page of the archived history, newest first, for pages that run past the hot rows
+    public List<TransactionResponse> findHistoryPage(String accountNumber, int offset, int limit) {
+        return entityManager.createQuery(ArchivedTransactionRepository.HISTORY_VIEW +
+                        "WHERE a.accountNumber = :accountNumber ORDER BY a.transactionDate DESC, a.id DESC",
+                        TransactionResponse.class)
+                .setParameter("accountNumber", accountNumber)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public record Watermark(LocalDateTime latest, long readAtMillis) {
+    }
+}
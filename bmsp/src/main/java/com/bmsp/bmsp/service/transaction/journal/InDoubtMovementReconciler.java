@@ -0,0 +1,147 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.ledger.PostingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Settles the rows {@link LedgerJournalApplier} projected with status PENDING
+ * because the outcome of their database transaction was unknown.
+ *
+ * Whether such a movement committed shows in the balance chain of its
+ * account: the balance the next movement started from, or the account's
+ * balance once every earlier journaled row is projected and none came after,
+ * either includes the movement or does not. A committed movement is marked
+ * COMPLETED and posted to the double-entry journal, one that did not is
+ * marked FAILED. A movement whose chain matches neither stays PENDING and is
+ * logged for manual reconciliation.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.ledger.journal.enabled", havingValue = "true")
+public class InDoubtMovementReconciler {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final PostingEngine postingEngine;
+    private final LedgerJournalApplier applier;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public InDoubtMovementReconciler(TransactionRepository transactionRepository,
+                                     AccountRepository accountRepository,
+                                     PostingEngine postingEngine,
+                                     LedgerJournalApplier applier,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.ledger.journal.reconcile-batch-size:100}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.postingEngine = postingEngine;
+        this.applier = applier;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.journal.reconcile-interval-ms:60000}",
+               initialDelayString = "${app.ledger.journal.reconcile-initial-delay-ms:60000}")
+    public void run() {
+        int settled = reconcile();
+        if (settled > 0) {
+            log.info("Settled {} in-doubt ledger movement(s)", settled);
+        }
+    }
+
+    /**
+     * Settles what the balance chains already tell and returns the number of
+     * movements settled.
+     */
+    public int reconcile() {
+        Set<String> settled = new HashSet<>();
+        for (Transaction row : transactionRepository.findByStatusOrderByTransactionDateAscIdAsc(
+                "PENDING", Limit.of(batchSize))) {
+            if (settled.contains(row.getReferenceNumber())) {
+                continue;
+            }
+            Boolean committed = committed(row);
+            if (committed == null) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> settle(row.getReferenceNumber(), committed));
+            settled.add(row.getReferenceNumber());
+        }
+        return settled.size();
+    }
+
+    // Null while the chain cannot tell yet, or when it contradicts both outcomes
+    private Boolean committed(Transaction row) {
+        String accountNumber = row.getAccount().getAccountNumber();
+        BigDecimal change = row.getType().isCredit() ? row.getAmount() : row.getAmount().negate();
+        BigDecimal before;
+        List<Transaction> next = transactionRepository.findMovementsAfter(accountNumber, row.getTransactionDate(),
+                row.getId(), Limit.of(1));
+        if (!next.isEmpty()) {
+            Transaction following = next.get(0);
+            before = following.getBalanceAfter().subtract(following.getType().isCredit()
+                    ? following.getAmount() : following.getAmount().negate());
+        } else {
+            // Only once nothing journaled before the balance was read can still be on its way
+            LocalDateTime readAt = LocalDateTime.now();
+            before = accountRepository.findBalance(accountNumber);
+            if (!appliedThrough(readAt) || !transactionRepository.findMovementsAfter(accountNumber,
+                    row.getTransactionDate(), row.getId(), Limit.of(1)).isEmpty()) {
+                return null;
+            }
+        }
+        if (before.compareTo(row.getBalanceAfter()) == 0) {
+            return true;
+        }
+        if (before.compareTo(row.getBalanceAfter().subtract(change)) == 0) {
+            return false;
+        }
+        log.error("In-doubt ledger movement {} on account {} matches neither outcome, leaving it PENDING",
+                row.getReferenceNumber(), accountNumber);
+        return null;
+    }
+
+    // The applier moves past the present every pass it finds nothing new, so this is a short wait
+    private boolean appliedThrough(LocalDateTime time) {
+        for (int attempt = 0; attempt < 20; attempt++) {
+            LocalDateTime applied = applier.appliedThrough();
+            if (applied != null && !applied.isBefore(time)) {
+                return true;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Every row of the movement, such as both sides of a transfer, shares its outcome
+    private void settle(String referenceNumber, boolean committed) {
+        List<Transaction> rows = transactionRepository.findByReferenceNumberAndStatus(referenceNumber, "PENDING");
+        rows.forEach(row -> row.setStatus(committed ? "COMPLETED" : "FAILED"));
+        if (committed) {
+            postingEngine.postMovements(rows);
+        }
+        log.warn("In-doubt ledger movement {} {}", referenceNumber, committed ? "committed" : "did not commit");
+    }
+}
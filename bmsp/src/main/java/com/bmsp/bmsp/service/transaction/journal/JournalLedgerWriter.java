@@ -0,0 +1,86 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.service.metrics.LiveMetrics;
+import com.bmsp.bmsp.service.transaction.LedgerWriter;
+import com.bmsp.bmsp.util.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal mode ledger writer. The rows are appended to the ledger journal and
+ * the caller blocks until the group commit has forced them to disk, so the
+ * movement is only acknowledged once its ledger is durable. The outcome of
+ * the surrounding database transaction is appended afterwards as a marker,
+ * and {@link LedgerJournalApplier} inserts committed rows into
+ * {@code transactions} in the background.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.ledger.journal.enabled", havingValue = "true")
+public class JournalLedgerWriter implements LedgerWriter {
+
+    // Length of transactions.description; a longer one would be durable here but never projectable
+    static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final LedgerJournal journal;
+    private final LiveMetrics liveMetrics;
+
+    @Override
+    public void write(List<Transaction> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<LedgerRecord> records = new ArrayList<>(entries.size());
+        for (Transaction entry : entries) {
+            if (entry.getDescription() != null && entry.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+                throw new TransactionException("Description must be at most " + MAX_DESCRIPTION_LENGTH + " characters");
+            }
+            // Ids the database would otherwise assign at insert time
+            if (entry.getTransactionId() == null) {
+                entry.setTransactionId("TXN" + SnowflakeIdGenerator.shared().nextId());
+            }
+            records.add(new LedgerRecord(LedgerRecord.Kind.ENTRY, -1, -1, entry.getTransactionId(),
+                    entry.getAccount().getAccountNumber(), entry.getType().name(), entry.getAmount(),
+                    entry.getBalanceAfter(), entry.getDescription(), entry.getTransactionDate(),
+                    entry.getReferenceNumber(), entry.getStatus()));
+        }
+        long last = journal.append(records);
+        long group = last - records.size() + 1;
+        journal.awaitDurable(last);
+        liveMetrics.transactionsAfterCommit(entries);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mark(LedgerRecord.Kind.COMMIT, group);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                mark(switch (status) {
+                    case STATUS_COMMITTED -> LedgerRecord.Kind.COMMIT;
+                    case STATUS_ROLLED_BACK -> LedgerRecord.Kind.VOID;
+                    default -> LedgerRecord.Kind.IN_DOUBT;
+                }, group);
+            }
+        });
+    }
+
+    // Markers ride along with the next group commit; nobody waits for them
+    private void mark(LedgerRecord.Kind kind, long group) {
+        try {
+            journal.append(List.of(LedgerRecord.marker(kind, group)));
+        } catch (RuntimeException e) {
+            log.error("Could not record outcome {} of ledger journal group {}", kind, group, e);
+        }
+    }
+}
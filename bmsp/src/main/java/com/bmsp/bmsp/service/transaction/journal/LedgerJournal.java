@@ -0,0 +1,365 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only ledger journal made of memory-mapped segment files holding
+ * {@link LedgerRecord#SIZE}-byte records.
+ *
+ * Appends only copy bytes into the mapping. A single flusher thread forces
+ * everything written since its last pass in one go, so concurrent writers
+ * waiting in {@link #awaitDurable} share an fsync (group commit). Sequence
+ * {@code n} lives in segment {@code n / segmentRecords}, which makes reads a
+ * direct index into the mapping.
+ */
+@Slf4j
+public class LedgerJournal implements AutoCloseable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("ledger-(\\d{12})\\.journal");
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    private final long recoveredUpTo;
+    private long nextSequence;
+    private long durableSequence;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    public LedgerJournal(Path directory, int segmentRecords) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        try {
+            Files.createDirectories(directory);
+            this.nextSequence = recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open ledger journal in " + directory, e);
+        }
+        this.recoveredUpTo = nextSequence - 1;
+        this.durableSequence = nextSequence - 1;
+        resolveInDoubtGroups();
+        this.flusher = new Thread(this::flushLoop, "ledger-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Appends the records as one group and returns the sequence of the last
+     * one. The records are not durable until {@link #awaitDurable} returns.
+     */
+    public long append(List<LedgerRecord> records) {
+        lock.lock();
+        try {
+            ensureOpen();
+            // Encode the whole group before touching the journal, so a record that does not fit
+            // cannot leave the entries before it behind without an outcome
+            long group = records.get(0).kind() == LedgerRecord.Kind.ENTRY ? nextSequence : records.get(0).group();
+            ByteBuffer encoded = ByteBuffer.allocate(records.size() * LedgerRecord.SIZE);
+            for (int i = 0; i < records.size(); i++) {
+                LedgerRecord record = records.get(i);
+                long sequence = nextSequence + i;
+                LedgerRecord positioned = record.kind() == LedgerRecord.Kind.ENTRY
+                        ? record.withSequence(sequence, group)
+                        : record.withSequence(sequence, record.group());
+                positioned.encode(encoded.slice(i * LedgerRecord.SIZE, LedgerRecord.SIZE));
+            }
+            // Mapping a new segment can fail too, so every slot is in hand before the first copy
+            List<ByteBuffer> slots = new ArrayList<>(records.size());
+            for (int i = 0; i < records.size(); i++) {
+                slots.add(slot(nextSequence + i, true));
+            }
+            for (int i = 0; i < records.size(); i++) {
+                slots.get(i).put(encoded.slice(i * LedgerRecord.SIZE, LedgerRecord.SIZE));
+            }
+            nextSequence += records.size();
+            written.signal();
+            return nextSequence - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every record up to {@code sequence} has been forced to disk.
+     */
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                ensureOpen();
+                flushed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Highest sequence that is safely on disk.
+     */
+    public long durableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to {@code timeoutMillis} for records beyond {@code sequence} to
+     * become durable and returns the durable sequence.
+     */
+    public long awaitBeyond(long sequence, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (durableSequence <= sequence && remaining > 0 && !closed) {
+                remaining = flushed.awaitNanos(remaining);
+            }
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads a durable record, or null past the durable end.
+     */
+    public LedgerRecord read(long sequence) {
+        lock.lock();
+        try {
+            if (sequence > durableSequence) {
+                return null;
+            }
+            ByteBuffer slot = slot(sequence, false);
+            return slot == null ? null : LedgerRecord.decode(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Last sequence that existed when the journal was opened.
+     */
+    public long recoveredUpTo() {
+        return recoveredUpTo;
+    }
+
+    /**
+     * Drops segments whose records are all at or below {@code appliedSequence}.
+     */
+    public void release(long appliedSequence) {
+        lock.lock();
+        try {
+            long firstKept = (appliedSequence + 1) / segmentRecords;
+            long current = nextSequence / segmentRecords;
+            for (Long index : new ArrayList<>(segments.headMap(Math.min(firstKept, current)).keySet())) {
+                segments.remove(index);
+                Files.deleteIfExists(segmentPath(index));
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete applied ledger journal segments: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            written.signalAll();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            segments.values().forEach(MappedByteBuffer::force);
+            segments.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            long from;
+            lock.lock();
+            try {
+                while (nextSequence - 1 == durableSequence && !closed) {
+                    written.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                from = durableSequence + 1;
+                target = nextSequence - 1;
+            } finally {
+                lock.unlock();
+            }
+
+            // Slots below nextSequence are never rewritten, so they can be forced outside the lock
+            force(from, target);
+
+            lock.lock();
+            try {
+                durableSequence = target;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void force(long from, long to) {
+        long sequence = from;
+        while (sequence <= to) {
+            long index = sequence / segmentRecords;
+            long last = Math.min(to, (index + 1) * segmentRecords - 1);
+            MappedByteBuffer segment;
+            lock.lock();
+            try {
+                segment = segments.get(index);
+            } finally {
+                lock.unlock();
+            }
+            if (segment != null) {
+                int offset = (int) (sequence % segmentRecords) * LedgerRecord.SIZE;
+                segment.force(offset, (int) (last - sequence + 1) * LedgerRecord.SIZE);
+            }
+            sequence = last + 1;
+        }
+    }
+
+    // Caller holds the lock
+    private ByteBuffer slot(long sequence, boolean create) {
+        long index = sequence / segmentRecords;
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            if (!create) {
+                return null;
+            }
+            segment = map(index);
+            segments.put(index, segment);
+        }
+        int offset = (int) (sequence % segmentRecords) * LedgerRecord.SIZE;
+        return segment.duplicate().position(offset).limit(offset + LedgerRecord.SIZE).slice();
+    }
+
+    private MappedByteBuffer map(long index) {
+        try (FileChannel channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * LedgerRecord.SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map ledger journal segment " + index, e);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("ledger-%012d.journal", index));
+    }
+
+    // Maps the existing segments and finds the first empty or torn slot
+    private long recover() throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    indexes.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        indexes.sort(null);
+        long next = indexes.isEmpty() ? 0 : indexes.get(0) * segmentRecords;
+        for (long index : indexes) {
+            if (index * segmentRecords != next) {
+                break;
+            }
+            segments.put(index, map(index));
+            while (next < (index + 1) * segmentRecords) {
+                LedgerRecord record = LedgerRecord.decode(slot(next, false));
+                if (record == null || record.sequence() != next) {
+                    return next;
+                }
+                next++;
+            }
+        }
+        return next;
+    }
+
+    // Groups whose writer died before recording the database outcome are marked in doubt
+    private void resolveInDoubtGroups() {
+        Set<Long> open = new LinkedHashSet<>();
+        long first = segments.isEmpty() ? 0 : segments.firstKey() * segmentRecords;
+        for (long sequence = first; sequence <= recoveredUpTo; sequence++) {
+            LedgerRecord record = LedgerRecord.decode(slot(sequence, false));
+            if (record.kind() == LedgerRecord.Kind.ENTRY) {
+                open.add(record.group());
+            } else {
+                open.remove(record.group());
+            }
+        }
+        if (open.isEmpty()) {
+            return;
+        }
+        log.warn("Ledger journal recovered {} movement(s) with unknown outcome; they will be applied as PENDING",
+                open.size());
+        List<LedgerRecord> markers = new ArrayList<>();
+        for (long group : open) {
+            markers.add(LedgerRecord.marker(LedgerRecord.Kind.IN_DOUBT, group));
+        }
+        long last = nextSequence;
+        for (LedgerRecord marker : markers) {
+            ByteBuffer slot = slot(last, true);
+            marker.withSequence(last, marker.group()).encode(slot);
+            last++;
+        }
+        force(nextSequence, last - 1);
+        nextSequence = last;
+        durableSequence = last - 1;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Ledger journal is closed");
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import com.bmsp.bmsp.model.transaction.LedgerJournalCheckpoint;
+import com.bmsp.bmsp.model.transaction.LedgerJournalParkedEntry;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.transaction.LedgerJournalCheckpointRepository;
+import com.bmsp.bmsp.repository.transaction.LedgerJournalParkedEntryRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.admin.SystemCounters;
+import com.bmsp.bmsp.service.ledger.PostingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projects committed ledger journal entries into {@code transactions}.
+ *
+ * Movements are applied strictly in journal order: a movement whose database
+ * outcome is not known yet holds back the ones behind it. That keeps the
+ * checkpoint a single sequence, written in the same database transaction as
+ * the rows it covers, so replay after a restart neither skips nor duplicates
+ * rows, nor the day's volume in {@code system_counters} updated alongside
+ * them. In-doubt movements are applied with status PENDING and are left out
+ * of the double-entry journal until {@link InDoubtMovementReconciler} settles
+ * them.
+ * A movement the database refuses outright is parked in
+ * {@code ledger_journal_parked_entries} so it cannot stall the others.
+ *
+ * Rows keep the transaction date they were journaled with, however late they
+ * are applied, so the applier also tracks the time up to which
+ * {@code transactions} is complete for jobs that read it by date.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.ledger.journal.enabled", havingValue = "true")
+public class LedgerJournalApplier implements SmartLifecycle {
+
+    static final String JOURNAL = "default";
+
+    private final LedgerJournal journal;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerJournalCheckpointRepository checkpointRepository;
+    private final LedgerJournalParkedEntryRepository parkedEntryRepository;
+    private final PostingEngine postingEngine;
+    private final SystemCounters systemCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Deque<Group> queue = new ArrayDeque<>();
+    private final Map<Long, Group> openGroups = new HashMap<>();
+    private long appliedSequence;
+    private long nextRead;
+    private volatile long appliedUpTo = -1;
+    private volatile LocalDateTime appliedThrough;
+    private LocalDateTime lastEntryDate;
+    private volatile boolean running;
+    private Thread worker;
+
+    public LedgerJournalApplier(LedgerJournal journal,
+                                TransactionRepository transactionRepository,
+                                AccountRepository accountRepository,
+                                LedgerJournalCheckpointRepository checkpointRepository,
+                                LedgerJournalParkedEntryRepository parkedEntryRepository,
+                                PostingEngine postingEngine,
+                                SystemCounters systemCounters,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.ledger.journal.apply-batch-size:1000}") int batchSize) {
+        this.journal = journal;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.parkedEntryRepository = parkedEntryRepository;
+        this.postingEngine = postingEngine;
+        this.systemCounters = systemCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Highest journal sequence whose rows are in the database.
+     */
+    public long appliedSequence() {
+        return appliedUpTo;
+    }
+
+    /**
+     * Time before which every journaled row is in the database, or null
+     * until the applier has caught up with the journal once.
+     */
+    public LocalDateTime appliedThrough() {
+        return appliedThrough;
+    }
+
+    @Override
+    public void start() {
+        appliedSequence = checkpointRepository.findById(JOURNAL)
+                .map(LedgerJournalCheckpoint::getAppliedSequence)
+                .orElse(-1L);
+        appliedUpTo = appliedSequence;
+        nextRead = appliedSequence + 1;
+        running = true;
+        worker = new Thread(this::run, "ledger-journal-applier");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                long durable = journal.awaitBeyond(nextRead - 1, 200);
+                LocalDateTime readAt = LocalDateTime.now();
+                read(Math.min(durable, nextRead + batchSize - 1));
+                applyResolved();
+                trackAppliedThrough(durable, readAt);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Applying the ledger journal failed, retrying from sequence {}", appliedSequence + 1, e);
+                try {
+                    Thread.sleep(1_000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void read(long upTo) {
+        for (; nextRead <= upTo; nextRead++) {
+            LedgerRecord record = journal.read(nextRead);
+            if (record == null) {
+                break;
+            }
+            if (record.kind() == LedgerRecord.Kind.ENTRY) {
+                Group group = openGroups.get(record.group());
+                if (group == null) {
+                    group = new Group(record.group());
+                    openGroups.put(record.group(), group);
+                    queue.add(group);
+                }
+                group.entries.add(record);
+                lastEntryDate = record.transactionDate();
+            } else {
+                // Markers of movements applied before a restart are simply skipped
+                Group group = openGroups.remove(record.group());
+                if (group != null) {
+                    group.outcome = record.kind();
+                }
+            }
+        }
+    }
+
+    private void applyResolved() {
+        List<Group> ready = new ArrayList<>();
+        int rows = 0;
+        for (Group group : queue) {
+            if (group.outcome == null || rows >= batchSize) {
+                break;
+            }
+            ready.add(group);
+            rows += group.entries.size();
+        }
+        long checkpoint = queue.size() > ready.size()
+                ? queue.stream().skip(ready.size()).findFirst().orElseThrow().first - 1
+                : nextRead - 1;
+        if (checkpoint <= appliedSequence) {
+            return;
+        }
+
+        try {
+            apply(ready, checkpoint);
+            ready.forEach(group -> queue.poll());
+            applied(checkpoint);
+        } catch (DataIntegrityViolationException e) {
+            // Retrying the batch would fail the same way: apply it movement by movement and park the ones refused
+            log.warn("Ledger journal batch up to sequence {} was rejected, applying its movements one by one",
+                    checkpoint, e);
+            for (int i = 0; i < ready.size(); i++) {
+                Group group = ready.get(i);
+                long upTo = i + 1 < ready.size() ? ready.get(i + 1).first - 1 : checkpoint;
+                try {
+                    apply(List.of(group), upTo);
+                } catch (DataIntegrityViolationException rejected) {
+                    park(group, upTo, rejected);
+                }
+                queue.poll();
+                applied(upTo);
+            }
+        }
+    }
+
+    // Journal order follows transaction dates, so the first movement not applied yet bounds the complete stretch
+    private void trackAppliedThrough(long durable, LocalDateTime readAt) {
+        Group held = queue.peek();
+        if (held != null) {
+            appliedThrough = held.entries.get(0).transactionDate();
+        } else if (nextRead > durable) {
+            appliedThrough = readAt;
+        } else if (lastEntryDate != null) {
+            // Caught up with what was read, but more is waiting to be read
+            appliedThrough = lastEntryDate;
+        }
+    }
+
+    private void apply(List<Group> groups, long checkpoint) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Transaction> batch = new ArrayList<>();
+            for (Group group : groups) {
+                if (group.outcome == LedgerRecord.Kind.VOID) {
+                    continue;
+                }
+                if (group.outcome == LedgerRecord.Kind.IN_DOUBT) {
+                    log.warn("Ledger journal group {} has an unknown outcome, applying as PENDING", group.first);
+                }
+                for (LedgerRecord record : group.entries) {
+                    batch.add(toTransaction(record, group.outcome));
+                }
+            }
+            transactionRepository.saveAll(batch);
+            postingEngine.postMovements(batch.stream().filter(row -> !"PENDING".equals(row.getStatus())).toList());
+            systemCounters.recorded(batch);
+            saveCheckpoint(checkpoint);
+        });
+    }
+
+    private void park(Group group, long checkpoint, DataIntegrityViolationException cause) {
+        log.error("Ledger journal group {} was rejected by the database and is parked for reconciliation",
+                group.first, cause);
+        String reason = String.valueOf(cause.getMostSpecificCause().getMessage());
+        transactionTemplate.executeWithoutResult(status -> {
+            List<LedgerJournalParkedEntry> parked = new ArrayList<>();
+            for (LedgerRecord record : group.entries) {
+                LedgerJournalParkedEntry entry = new LedgerJournalParkedEntry();
+                entry.setSequence(record.sequence());
+                entry.setGroupSequence(group.first);
+                entry.setOutcome(group.outcome.name());
+                entry.setTransactionId(record.transactionId());
+                entry.setAccountNumber(record.accountNumber());
+                entry.setType(record.type());
+                entry.setAmount(record.amount());
+                entry.setBalanceAfter(record.balanceAfter());
+                entry.setDescription(record.description());
+                entry.setTransactionDate(record.transactionDate());
+                entry.setReferenceNumber(record.referenceNumber());
+                entry.setStatus(record.status());
+                entry.setReason(reason.length() > 1000 ? reason.substring(0, 1000) : reason);
+                entry.setParkedAt(LocalDateTime.now());
+                parked.add(entry);
+            }
+            parkedEntryRepository.saveAll(parked);
+            saveCheckpoint(checkpoint);
+        });
+    }
+
+    private void saveCheckpoint(long checkpoint) {
+        LedgerJournalCheckpoint saved = new LedgerJournalCheckpoint();
+        saved.setJournal(JOURNAL);
+        saved.setAppliedSequence(checkpoint);
+        checkpointRepository.save(saved);
+    }
+
+    private void applied(long checkpoint) {
+        appliedSequence = checkpoint;
+        appliedUpTo = checkpoint;
+        journal.release(checkpoint);
+    }
+
+    private Transaction toTransaction(LedgerRecord record, LedgerRecord.Kind outcome) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(record.transactionId());
+        transaction.setAccount(accountRepository.getReferenceById(record.accountNumber()));
+        transaction.setType(TransactionType.valueOf(record.type()));
+        transaction.setAmount(record.amount());
+        transaction.setBalanceAfter(record.balanceAfter());
+        transaction.setDescription(record.description());
+        transaction.setTransactionDate(record.transactionDate());
+        transaction.setReferenceNumber(record.referenceNumber());
+        transaction.setStatus(outcome == LedgerRecord.Kind.IN_DOUBT ? "PENDING" : record.status());
+        return transaction;
+    }
+
+    private static final class Group {
+        private final long first;
+        private final List<LedgerRecord> entries = new ArrayList<>();
+        private LedgerRecord.Kind outcome;
+
+        private Group(long first) {
+            this.first = first;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/**
+ * One fixed-size slot of the ledger journal.
+ *
+ * An {@link Kind#ENTRY} carries one ledger row. Entries written by the same
+ * money movement share a {@code group}, which is the sequence of the group's
+ * first entry; the outcome of the database transaction is appended later as a
+ * marker record pointing at that group.
+ */
+public record LedgerRecord(
+        Kind kind,
+        long sequence,
+        long group,
+        String transactionId,
+        String accountNumber,
+        String type,
+        BigDecimal amount,
+        BigDecimal balanceAfter,
+        String description,
+        LocalDateTime transactionDate,
+        String referenceNumber,
+        String status) {
+
+    public static final int SIZE = 1024;
+
+    private static final int MAGIC = 0x4C474A31; // "LGJ1"
+    private static final int CRC_OFFSET = SIZE - 4;
+
+    public enum Kind {
+        ENTRY,
+        /** The movement's database transaction committed */
+        COMMIT,
+        /** The movement's database transaction rolled back */
+        VOID,
+        /** The writer died before the outcome was known; needs reconciliation */
+        IN_DOUBT
+    }
+
+    public static LedgerRecord marker(Kind kind, long group) {
+        return new LedgerRecord(kind, -1, group, null, null, null, null, null, null, null, null, null);
+    }
+
+    public LedgerRecord withSequence(long sequence, long group) {
+        return new LedgerRecord(kind, sequence, group, transactionId, accountNumber, type, amount,
+                balanceAfter, description, transactionDate, referenceNumber, status);
+    }
+
+    /**
+     * Writes the record into {@code slot}, which must have exactly
+     * {@link #SIZE} bytes remaining from its position.
+     */
+    void encode(ByteBuffer slot) {
+        int start = slot.position();
+        slot.putInt(MAGIC);
+        slot.put((byte) kind.ordinal());
+        slot.position(start + 8);
+        slot.putLong(sequence);
+        slot.putLong(group);
+        if (kind == Kind.ENTRY) {
+            slot.putLong(transactionDate.toEpochSecond(ZoneOffset.UTC));
+            slot.putInt(transactionDate.getNano());
+            slot.put((byte) amount.scale());
+            slot.put((byte) balanceAfter.scale());
+            slot.position(start + 40);
+            slot.putLong(amount.unscaledValue().longValueExact());
+            slot.putLong(balanceAfter.unscaledValue().longValueExact());
+            putString(slot, type, 18);
+            putString(slot, transactionId, 40);
+            putString(slot, accountNumber, 40);
+            putString(slot, referenceNumber, 40);
+            putString(slot, status, 18);
+            putString(slot, description, 786);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(slot.duplicate().position(start).limit(start + CRC_OFFSET));
+        slot.position(start + CRC_OFFSET);
+        slot.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Reads the record in {@code slot}, or returns null when the slot is empty
+     * or torn (its checksum does not match).
+     */
+    static LedgerRecord decode(ByteBuffer slot) {
+        int start = slot.position();
+        if (slot.getInt(start) != MAGIC) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(slot.duplicate().position(start).limit(start + CRC_OFFSET));
+        if (slot.getInt(start + CRC_OFFSET) != (int) crc.getValue()) {
+            return null;
+        }
+        Kind kind = Kind.values()[slot.get(start + 4)];
+        long sequence = slot.getLong(start + 8);
+        long group = slot.getLong(start + 16);
+        if (kind != Kind.ENTRY) {
+            return new LedgerRecord(kind, sequence, group, null, null, null, null, null, null, null, null, null);
+        }
+        LocalDateTime transactionDate = LocalDateTime.ofEpochSecond(
+                slot.getLong(start + 24), slot.getInt(start + 32), ZoneOffset.UTC);
+        int amountScale = slot.get(start + 36);
+        int balanceScale = slot.get(start + 37);
+        BigDecimal amount = new BigDecimal(BigInteger.valueOf(slot.getLong(start + 40)), amountScale);
+        BigDecimal balanceAfter = new BigDecimal(BigInteger.valueOf(slot.getLong(start + 48)), balanceScale);
+        ByteBuffer strings = slot.duplicate().position(start + 56);
+        String type = getString(strings, 18);
+        String transactionId = getString(strings, 40);
+        String accountNumber = getString(strings, 40);
+        String referenceNumber = getString(strings, 40);
+        String status = getString(strings, 18);
+        String description = getString(strings, 786);
+        return new LedgerRecord(kind, sequence, group, transactionId, accountNumber, type, amount,
+                balanceAfter, description, transactionDate, referenceNumber, status);
+    }
+
+    // Fixed-width slot: a signed length (-1 for null) followed by up to maxBytes of UTF-8
+    private static void putString(ByteBuffer slot, String value, int maxBytes) {
+        int end = slot.position() + 2 + maxBytes;
+        if (value == null) {
+            slot.putShort((short) -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > maxBytes) {
+                throw new IllegalArgumentException("Value does not fit a ledger journal record: " + value);
+            }
+            slot.putShort((short) bytes.length);
+            slot.put(bytes);
+        }
+        slot.position(end);
+    }
+
+    private static String getString(ByteBuffer slot, int maxBytes) {
+        int end = slot.position() + 2 + maxBytes;
+        short length = slot.getShort();
+        String value = null;
+        if (length >= 0) {
+            byte[] bytes = new byte[length];
+            slot.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        slot.position(end);
+        return value;
+    }
+}
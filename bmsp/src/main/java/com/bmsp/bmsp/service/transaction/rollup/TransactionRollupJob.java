@@ -0,0 +1,178 @@
+package com.bmsp.bmsp.service.transaction.rollup;
+
+import com.bmsp.bmsp.model.transaction.TransactionRollup;
+import com.bmsp.bmsp.model.transaction.TransactionRollup.Granularity;
+import com.bmsp.bmsp.model.transaction.TransactionRollupWatermark;
+import com.bmsp.bmsp.repository.dto.HourlyTotalDTO;
+import com.bmsp.bmsp.repository.transaction.TransactionRollupRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRollupWatermarkRepository;
+import com.bmsp.bmsp.service.transaction.journal.LedgerJournalApplier;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps {@code transaction_rollup} up to date, one closed hour at a time.
+ *
+ * Each run picks up at the watermark and groups the ledger rows of the hours
+ * after it by hour and type, up to the last hour that ended more than the
+ * settle time ago so late commits have landed. In journal mode rows reach the
+ * table when the applier gets to them but keep their original dates, so the
+ * cutoff is also held the settle time behind what the applier has applied.
+ *
+ * The hourly buckets are inserted, added to their day's buckets and the
+ * watermark moved past them in one database transaction per day of rows,
+ * under a lock on the watermark row, so runs on several nodes never count an
+ * hour twice. Stretches without rows are skipped. The first run starts at the
+ * oldest ledger row, archived ones included.
+ */
+@Slf4j
+@Component
+public class TransactionRollupJob {
+
+    static final String WATERMARK = "transactions";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TransactionRollupRepository rollupRepository;
+    private final TransactionRollupWatermarkRepository watermarkRepository;
+    private final TransactionRollups rollups;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<LedgerJournalApplier> journalApplier;
+    private final long settleSeconds;
+
+    public TransactionRollupJob(TransactionRollupRepository rollupRepository,
+                                TransactionRollupWatermarkRepository watermarkRepository,
+                                TransactionRollups rollups,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectProvider<LedgerJournalApplier> journalApplier,
+                                @Value("${app.transaction-rollup.settle-seconds:300}") long settleSeconds) {
+        this.rollupRepository = rollupRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.rollups = rollups;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journalApplier = journalApplier;
+        this.settleSeconds = settleSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.transaction-rollup.interval-ms:300000}",
+               initialDelayString = "${app.transaction-rollup.initial-delay-ms:60000}")
+    public void run() {
+        LocalDateTime settled = LocalDateTime.now();
+        LedgerJournalApplier applier = journalApplier.getIfAvailable();
+        if (applier != null) {
+            LocalDateTime applied = applier.appliedThrough();
+            if (applied == null) {
+                log.debug("Ledger journal not applied yet, skipping the rollup");
+                return;
+            }
+            if (applied.isBefore(settled)) {
+                settled = applied;
+            }
+        }
+        LocalDateTime cutoff = settled.minusSeconds(settleSeconds).truncatedTo(ChronoUnit.HOURS);
+        long rows = rollUpTo(cutoff);
+        if (rows > 0) {
+            log.info("Rolled up {} ledger row(s) up to {}", rows, cutoff);
+        }
+    }
+
+    /**
+     * Rolls up every hour before {@code cutoff}, which must be the start of
+     * an hour, and returns the number of ledger rows counted.
+     */
+    public long rollUpTo(LocalDateTime cutoff) {
+        if (watermarkRepository.findById(WATERMARK).isEmpty()) {
+            start(cutoff);
+        }
+        long rows = 0;
+        while (true) {
+            Long chunk = transactionTemplate.execute(status -> rollUpNextDay(cutoff));
+            if (chunk == null) {
+                return rows;
+            }
+            rows += chunk;
+        }
+    }
+
+    private void start(LocalDateTime cutoff) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TransactionRollupWatermark watermark = new TransactionRollupWatermark();
+            watermark.setName(WATERMARK);
+            watermark.setRolledUpTo(rollups.firstTransactionDateFrom(EPOCH)
+                    .map(first -> first.truncatedTo(ChronoUnit.HOURS))
+                    .filter(first -> first.isBefore(cutoff))
+                    .orElse(cutoff));
+            watermarkRepository.save(watermark);
+        });
+    }
+
+    // Null once the watermark has reached the cutoff
+    private Long rollUpNextDay(LocalDateTime cutoff) {
+        TransactionRollupWatermark watermark = watermarkRepository.findForUpdate(WATERMARK).orElseThrow();
+        LocalDateTime from = watermark.getRolledUpTo();
+        if (!from.isBefore(cutoff)) {
+            return null;
+        }
+        Optional<LocalDateTime> next = rollups.firstTransactionDateFrom(from);
+        if (next.isEmpty() || !next.get().isBefore(cutoff)) {
+            watermark.setRolledUpTo(cutoff);
+            return 0L;
+        }
+        from = next.get().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime to = from.plusDays(1).isBefore(cutoff) ? from.plusDays(1) : cutoff;
+
+        List<HourlyTotalDTO> hours = rollups.sumByHour(from, to);
+        Map<TransactionRollup.Key, TransactionRollup> days = new HashMap<>();
+        long rows = 0;
+        for (HourlyTotalDTO hour : hours) {
+            TransactionRollup bucket = bucket(
+                    new TransactionRollup.Key(hour.getHourStart(), Granularity.HOUR, hour.getType()));
+            bucket.setTransactionCount(hour.getCount());
+            bucket.setSumAmount(hour.getAmount());
+            entityManager.persist(bucket);
+
+            TransactionRollup day = days.computeIfAbsent(new TransactionRollup.Key(
+                    hour.getHourStart().truncatedTo(ChronoUnit.DAYS), Granularity.DAY, hour.getType()), this::day);
+            day.setTransactionCount(day.getTransactionCount() + hour.getCount());
+            day.setSumAmount(day.getSumAmount().add(hour.getAmount()));
+            rows += hour.getCount();
+        }
+        watermark.setRolledUpTo(to);
+        return rows;
+    }
+
+    // The day's bucket as rolled up so far, or a new empty one
+    private TransactionRollup day(TransactionRollup.Key key) {
+        return rollupRepository.findById(key).orElseGet(() -> {
+            TransactionRollup day = bucket(key);
+            entityManager.persist(day);
+            return day;
+        });
+    }
+
+    private static TransactionRollup bucket(TransactionRollup.Key key) {
+        TransactionRollup bucket = new TransactionRollup();
+        bucket.setBucketStart(key.getBucketStart());
+        bucket.setGranularity(key.getGranularity());
+        bucket.setType(key.getType());
+        bucket.setTransactionCount(0);
+        bucket.setSumAmount(BigDecimal.ZERO);
+        return bucket;
+    }
+}
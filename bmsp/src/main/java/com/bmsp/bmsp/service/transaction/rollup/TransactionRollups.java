@@ -0,0 +1,221 @@
+package com.bmsp.bmsp.service.transaction.rollup;
+
+import com.bmsp.bmsp.model.transaction.TransactionRollup;
+import com.bmsp.bmsp.model.transaction.TransactionRollup.Granularity;
+import com.bmsp.bmsp.model.transaction.TransactionRollupWatermark;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.dto.HourlyTotalDTO;
+import com.bmsp.bmsp.repository.transaction.ArchivedTransactionRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRollupRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRollupWatermarkRepository;
+import com.bmsp.bmsp.service.transaction.archive.LedgerArchive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Optional;
+
+/**
+ * Transaction analytics answered from {@code transaction_rollup}.
+ *
+ * Everything before the rollup watermark comes from the day buckets, and the
+ * hour-of-day split from the hour buckets grouped in the database; the live
+ * tail after the watermark, normally the last hour or two, is grouped straight
+ * from the ledger. A range of five years therefore reads about as much as a
+ * range of a week. Ledger rows are read from the archive too when the tail
+ * reaches that far back, which only happens before the first rollup run.
+ * Amounts are also kept per calendar month and type, which is what the
+ * monthly revenue breakdown reads.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionRollups {
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionRollupRepository rollupRepository;
+    private final TransactionRollupWatermarkRepository watermarkRepository;
+    private final LedgerArchive ledgerArchive;
+
+    /**
+     * Ledger rows dated from {@code startDate} through {@code endDate}.
+     */
+    @Transactional(readOnly = true)
+    public Summary summarize(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+        LocalDateTime rolledUpTo = watermarkRepository.findById(TransactionRollupJob.WATERMARK)
+                .map(TransactionRollupWatermark::getRolledUpTo)
+                .orElse(start);
+        LocalDateTime boundary = rolledUpTo.isBefore(start) ? start : rolledUpTo.isAfter(end) ? end : rolledUpTo;
+
+        Summary summary = new Summary();
+        if (boundary.isAfter(start)) {
+            for (TransactionRollup day : rollupRepository.findBuckets(Granularity.DAY, start, boundary)) {
+                summary.addByType(day.getType(), day.getTransactionCount(), day.getSumAmount());
+                summary.addByDayOfWeek(day.getBucketStart().getDayOfWeek(), day.getTransactionCount(),
+                        day.getSumAmount());
+                summary.addByMonth(YearMonth.from(day.getBucketStart()), day.getType(), day.getSumAmount());
+            }
+            for (Object[] hour : rollupRepository.sumByHourOfDay(Granularity.HOUR, start, boundary)) {
+                summary.addByHour(((Number) hour[0]).intValue(), ((Number) hour[1]).longValue(),
+                        (BigDecimal) hour[2]);
+            }
+        }
+        if (boundary.isBefore(end)) {
+            for (HourlyTotalDTO hour : sumByHour(boundary, end)) {
+                summary.addByType(hour.getType(), hour.getCount(), hour.getAmount());
+                summary.addByDayOfWeek(hour.getHourStart().getDayOfWeek(), hour.getCount(), hour.getAmount());
+                summary.addByHour(hour.getHourStart().getHour(), hour.getCount(), hour.getAmount());
+                summary.addByMonth(YearMonth.from(hour.getHourStart()), hour.getType(), hour.getAmount());
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Ledger rows of [start, end) grouped by hour and type, archive included
+     * when the range reaches it.
+     */
+    List<HourlyTotalDTO> sumByHour(LocalDateTime start, LocalDateTime end) {
+        List<HourlyTotalDTO> hours = transactionRepository.sumByHour(start, end);
+        if (!ledgerArchive.reaches(start)) {
+            return hours;
+        }
+        Map<String, HourlyTotalDTO> merged = new LinkedHashMap<>();
+        List<HourlyTotalDTO> all = new ArrayList<>(archivedTransactionRepository.sumByHour(start, end));
+        all.addAll(hours);
+        for (HourlyTotalDTO hour : all) {
+            merged.merge(hour.getHourStart() + "/" + hour.getType(), hour, (left, right) -> {
+                left.setCount(left.getCount() + right.getCount());
+                left.setAmount(left.getAmount().add(right.getAmount()));
+                return left;
+            });
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    Optional<LocalDateTime> firstTransactionDateFrom(LocalDateTime from) {
+        Optional<LocalDateTime> hot = transactionRepository.findFirstTransactionDateFrom(from);
+        if (!ledgerArchive.reaches(from)) {
+            return hot;
+        }
+        // Archived rows are older than every hot row
+        Optional<LocalDateTime> archived = archivedTransactionRepository.findFirstTransactionDateFrom(from);
+        return archived.isPresent() ? archived : hot;
+    }
+
+    /**
+     * Row counts and amounts of a range by type, hour of day and day of week,
+     * and amounts by month and type.
+     */
+    public static final class Summary {
+
+        private final Map<TransactionType, Long> countByType = new EnumMap<>(TransactionType.class);
+        private final Map<TransactionType, BigDecimal> amountByType = new EnumMap<>(TransactionType.class);
+        private final long[] countByHour = new long[24];
+        private final BigDecimal[] amountByHour = zeros(24);
+        private final long[] countByDayOfWeek = new long[7];
+        private final BigDecimal[] amountByDayOfWeek = zeros(7);
+        private final Map<YearMonth, Map<TransactionType, BigDecimal>> amountByMonth = new TreeMap<>();
+
+        public long count() {
+            return countByType.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public BigDecimal amount() {
+            return amountByType.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        public BigDecimal averageAmount() {
+            long count = count();
+            return count == 0 ? BigDecimal.ZERO : amount().divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+        }
+
+        public Map<TransactionType, Long> countByType() {
+            return Collections.unmodifiableMap(countByType);
+        }
+
+        public Map<TransactionType, BigDecimal> amountByType() {
+            return Collections.unmodifiableMap(amountByType);
+        }
+
+        public long countAtHour(int hour) {
+            return countByHour[hour];
+        }
+
+        public BigDecimal amountAtHour(int hour) {
+            return amountByHour[hour];
+        }
+
+        public long countOn(DayOfWeek day) {
+            return countByDayOfWeek[day.ordinal()];
+        }
+
+        public BigDecimal amountOn(DayOfWeek day) {
+            return amountByDayOfWeek[day.ordinal()];
+        }
+
+        public BigDecimal amountIn(YearMonth month, TransactionType type) {
+            return amountByMonth.getOrDefault(month, Map.of()).getOrDefault(type, BigDecimal.ZERO);
+        }
+
+        // Busiest hour of the day; empty when the range has no rows
+        public Optional<Integer> peakHour() {
+            int peak = -1;
+            for (int hour = 0; hour < 24; hour++) {
+                if (countByHour[hour] > 0 && (peak < 0 || countByHour[hour] > countByHour[peak])) {
+                    peak = hour;
+                }
+            }
+            return peak < 0 ? Optional.empty() : Optional.of(peak);
+        }
+
+        public Optional<TransactionType> mostCommonType() {
+            return countByType.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey);
+        }
+
+        private void addByType(TransactionType type, long count, BigDecimal amount) {
+            countByType.merge(type, count, Long::sum);
+            amountByType.merge(type, amount, BigDecimal::add);
+        }
+
+        private void addByHour(int hour, long count, BigDecimal amount) {
+            countByHour[hour] += count;
+            amountByHour[hour] = amountByHour[hour].add(amount);
+        }
+
+        private void addByDayOfWeek(DayOfWeek day, long count, BigDecimal amount) {
+            countByDayOfWeek[day.ordinal()] += count;
+            amountByDayOfWeek[day.ordinal()] = amountByDayOfWeek[day.ordinal()].add(amount);
+        }
+
+        private void addByMonth(YearMonth month, TransactionType type, BigDecimal amount) {
+            amountByMonth.computeIfAbsent(month, key -> new EnumMap<>(TransactionType.class))
+                    .merge(type, amount, BigDecimal::add);
+        }
+
+        private static BigDecimal[] zeros(int size) {
+            BigDecimal[] zeros = new BigDecimal[size];
+            Arrays.fill(zeros, BigDecimal.ZERO);
+            return zeros;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.bmsp.bmsp.service.transaction.shard;
+
+import com.bmsp.bmsp.exception.InsufficientBalanceException;
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountStatus;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A single thread owning the balances of the accounts hashed to it. Commands
+ * arrive through a ring buffer and run one at a time, so the in-memory state
+ * needs no locks. An account is loaded from the database the first time its
+ * shard touches it; from then on the shard's balance is the authoritative one
+ * and the database follows through {@link ShardPersister}.
+ */
+final class AccountShard implements Runnable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ShardRingBuffer<Runnable> ring;
+    private final Map<String, ShardAccount> accounts = new HashMap<>();
+    private final AccountRepository accountRepository;
+    private final ShardPersister persister;
+    private volatile boolean running = true;
+
+    AccountShard(int ringSize, AccountRepository accountRepository, ShardPersister persister) {
+        this.ring = new ShardRingBuffer<>(ringSize);
+        this.accountRepository = accountRepository;
+        this.persister = persister;
+    }
+
+    <T> CompletableFuture<T> submit(Function<AccountShard, T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ring.publish(() -> {
+            try {
+                result.complete(command.apply(this));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        ring.consumer(Thread.currentThread());
+        while (running || !ring.isEmpty()) {
+            Runnable command = ring.poll(IDLE_PARK_NANOS);
+            if (command != null) {
+                command.run();
+            }
+        }
+    }
+
+    /**
+     * Returns the account after checking it exists, belongs to {@code ownerId}
+     * (unless null) and is active, with the same messages as the database path.
+     */
+    ShardAccount active(String accountNumber, Long ownerId, String accountLabel) {
+        ShardAccount account = load(accountNumber);
+        if (account == null || (ownerId != null && !ownerId.equals(account.ownerId))) {
+            throw new TransactionException(accountLabel + (ownerId == null ? " not found" : " not found or access denied"));
+        }
+        if (account.status != AccountStatus.ACTIVE) {
+            throw new TransactionException(accountLabel + " is not active");
+        }
+        return account;
+    }
+
+    void checkFunds(ShardAccount account, BigDecimal amount, String insufficientMessage) {
+        if (account.available().compareTo(amount) < 0) {
+            throw new InsufficientBalanceException(insufficientMessage);
+        }
+    }
+
+    void reserve(ShardAccount account, BigDecimal amount) {
+        account.reserved = account.reserved.add(amount);
+    }
+
+    void release(String accountNumber, BigDecimal amount) {
+        ShardAccount account = accounts.get(accountNumber);
+        account.reserved = account.reserved.subtract(amount);
+    }
+
+    /**
+     * Debits funds reserved in the first phase of a cross-shard transfer.
+     */
+    Posting commitReserved(String accountNumber, BigDecimal amount, TransactionType type, String description,
+                           String referenceNumber, LocalDateTime transactionDate) {
+        ShardAccount account = accounts.get(accountNumber);
+        account.reserved = account.reserved.subtract(amount);
+        return post(account, amount.negate(), type, amount, description, referenceNumber, transactionDate);
+    }
+
+    /**
+     * Applies a balance change and queues its ledger row and new balance for
+     * persistence.
+     */
+    Posting post(ShardAccount account, BigDecimal change, TransactionType type, BigDecimal amount,
+                 String description, String referenceNumber, LocalDateTime transactionDate) {
+        return post(account, change, type, amount, description, referenceNumber, transactionDate, null);
+    }
+
+    /**
+     * As {@link #post}, with {@code linkedWrite} given the posting's ledger row
+     * in the database transaction that persists it.
+     */
+    Posting post(ShardAccount account, BigDecimal change, TransactionType type, BigDecimal amount,
+                 String description, String referenceNumber, LocalDateTime transactionDate,
+                 Consumer<Transaction> linkedWrite) {
+        account.balance = account.balance.add(change);
+
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        transaction.setBalanceAfter(account.balance);
+        transaction.setDescription(description);
+        transaction.setReferenceNumber(referenceNumber);
+        transaction.setTransactionDate(transactionDate);
+
+        Posting posting = new Posting(account.accountNumber, change, transaction,
+                linkedWrite == null ? null : () -> linkedWrite.accept(transaction), new CompletableFuture<>());
+        persister.enqueue(posting);
+        return posting;
+    }
+
+    /**
+     * Takes back a change the database rejected. The corrected balance is
+     * queued behind the account's earlier postings, which the persister
+     * adjusts until it reaches it.
+     */
+    void revert(String accountNumber, BigDecimal change) {
+        ShardAccount account = accounts.get(accountNumber);
+        account.balance = account.balance.subtract(change);
+        persister.enqueue(Posting.correction(accountNumber, change, account.balance));
+    }
+
+    ShardAccount loaded(String accountNumber) {
+        return accounts.get(accountNumber);
+    }
+
+    // Status, owner and overdraft settings are re-read; the balance stays the shard's own
+    void refresh(String accountNumber) {
+        ShardAccount account = accounts.get(accountNumber);
+        if (account == null) {
+            return;
+        }
+        accountRepository.findById(accountNumber).ifPresent(account::describe);
+    }
+
+    private ShardAccount load(String accountNumber) {
+        ShardAccount account = accounts.get(accountNumber);
+        if (account != null) {
+            return account;
+        }
+        Account entity = accountRepository.findById(accountNumber).orElse(null);
+        if (entity == null) {
+            return null;
+        }
+        account = new ShardAccount(accountNumber, entity.getBalance());
+        account.describe(entity);
+        accounts.put(accountNumber, account);
+        return account;
+    }
+
+    static final class ShardAccount {
+        private final String accountNumber;
+        private BigDecimal balance;
+        private BigDecimal reserved = BigDecimal.ZERO;
+        private Long ownerId;
+        private AccountStatus status;
+        private BigDecimal overdraft;
+
+        private ShardAccount(String accountNumber, BigDecimal balance) {
+            this.accountNumber = accountNumber;
+            this.balance = balance;
+        }
+
+        private void describe(Account entity) {
+            this.ownerId = entity.getUser().getId();
+            this.status = entity.getStatus();
+            this.overdraft = entity.isAllowOverdraft() && entity.getOverdraftLimit() != null
+                    ? entity.getOverdraftLimit()
+                    : BigDecimal.ZERO;
+        }
+
+        private BigDecimal available() {
+            return balance.subtract(reserved).add(overdraft);
+        }
+    }
+}
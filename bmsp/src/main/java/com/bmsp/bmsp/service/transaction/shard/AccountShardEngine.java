@@ -0,0 +1,275 @@
+package com.bmsp.bmsp.service.transaction.shard;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionBatchRepository;
+import com.bmsp.bmsp.service.account.AccountCache;
+import com.bmsp.bmsp.service.transaction.LedgerWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Executes money movements on single-writer account shards.
+ *
+ * Accounts are hash-partitioned across a fixed number of shard threads, each
+ * the only writer of its accounts' balances, so deposits and withdrawals run
+ * without locks or a database connection. A transfer within one shard is a
+ * single command. Across shards it is two-phase: the source shard reserves the
+ * funds, the destination shard confirms it can take them, and only then do
+ * both commit; a refusal from the destination releases the reservation.
+ * Nothing waits on another shard while holding its own, so there is no lock
+ * ordering to get wrong. The two legs reach the database in one transaction,
+ * so a leg the database refuses takes the other one with it.
+ *
+ * The shards keep the authoritative balances, so this mode assumes a single
+ * node moves money for these accounts.
+ */
+@Component
+@ConditionalOnProperty(name = "app.transactions.shards.enabled", havingValue = "true")
+public class AccountShardEngine implements SmartLifecycle {
+
+    private final List<AccountShard> shards = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final ShardPersister persister;
+    private final long timeoutMillis;
+    private volatile boolean running;
+
+    public AccountShardEngine(AccountRepository accountRepository,
+                              TransactionBatchRepository transactionBatchRepository,
+                              LedgerWriter ledgerWriter,
+                              AccountCache accountCache,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.transactions.shards.count:4}") int shardCount,
+                              @Value("${app.transactions.shards.ring-size:4096}") int ringSize,
+                              @Value("${app.transactions.shards.persist-batch-size:500}") int persistBatchSize,
+                              @Value("${app.transactions.shards.timeout-ms:5000}") long timeoutMillis) {
+        this.persister = new ShardPersister(new TransactionTemplate(transactionManager), transactionBatchRepository,
+                accountRepository, ledgerWriter, accountCache, this::revert, persistBatchSize);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new AccountShard(ringSize, accountRepository, persister));
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public Posting credit(String accountNumber, Long ownerId, BigDecimal amount, TransactionType type,
+                          String description, String referenceNumber) {
+        return credit(accountNumber, ownerId, amount, type, description, referenceNumber, null);
+    }
+
+    /**
+     * Credits the account and hands the ledger row to {@code linkedWrite}, if
+     * any, in the database transaction that persists the credit.
+     */
+    public Posting credit(String accountNumber, Long ownerId, BigDecimal amount, TransactionType type,
+                          String description, String referenceNumber, Consumer<Transaction> linkedWrite) {
+        LocalDateTime now = LocalDateTime.now();
+        return join(shardFor(accountNumber).submit(shard -> {
+            AccountShard.ShardAccount account = shard.active(accountNumber, ownerId, "Account");
+            return shard.post(account, amount, type, amount, description, referenceNumber, now, linkedWrite);
+        }));
+    }
+
+    public Posting debit(String accountNumber, Long ownerId, BigDecimal amount, TransactionType type,
+                         String description, String referenceNumber, String insufficientMessage) {
+        return debit(accountNumber, ownerId, amount, type, description, referenceNumber, insufficientMessage, null);
+    }
+
+    /**
+     * Debits the account and hands the ledger row to {@code linkedWrite}, if
+     * any, in the database transaction that persists the debit. Should the
+     * database reject either, the debit is reverted and the posting fails.
+     */
+    public Posting debit(String accountNumber, Long ownerId, BigDecimal amount, TransactionType type,
+                         String description, String referenceNumber, String insufficientMessage,
+                         Consumer<Transaction> linkedWrite) {
+        LocalDateTime now = LocalDateTime.now();
+        return join(shardFor(accountNumber).submit(shard -> {
+            AccountShard.ShardAccount account = shard.active(accountNumber, ownerId, "Account");
+            shard.checkFunds(account, amount, insufficientMessage);
+            return shard.post(account, amount.negate(), type, amount, description, referenceNumber, now,
+                    linkedWrite);
+        }));
+    }
+
+    /**
+     * Moves {@code amount} and returns the outgoing and incoming postings, in
+     * that order.
+     */
+    public List<Posting> transfer(String fromAccountNumber, String toAccountNumber, Long ownerId, BigDecimal amount,
+                                  String description, String referenceNumber) {
+        return transfer(fromAccountNumber, toAccountNumber, ownerId, amount, description, referenceNumber, null);
+    }
+
+    /**
+     * As {@link #transfer}, handing the incoming row to {@code linkedWrite},
+     * if any, in the database transaction that persists both legs.
+     */
+    public List<Posting> transfer(String fromAccountNumber, String toAccountNumber, Long ownerId, BigDecimal amount,
+                                  String description, String referenceNumber, Consumer<Transaction> linkedWrite) {
+        String insufficient = "Insufficient balance for transfer";
+        LocalDateTime now = LocalDateTime.now();
+        AccountShard source = shardFor(fromAccountNumber);
+        AccountShard target = shardFor(toAccountNumber);
+
+        if (source == target) {
+            return join(source.submit(shard -> {
+                AccountShard.ShardAccount from = shard.active(fromAccountNumber, ownerId, "Account");
+                AccountShard.ShardAccount to = shard.active(toAccountNumber, null, "Destination account");
+                shard.checkFunds(from, amount, insufficient);
+                return List.of(
+                        shard.post(from, amount.negate(), TransactionType.TRANSFER_OUT, amount, description,
+                                referenceNumber, now),
+                        shard.post(to, amount, TransactionType.TRANSFER_IN, amount, description,
+                                referenceNumber, now, linkedWrite));
+            }));
+        }
+
+        // Phase one: hold the funds at the source, then check the destination can take them
+        join(source.submit(shard -> {
+            AccountShard.ShardAccount from = shard.active(fromAccountNumber, ownerId, "Account");
+            shard.checkFunds(from, amount, insufficient);
+            shard.reserve(from, amount);
+            return null;
+        }));
+        try {
+            join(target.submit(shard -> shard.active(toAccountNumber, null, "Destination account")));
+        } catch (RuntimeException e) {
+            source.submit(shard -> {
+                shard.release(fromAccountNumber, amount);
+                return null;
+            });
+            throw e;
+        }
+
+        // Phase two: neither side can refuse any more
+        CompletableFuture<Posting> outgoing = source.submit(shard -> shard.commitReserved(fromAccountNumber, amount,
+                TransactionType.TRANSFER_OUT, description, referenceNumber, now));
+        CompletableFuture<Posting> incoming = target.submit(shard -> shard.post(shard.loaded(toAccountNumber), amount,
+                TransactionType.TRANSFER_IN, amount, description, referenceNumber, now, linkedWrite));
+        return List.of(join(outgoing), join(incoming));
+    }
+
+    /**
+     * Blocks until the postings are in the database. A movement that is not
+     * confirmed in time has still happened and will be written.
+     */
+    public void awaitPersisted(List<Posting> postings) {
+        CompletableFuture<?>[] persisted = postings.stream().map(Posting::persisted).toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(persisted).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TransactionException("Transaction accepted but not yet recorded, check the history before retrying");
+        } catch (ExecutionException e) {
+            throw new TransactionException("Transaction could not be recorded");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException("Interrupted while recording the transaction");
+        }
+    }
+
+    /**
+     * Makes the owning shard re-read the account's status, owner and overdraft
+     * settings once the surrounding transaction commits.
+     */
+    public void refreshAfterCommit(String accountNumber) {
+        Runnable refresh = () -> shardFor(accountNumber).submit(shard -> {
+            shard.refresh(accountNumber);
+            return null;
+        });
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh.run();
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        startThread(persister, "account-shard-persister");
+        for (int i = 0; i < shards.size(); i++) {
+            startThread(shards.get(i), "account-shard-" + i);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // Shards drain their rings first, then the persister writes what they posted
+        shards.forEach(AccountShard::stop);
+        for (int i = 1; i < threads.size(); i++) {
+            joinQuietly(threads.get(i));
+        }
+        persister.stop();
+        joinQuietly(threads.get(0));
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // A posting the database rejected is taken back off its account by the owning shard
+    private void revert(String accountNumber, BigDecimal change) {
+        shardFor(accountNumber).submit(shard -> {
+            shard.revert(accountNumber, change);
+            return null;
+        });
+    }
+
+    private AccountShard shardFor(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return shards.get(Math.floorMod(h ^ (h >>> 16), shards.size()));
+    }
+
+    private void startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.bmsp.bmsp.service.transaction.shard;
+
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One balance change applied by a shard: the ledger row it produced, optional
+ * database work that must commit together with it, and a future completed once
+ * the row and the new balance are in the database. The two legs of a
+ * transfer share its reference number and are written, or refused, together.
+ */
+public record Posting(String accountNumber, BigDecimal change, Transaction transaction, Runnable linkedWrite,
+                      CompletableFuture<Void> persisted) {
+
+    /**
+     * Re-states an account's balance after one of its postings was rejected
+     * and {@code reverted} was taken back off the shard's balance. It writes no
+     * ledger row and nobody waits for it.
+     */
+    static Posting correction(String accountNumber, BigDecimal reverted, BigDecimal balance) {
+        Transaction balanceOnly = new Transaction();
+        balanceOnly.setBalanceAfter(balance);
+        return new Posting(accountNumber, reverted, balanceOnly, null, null);
+    }
+
+    boolean isCorrection() {
+        return persisted == null;
+    }
+
+    /**
+     * Number of postings, this one included, that go into the database as one unit.
+     */
+    int legs() {
+        TransactionType type = transaction.getType();
+        return type == TransactionType.TRANSFER_OUT || type == TransactionType.TRANSFER_IN ? 2 : 1;
+    }
+}
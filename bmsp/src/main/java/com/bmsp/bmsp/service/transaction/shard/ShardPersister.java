@@ -0,0 +1,268 @@
+package com.bmsp.bmsp.service.transaction.shard;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionBatchRepository;
+import com.bmsp.bmsp.service.account.AccountCache;
+import com.bmsp.bmsp.service.transaction.LedgerWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Writes shard postings to the database behind the shards. Each pass drains
+ * whatever has queued up into one transaction: the latest balance of every
+ * touched account in a single JDBC batch plus the ledger rows. Postings of an
+ * account are queued by its owning shard in the order they happened, so the
+ * last balance seen in a batch is the current one.
+ *
+ * The two legs of a transfer are queued by their shards moments apart; a
+ * batch holding one of them stays open until the other arrives, so they
+ * always commit together. A posting the database rejects outright is failed
+ * and handed back to its shard to revert, along with the other leg of its
+ * transfer. Until the shard's corrected balance comes through the queue,
+ * later postings of that account are written net of the reverted change.
+ */
+@Slf4j
+final class ShardPersister implements Runnable {
+
+    private final LinkedBlockingQueue<Posting> queue = new LinkedBlockingQueue<>();
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerWriter ledgerWriter;
+    private final AccountCache accountCache;
+    private final BiConsumer<String, BigDecimal> reverter;
+    private final int batchSize;
+    // Reverted changes per account whose correction has not come through yet; persister thread only
+    private final Map<String, Deque<BigDecimal>> reverted = new HashMap<>();
+    private volatile boolean running = true;
+
+    ShardPersister(TransactionTemplate transactionTemplate, TransactionBatchRepository transactionBatchRepository,
+                   AccountRepository accountRepository, LedgerWriter ledgerWriter, AccountCache accountCache,
+                   BiConsumer<String, BigDecimal> reverter, int batchSize) {
+        this.transactionTemplate = transactionTemplate;
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.accountRepository = accountRepository;
+        this.ledgerWriter = ledgerWriter;
+        this.accountCache = accountCache;
+        this.reverter = reverter;
+        this.batchSize = batchSize;
+    }
+
+    void enqueue(Posting posting) {
+        queue.add(posting);
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        List<Posting> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Posting first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                awaitOtherLegs(batch);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Keeps taking postings, in queue order, until no transfer in the batch is missing a leg.
+    // Both legs are submitted to their shards together and neither can refuse by then, and at
+    // shutdown the shards drain before the persister stops, so the wait is short.
+    private void awaitOtherLegs(List<Posting> batch) throws InterruptedException {
+        Map<String, Integer> open = new HashMap<>();
+        batch.forEach(posting -> countLeg(open, posting));
+        while (!open.isEmpty() && (running || !queue.isEmpty())) {
+            Posting next = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (next != null) {
+                batch.add(next);
+                countLeg(open, next);
+            }
+        }
+    }
+
+    private static void countLeg(Map<String, Integer> open, Posting posting) {
+        if (posting.legs() > 1 && open.merge(posting.transaction().getReferenceNumber(), 1, Integer::sum)
+                == posting.legs()) {
+            open.remove(posting.transaction().getReferenceNumber());
+        }
+    }
+
+    // The movements already happened in memory, so a batch that failed for a transient
+    // reason is retried until it lands. One that would fail the same way every time is
+    // written movement by movement, and only the movements still rejected on their own fail.
+    // A transfer is written where its first leg was queued, so postings are shifted only by
+    // rejections queued before them, and a balance is not overwritten by an older one.
+    private void persist(List<Posting> batch) throws InterruptedException {
+        batch.forEach(this::netOfReverted);
+        RuntimeException rejected = attempt(batch, posting -> true);
+        if (rejected == null) {
+            return;
+        }
+        log.warn("A batch of {} shard posting(s) was rejected, persisting them one by one", batch.size(), rejected);
+        Map<Posting, Integer> position = new IdentityHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            position.put(batch.get(i), i);
+        }
+        List<Posting> failed = new ArrayList<>();
+        List<RuntimeException> causes = new ArrayList<>();
+        Map<String, Integer> balanceFrom = new HashMap<>();
+        for (List<Posting> unit : units(batch)) {
+            for (Posting posting : unit) {
+                failed.stream()
+                        .filter(earlier -> earlier.accountNumber().equals(posting.accountNumber())
+                                && position.get(earlier) < position.get(posting))
+                        .map(Posting::change)
+                        .reduce(BigDecimal::add)
+                        .ifPresent(change -> shift(posting, change));
+            }
+            RuntimeException cause = attempt(unit,
+                    posting -> balanceFrom.getOrDefault(posting.accountNumber(), -1) < position.get(posting));
+            if (cause == null) {
+                unit.forEach(posting -> balanceFrom.merge(posting.accountNumber(), position.get(posting), Math::max));
+                continue;
+            }
+            for (Posting posting : unit) {
+                if (posting.isCorrection()) {
+                    log.error("Balance correction for account {} could not be written",
+                            posting.accountNumber(), cause);
+                    continue;
+                }
+                log.error("Shard posting {} on account {} was rejected and is reverted",
+                        posting.transaction().getReferenceNumber(), posting.accountNumber(), cause);
+                failed.add(posting);
+                causes.add(cause);
+            }
+        }
+        Map<String, BigDecimal> reverts = new LinkedHashMap<>();
+        failed.forEach(posting -> reverts.merge(posting.accountNumber(), posting.change(), BigDecimal::add));
+        reverts.forEach((accountNumber, change) -> {
+            reverted.computeIfAbsent(accountNumber, key -> new ArrayDeque<>()).add(change);
+            reverter.accept(accountNumber, change);
+        });
+        // Failed once the reverts are queued, so a caller's next movement runs on the reverted balance
+        for (int i = 0; i < failed.size(); i++) {
+            failed.get(i).persisted().completeExceptionally(causes.get(i));
+        }
+    }
+
+    // Single postings on their own, transfer legs together, in the order their first posting was queued
+    private static Collection<List<Posting>> units(List<Posting> batch) {
+        Map<Object, List<Posting>> units = new LinkedHashMap<>();
+        for (Posting posting : batch) {
+            Object key = posting.legs() > 1 ? posting.transaction().getReferenceNumber() : new Object();
+            units.computeIfAbsent(key, unit -> new ArrayList<>(posting.legs())).add(posting);
+        }
+        return units.values();
+    }
+
+    // Returns null once the postings are written (or dropped at shutdown), or the failure
+    // when retrying cannot help. Only the postings setsBalance accepts write their balance.
+    private RuntimeException attempt(List<Posting> postings, Predicate<Posting> setsBalance)
+            throws InterruptedException {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(postings, setsBalance));
+                postings.stream().filter(posting -> !posting.isCorrection())
+                        .forEach(posting -> posting.persisted().complete(null));
+                return null;
+            } catch (RuntimeException e) {
+                postings.forEach(posting -> posting.transaction().setId(null));
+                if (deterministic(e)) {
+                    return e;
+                }
+                if (!running) {
+                    log.error("Dropping {} shard posting(s) that could not be persisted during shutdown",
+                            postings.size(), e);
+                    TransactionException failure = new TransactionException("Transaction could not be recorded");
+                    postings.stream().filter(posting -> !posting.isCorrection())
+                            .forEach(posting -> posting.persisted().completeExceptionally(failure));
+                    return null;
+                }
+                log.error("Persisting {} shard posting(s) failed, retrying", postings.size(), e);
+                Thread.sleep(1_000);
+            }
+        }
+    }
+
+    // Constraint violations, and refusals raised by the write itself, repeat on every attempt;
+    // other data access failures (connections, lock timeouts) may not
+    private static boolean deterministic(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException
+                || !(e instanceof DataAccessException
+                || e instanceof org.springframework.transaction.TransactionException);
+    }
+
+    private void netOfReverted(Posting posting) {
+        Deque<BigDecimal> pending = reverted.get(posting.accountNumber());
+        if (pending == null) {
+            return;
+        }
+        if (posting.isCorrection()) {
+            // Corrections come through in the order their reverts were issued; this one
+            // already excludes its own change, but not the ones reverted after it
+            pending.poll();
+            if (pending.isEmpty()) {
+                reverted.remove(posting.accountNumber());
+                return;
+            }
+        }
+        shift(posting, pending.stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    private static void shift(Posting posting, BigDecimal change) {
+        Transaction row = posting.transaction();
+        row.setBalanceAfter(row.getBalanceAfter().subtract(change));
+    }
+
+    private void write(List<Posting> batch, Predicate<Posting> setsBalance) {
+        Map<String, BigDecimal> balances = new LinkedHashMap<>();
+        List<Transaction> rows = new ArrayList<>(batch.size());
+        for (Posting posting : batch) {
+            Transaction row = posting.transaction();
+            if (setsBalance.test(posting)) {
+                balances.put(posting.accountNumber(), row.getBalanceAfter());
+            }
+            if (!posting.isCorrection()) {
+                row.setAccount(accountRepository.getReferenceById(posting.accountNumber()));
+                rows.add(row);
+            }
+        }
+        transactionBatchRepository.updateBalances(balances);
+        ledgerWriter.write(rows);
+        batch.stream().map(Posting::linkedWrite).filter(Objects::nonNull).forEach(Runnable::run);
+        balances.forEach(accountCache::balanceChanged);
+    }
+}
@@ -0,0 +1,87 @@
+package com.bmsp.bmsp.service.transaction.shard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer with many producers and a single consumer, in the style
+ * of the LMAX disruptor: producers claim a sequence with one atomic increment,
+ * write their slot and publish it by storing the sequence next to it. The
+ * consumer reads slots strictly in sequence order, so commands reach a shard in
+ * the order they were claimed. A full ring makes producers wait, which is the
+ * back-pressure on a hot shard.
+ */
+final class ShardRingBuffer<E> {
+
+    private static final int SPINS = 200;
+
+    private final Object[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private volatile boolean consumerParked;
+    private volatile Thread consumer;
+
+    ShardRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.slots = new Object[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+    }
+
+    void consumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    void publish(E element) {
+        long sequence = claimed.getAndIncrement();
+        while (sequence - consumed >= slots.length) {
+            LockSupport.parkNanos(1_000);
+        }
+        int index = (int) (sequence & mask);
+        slots[index] = element;
+        published.set(index, sequence);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Takes the next element, spinning briefly and then parking for at most
+     * {@code maxWaitNanos}. Returns null when nothing was published in time.
+     * Only the consumer thread may call this.
+     */
+    @SuppressWarnings("unchecked")
+    E poll(long maxWaitNanos) {
+        long sequence = consumed;
+        int index = (int) (sequence & mask);
+        int spins = 0;
+        while (published.get(index) != sequence) {
+            if (spins++ < SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            consumerParked = true;
+            if (published.get(index) != sequence) {
+                LockSupport.parkNanos(this, maxWaitNanos);
+            }
+            consumerParked = false;
+            if (published.get(index) != sequence) {
+                return null;
+            }
+        }
+        E element = (E) slots[index];
+        slots[index] = null;
+        consumed = sequence + 1;
+        return element;
+    }
+
+    boolean isEmpty() {
+        return claimed.get() == consumed;
+    }
+}
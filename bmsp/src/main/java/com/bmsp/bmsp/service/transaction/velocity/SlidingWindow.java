@@ -0,0 +1,67 @@
+package com.bmsp.bmsp.service.transaction.velocity;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free sliding window of event counts and amounts, kept as a ring of
+ * fixed-width time buckets. Each bucket is an immutable value replaced by
+ * compare-and-set, so a bucket that rolls over to a new period is reset and
+ * added to in the same step. Totals cover the buckets of the last
+ * {@code buckets} periods, so they are accurate to one bucket width.
+ */
+final class SlidingWindow {
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    SlidingWindow(long spanMillis, int buckets) {
+        this.bucketMillis = spanMillis / buckets;
+        this.buckets = buckets;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    void add(long nowMillis, long amount) {
+        long period = nowMillis / bucketMillis;
+        int index = (int) (period % buckets);
+        while (true) {
+            Bucket current = ring.get(index);
+            if (current != null && current.period > period) {
+                return;
+            }
+            Bucket next = current == null || current.period != period
+                    ? new Bucket(period, 1, amount)
+                    : new Bucket(period, current.count + 1, current.amount + amount);
+            if (ring.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    long count(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - buckets;
+        long count = 0;
+        for (int i = 0; i < buckets; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.period > oldest) {
+                count += bucket.count;
+            }
+        }
+        return count;
+    }
+
+    long amount(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - buckets;
+        long amount = 0;
+        for (int i = 0; i < buckets; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.period > oldest) {
+                amount += bucket.amount;
+            }
+        }
+        return amount;
+    }
+
+    private record Bucket(long period, long count, long amount) {
+    }
+}
@@ -0,0 +1,256 @@
+package com.bmsp.bmsp.service.transaction.velocity;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.service.transaction.velocity.VelocityRule.Action;
+import com.bmsp.bmsp.service.transaction.velocity.VelocityRule.Direction;
+import com.bmsp.bmsp.service.transaction.velocity.VelocityRule.Metric;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Inline fraud screening on per-account velocity.
+ *
+ * Every account has lock-free sliding windows of the count and amount of its
+ * incoming and outgoing movements over the last minute, hour and day. A
+ * movement is screened against the configured {@link VelocityRule}s before it
+ * runs: a blocking rule rejects it, a flagging rule lets it through and counts
+ * it as suspicious. Movements are added to the windows once they commit, so
+ * attempts that fail, or target someone else's account, cannot push an
+ * account over its limits; a batch screens each item against the earlier
+ * items of the same batch through a {@link Pending} tally. Rule hits are kept
+ * for 30 days, in memory, and feed the risk assessment.
+ *
+ * Amounts are tracked in minor units. The windows live on this node only, so
+ * with several nodes each one enforces the limits on its own share of traffic.
+ */
+@Slf4j
+@Component
+public class VelocityEngine {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final List<VelocityRule> rules;
+    private final Map<String, AccountVelocity> accounts = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindow> ruleHits = new LinkedHashMap<>();
+    private final SlidingWindow allHits = hitWindow();
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+
+    @Autowired
+    public VelocityEngine(@Value("${app.velocity.rules:}") List<String> rules, MeterRegistry meterRegistry) {
+        this(rules, meterRegistry, System::currentTimeMillis);
+    }
+
+    VelocityEngine(List<String> rules, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.rules = rules.stream().filter(rule -> !rule.isBlank()).map(VelocityRule::parse).toList();
+        this.rules.forEach(rule -> ruleHits.put(rule.name(), hitWindow()));
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Checks a movement against the rules, throwing when a blocking rule is hit.
+     */
+    public void screen(String accountNumber, Direction direction, BigDecimal amount) {
+        screen(accountNumber, direction, amount, null);
+    }
+
+    /**
+     * Checks a movement against the rules, counting the pending movements of
+     * its batch as if they had been recorded already.
+     */
+    public void screen(String accountNumber, Direction direction, BigDecimal amount, Pending pending) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long units = minorUnits(amount);
+        AccountVelocity velocity = accounts.get(accountNumber);
+        VelocityRule blocking = null;
+        boolean hit = false;
+        for (VelocityRule rule : rules) {
+            if (rule.direction() != Direction.ANY && rule.direction() != direction) {
+                continue;
+            }
+            long current = (velocity == null ? 0 : velocity.total(rule, now))
+                    + (pending == null ? 0 : pending.total(accountNumber, rule));
+            long next = current + (rule.metric() == Metric.COUNT ? 1 : units);
+            if (next <= rule.threshold()) {
+                continue;
+            }
+            hit = true;
+            ruleHits.get(rule.name()).add(now, units);
+            meterRegistry.counter("bmsp.velocity.hits", "rule", rule.name(), "action", rule.action().name())
+                    .increment();
+            if (rule.action() == Action.BLOCK) {
+                blocking = rule;
+                break;
+            }
+            log.warn("Velocity rule {} flagged {} {} on account {}", rule.name(), direction, amount, accountNumber);
+        }
+        if (hit) {
+            allHits.add(now, units);
+        }
+        if (blocking != null) {
+            throw new TransactionException("Transaction blocked by velocity limit " + blocking.name());
+        }
+    }
+
+    /**
+     * Adds a movement to the account's windows once the surrounding
+     * transaction commits, or right away outside of one.
+     */
+    public void recordAfterCommit(String accountNumber, Direction direction, BigDecimal amount) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        Runnable record = () -> record(accountNumber, direction, amount);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record.run();
+            }
+        });
+    }
+
+    /**
+     * Adds a movement to the account's windows now.
+     */
+    public void record(String accountNumber, Direction direction, BigDecimal amount) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        AccountVelocity velocity = accounts.computeIfAbsent(accountNumber, key -> new AccountVelocity());
+        velocity.add(direction, now, minorUnits(amount));
+    }
+
+    /**
+     * Rule hits of the last 30 days, most frequent first.
+     */
+    public List<RuleHits> ruleHits() {
+        long now = clock.getAsLong();
+        List<RuleHits> hits = new ArrayList<>(ruleHits.size());
+        ruleHits.forEach((rule, window) -> hits.add(new RuleHits(rule, window.count(now), majorUnits(window.amount(now)))));
+        hits.sort(Comparator.comparingLong(RuleHits::count).reversed());
+        return hits;
+    }
+
+    /**
+     * Movements that hit at least one rule in the last 30 days.
+     */
+    public long suspiciousCount() {
+        return allHits.count(clock.getAsLong());
+    }
+
+    // Accounts idle for a day hold nothing any window still counts
+    @Scheduled(fixedDelayString = "${app.velocity.cleanup-interval-ms:600000}")
+    public void evictIdleAccounts() {
+        long idleSince = clock.getAsLong() - DAY;
+        accounts.values().removeIf(velocity -> velocity.lastMovementMillis < idleSince);
+    }
+
+    public record RuleHits(String rule, long count, BigDecimal exposure) {
+    }
+
+    /**
+     * Movements of one batch that passed screening but are not recorded yet.
+     * Used by one thread only.
+     */
+    public static final class Pending {
+
+        // account and direction: {count, amount in minor units}
+        private final Map<String, long[]> totals = new HashMap<>();
+
+        public void add(String accountNumber, Direction direction, BigDecimal amount) {
+            long[] total = totals.computeIfAbsent(key(accountNumber, direction), key -> new long[2]);
+            total[0]++;
+            total[1] += minorUnits(amount);
+        }
+
+        private long total(String accountNumber, VelocityRule rule) {
+            if (rule.direction() != Direction.ANY) {
+                return total(accountNumber, rule.direction(), rule.metric());
+            }
+            return total(accountNumber, Direction.IN, rule.metric())
+                    + total(accountNumber, Direction.OUT, rule.metric());
+        }
+
+        private long total(String accountNumber, Direction direction, Metric metric) {
+            long[] total = totals.get(key(accountNumber, direction));
+            return total == null ? 0 : total[metric == Metric.COUNT ? 0 : 1];
+        }
+
+        private static String key(String accountNumber, Direction direction) {
+            return direction + ":" + accountNumber;
+        }
+    }
+
+    static long minorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal majorUnits(long units) {
+        return BigDecimal.valueOf(units, 2);
+    }
+
+    private static SlidingWindow hitWindow() {
+        return new SlidingWindow(30 * DAY, 30);
+    }
+
+    private static final class AccountVelocity {
+        // [direction][window]: IN and OUT over a minute, an hour and a day
+        private final SlidingWindow[][] windows = new SlidingWindow[2][];
+        private volatile long lastMovementMillis;
+
+        private AccountVelocity() {
+            for (int i = 0; i < windows.length; i++) {
+                windows[i] = new SlidingWindow[]{
+                        new SlidingWindow(MINUTE, 60), new SlidingWindow(HOUR, 60), new SlidingWindow(DAY, 144)};
+            }
+        }
+
+        void add(Direction direction, long now, long units) {
+            for (SlidingWindow window : windows[direction.ordinal()]) {
+                window.add(now, units);
+            }
+            lastMovementMillis = now;
+        }
+
+        long total(VelocityRule rule, long now) {
+            int window = rule.window().ordinal();
+            if (rule.direction() != Direction.ANY) {
+                return total(windows[rule.direction().ordinal()][window], rule.metric(), now);
+            }
+            return total(windows[0][window], rule.metric(), now) + total(windows[1][window], rule.metric(), now);
+        }
+
+        private static long total(SlidingWindow window, Metric metric, long now) {
+            return metric == Metric.COUNT ? window.count(now) : window.amount(now);
+        }
+    }
+}
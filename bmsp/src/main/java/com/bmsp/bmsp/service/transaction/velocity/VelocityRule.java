@@ -0,0 +1,45 @@
+package com.bmsp.bmsp.service.transaction.velocity;
+
+import java.math.BigDecimal;
+
+/**
+ * A velocity limit: when a movement would take the count or amount of an
+ * account's movements in one direction over a window past the threshold, the
+ * rule is hit and the movement is flagged or blocked.
+ *
+ * Written as {@code name:direction:window:metric:threshold:action}, for
+ * example {@code rapid-withdrawals:out:1m:count:5:block} or
+ * {@code large-daily-inflow:in:24h:amount:500000:flag}.
+ */
+public record VelocityRule(String name, Direction direction, Window window, Metric metric, long threshold,
+                           Action action) {
+
+    public enum Direction { IN, OUT, ANY }
+
+    public enum Window { MINUTE, HOUR, DAY }
+
+    public enum Metric { COUNT, AMOUNT }
+
+    public enum Action { FLAG, BLOCK }
+
+    static VelocityRule parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("Velocity rule must be name:direction:window:metric:threshold:action, got " + spec);
+        }
+        Metric metric = Metric.valueOf(parts[3].toUpperCase());
+        BigDecimal threshold = new BigDecimal(parts[4]);
+        return new VelocityRule(parts[0], Direction.valueOf(parts[1].toUpperCase()), window(parts[2]), metric,
+                metric == Metric.AMOUNT ? VelocityEngine.minorUnits(threshold) : threshold.longValueExact(),
+                Action.valueOf(parts[5].toUpperCase()));
+    }
+
+    private static Window window(String window) {
+        return switch (window.toLowerCase()) {
+            case "1m" -> Window.MINUTE;
+            case "1h" -> Window.HOUR;
+            case "24h", "1d" -> Window.DAY;
+            default -> throw new IllegalArgumentException("Velocity window must be 1m, 1h or 24h, got " + window);
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.bmsp.bmsp.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs a {@code @Transactional} service method when its commit loses an
+ * optimistic version check. The whole transaction is retried, so the method
+ * must be safe to execute again from scratch. Calls that join an outer
+ * transaction are not retried themselves; the outermost annotated call is.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OptimisticRetry {
+
+    /** Total attempts including the first one. */
+    int maxAttempts() default 3;
+
+    /** Upper bound of the first jittered backoff; doubles on every retry. */
+    long backoffMillis() default 20;
+}
@@ -0,0 +1,88 @@
+package com.bmsp.bmsp.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies {@link OptimisticRetry}. Ordered ahead of the transaction interceptor
+ * so every attempt runs in a fresh transaction.
+ *
+ * Retries draw from a shared budget that every call refills by a fraction of a
+ * retry ({@code app.optimistic-retry.budget-ratio}), so a hot entity cannot turn
+ * a burst of conflicts into a retry storm. Per-method call, retry and exhausted
+ * counters are published as {@code bmsp.optimistic.*} metrics.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticRetryAspect {
+
+    private static final long TOKEN = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final long refillPerCall;
+    private final long budgetCap;
+    private final AtomicLong budget;
+
+    public OptimisticRetryAspect(MeterRegistry meterRegistry,
+                                 @Value("${app.optimistic-retry.budget-ratio:0.1}") double budgetRatio,
+                                 @Value("${app.optimistic-retry.budget-cap:100}") long budgetCap) {
+        this.meterRegistry = meterRegistry;
+        this.refillPerCall = Math.round(budgetRatio * TOKEN);
+        this.budgetCap = budgetCap * TOKEN;
+        this.budget = new AtomicLong(this.budgetCap);
+    }
+
+    @Around("@annotation(retry)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint, OptimisticRetry retry) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Joined an outer transaction; only the outermost call can retry it
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        meterRegistry.counter("bmsp.optimistic.calls", "method", method).increment();
+        budget.accumulateAndGet(refillPerCall, (current, refill) -> Math.min(budgetCap, current + refill));
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retry.maxAttempts() || !takeRetryToken()) {
+                    meterRegistry.counter("bmsp.optimistic.exhausted", "method", method).increment();
+                    throw e;
+                }
+                meterRegistry.counter("bmsp.optimistic.retries", "method", method).increment();
+                long backoff = ThreadLocalRandom.current().nextLong((retry.backoffMillis() << (attempt - 1)) + 1);
+                log.debug("Optimistic lock conflict in {}, attempt {} of {}, retrying in {} ms",
+                        method, attempt, retry.maxAttempts(), backoff);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    private boolean takeRetryToken() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
@@ -1,24 +1,24 @@
-// ReferenceNumberGenerator.java
 package com.bmsp.bmsp.util;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Random;
-
 @Component
 public class ReferenceNumberGenerator {
-    private static final String ALPHA_NUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
     private static final int REFERENCE_LENGTH = 12;
-    
+
+    private final SnowflakeIdGenerator idGenerator;
+
+    public ReferenceNumberGenerator(@Value("${app.id.node-id:0}") int nodeId) {
+        SnowflakeIdGenerator.useNode(nodeId);
+        this.idGenerator = SnowflakeIdGenerator.shared();
+    }
+
+    /**
+     * Twelve upper-case alphanumeric characters, unique per node and sortable
+     * by creation time.
+     */
     public String generateReferenceNumber() {
-        StringBuilder sb = new StringBuilder(REFERENCE_LENGTH);
-        Random random = new Random();
-        
-        for (int i = 0; i < REFERENCE_LENGTH; i++) {
-            int index = random.nextInt(ALPHA_NUMERIC.length());
-            sb.append(ALPHA_NUMERIC.charAt(index));
-        }
-        
-        return sb.toString();
+        return SnowflakeIdGenerator.toBase36(idGenerator.nextId(), REFERENCE_LENGTH);
     }
-}
\ No newline at end of file
+}
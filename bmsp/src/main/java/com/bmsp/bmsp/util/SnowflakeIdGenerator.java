@@ -0,0 +1,90 @@
+package com.bmsp.bmsp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free 64-bit id generator in the Snowflake layout:
+ * 41 bits of milliseconds since {@link #EPOCH_MILLIS}, 10 bits of node id and
+ * a 12 bit sequence.
+ *
+ * Timestamp and sequence live in one atomic word that only ever moves forward,
+ * so ids are unique and increasing per node even when the wall clock steps
+ * back. When more than 4096 ids are asked for within one millisecond the word
+ * simply runs ahead into the next millisecond instead of spinning.
+ */
+public final class SnowflakeIdGenerator {
+
+    /** 2024-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static volatile SnowflakeIdGenerator shared = new SnowflakeIdGenerator(0);
+
+    private final long node;
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * Generator used by entity callbacks, which cannot have beans injected.
+     */
+    public static SnowflakeIdGenerator shared() {
+        return shared;
+    }
+
+    /**
+     * Points {@link #shared()} at the given node. Keeps the current generator
+     * when the node is unchanged so its sequence state is not reset.
+     */
+    static synchronized void useNode(int nodeId) {
+        if (shared.nodeId() != nodeId) {
+            shared = new SnowflakeIdGenerator(nodeId);
+        }
+    }
+
+    public long nextId() {
+        long candidate = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long stamp = state.accumulateAndGet(candidate, SnowflakeIdGenerator::advance);
+        long timestamp = stamp >>> SEQUENCE_BITS;
+        long sequence = stamp & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | node | sequence;
+    }
+
+    public int nodeId() {
+        return (int) (node >>> SEQUENCE_BITS);
+    }
+
+    public static long timestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * Renders an id as upper-case base 36, left padded with zeros to the given
+     * width. Padding keeps the string form sortable in id order.
+     */
+    public static String toBase36(long id, int width) {
+        char[] buffer = new char[Math.max(width, 13)];
+        int position = buffer.length;
+        long remaining = id;
+        do {
+            buffer[--position] = Character.toUpperCase(Character.forDigit((int) Long.remainderUnsigned(remaining, 36), 36));
+            remaining = Long.divideUnsigned(remaining, 36);
+        } while (remaining != 0);
+        while (buffer.length - position < width) {
+            buffer[--position] = '0';
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    private static long advance(long previous, long candidate) {
+        return Math.max(previous + 1, candidate);
+    }
+}
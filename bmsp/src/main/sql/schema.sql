@@ -0,0 +1,109 @@
+-- MySQL 8 DDL for the date-partitioned tables and their archives.
+--
+-- transactions and audit_logs are range-partitioned by month on their date
+-- column, so queries bounded on transaction_date / timestamp only open the
+-- partitions of their range. The JPA mappings are unchanged; MySQL requires
+-- every unique key of a partitioned table to contain the partitioning column,
+-- hence the composite primary and unique keys, and partitioned InnoDB tables
+-- cannot carry foreign keys, so account_id is not constrained here.
+--
+-- Partitions older than the first monthly one are held by p_history. The
+-- ledger archival job (LedgerArchivalJob) keeps monthly partitions open a few
+-- months ahead by splitting them off pmax, and moves partitions past the
+-- retention window into the *_archive tables before dropping them.
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id               BIGINT         NOT NULL,
+    transaction_id   VARCHAR(255)   NOT NULL,
+    account_id       VARCHAR(255)   NOT NULL,
+    type             VARCHAR(50)    NOT NULL,
+    amount           DECIMAL(38, 2) NOT NULL,
+    balance_after    DECIMAL(38, 2) NOT NULL,
+    description      VARCHAR(255),
+    transaction_date DATETIME(6)    NOT NULL,
+    reference_number VARCHAR(255)   NOT NULL,
+    status           VARCHAR(255)   NOT NULL,
+    PRIMARY KEY (id, transaction_date),
+    UNIQUE KEY uk_transactions_transaction_id (transaction_id, transaction_date),
+    KEY idx_transactions_account_date_id (account_id, transaction_date, id),
+    KEY idx_transactions_date (transaction_date)
+) ENGINE = InnoDB
+PARTITION BY RANGE COLUMNS (transaction_date) (
+    PARTITION p_history VALUES LESS THAN ('2026-01-01'),
+    PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+    PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+    PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+    PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+    PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+    PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+    PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+    PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+    PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+    PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+    PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+    PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+    PARTITION p202701 VALUES LESS THAN ('2027-02-01'),
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+CREATE TABLE IF NOT EXISTS audit_logs (
+    id           BIGINT        NOT NULL,
+    action       VARCHAR(255)  NOT NULL,
+    details      VARCHAR(1000),
+    target_id    VARCHAR(255),
+    performed_by VARCHAR(255),
+    timestamp    DATETIME(6)   NOT NULL,
+    ip_address   VARCHAR(45),
+    user_agent   VARCHAR(255),
+    PRIMARY KEY (id, timestamp),
+    KEY idx_audit_logs_action_timestamp (action, timestamp)
+) ENGINE = InnoDB
+PARTITION BY RANGE COLUMNS (timestamp) (
+    PARTITION p_history VALUES LESS THAN ('2026-01-01'),
+    PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+    PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+    PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+    PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+    PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+    PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+    PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+    PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+    PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+    PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+    PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+    PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+    PARTITION p202701 VALUES LESS THAN ('2027-02-01'),
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+-- Archives: same columns, not partitioned, compressed pages. Read by the
+-- history APIs when a requested range reaches past the hot tables.
+
+CREATE TABLE IF NOT EXISTS transactions_archive (
+    id               BIGINT         NOT NULL,
+    transaction_id   VARCHAR(255)   NOT NULL,
+    account_id       VARCHAR(255)   NOT NULL,
+    type             VARCHAR(50)    NOT NULL,
+    amount           DECIMAL(38, 2) NOT NULL,
+    balance_after    DECIMAL(38, 2) NOT NULL,
+    description      VARCHAR(255),
+    transaction_date DATETIME(6)    NOT NULL,
+    reference_number VARCHAR(255)   NOT NULL,
+    status           VARCHAR(255)   NOT NULL,
+    PRIMARY KEY (id),
+    KEY idx_transactions_archive_account_date_id (account_id, transaction_date, id),
+    KEY idx_transactions_archive_date (transaction_date)
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED KEY_BLOCK_SIZE = 8;
+
+CREATE TABLE IF NOT EXISTS audit_logs_archive (
+    id           BIGINT        NOT NULL,
+    action       VARCHAR(255)  NOT NULL,
+    details      VARCHAR(1000),
+    target_id    VARCHAR(255),
+    performed_by VARCHAR(255),
+    timestamp    DATETIME(6),
+    ip_address   VARCHAR(45),
+    user_agent   VARCHAR(255),
+    PRIMARY KEY (id),
+    KEY idx_audit_logs_archive_timestamp (timestamp)
+) ENGINE = InnoDB ROW_FORMAT = COMPRESSED KEY_BLOCK_SIZE = 8;
@@ -0,0 +1,189 @@
+package com.bmsp.bmsp;
+
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.loan.Loan;
+import com.bmsp.bmsp.model.loan.LoanType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.loan.LoanRepository;
+import com.bmsp.bmsp.service.loan.EMIService;
+import com.bmsp.bmsp.service.transaction.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that sequence-generated ids let Hibernate send inserts as JDBC
+ * batches instead of one round trip per row.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class InsertBatchingTest {
+
+    private static final AtomicInteger batchedInserts = new AtomicInteger();
+    private static final AtomicInteger batchExecutions = new AtomicInteger();
+    private static final AtomicInteger singleInserts = new AtomicInteger();
+
+    @Autowired
+    private EMIService emiService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void emiScheduleAndTransferInsertInBatches() {
+        User user = new User("Batching Test", "batching.test@bmsp.test", "secret", "9000000014");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+        Account from = accountRepository.save(account("BATCHA", owner));
+        Account to = accountRepository.save(account("BATCHB", owner));
+
+        Loan loan = new Loan();
+        loan.setUser(owner);
+        loan.setLinkedAccount(from);
+        loan.setLoanType(LoanType.HOME_LOAN);
+        loan.setLoanAmount(new BigDecimal("3600000.00"));
+        loan.setInterestRate(new BigDecimal("8.50"));
+        loan.setTenureMonths(360);
+        loan.setStartDate(LocalDate.now());
+        loan.setEmiAmount(new BigDecimal("27681.00"));
+        loan.setTotalPayableAmount(new BigDecimal("9965160.00"));
+        loan = loanRepository.save(loan);
+
+        emiService.generateEMISchedule(loan);
+        reset();
+        emiService.saveEMISchedule(loan);
+
+        assertEquals(0, singleInserts.get());
+        assertEquals(360, batchedInserts.get());
+        assertTrue(batchExecutions.get() <= 360 / 50 + 1, "EMI rows sent in " + batchExecutions.get() + " batches");
+
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber(from.getAccountNumber());
+        request.setToAccountNumber(to.getAccountNumber());
+        request.setAmount(new BigDecimal("10.00"));
+        request.setDescription("batching test");
+        reset();
+        transactionService.transfer(request, owner);
+
+        // Two ledger rows, then the journal entry and its two postings: one batch per table
+        assertEquals(0, singleInserts.get());
+        assertEquals(5, batchedInserts.get());
+        assertEquals(3, batchExecutions.get());
+    }
+
+    private static Account account(String accountNumber, User owner) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(new BigDecimal("1000.00"));
+        account.setUser(owner);
+        account.setBranchCode("001");
+        account.setBranchName("Test");
+        return account;
+    }
+
+    private static void reset() {
+        batchedInserts.set(0);
+        batchExecutions.set(0);
+        singleInserts.set(0);
+    }
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? proxy(DataSource.class, dataSource, (target, method, args) -> {
+                                Object result = invoke(target, method, args);
+                                return result instanceof Connection connection ? countingConnection(connection) : result;
+                            })
+                            : bean;
+                }
+            };
+        }
+
+        private static Connection countingConnection(Connection connection) {
+            return proxy(Connection.class, connection, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                        && ((String) args[0]).trim().toLowerCase(Locale.ROOT).startsWith("insert")) {
+                    return countingInsert(statement);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement countingInsert(PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+                switch (method.getName()) {
+                    case "addBatch" -> batchedInserts.incrementAndGet();
+                    case "executeBatch" -> batchExecutions.incrementAndGet();
+                    case "executeUpdate", "execute" -> singleInserts.incrementAndGet();
+                    default -> { }
+                }
+                return invoke(target, method, args);
+            });
+        }
+
+        private interface Handler<T> {
+            Object handle(T target, java.lang.reflect.Method method, Object[] args) throws Throwable;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+            InvocationHandler invocationHandler = (p, method, args) -> handler.handle(target, method, args);
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
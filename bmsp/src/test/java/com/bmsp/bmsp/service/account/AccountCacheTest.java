@@ -0,0 +1,89 @@
+package com.bmsp.bmsp.service.account;
+
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountStatus;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AccountRepository accountRepository;
+    private AccountCache cache;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        cache = new AccountCache(accountRepository, meterRegistry, 60, 100);
+        owner = new User();
+        owner.setId(42L);
+    }
+
+    @Test
+    void writesGoThroughWithoutReloading() {
+        when(accountRepository.findById("ACC1")).thenReturn(Optional.of(account("ACC1", "100.00")));
+
+        assertEquals(new BigDecimal("100.00"), cache.get("ACC1").orElseThrow().balance());
+        cache.balanceChanged("ACC1", new BigDecimal("75.00"));
+        cache.statusChanged("ACC1", AccountStatus.FROZEN, LocalDateTime.now());
+
+        AccountSnapshot snapshot = cache.get("ACC1").orElseThrow();
+        assertEquals(new BigDecimal("75.00"), snapshot.balance());
+        assertEquals(AccountStatus.FROZEN, snapshot.status());
+        verify(accountRepository, times(1)).findById(anyString());
+        assertEquals(0.5, meterRegistry.get("bmsp.account.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void loadThatRacedWithAWriteIsNotCached() {
+        // The write commits while the load is reading the old row
+        when(accountRepository.findById("ACC1")).thenAnswer(call -> {
+            cache.balanceChanged("ACC1", new BigDecimal("75.00"));
+            return Optional.of(account("ACC1", "100.00"));
+        }).thenReturn(Optional.of(account("ACC1", "75.00")));
+
+        assertEquals(new BigDecimal("100.00"), cache.get("ACC1").orElseThrow().balance());
+        assertEquals(new BigDecimal("75.00"), cache.get("ACC1").orElseThrow().balance());
+        assertEquals(new BigDecimal("75.00"), cache.get("ACC1").orElseThrow().balance());
+        verify(accountRepository, times(2)).findById(anyString());
+    }
+
+    @Test
+    void userIndexPicksUpNewAccounts() {
+        when(accountRepository.findByUser(any())).thenReturn(List.of(account("ACC1", "10.00")));
+
+        assertEquals(1, cache.getUserAccounts(owner).size());
+        cache.accountCreated(account("ACC2", "0.00"));
+
+        List<AccountSnapshot> accounts = cache.getUserAccounts(owner);
+        assertEquals(List.of("ACC1", "ACC2"), accounts.stream().map(AccountSnapshot::accountNumber).toList());
+        verify(accountRepository, times(1)).findByUser(any());
+    }
+
+    private Account account(String accountNumber, String balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(new BigDecimal(balance));
+        account.setUser(owner);
+        return account;
+    }
+}
@@ -0,0 +1,118 @@
+package com.bmsp.bmsp.service.admin;
+
+import com.bmsp.bmsp.dto.request.transaction.TransactionRequest;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountStatus;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.auth.UserStatus;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.admin.SystemCounterRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.transaction.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class SystemCountersTest {
+
+    @Autowired
+    private SystemCounters systemCounters;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SystemCounterRepository counterRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    void reconciliationCorrectsRowsWrittenAroundTheServices() {
+        User user = new User("Counter Test", "counter.test@bmsp.test", "secret", "9000000021");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        user.setStatus(UserStatus.ACTIVE);
+        userRepository.save(user);
+
+        systemCounters.reconcile();
+        SystemCounters.Counts counts = systemCounters.read();
+        assertEquals(userRepository.count(), counts.total(SystemCounters.USERS));
+        assertEquals(userRepository.countByStatus(UserStatus.ACTIVE),
+                counts.count(SystemCounters.USERS, UserStatus.ACTIVE));
+
+        // A change reported by a service moves the counts right away, spread over slots or not
+        systemCounters.statusChanged(SystemCounters.USERS, UserStatus.ACTIVE, UserStatus.SUSPENDED);
+        systemCounters.created(SystemCounters.ACCOUNTS, AccountStatus.ACTIVE);
+        SystemCounters.Counts changed = systemCounters.read();
+        assertEquals(counts.count(SystemCounters.USERS, UserStatus.ACTIVE) - 1,
+                changed.count(SystemCounters.USERS, UserStatus.ACTIVE));
+        assertEquals(counts.count(SystemCounters.USERS, UserStatus.SUSPENDED) + 1,
+                changed.count(SystemCounters.USERS, UserStatus.SUSPENDED));
+        assertEquals(counts.total(SystemCounters.ACCOUNTS) + 1, changed.total(SystemCounters.ACCOUNTS));
+
+        // Neither change happened in the tables, so reconciling takes both back
+        systemCounters.reconcile();
+        SystemCounters.Counts reconciled = systemCounters.read();
+        assertEquals(counts.count(SystemCounters.USERS, UserStatus.ACTIVE),
+                reconciled.count(SystemCounters.USERS, UserStatus.ACTIVE));
+        assertEquals(counts.count(SystemCounters.USERS, UserStatus.SUSPENDED),
+                reconciled.count(SystemCounters.USERS, UserStatus.SUSPENDED));
+        assertEquals(counts.total(SystemCounters.ACCOUNTS), reconciled.total(SystemCounters.ACCOUNTS));
+    }
+
+    @Test
+    void recordedMovementsAddToTodaysVolume() {
+        User user = new User("Volume Test", "volume.test@bmsp.test", "secret", "9000000029");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        Account account = new Account();
+        account.setAccountNumber("VOLUME1");
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(BigDecimal.ZERO);
+        account.setUser(userRepository.save(user));
+        account.setBranchCode("001");
+        account.setBranchName("Counters");
+        accountRepository.save(account);
+        systemCounters.reconcile();
+        LocalDate today = LocalDate.now();
+        BigDecimal before = systemCounters.read().volume(today);
+
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber("VOLUME1");
+        request.setAmount(new BigDecimal("125.50"));
+        transactionService.processAdminTransaction(request, TransactionType.DEPOSIT);
+        assertEquals(before.add(new BigDecimal("125.50")), systemCounters.read().volume(today));
+
+        // The table agrees, and a past day's volume is dropped
+        counterRepository.add(Map.of("transactions.volume." + today.minusDays(1), 100L), 0);
+        systemCounters.reconcile();
+        SystemCounters.Counts reconciled = systemCounters.read();
+        assertEquals(0, transactionRepository.sumTodayTransactions().orElseThrow().compareTo(reconciled.volume(today)));
+        assertEquals(new BigDecimal("0.00"), reconciled.volume(today.minusDays(1)));
+    }
+}
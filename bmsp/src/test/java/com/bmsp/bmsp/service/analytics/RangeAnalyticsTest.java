@@ -0,0 +1,72 @@
+package com.bmsp.bmsp.service.analytics;
+
+import com.bmsp.bmsp.model.auth.UserStatus;
+import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.model.loan.LoanType;
+import com.bmsp.bmsp.repository.dto.LoanOutcomeDTO;
+import com.bmsp.bmsp.repository.dto.UserSignupDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RangeAnalyticsTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 15);
+    private static final LocalDate END = LocalDate.of(2024, 3, 10);
+
+    @Test
+    void subRangesMergeIntoMonthsOfTheWholeRange() {
+        RangeAnalytics january = new RangeAnalytics(START, END);
+        january.addIncome(LocalDate.of(2024, 1, 20), true, new BigDecimal("100.25"));
+        january.addIncome(LocalDate.of(2024, 1, 31), false, new BigDecimal("4.75"));
+        january.addSignup(new UserSignupDTO(LocalDate.of(2024, 1, 16).atTime(9, 0), UserStatus.ACTIVE));
+
+        RangeAnalytics march = new RangeAnalytics(START, END);
+        march.addIncome(LocalDate.of(2024, 3, 1), true, new BigDecimal("50.00"));
+        march.addSignup(new UserSignupDTO(LocalDate.of(2024, 3, 2).atTime(9, 0), UserStatus.ACTIVE));
+        march.addSignup(new UserSignupDTO(LocalDate.of(2024, 3, 3).atTime(9, 0), UserStatus.SUSPENDED));
+
+        RangeAnalytics range = january.merge(march);
+
+        assertEquals(3, range.months());
+        assertEquals(YearMonth.of(2024, 3), range.month(2));
+        assertEquals(new BigDecimal("150.25"), range.interestIncome());
+        assertEquals(new BigDecimal("4.75"), range.feeIncome());
+        assertEquals(new BigDecimal("105.00"), range.revenue(0));
+        assertEquals(new BigDecimal("0.00"), range.revenue(1));
+        assertEquals(new BigDecimal("50.00"), range.revenue(2));
+        assertEquals(3, range.newCustomers());
+        assertEquals(2, range.newCustomers(2));
+        assertEquals(1, range.churnedCustomers(2));
+    }
+
+    @Test
+    void onlyLentLoansCountTowardsThePortfolio() {
+        RangeAnalytics range = new RangeAnalytics(START, END);
+        range.addLoan(loan(LoanType.HOME_LOAN, LoanStatus.DISBURSED, "300000.00", "0.00", "0.00"));
+        range.addLoan(loan(LoanType.HOME_LOAN, LoanStatus.DEFAULTED, "100000.00", "20000.00", "40000.00"));
+        range.addLoan(loan(LoanType.CAR_LOAN, LoanStatus.CLOSED, "50000.00", "50000.00", "0.00"));
+        range.addLoan(loan(LoanType.CAR_LOAN, LoanStatus.PENDING, "70000.00", "0.00", "0.00"));
+        range.addLoan(loan(LoanType.PERSONAL_LOAN, LoanStatus.REJECTED, "10000.00", "0.00", "0.00"));
+
+        assertEquals(3, range.loansLent());
+        assertEquals(new BigDecimal("450000.00"), range.amountLent());
+        assertEquals(new BigDecimal("150000.00"), range.averageLoanSize());
+        assertEquals(2, range.loansLent(LoanType.HOME_LOAN));
+        assertEquals(new BigDecimal("400000.00"), range.amountLent(LoanType.HOME_LOAN));
+        assertEquals(0, new BigDecimal("50").compareTo(range.defaultRate(LoanType.HOME_LOAN)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(range.defaultRate(LoanType.PERSONAL_LOAN)));
+        // 40,000 recovered of the 80,000 still owed at default
+        assertEquals(0, new BigDecimal("50").compareTo(range.recoveryRate()));
+    }
+
+    private static LoanOutcomeDTO loan(LoanType type, LoanStatus status, String amount, String paid,
+                                       String recovered) {
+        return new LoanOutcomeDTO(START.atStartOfDay(), type, status, new BigDecimal(amount),
+                new BigDecimal(paid), new BigDecimal(recovered));
+    }
+}
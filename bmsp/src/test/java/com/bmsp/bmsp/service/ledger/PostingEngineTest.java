@@ -0,0 +1,180 @@
+package com.bmsp.bmsp.service.ledger;
+
+import com.bmsp.bmsp.dto.request.transaction.TransactionRequest;
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.loan.Loan;
+import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.model.loan.LoanType;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.ledger.LedgerAccountTotalRepository;
+import com.bmsp.bmsp.repository.loan.LoanRepository;
+import com.bmsp.bmsp.service.loan.EMIService;
+import com.bmsp.bmsp.service.transaction.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class PostingEngineTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PostingEngine postingEngine;
+
+    @Autowired
+    private LedgerAccountTotalRepository totalRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private EMIService emiService;
+
+    @Test
+    void movementsPostBalancedEntriesAndKeepTotalsInStepWithBalances() {
+        User owner = customer("Posting Test", "posting.test@bmsp.test", "9000000013");
+        account("POST1", owner, BigDecimal.ZERO);
+        account("POST2", owner, BigDecimal.ZERO);
+        BigDecimal cashBefore = totalRepository.findNetDebit(LedgerAccounts.CASH);
+
+        transactionService.deposit(request("POST1", "500.00"), owner);
+        transactionService.withdraw(request("POST1", "120.00"), owner);
+        TransferRequest transfer = new TransferRequest();
+        transfer.setFromAccountNumber("POST1");
+        transfer.setToAccountNumber("POST2");
+        transfer.setAmount(new BigDecimal("80.00"));
+        String reference = transactionService.transfer(transfer, owner).getReferenceNumber();
+
+        // Every entry nets to zero, and the transfer is one entry with two legs
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT journal_entry_id FROM posting " +
+                "GROUP BY journal_entry_id HAVING SUM(amount) <> 0) unbalanced", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posting p JOIN journal_entry e " +
+                "ON e.id = p.journal_entry_id WHERE e.reference_number = ?", Integer.class, reference));
+
+        // Customer accounts are liabilities: their balance is their net credit
+        for (String accountNumber : List.of("POST1", "POST2")) {
+            assertAmount(accountRepository.findBalance(accountNumber),
+                    totalRepository.findNetDebit(accountNumber).negate());
+        }
+        assertAmount(new BigDecimal("380.00"), totalRepository.findNetDebit(LedgerAccounts.CASH).subtract(cashBefore));
+        LocalDate today = LocalDate.now();
+        assertAmount(new BigDecimal("500.00"), totalRepository.sumCredits(List.of("POST1"), today, today));
+        assertAmount(new BigDecimal("200.00"), totalRepository.sumDebits(List.of("POST1"), today, today));
+
+        // Multi-leg entries post as given, unbalanced ones are refused
+        JournalEntryDraft fee = new JournalEntryDraft("FEE-POST1", TransactionType.FEE_CHARGE, "split fee",
+                LocalDateTime.now(), List.of(
+                        JournalEntryDraft.Leg.debit("POST1", new BigDecimal("10.00")),
+                        JournalEntryDraft.Leg.credit(LedgerAccounts.FEE_INCOME, new BigDecimal("8.00")),
+                        JournalEntryDraft.Leg.credit(LedgerAccounts.INTEREST_INCOME, new BigDecimal("2.00"))));
+        transactionTemplate.executeWithoutResult(status -> postingEngine.post(List.of(fee)));
+        assertAmount(new BigDecimal("8.00"),
+                totalRepository.sumCredits(List.of(LedgerAccounts.FEE_INCOME), today, today));
+        JournalEntryDraft unbalanced = new JournalEntryDraft("BAD-POST1", TransactionType.FEE_CHARGE, null,
+                LocalDateTime.now(), List.of(
+                        JournalEntryDraft.Leg.debit("POST1", new BigDecimal("10.00")),
+                        JournalEntryDraft.Leg.credit(LedgerAccounts.FEE_INCOME, new BigDecimal("9.99"))));
+        assertThrows(TransactionException.class, () -> postingEngine.post(List.of(unbalanced)));
+    }
+
+    @Test
+    void anEmiPaymentCreditsPrincipalToTheLoanAndInterestToIncome() {
+        User owner = customer("Posting Loan Test", "posting.loan@bmsp.test", "9000000028");
+        Account account = account("POST3", owner, new BigDecimal("500.00"));
+        Loan loan = new Loan();
+        loan.setUser(owner);
+        loan.setLinkedAccount(account);
+        loan.setLoanType(LoanType.PERSONAL_LOAN);
+        loan.setLoanAmount(new BigDecimal("1200.00"));
+        loan.setInterestRate(new BigDecimal("12.00"));
+        loan.setTenureMonths(12);
+        loan.setStartDate(LocalDate.now());
+        loan.setEmiAmount(new BigDecimal("100.00"));
+        loan.setTotalPayableAmount(new BigDecimal("1200.00"));
+        loan.setStatus(LoanStatus.DISBURSED);
+        loan = loanRepository.save(loan);
+        emiService.saveEMISchedule(loan);
+
+        LocalDate today = LocalDate.now();
+        BigDecimal cashBefore = totalRepository.findNetDebit(LedgerAccounts.CASH);
+        BigDecimal interestBefore = totalRepository.sumCredits(List.of(LedgerAccounts.INTEREST_INCOME), today, today);
+        BigDecimal principalBefore = totalRepository.sumCredits(List.of(LedgerAccounts.LOANS_RECEIVABLE), today, today);
+        emiService.payEMI(loan.getId(), 1, owner);
+
+        // 1% of the 1200.00 outstanding is interest, the rest of the instalment repays principal
+        assertAmount(new BigDecimal("12.00"), totalRepository.sumCredits(
+                List.of(LedgerAccounts.INTEREST_INCOME), today, today).subtract(interestBefore));
+        assertAmount(new BigDecimal("88.00"), totalRepository.sumCredits(
+                List.of(LedgerAccounts.LOANS_RECEIVABLE), today, today).subtract(principalBefore));
+        assertAmount(BigDecimal.ZERO, totalRepository.findNetDebit(LedgerAccounts.CASH).subtract(cashBefore));
+        assertAmount(new BigDecimal("100.00"), totalRepository.findNetDebit("POST3"));
+    }
+
+    private User customer(String fullName, String email, String phone) {
+        User user = new User(fullName, email, "secret", phone);
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        return userRepository.save(user);
+    }
+
+    private Account account(String accountNumber, User owner, BigDecimal balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(balance);
+        account.setUser(owner);
+        account.setBranchCode("001");
+        account.setBranchName("Ledger");
+        return accountRepository.save(account);
+    }
+
+    private static TransactionRequest request(String accountNumber, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(accountNumber);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static void assertAmount(BigDecimal expected, BigDecimal actual) {
+        assertEquals(0, expected.compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+}
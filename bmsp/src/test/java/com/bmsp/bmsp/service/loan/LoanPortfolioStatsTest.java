@@ -0,0 +1,92 @@
+package com.bmsp.bmsp.service.loan;
+
+import com.bmsp.bmsp.model.loan.Loan;
+import com.bmsp.bmsp.model.loan.LoanStatus;
+import com.bmsp.bmsp.repository.loan.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoanPortfolioStatsTest {
+
+    private LoanRepository loanRepository;
+    private LoanPortfolioStats stats;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository = mock(LoanRepository.class);
+        stats = new LoanPortfolioStats(loanRepository);
+        when(loanRepository.sumGroupedByStatus()).thenReturn(List.of(
+                new Object[]{LoanStatus.DISBURSED, 2L, new BigDecimal("3000.00"), new BigDecimal("500.00")},
+                new Object[]{LoanStatus.DEFAULTED, 1L, new BigDecimal("1000.00"), new BigDecimal("100.00")},
+                new Object[]{LoanStatus.CLOSED, 1L, new BigDecimal("800.00"), new BigDecimal("880.00")}));
+        stats.reconcile();
+    }
+
+    @Test
+    void figuresComeFromOneGroupedQuery() {
+        LoanPortfolioStats.Snapshot loans = stats.snapshot();
+
+        assertEquals(4, loans.totalLoans());
+        assertEquals(2, loans.count(LoanStatus.DISBURSED));
+        assertEquals(new BigDecimal("4800.00"), loans.totalLoanAmount());
+        assertEquals(new BigDecimal("3400.00"), loans.outstandingAmount());
+        assertEquals(new BigDecimal("900.00"), loans.defaultedAmount());
+        assertEquals(new BigDecimal("880.00"), loans.recoveredAmount());
+    }
+
+    @Test
+    void transitionsMoveTheFiguresWithoutQuerying() {
+        Loan loan = loan(LoanStatus.PENDING, "2000.00", "0.00");
+        stats.createdAfterCommit(loan);
+
+        LoanPortfolioStats.LoanState pending = LoanPortfolioStats.stateOf(loan);
+        loan.setStatus(LoanStatus.DISBURSED);
+        stats.changedAfterCommit(pending, loan);
+
+        // The last instalment pays the loan off
+        LoanPortfolioStats.LoanState disbursed = LoanPortfolioStats.stateOf(loan);
+        loan.setPaidAmount(new BigDecimal("2200.00"));
+        loan.setStatus(LoanStatus.CLOSED);
+        stats.changedAfterCommit(disbursed, loan);
+
+        LoanPortfolioStats.Snapshot loans = stats.snapshot();
+        assertEquals(5, loans.totalLoans());
+        assertEquals(0, loans.count(LoanStatus.PENDING));
+        assertEquals(2, loans.count(LoanStatus.DISBURSED));
+        assertEquals(2, loans.count(LoanStatus.CLOSED));
+        assertEquals(new BigDecimal("6800.00"), loans.totalLoanAmount());
+        assertEquals(new BigDecimal("3400.00"), loans.outstandingAmount());
+        assertEquals(new BigDecimal("3080.00"), loans.recoveredAmount());
+    }
+
+    @Test
+    void aChangeReportedWhileReconcilingIsKept() {
+        List<Object[]> rows = loanRepository.sumGroupedByStatus();
+        // A loan commits after the query has read the table, and is reported while it is still running
+        when(loanRepository.sumGroupedByStatus()).thenAnswer(invocation -> {
+            stats.createdAfterCommit(loan(LoanStatus.PENDING, "2000.00", "0.00"));
+            return rows;
+        });
+        stats.reconcile();
+
+        LoanPortfolioStats.Snapshot loans = stats.snapshot();
+        assertEquals(5, loans.totalLoans());
+        assertEquals(1, loans.count(LoanStatus.PENDING));
+        assertEquals(new BigDecimal("6800.00"), loans.totalLoanAmount());
+    }
+
+    private static Loan loan(LoanStatus status, String amount, String paid) {
+        Loan loan = new Loan();
+        loan.setStatus(status);
+        loan.setLoanAmount(new BigDecimal(amount));
+        loan.setPaidAmount(new BigDecimal(paid));
+        return loan;
+    }
+}
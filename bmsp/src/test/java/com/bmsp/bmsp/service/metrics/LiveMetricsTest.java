@@ -0,0 +1,91 @@
+package com.bmsp.bmsp.service.metrics;
+
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveMetricsTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toMillis(20_000));
+    private final LiveMetrics metrics = new LiveMetrics(clock::get);
+
+    @Test
+    void sumsTransactionsByTypeOverTheLastHour() {
+        metrics.transaction(TransactionType.DEPOSIT, new BigDecimal("100.50"));
+        metrics.transaction(TransactionType.TRANSFER_OUT, new BigDecimal("20.00"));
+        metrics.transaction(TransactionType.TRANSFER_IN, new BigDecimal("20.00"));
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(30));
+        metrics.transaction(TransactionType.DEPOSIT, new BigDecimal("9.50"));
+        metrics.userRegistered();
+
+        LiveMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(4, snapshot.transactionsLastHour());
+        assertEquals(new BigDecimal("150.00"), snapshot.amountLastHour());
+        assertEquals(2L, snapshot.countByTypeLastHour().get(TransactionType.DEPOSIT));
+        assertEquals(new BigDecimal("110.00"), snapshot.amountByTypeLastHour().get(TransactionType.DEPOSIT));
+        assertEquals(new BigDecimal("0.02"), snapshot.transactionsPerSecond());
+        assertEquals(1, snapshot.newUsersLastHour());
+        assertEquals(1800, snapshot.uptimeSeconds());
+
+        // The first three fall out of the window after an hour, the rest 30 minutes later
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(31));
+        assertEquals(1, metrics.snapshot().transactionsLastHour());
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(30));
+        assertEquals(0, metrics.snapshot().transactionsLastHour());
+        assertEquals(BigDecimal.ZERO, metrics.snapshot().amountLastHour());
+    }
+
+    @Test
+    void reportsLatencyPercentilesAndAvailability() {
+        for (int i = 0; i < 98; i++) {
+            metrics.request(TimeUnit.MILLISECONDS.toNanos(10), 200);
+        }
+        metrics.request(TimeUnit.MILLISECONDS.toNanos(400), 200);
+        metrics.request(TimeUnit.MILLISECONDS.toNanos(900), 503);
+
+        LiveMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(100, snapshot.requestsLastMinute());
+        assertBetween(10, 12.5, snapshot.p50LatencyMs());
+        assertBetween(400, 500, snapshot.p99LatencyMs());
+        assertEquals(new BigDecimal("99.00"), snapshot.availabilityPercent());
+
+        // Latency covers the last minute only
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(2));
+        assertEquals(BigDecimal.ZERO, metrics.snapshot().p99LatencyMs());
+        assertEquals(new BigDecimal("99.00"), metrics.snapshot().availabilityPercent());
+    }
+
+    @Test
+    void countsEachRecentlyLoggedInUserOnce() {
+        metrics.userLoggedIn("a@bank.test");
+        metrics.userLoggedIn("b@bank.test");
+        metrics.userLoggedIn("a@bank.test");
+        assertEquals(2, metrics.snapshot().activeSessions());
+
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(20));
+        metrics.userLoggedIn("b@bank.test");
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(15));
+        metrics.evictIdleSessions();
+        assertEquals(1, metrics.snapshot().activeSessions());
+    }
+
+    @Test
+    void latencyBinsAreContiguous() {
+        for (long micros = 1; micros < 1_000_000; micros++) {
+            int bin = LiveMetrics.latencyBin(micros);
+            assertTrue(LiveMetrics.binFloor(bin) <= micros && micros < LiveMetrics.binFloor(bin + 1),
+                    "bin " + bin + " for " + micros + "us");
+        }
+    }
+
+    private static void assertBetween(double low, double high, BigDecimal actual) {
+        assertTrue(actual.doubleValue() >= low && actual.doubleValue() <= high, "expected " + low + ".." + high
+                + " but was " + actual);
+    }
+}
@@ -0,0 +1,135 @@
+package com.bmsp.bmsp.service.report;
+
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class ReportServiceTest {
+
+    // A period no other test writes to
+    private static final LocalDate DAY = LocalDate.of(2001, 3, 15);
+    private static final int ROWS = 250;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @BeforeEach
+    void seed() {
+        if (accountRepository.existsById("REPORT1")) {
+            return;
+        }
+        User user = new User("Report Test", "report.test@bmsp.test", "secret", "9000000023");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+
+        Account account = new Account();
+        account.setAccountNumber("REPORT1");
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(BigDecimal.ZERO);
+        account.setUser(owner);
+        account.setBranchCode("001");
+        account.setBranchName("Test");
+        accountRepository.save(account);
+
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAccount(account);
+            transaction.setType(i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL);
+            transaction.setAmount(new BigDecimal("10.50"));
+            transaction.setBalanceAfter(BigDecimal.valueOf(i));
+            transaction.setTransactionDate(DAY.atTime(9, 0).plusSeconds(i));
+            transaction.setReferenceNumber("REPORT-REF" + i);
+            transaction.setDescription("report row " + i);
+            rows.add(transaction);
+        }
+        transactionRepository.saveAll(rows);
+    }
+
+    @Test
+    void excelExportStreamsEveryRowPastTheRowWindow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeTransactionReportExcel(DAY, DAY, null, out);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(ROWS, sheet.getLastRowNum());
+            assertEquals("Amount", sheet.getRow(0).getCell(3).getStringCellValue());
+            // Newest first
+            Row first = sheet.getRow(1);
+            assertEquals("REPORT1", first.getCell(1).getStringCellValue());
+            assertEquals(10.5, first.getCell(3).getNumericCellValue());
+            assertEquals(DAY.atTime(9, 0).plusSeconds(ROWS - 1), first.getCell(4).getLocalDateTimeCellValue());
+            assertEquals("REPORT-REF" + (ROWS - 1), first.getCell(5).getStringCellValue());
+        }
+
+        ByteArrayOutputStream deposits = new ByteArrayOutputStream();
+        reportService.writeTransactionReportExcel(DAY, DAY, "deposit", deposits);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(deposits.toByteArray()))) {
+            assertEquals(ROWS / 2, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    @Test
+    void pdfReportWritesEveryChunkAndRepeatsTheHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeTransactionReportPDF(DAY, DAY, null, out);
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        try {
+            int pages = reader.getNumberOfPages();
+            assertTrue(pages > 1);
+            String lastPage = PdfTextExtractor.getTextFromPage(reader, pages);
+            assertTrue(lastPage.contains("Reference"));
+            // Newest first, so the oldest row closes the table
+            assertTrue(lastPage.contains("REPORT-REF0"));
+        } finally {
+            reader.close();
+        }
+    }
+}
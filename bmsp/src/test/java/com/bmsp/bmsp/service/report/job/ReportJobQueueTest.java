@@ -0,0 +1,117 @@
+package com.bmsp.bmsp.service.report.job;
+
+import com.bmsp.bmsp.exception.ReportQueueFullException;
+import com.bmsp.bmsp.service.report.ReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportJobQueueTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 31);
+
+    @TempDir
+    Path directory;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ReportService reportService;
+    private ReportWatermarks reportWatermarks;
+    private ReportJobQueue queue;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        reportService = mock(ReportService.class);
+        reportWatermarks = mock(ReportWatermarks.class);
+        when(reportWatermarks.of(any())).thenReturn("w1");
+        // Rendering holds until the test releases it
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            invocation.getArgument(3, OutputStream.class).write("loan report".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reportService).writeLoanReportPDF(any(), any(), any(), any());
+        queue = new ReportJobQueue(reportService, new ReportCache(directory.toString(), 1), reportWatermarks, 1, 1, 60000, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    @Test
+    void identicalRequestsShareOneJobAndThenComeFromDisk() throws Exception {
+        ReportJob first = queue.submit(new ReportRequest(ReportType.LOANS_PDF, START, END, "approved"));
+        ReportJob second = queue.submit(new ReportRequest(ReportType.LOANS_PDF, START, END, " APPROVED"));
+        assertSame(first, second);
+
+        release.countDown();
+        first.getCompletion().get(5, TimeUnit.SECONDS);
+        assertEquals(ReportJob.Status.COMPLETED, first.getStatus());
+        assertEquals("loan report", Files.readString(first.getFile()));
+
+        ReportJob cached = queue.submit(new ReportRequest(ReportType.LOANS_PDF, START, END, "APPROVED"));
+        assertNotSame(first, cached);
+        assertTrue(cached.isDone());
+        assertEquals(first.getId(), cached.getId());
+        assertEquals(first.getFile(), cached.getFile());
+        assertEquals(ReportJob.Status.COMPLETED, queue.find(first.getId()).orElseThrow().getStatus());
+        verify(reportService, times(1)).writeLoanReportPDF(any(), any(), any(), any());
+
+        // New data, new key
+        when(reportWatermarks.of(any())).thenReturn("w2");
+        ReportJob rerendered = queue.submit(new ReportRequest(ReportType.LOANS_PDF, START, END, "APPROVED"));
+        assertNotEquals(first.getId(), rerendered.getId());
+    }
+
+    @Test
+    void refusesReportsPastTheQueueCapacity() {
+        // One rendering, one waiting
+        queue.submit(new ReportRequest(ReportType.LOANS_PDF, START, END, null));
+        queue.submit(new ReportRequest(ReportType.LOANS_PDF, START, END.plusDays(1), null));
+
+        ReportQueueFullException refused = assertThrows(ReportQueueFullException.class,
+                () -> queue.submit(new ReportRequest(ReportType.LOANS_PDF, START, END.plusDays(2), null)));
+        assertEquals(30, refused.getRetryAfterSeconds());
+    }
+
+    @Test
+    void failedJobsKeepTheirErrorUntilResubmitted() throws Exception {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("database unavailable");
+        }).when(reportService).writeCustomerReportPDF(any(), any(), any());
+        ReportRequest request = new ReportRequest(ReportType.CUSTOMERS_PDF, START, END, null);
+
+        ReportJob failed = queue.submit(request).getCompletion().get(5, TimeUnit.SECONDS);
+        assertEquals(ReportJob.Status.FAILED, failed.getStatus());
+        assertEquals("database unavailable", failed.getError());
+        assertSame(failed, queue.find(failed.getId()).orElseThrow());
+
+        doAnswer(invocation -> null).when(reportService).writeCustomerReportPDF(any(), any(), any());
+        ReportJob retried = queue.submit(request).getCompletion().get(5, TimeUnit.SECONDS);
+        assertNotSame(failed, retried);
+        assertEquals(ReportJob.Status.COMPLETED, retried.getStatus());
+    }
+}
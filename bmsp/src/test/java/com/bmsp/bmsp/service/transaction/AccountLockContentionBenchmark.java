@@ -0,0 +1,125 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives thousands of concurrent transfers between a handful of hot accounts
+ * and checks that no balance update is lost. Not part of the default test run:
+ * {@code mvn test -Dbenchmarks}
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class AccountLockContentionBenchmark {
+
+    private static final int HOT_ACCOUNTS = 4;
+    private static final int THREADS = 32;
+    private static final int TRANSFERS = 4000;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void concurrentTransfersBetweenHotAccountsKeepBalancesConsistent() throws Exception {
+        User user = new User("Contention Bench", "contention.bench@bmsp.test", "secret", "9000000001");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setAccountNumber("BENCH" + i);
+            account.setAccountType(AccountType.SAVINGS);
+            account.setBalance(OPENING_BALANCE);
+            account.setUser(owner);
+            account.setBranchCode("001");
+            account.setBranchName("Benchmark");
+            accountRepository.save(account);
+            accountNumbers.add(account.getAccountNumber());
+        }
+
+        long[] netCents = new long[HOT_ACCOUNTS];
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        for (int i = 0; i < TRANSFERS; i++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int from = random.nextInt(HOT_ACCOUNTS);
+                int to = (from + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+                int cents = 1 + random.nextInt(10_000);
+
+                TransferRequest request = new TransferRequest();
+                request.setFromAccountNumber(accountNumbers.get(from));
+                request.setToAccountNumber(accountNumbers.get(to));
+                request.setAmount(BigDecimal.valueOf(cents, 2));
+                request.setDescription("contention benchmark");
+                try {
+                    transactionService.transfer(request, owner);
+                    synchronized (netCents) {
+                        netCents[from] -= cents;
+                        netCents[to] += cents;
+                    }
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        log.info("{} transfers over {} hot accounts on {} threads: {} ok, {} failed, {} ms, {} transfers/s",
+                TRANSFERS, HOT_ACCOUNTS, THREADS, succeeded.get(), failed.get(), elapsedMillis,
+                succeeded.get() * 1000L / Math.max(1, elapsedMillis));
+
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            BigDecimal expected = OPENING_BALANCE.add(BigDecimal.valueOf(netCents[i], 2));
+            BigDecimal actual = accountRepository.findById(accountNumbers.get(i)).orElseThrow().getBalance();
+            assertEquals(0, expected.compareTo(actual), "balance of " + accountNumbers.get(i));
+        }
+        assertEquals(TRANSFERS, succeeded.get() + failed.get());
+    }
+}
@@ -0,0 +1,133 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.dto.request.transaction.BatchTransferRequest;
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.dto.response.transaction.BatchTransferResponse;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares one client pushing transfers through the single-transfer path
+ * against the same volume sent as batches. Not part of the default test run:
+ * {@code mvn test -Dbenchmarks}
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class BatchTransferBenchmark {
+
+    private static final int ACCOUNTS = 10;
+    private static final int TRANSFERS = 2000;
+    private static final int BATCH_SIZE = 500;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void batchEndpointOutpacesSingleTransfers() {
+        User user = new User("Batch Bench", "batch.bench@bmsp.test", "secret", "9000000002");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setAccountNumber("BATCH" + i);
+            account.setAccountType(AccountType.CURRENT);
+            account.setBalance(OPENING_BALANCE);
+            account.setUser(owner);
+            account.setBranchCode("001");
+            account.setBranchName("Benchmark");
+            accountRepository.save(account);
+            accountNumbers.add(account.getAccountNumber());
+        }
+
+        List<TransferRequest> transfers = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            TransferRequest transfer = new TransferRequest();
+            transfer.setFromAccountNumber(accountNumbers.get(i % ACCOUNTS));
+            transfer.setToAccountNumber(accountNumbers.get((i + 1 + i / ACCOUNTS % (ACCOUNTS - 1)) % ACCOUNTS));
+            transfer.setAmount(new BigDecimal("1.00"));
+            transfer.setDescription("batch benchmark");
+            transfers.add(transfer);
+        }
+
+        // Warm up both paths
+        try {
+            transactionService.transfer(transfers.get(0), owner);
+        } catch (RuntimeException e) {
+            // warm-up only
+        }
+        transactionService.batchTransfer(batchOf(transfers.subList(0, 10)), owner);
+
+        int singleOk = 0;
+        long started = System.nanoTime();
+        for (TransferRequest transfer : transfers) {
+            try {
+                transactionService.transfer(transfer, owner);
+                singleOk++;
+            } catch (RuntimeException e) {
+                // counted as not completed
+            }
+        }
+        long singleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        int batchOk = 0;
+        started = System.nanoTime();
+        for (int from = 0; from < TRANSFERS; from += BATCH_SIZE) {
+            BatchTransferResponse response = transactionService.batchTransfer(
+                    batchOf(transfers.subList(from, Math.min(TRANSFERS, from + BATCH_SIZE))), owner);
+            batchOk += response.getSuccessCount();
+        }
+        long batchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        double speedup = (batchOk / (double) Math.max(1, batchMillis))
+                / (singleOk / (double) Math.max(1, singleMillis));
+        log.info("single: {}/{} ok in {} ms ({}/s); batch of {}: {}/{} ok in {} ms ({}/s); speedup {}x",
+                singleOk, TRANSFERS, singleMillis, singleOk * 1000L / Math.max(1, singleMillis),
+                BATCH_SIZE, batchOk, TRANSFERS, batchMillis, batchOk * 1000L / Math.max(1, batchMillis),
+                String.format("%.1f", speedup));
+
+        assertEquals(TRANSFERS, batchOk);
+        assertTrue(speedup > 1, "batches should move transfers faster than single requests");
+    }
+
+    private BatchTransferRequest batchOf(List<TransferRequest> transfers) {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(new ArrayList<>(transfers));
+        return request;
+    }
+}
@@ -0,0 +1,222 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.IdempotencyRecord;
+import com.bmsp.bmsp.repository.transaction.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final Map<String, IdempotencyRecord> table = new ConcurrentHashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyRecordRepository repository;
+    private IdempotencyService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // The table the nodes share; the primary key rejects a second claim
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.findById(anyString())).thenAnswer(call -> Optional.ofNullable(table.get(call.<String>getArgument(0))));
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(call -> {
+            IdempotencyRecord record = call.getArgument(0);
+            record.setVersion(0L);
+            if (table.putIfAbsent(record.getScopedKey(), record) != null) {
+                throw new DataIntegrityViolationException("Duplicate key " + record.getScopedKey());
+            }
+            return record;
+        });
+        doAnswer(call -> table.remove(call.<IdempotencyRecord>getArgument(0).getScopedKey()))
+                .when(repository).delete(any(IdempotencyRecord.class));
+        service = node(60);
+        user = new User();
+        user.setId(42L);
+    }
+
+    @Test
+    void replayReturnsStoredResponseWithoutRunningAgain() {
+        TransactionResponse first = transfer("key-1", request("10.00"));
+        TransactionResponse replay = transfer("key-1", request("10.00"));
+
+        assertEquals(1, executions.get());
+        assertEquals(first, replay);
+    }
+
+    @Test
+    void replayIsServedFromTheTableAfterEviction() {
+        TransactionResponse first = transfer("key-1", request("10.00"));
+        transfer("key-2", request("10.00"));
+        transfer("key-3", request("10.00"));
+        transfer("key-4", request("10.00"));
+
+        assertEquals(first, transfer("key-1", request("10.00")));
+        assertEquals(4, executions.get());
+    }
+
+    @Test
+    void reusingKeyForDifferentRequestIsRejected() {
+        transfer("key-1", request("10.00"));
+
+        assertThrows(TransactionException.class, () -> transfer("key-1", request("99.00")));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void failedRequestCanBeRetried() {
+        assertThrows(TransactionException.class, () -> service.execute("key-1", user, "transfer", request("10.00"),
+                TransactionResponse.class, () -> {
+                    throw new TransactionException("Insufficient balance");
+                }));
+
+        transfer("key-1", request("10.00"));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForInFlightResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<TransactionResponse> first = pool.submit(() -> service.execute("key-1", user, "transfer",
+                    request("10.00"), TransactionResponse.class, () -> {
+                        started.countDown();
+                        await(release);
+                        return response(executions.incrementAndGet());
+                    }));
+            started.await();
+            Future<TransactionResponse> duplicate = pool.submit(() -> transfer("key-1", request("10.00")));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertEquals(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void duplicateOnAnotherNodeWaitsForTheStoredResponse() throws Exception {
+        IdempotencyService otherNode = node(60);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<TransactionResponse> first = pool.submit(() -> service.execute("key-1", user, "transfer",
+                    request("10.00"), TransactionResponse.class, () -> {
+                        started.countDown();
+                        await(release);
+                        return response(executions.incrementAndGet());
+                    }));
+            started.await();
+            Future<TransactionResponse> duplicate = pool.submit(() -> otherNode.execute("key-1", user, "transfer",
+                    request("10.00"), TransactionResponse.class, () -> response(executions.incrementAndGet())));
+            Thread.sleep(250);
+            release.countDown();
+
+            assertEquals(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+            assertEquals(IdempotencyRecord.Status.COMPLETED, table.get("42:key-1").getStatus());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void claimLeftBehindByACrashedRequestIsTakenOverAfterTheTimeout() throws Exception {
+        // The first attempt dies between claiming the key and completing it
+        assertThrows(OutOfMemoryError.class, () -> service.execute("key-1", user, "transfer", request("10.00"),
+                TransactionResponse.class, () -> {
+                    throw new OutOfMemoryError("crash");
+                }));
+        assertEquals(IdempotencyRecord.Status.PENDING, table.get("42:key-1").getStatus());
+        Thread.sleep(5);
+
+        IdempotencyService restarted = node(0);
+        TransactionResponse retried = restarted.execute("key-1", user, "transfer", request("10.00"),
+                TransactionResponse.class, () -> response(executions.incrementAndGet()));
+        assertEquals(IdempotencyRecord.Status.COMPLETED, table.get("42:key-1").getStatus());
+        assertEquals(retried, node(0).execute("key-1", user, "transfer", request("10.00"),
+                TransactionResponse.class, () -> response(executions.incrementAndGet())));
+        assertEquals(1, executions.get());
+
+        // The crashed attempt's claim is gone, so it could not have completed either
+        assertThrows(TransactionException.class, () -> new IdempotencyClaims(repository).complete("42:key-1",
+                "stale-claim", TransactionResponse.class, () -> response(executions.incrementAndGet()),
+                Object::toString));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        transfer("key-1", request("10.00"));
+        User other = new User();
+        other.setId(7L);
+        service.execute("key-1", other, "transfer", request("10.00"), TransactionResponse.class,
+                () -> response(executions.incrementAndGet()));
+
+        assertEquals(2, executions.get());
+    }
+
+    private IdempotencyService node(long claimTimeoutSeconds) {
+        return new IdempotencyService(new IdempotencyClaims(repository), new ObjectMapper().findAndRegisterModules(),
+                24, claimTimeoutSeconds, 2);
+    }
+
+    private TransactionResponse transfer(String key, TransferRequest request) {
+        return service.execute(key, user, "transfer", request, TransactionResponse.class,
+                () -> response(executions.incrementAndGet()));
+    }
+
+    private static TransferRequest request(String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber("ACC1");
+        request.setToAccountNumber("ACC2");
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static TransactionResponse response(long id) {
+        TransactionResponse response = new TransactionResponse();
+        response.setId(id);
+        response.setTransactionId("TXN" + id);
+        response.setAmount(new BigDecimal("10.00"));
+        response.setTransactionDate(LocalDateTime.of(2026, 1, 1, 12, 0));
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.dto.request.transaction.TransactionRequest;
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.exception.InsufficientBalanceException;
+import com.bmsp.bmsp.exception.LoanException;
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.IdempotencyRecord;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.IdempotencyRecordRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.transaction.shard.AccountShardEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:shards;DB_CLOSE_DELAY=-1",
+        "app.transactions.shards.enabled=true",
+        "app.transactions.shards.count=4"
+})
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class ShardedTransactionServiceTest {
+
+    private static final int ACCOUNTS = 12;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private AccountShardEngine engine;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentTransfersAcrossShardsConserveMoneyAndReachTheDatabase() throws Exception {
+        assertInstanceOf(ShardedTransactionService.class, transactionService);
+        User owner = seed("shard.owner@bmsp.test", "9000000007", "SHRD", "100.00");
+
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2000; i++) {
+            pool.execute(() -> {
+                int from = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+                int to = (from + 1 + ThreadLocalRandom.current().nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                try {
+                    transactionService.transfer(transfer("SHRD" + from, "SHRD" + to, "7.00"), owner);
+                    succeeded.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    // Expected once an account runs dry
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = accountRepository.findById("SHRD" + i).orElseThrow();
+            assertTrue(account.getBalance().signum() >= 0);
+            total = total.add(account.getBalance());
+        }
+        assertEquals(0, new BigDecimal("1200.00").compareTo(total));
+        long rows = transactionRepository.findAll().stream()
+                .filter(row -> row.getAccount().getAccountNumber().startsWith("SHRD"))
+                .count();
+        assertEquals(2L * succeeded.get(), rows);
+    }
+
+    @Test
+    void rejectsOverdraftsForeignAccountsAndUnknownDestinations() {
+        User owner = seed("shard.rules@bmsp.test", "9000000008", "RULE", "50.00");
+        User stranger = new User("Shard Stranger", "shard.stranger@bmsp.test", "secret", "9000000009");
+        stranger.setRoles(owner.getRoles());
+        stranger = userRepository.save(stranger);
+
+        TransactionRequest withdrawal = new TransactionRequest();
+        withdrawal.setAccountNumber("RULE0");
+        withdrawal.setAmount(new BigDecimal("50.01"));
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.withdraw(withdrawal, owner));
+        User intruder = stranger;
+        withdrawal.setAmount(new BigDecimal("1.00"));
+        assertThrows(TransactionException.class, () -> transactionService.withdraw(withdrawal, intruder));
+        TransactionException missing = assertThrows(TransactionException.class,
+                () -> transactionService.transfer(transfer("RULE0", "NO-SUCH-ACCOUNT", "10.00"), owner));
+        assertEquals("Destination account not found", missing.getMessage());
+
+        // The reservation made for the refused transfer was released
+        assertNotNull(transactionService.withdraw(withdrawal, owner).getId());
+        withdrawal.setAmount(new BigDecimal("49.00"));
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionService.withdraw(withdrawal, owner).getBalanceAfter()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findBalance("RULE0")));
+    }
+
+    @Test
+    void aPostingTheDatabaseRejectsIsRevertedWithoutHoldingUpTheShard() {
+        User owner = seed("shard.rejected@bmsp.test", "9000000024", "RJCT", "50.00");
+
+        // Too long for transactions.description, so the insert fails every time
+        TransactionRequest rejected = new TransactionRequest("RJCT0", new BigDecimal("10.00"), "x".repeat(300));
+        assertThrows(TransactionException.class, () -> transactionService.deposit(rejected, owner));
+
+        TransactionResponse accepted = transactionService.deposit(
+                new TransactionRequest("RJCT0", new BigDecimal("5.00"), "shard test"), owner);
+        assertEquals(0, new BigDecimal("55.00").compareTo(accepted.getBalanceAfter()));
+        assertEquals(0, new BigDecimal("55.00").compareTo(accountRepository.findBalance("RJCT0")));
+        assertEquals(1, transactionRepository.findAll().stream()
+                .filter(row -> row.getAccount().getAccountNumber().equals("RJCT0"))
+                .count());
+    }
+
+    @Test
+    void aLinkedWriteCommitsWithTheWithdrawalOrTakesItBack() {
+        User owner = seed("shard.linked@bmsp.test", "9000000025", "LINK", "50.00");
+        TransactionRequest withdrawal = new TransactionRequest("LINK0", new BigDecimal("20.00"), "shard test");
+
+        assertThrows(TransactionException.class, () -> transactionService.withdraw(withdrawal, owner, payment -> {
+            throw new LoanException("EMI installment #1 is already paid");
+        }));
+
+        AtomicInteger linked = new AtomicInteger();
+        TransactionResponse paid = transactionService.withdraw(withdrawal, owner,
+                payment -> linked.incrementAndGet());
+        assertEquals(1, linked.get());
+        assertEquals(0, new BigDecimal("30.00").compareTo(paid.getBalanceAfter()));
+        assertEquals(0, new BigDecimal("30.00").compareTo(accountRepository.findBalance("LINK0")));
+    }
+
+    @Test
+    void aTransferLegTheDatabaseRejectsTakesTheOtherLegWithIt() {
+        User owner = seed("shard.legs@bmsp.test", "9000000026", "LEGS", "50.00");
+
+        // LEGS0 and LEGS1 hash to different shards, and only the incoming leg's write fails
+        assertThrows(TransactionException.class, () -> engine.awaitPersisted(engine.transfer("LEGS0", "LEGS1",
+                owner.getId(), new BigDecimal("20.00"), "shard test", "LEGS-REF", row -> {
+                    throw new TransactionException("Refused by the linked write");
+                })));
+
+        assertNotNull(transactionService.transfer(transfer("LEGS0", "LEGS1", "50.00"), owner).getId());
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findBalance("LEGS0")));
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountRepository.findBalance("LEGS1")));
+        assertEquals(0, transactionRepository.findAll().stream()
+                .filter(row -> row.getReferenceNumber().equals("LEGS-REF"))
+                .count());
+    }
+
+    @Test
+    void theIdempotencyClaimCommitsWithTheShardPostings() {
+        User owner = seed("shard.claims@bmsp.test", "9000000027", "IDEM", "50.00");
+        TransferRequest request = transfer("IDEM0", "IDEM1", "10.00");
+
+        TransactionResponse moved = idempotencyService.execute("shard-key", owner, "transfer", request,
+                TransactionResponse.class, () -> transactionService.transfer(request, owner));
+        IdempotencyRecord claim = idempotencyRecordRepository.findById(owner.getId() + ":shard-key").orElseThrow();
+        assertEquals(IdempotencyRecord.Status.COMPLETED, claim.getStatus());
+        assertEquals(moved.getId(), idempotencyService.execute("shard-key", owner, "transfer", request,
+                TransactionResponse.class, () -> transactionService.transfer(request, owner)).getId());
+        assertEquals(0, new BigDecimal("40.00").compareTo(accountRepository.findBalance("IDEM0")));
+
+        // A claim lost while the deposit was in flight takes the deposit back
+        TransactionRequest deposit = new TransactionRequest("IDEM0", new BigDecimal("5.00"), "shard test");
+        TransactionTemplate separately = new TransactionTemplate(transactionManager);
+        separately.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThrows(TransactionException.class, () -> idempotencyService.execute("lost-key", owner, "deposit",
+                deposit, TransactionResponse.class, () -> {
+                    separately.executeWithoutResult(status ->
+                            idempotencyRecordRepository.deleteById(owner.getId() + ":lost-key"));
+                    return transactionService.deposit(deposit, owner);
+                }));
+        assertEquals(0, new BigDecimal("40.00").compareTo(accountRepository.findBalance("IDEM0")));
+        assertEquals(1, transactionRepository.findAll().stream()
+                .filter(row -> row.getAccount().getAccountNumber().equals("IDEM0"))
+                .count());
+    }
+
+    private static TransferRequest transfer(String from, String to, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber(from);
+        request.setToAccountNumber(to);
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("shard test");
+        return request;
+    }
+
+    private User seed(String email, String phone, String prefix, String balance) {
+        User user = new User("Shard Test", email, "secret", phone);
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setAccountNumber(prefix + i);
+            account.setAccountType(AccountType.SAVINGS);
+            account.setBalance(new BigDecimal(balance));
+            account.setUser(owner);
+            account.setBranchCode("001");
+            account.setBranchName("Shards");
+            accounts.add(account);
+        }
+        accountRepository.saveAll(accounts);
+        return owner;
+    }
+}
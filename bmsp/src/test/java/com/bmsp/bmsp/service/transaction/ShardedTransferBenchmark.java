@@ -0,0 +1,127 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.BmspApplication;
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transfer throughput of the row-locking path versus the account shards, on
+ * separate application contexts and databases. Both modes return only once
+ * the ledger rows are committed.
+ * Not part of the default test run: {@code mvn test -Dbenchmarks}
+ */
+@Slf4j
+@Tag("benchmark")
+class ShardedTransferBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int ACCOUNTS = 64;
+    private static final int TRANSFERS = 8000;
+
+    @Test
+    void shardedModeVersusLockingMode() throws Exception {
+        // Throwaway round so that neither mode pays for class loading and JIT warm-up
+        run("warmup", false);
+        Result locking = run("locking", false);
+        Result sharded = run("sharded", true);
+
+        log.info("locking: {} transfers in {} ms ({}/s); sharded: {} transfers in {} ms ({}/s)",
+                locking.transfers, locking.millis, Math.round(locking.perSecond()),
+                sharded.transfers, sharded.millis, Math.round(sharded.perSecond()));
+        assertEquals(TRANSFERS, locking.transfers);
+        assertEquals(TRANSFERS, sharded.transfers);
+        assertEquals(0, sharded.rowsMissing);
+    }
+
+    private Result run(String database, boolean sharded) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BmspApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // Command line arguments, so they win over application.properties
+                .run(
+                        "--spring.config.import=classpath:application-test.properties",
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--app.transactions.shards.enabled=" + sharded)) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+            User owner = seed(context);
+
+            AtomicInteger succeeded = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            long started = System.nanoTime();
+            for (int i = 0; i < TRANSFERS; i++) {
+                int from = i % ACCOUNTS;
+                int to = (from + 1 + i / ACCOUNTS % (ACCOUNTS - 1)) % ACCOUNTS;
+                pool.execute(() -> {
+                    TransferRequest request = new TransferRequest();
+                    request.setFromAccountNumber("SHBM" + from);
+                    request.setToAccountNumber("SHBM" + to);
+                    request.setAmount(new BigDecimal("1.00"));
+                    request.setDescription("shard benchmark");
+                    transactionService.transfer(request, owner);
+                    succeeded.incrementAndGet();
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+            long finished = System.nanoTime();
+
+            return new Result(succeeded.get(), TimeUnit.NANOSECONDS.toMillis(finished - started),
+                    2L * succeeded.get() - transactionRepository.count());
+        }
+    }
+
+    private static User seed(ConfigurableApplicationContext context) {
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        User user = new User("Shard Bench", "shard.bench@bmsp.test", "secret", "9000000010");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = context.getBean(UserRepository.class).save(user);
+
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setAccountNumber("SHBM" + i);
+            account.setAccountType(AccountType.SAVINGS);
+            account.setBalance(new BigDecimal("1000000.00"));
+            account.setUser(owner);
+            account.setBranchCode("001");
+            account.setBranchName("Benchmark");
+            accounts.add(account);
+        }
+        accountRepository.saveAll(accounts);
+        return owner;
+    }
+
+    private record Result(int transfers, long millis, long rowsMissing) {
+        double perSecond() {
+            return transfers * 1000.0 / Math.max(1, millis);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.dto.response.transaction.StatementResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionSliceResponse;
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class TransactionHistoryTest {
+
+    private static final int ROWS = 45;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @Test
+    void walksTheWholeHistoryNewestFirstWithoutGapsOrRepeats() {
+        User owner = seedHistory("SLICE1", "slice.test@bmsp.test", "9000000003");
+
+        List<TransactionResponse> walked = new ArrayList<>();
+        String cursor = null;
+        int slices = 0;
+        do {
+            TransactionSliceResponse slice = transactionService.getTransactionHistorySlice("SLICE1", cursor, 10, owner);
+            walked.addAll(slice.getContent());
+            assertEquals(slice.isHasNext(), slice.getNextCursor() != null);
+            cursor = slice.getNextCursor();
+            slices++;
+        } while (cursor != null);
+
+        assertEquals(5, slices);
+        assertEquals(ROWS, walked.size());
+        assertEquals(ROWS, walked.stream().map(TransactionResponse::getId).distinct().count());
+        List<TransactionResponse> expected = new ArrayList<>(walked);
+        expected.sort(Comparator.comparing(TransactionResponse::getTransactionDate)
+                .thenComparing(TransactionResponse::getId).reversed());
+        assertEquals(expected, walked);
+
+        TransactionSliceResponse last = transactionService.getTransactionHistorySlice("SLICE1", null, 100, owner);
+        assertFalse(last.isHasNext());
+        assertNull(last.getNextCursor());
+        assertEquals(ROWS, last.getSize());
+        assertThrows(TransactionException.class,
+                () -> transactionService.getTransactionHistorySlice("SLICE1", "not-a-cursor", 10, owner));
+    }
+
+    @Test
+    void exportStreamsEveryRowOldestFirst() throws Exception {
+        User owner = seedHistory("EXPORT1", "export.test@bmsp.test", "9000000004");
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        transactionService.exportTransactionHistory("EXPORT1", null, null, ExportFormat.CSV, owner, csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ROWS + 1, lines.length);
+        assertTrue(lines[0].startsWith("transactionId,"));
+        assertTrue(lines[1].contains("REF0,"));
+        assertTrue(lines[ROWS].contains("\"deposit, #" + (ROWS - 1) + "\""));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        transactionService.exportTransactionHistory("EXPORT1", null, null, ExportFormat.NDJSON, owner, ndjson);
+        assertEquals(ROWS, ndjson.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void statementsAndPointInTimeBalancesAgreeWithAndWithoutCheckpoints() {
+        User owner = seedHistory("STMT1", "statement.test@bmsp.test", "9000000011");
+        Account account = accountRepository.findById("STMT1").orElseThrow();
+        LocalDate today = LocalDate.now();
+        account.setCreatedAt(today.minusDays(10).atStartOfDay());
+        accountRepository.save(account);
+        // Replace the seeded same-day rows with a history spread over past days
+        transactionRepository.deleteAll(transactionRepository.findAll().stream()
+                .filter(row -> row.getAccount().getAccountNumber().equals("STMT1"))
+                .toList());
+        transactionRepository.saveAll(List.of(
+                movement(account, TransactionType.DEPOSIT, "100.00", "100.00", today.minusDays(5).atTime(10, 0)),
+                movement(account, TransactionType.WITHDRAWAL, "30.00", "70.00", today.minusDays(5).atTime(15, 0)),
+                movement(account, TransactionType.DEPOSIT, "50.00", "120.00", today.minusDays(3).atTime(9, 0)),
+                movement(account, TransactionType.TRANSFER_IN, "10.00", "130.00", today.minusDays(1).atTime(12, 0))));
+
+        for (int pass = 0; pass < 2; pass++) {
+            assertAmount("0.00", transactionService.getBalanceAsOf("STMT1", today.minusDays(6).atStartOfDay(), owner));
+            assertAmount("100.00", transactionService.getBalanceAsOf("STMT1", today.minusDays(5).atTime(12, 0), owner));
+            assertAmount("70.00", transactionService.getBalanceAsOf("STMT1", today.minusDays(4).atStartOfDay(), owner));
+
+            StatementResponse recent = transactionService.getStatement("STMT1", today.minusDays(3), today.minusDays(1), owner);
+            assertAmount("70.00", recent.getOpeningBalance());
+            assertAmount("60.00", recent.getTotalCredits());
+            assertAmount("0.00", recent.getTotalDebits());
+            assertAmount("130.00", recent.getClosingBalance());
+            assertEquals(2, recent.getTransactions().size());
+
+            StatementResponse first = transactionService.getStatement("STMT1", today.minusDays(5), today.minusDays(5), owner);
+            assertAmount("0.00", first.getOpeningBalance());
+            assertAmount("100.00", first.getTotalCredits());
+            assertAmount("30.00", first.getTotalDebits());
+            assertAmount("70.00", first.getClosingBalance());
+
+            // Second pass reads through checkpoints for all but the last day
+            assertEquals(1, balanceSnapshotJob.snapshotDay(today.minusDays(5)));
+            assertEquals(1, balanceSnapshotJob.snapshotDay(today.minusDays(3)));
+        }
+        assertThrows(TransactionException.class,
+                () -> transactionService.getStatement("STMT1", today, today.minusDays(1), owner));
+    }
+
+    private static Transaction movement(Account account, TransactionType type, String amount, String balanceAfter,
+                                        LocalDateTime at) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setBalanceAfter(new BigDecimal(balanceAfter));
+        transaction.setTransactionDate(at);
+        transaction.setReferenceNumber("STMT-" + at);
+        return transaction;
+    }
+
+    private static void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+
+    private User seedHistory(String accountNumber, String email, String phone) {
+        User user = new User("History Test", email, "secret", phone);
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(BigDecimal.ZERO);
+        account.setUser(owner);
+        account.setBranchCode("001");
+        account.setBranchName("Test");
+        accountRepository.save(account);
+
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAccount(account);
+            transaction.setType(TransactionType.DEPOSIT);
+            transaction.setAmount(BigDecimal.ONE);
+            transaction.setBalanceAfter(BigDecimal.valueOf(i + 1));
+            transaction.setTransactionDate(LocalDateTime.now());
+            transaction.setReferenceNumber(accountNumber + "REF" + i);
+            transaction.setDescription("deposit, #" + i);
+            rows.add(transaction);
+        }
+        transactionRepository.saveAll(rows);
+        return owner;
+    }
+}
@@ -0,0 +1,151 @@
+package com.bmsp.bmsp.service.transaction;
+
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares 1,000-row history pages read as managed entities (the previous
+ * path) with the DTO projection path, per page: latency and bytes allocated by
+ * the reading thread. Not part of the default test run:
+ * {@code mvn test -Dbenchmarks}
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class TransactionProjectionBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final int WARMUP = 20;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void projectionPagesAreCheaperThanEntityPages() {
+        Account account = seed();
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Supplier<List<TransactionResponse>> entityPage = () -> readWrite.execute(status ->
+                transactionRepository.findByAccountOrderByTransactionDateDesc(account, PageRequest.of(0, PAGE_SIZE))
+                        .map(TransactionProjectionBenchmark::toResponse)
+                        .getContent());
+        Supplier<List<TransactionResponse>> projectionPage = () -> readOnly.execute(status ->
+                transactionRepository.findHistoryView(account.getAccountNumber(), PageRequest.of(0, PAGE_SIZE))
+                        .getContent());
+
+        Result entities = measure(entityPage);
+        Result projections = measure(projectionPage);
+
+        log.info("{}-row page, entities: {} ms, {} KB; projections: {} ms, {} KB ({}x faster, {}x less allocation)",
+                PAGE_SIZE, String.format("%.2f", entities.millis), entities.bytes / 1024,
+                String.format("%.2f", projections.millis), projections.bytes / 1024,
+                String.format("%.1f", entities.millis / projections.millis),
+                String.format("%.1f", (double) entities.bytes / projections.bytes));
+
+        assertEquals(entityPage.get(), projectionPage.get());
+        assertTrue(projections.bytes < entities.bytes);
+    }
+
+    private Result measure(Supplier<List<TransactionResponse>> page) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertEquals(PAGE_SIZE, page.get().size());
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long started = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            page.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+        return new Result(elapsed / 1_000_000.0 / ROUNDS, bytes / ROUNDS);
+    }
+
+    private static TransactionResponse toResponse(Transaction transaction) {
+        return new TransactionResponse(transaction.getId(), transaction.getTransactionId(),
+                transaction.getAccount().getAccountNumber(), transaction.getType(), transaction.getAmount(),
+                transaction.getBalanceAfter(), transaction.getDescription(), transaction.getTransactionDate(),
+                transaction.getReferenceNumber(), transaction.getStatus());
+    }
+
+    private Account seed() {
+        User user = new User("Projection Bench", "projection.bench@bmsp.test", "secret", "9000000005");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+
+        Account account = new Account();
+        account.setAccountNumber("PROJ1");
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(BigDecimal.ZERO);
+        account.setUser(owner);
+        account.setBranchCode("001");
+        account.setBranchName("Benchmark");
+        accountRepository.save(account);
+
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAccount(account);
+            transaction.setType(i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL);
+            transaction.setAmount(new BigDecimal("25.00"));
+            transaction.setBalanceAfter(BigDecimal.valueOf(i));
+            transaction.setDescription("projection benchmark row " + i);
+            transaction.setTransactionDate(LocalDateTime.now());
+            transaction.setReferenceNumber("PROJREF" + i);
+            rows.add(transaction);
+        }
+        transactionRepository.saveAll(rows);
+        return account;
+    }
+
+    private record Result(double millis, long bytes) {
+    }
+}
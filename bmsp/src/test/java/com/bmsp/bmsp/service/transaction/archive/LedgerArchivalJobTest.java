@@ -0,0 +1,137 @@
+package com.bmsp.bmsp.service.transaction.archive;
+
+import com.bmsp.bmsp.dto.response.transaction.StatementResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionResponse;
+import com.bmsp.bmsp.dto.response.transaction.TransactionSliceResponse;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.ArchivedTransactionRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.transaction.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class LedgerArchivalJobTest {
+
+    @Autowired
+    private LedgerArchivalJob archivalJob;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void oldMonthsMoveToTheArchiveAndHistoryReadsStillSeeThem() {
+        User user = new User("Archive Test", "archive.test@bmsp.test", "secret", "9000000012");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = userRepository.save(user);
+        Account account = new Account();
+        account.setAccountNumber("ARCH1");
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(new BigDecimal("95.00"));
+        account.setUser(owner);
+        account.setBranchCode("001");
+        account.setBranchName("Archive");
+        account.setCreatedAt(LocalDateTime.now().minusYears(3));
+        accountRepository.save(account);
+
+        YearMonth oldMonth = YearMonth.now().minusMonths(30);
+        LocalDateTime old = oldMonth.atDay(10).atTime(9, 0);
+        LocalDateTime recent = LocalDateTime.now().minusDays(1);
+        transactionRepository.saveAll(List.of(
+                row(account, TransactionType.DEPOSIT, "50.00", "50.00", old, 0),
+                row(account, TransactionType.DEPOSIT, "30.00", "80.00", old.plusDays(1), 1),
+                row(account, TransactionType.WITHDRAWAL, "10.00", "70.00", old.plusDays(2), 2),
+                row(account, TransactionType.DEPOSIT, "20.00", "90.00", recent, 3),
+                row(account, TransactionType.DEPOSIT, "5.00", "95.00", recent.plusMinutes(1), 4)));
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, details, timestamp) VALUES (?, ?, ?, ?)",
+                990001L, "ARCHIVE_TEST", "old entry", Timestamp.valueOf(old));
+
+        int moved = archivalJob.archiveBefore(YearMonth.now().minusMonths(24));
+
+        assertEquals(4, moved);
+        assertEquals(2, transactionRepository.findHistoryView("ARCH1").size());
+        assertEquals(3, archivedTransactionRepository.countByAccountNumber("ARCH1"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_logs_archive WHERE id = 990001", Integer.class));
+        assertEquals(0, archivalJob.archiveBefore(YearMonth.now().minusMonths(24)));
+
+        List<TransactionResponse> history = transactionService.getTransactionHistory("ARCH1", owner);
+        assertEquals(List.of("ARCH1-4", "ARCH1-3", "ARCH1-2", "ARCH1-1", "ARCH1-0"),
+                history.stream().map(TransactionResponse::getReferenceNumber).toList());
+
+        List<TransactionResponse> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionSliceResponse slice = transactionService.getTransactionHistorySlice("ARCH1", cursor, 2, owner);
+            walked.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+        assertEquals(history, walked);
+
+        var secondPage = transactionService.getPaginatedTransactionHistory("ARCH1", 1, 3, owner);
+        assertEquals(5, secondPage.getTotalElements());
+        assertEquals(history.subList(3, 5), secondPage.getContent());
+
+        StatementResponse statement = transactionService.getStatement(
+                "ARCH1", oldMonth.atDay(1), oldMonth.atEndOfMonth(), owner);
+        assertEquals(0, BigDecimal.ZERO.compareTo(statement.getOpeningBalance()));
+        assertEquals(0, new BigDecimal("70.00").compareTo(statement.getClosingBalance()));
+        assertEquals(3, statement.getTransactions().size());
+        assertEquals(0, new BigDecimal("70.00").compareTo(
+                transactionService.getBalanceAsOf("ARCH1", recent.minusDays(1), owner)));
+    }
+
+    private static Transaction row(Account account, TransactionType type, String amount, String balanceAfter,
+                                   LocalDateTime at, int index) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setBalanceAfter(new BigDecimal(balanceAfter));
+        transaction.setTransactionDate(at);
+        transaction.setReferenceNumber("ARCH1-" + index);
+        return transaction;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.ledger.PostingEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InDoubtMovementReconcilerTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 3, 14, 12, 0);
+
+    private TransactionRepository transactionRepository;
+    private AccountRepository accountRepository;
+    private PostingEngine postingEngine;
+    private LedgerJournalApplier applier;
+    private InDoubtMovementReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        accountRepository = mock(AccountRepository.class);
+        postingEngine = mock(PostingEngine.class);
+        applier = mock(LedgerJournalApplier.class);
+        reconciler = new InDoubtMovementReconciler(transactionRepository, accountRepository, postingEngine, applier,
+                mock(PlatformTransactionManager.class), 100);
+    }
+
+    @Test
+    void aMovementTheNextOneStartedFromIsPosted() {
+        Transaction inDoubt = row(1L, TransactionType.DEPOSIT, "100.00", "300.00", "PENDING");
+        inDoubt(inDoubt, row(2L, TransactionType.WITHDRAWAL, "50.00", "250.00", "COMPLETED"));
+
+        assertEquals(1, reconciler.reconcile());
+        assertEquals("COMPLETED", inDoubt.getStatus());
+        verify(postingEngine).postMovements(List.of(inDoubt));
+    }
+
+    @Test
+    void aMovementTheNextOneDidNotSeeFails() {
+        Transaction inDoubt = row(1L, TransactionType.DEPOSIT, "100.00", "300.00", "PENDING");
+        inDoubt(inDoubt, row(2L, TransactionType.WITHDRAWAL, "50.00", "150.00", "COMPLETED"));
+
+        assertEquals(1, reconciler.reconcile());
+        assertEquals("FAILED", inDoubt.getStatus());
+        verify(postingEngine, never()).postMovements(any());
+    }
+
+    @Test
+    void theLastMovementIsCheckedAgainstTheBalanceOnceEverythingBeforeItIsApplied() {
+        Transaction inDoubt = row(1L, TransactionType.WITHDRAWAL, "40.00", "60.00", "PENDING");
+        inDoubt(inDoubt, null);
+        when(accountRepository.findBalance("ACC1")).thenReturn(new BigDecimal("60.00"));
+
+        when(applier.appliedThrough()).thenReturn(NOON);
+        assertEquals(0, reconciler.reconcile());
+        assertEquals("PENDING", inDoubt.getStatus());
+
+        when(applier.appliedThrough()).thenReturn(LocalDateTime.now().plusMinutes(1));
+        assertEquals(1, reconciler.reconcile());
+        assertEquals("COMPLETED", inDoubt.getStatus());
+    }
+
+    private void inDoubt(Transaction row, Transaction next) {
+        when(transactionRepository.findByStatusOrderByTransactionDateAscIdAsc(eq("PENDING"), any(Limit.class)))
+                .thenReturn(List.of(row));
+        when(transactionRepository.findMovementsAfter(eq("ACC1"), eq(NOON), eq(row.getId()), any(Limit.class)))
+                .thenReturn(next == null ? List.of() : List.of(next));
+        when(transactionRepository.findByReferenceNumberAndStatus(row.getReferenceNumber(), "PENDING"))
+                .thenReturn(List.of(row));
+    }
+
+    private static Transaction row(long id, TransactionType type, String amount, String balanceAfter,
+                                   String status) {
+        Account account = new Account();
+        account.setAccountNumber("ACC1");
+        Transaction row = new Transaction();
+        row.setId(id);
+        row.setAccount(account);
+        row.setType(type);
+        row.setAmount(new BigDecimal(amount));
+        row.setBalanceAfter(new BigDecimal(balanceAfter));
+        row.setTransactionDate(id == 1L ? NOON : NOON.plusMinutes(id));
+        row.setReferenceNumber("REF" + id);
+        row.setStatus(status);
+        return row;
+    }
+}
@@ -0,0 +1,138 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import com.bmsp.bmsp.BmspApplication;
+import com.bmsp.bmsp.dto.request.transaction.TransferRequest;
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.service.transaction.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transfer throughput with ledger rows written directly through JPA versus
+ * through the ledger journal, on separate application contexts and databases.
+ * In journal mode the time for the applier to catch up is reported separately.
+ * Not part of the default test run: {@code mvn test -Dbenchmarks}
+ */
+@Slf4j
+@Tag("benchmark")
+class LedgerJournalBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int ACCOUNTS = 64;
+    private static final int TRANSFERS = 8000;
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void journalModeVersusDirectMode() throws Exception {
+        // Throwaway round so that neither mode pays for class loading and JIT warm-up
+        run("warmup", false);
+        Result direct = run("direct", false);
+        Result journal = run("journal", true);
+
+        log.info("direct: {} transfers in {} ms ({}/s); journal: {} transfers in {} ms ({}/s), "
+                        + "applier caught up {} ms later",
+                direct.transfers, direct.millis, Math.round(direct.perSecond()),
+                journal.transfers, journal.millis, Math.round(journal.perSecond()), journal.drainMillis);
+        assertEquals(TRANSFERS, direct.transfers);
+        assertEquals(TRANSFERS, journal.transfers);
+    }
+
+    private Result run(String database, boolean journalEnabled) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BmspApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // Command line arguments, so they win over application.properties
+                .run(
+                        "--spring.config.import=classpath:application-test.properties",
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--app.ledger.journal.enabled=" + journalEnabled,
+                        "--app.ledger.journal.dir=" + journalDirectory.resolve(database))) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+            User owner = seed(context);
+
+            AtomicInteger succeeded = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            long started = System.nanoTime();
+            for (int i = 0; i < TRANSFERS; i++) {
+                int from = i % ACCOUNTS;
+                int to = (from + 1 + i / ACCOUNTS % (ACCOUNTS - 1)) % ACCOUNTS;
+                pool.execute(() -> {
+                    TransferRequest request = new TransferRequest();
+                    request.setFromAccountNumber("JRNL" + from);
+                    request.setToAccountNumber("JRNL" + to);
+                    request.setAmount(new BigDecimal("1.00"));
+                    request.setDescription("journal benchmark");
+                    transactionService.transfer(request, owner);
+                    succeeded.incrementAndGet();
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+            long finished = System.nanoTime();
+
+            while (transactionRepository.count() < 2L * succeeded.get()) {
+                Thread.sleep(5);
+            }
+            long drained = System.nanoTime();
+            return new Result(succeeded.get(), TimeUnit.NANOSECONDS.toMillis(finished - started),
+                    TimeUnit.NANOSECONDS.toMillis(drained - finished));
+        }
+    }
+
+    private static User seed(ConfigurableApplicationContext context) {
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        User user = new User("Journal Bench", "journal.bench@bmsp.test", "secret", "9000000006");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        User owner = context.getBean(UserRepository.class).save(user);
+
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setAccountNumber("JRNL" + i);
+            account.setAccountType(AccountType.SAVINGS);
+            account.setBalance(new BigDecimal("1000000.00"));
+            account.setUser(owner);
+            account.setBranchCode("001");
+            account.setBranchName("Benchmark");
+            accounts.add(account);
+        }
+        accountRepository.saveAll(accounts);
+        return owner;
+    }
+
+    private record Result(int transfers, long millis, long drainMillis) {
+        double perSecond() {
+            return transfers * 1000.0 / Math.max(1, millis);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.bmsp.bmsp.service.transaction.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LedgerJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesRoundTripThroughTheMappedSegment() {
+        try (LedgerJournal journal = new LedgerJournal(directory, 16)) {
+            LedgerRecord written = entry("TXN1", "Groceré, \"weekly\"");
+            long last = journal.append(List.of(written, entry("TXN2", null)));
+            journal.awaitDurable(last);
+
+            LedgerRecord read = journal.read(0);
+            assertEquals(written.withSequence(0, 0), read);
+            assertEquals(0, journal.read(1).group());
+            assertNull(journal.read(2));
+        }
+    }
+
+    @Test
+    void concurrentWritersShareGroupCommitsAcrossSegments() throws Exception {
+        int threads = 8;
+        int groupsPerThread = 200;
+        try (LedgerJournal journal = new LedgerJournal(directory, 64)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < groupsPerThread; i++) {
+                        long last = journal.append(List.of(entry("TXN" + thread + "-" + i + "a", null),
+                                entry("TXN" + thread + "-" + i + "b", null)));
+                        journal.awaitDurable(last);
+                        journal.append(List.of(LedgerRecord.marker(LedgerRecord.Kind.COMMIT, last - 1)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            pool.shutdown();
+
+            long total = threads * groupsPerThread * 3L;
+            journal.awaitDurable(total - 1);
+            for (long sequence = 0; sequence < total; sequence++) {
+                assertEquals(sequence, journal.read(sequence).sequence());
+            }
+        }
+    }
+
+    @Test
+    void reopeningContinuesAfterTheLastRecordAndMarksUnresolvedGroupsInDoubt() {
+        try (LedgerJournal journal = new LedgerJournal(directory, 16)) {
+            journal.awaitDurable(journal.append(List.of(entry("TXN1", null))));
+            journal.append(List.of(LedgerRecord.marker(LedgerRecord.Kind.COMMIT, 0)));
+            // Written but the process "dies" before the database outcome is recorded
+            journal.awaitDurable(journal.append(List.of(entry("TXN2", null), entry("TXN3", null))));
+        }
+
+        try (LedgerJournal journal = new LedgerJournal(directory, 16)) {
+            assertEquals(3, journal.recoveredUpTo());
+            LedgerRecord marker = journal.read(4);
+            assertEquals(LedgerRecord.Kind.IN_DOUBT, marker.kind());
+            assertEquals(2, marker.group());
+            assertEquals(5, journal.append(List.of(entry("TXN4", null))));
+        }
+    }
+
+    @Test
+    void aGroupWithARecordThatDoesNotFitIsNotWrittenAtAll() {
+        try (LedgerJournal journal = new LedgerJournal(directory, 16)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.append(List.of(entry("TXN1", null), entry("TXN2", "x".repeat(1000)))));
+
+            long last = journal.append(List.of(entry("TXN3", null)));
+            journal.awaitDurable(last);
+            assertEquals(0, last);
+            assertEquals("TXN3", journal.read(0).transactionId());
+        }
+    }
+
+    @Test
+    void releasedSegmentsAreDeleted() {
+        try (LedgerJournal journal = new LedgerJournal(directory, 4)) {
+            List<LedgerRecord> records = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                records.add(entry("TXN" + i, null));
+            }
+            journal.awaitDurable(journal.append(records));
+            journal.release(7);
+
+            assertNull(journal.read(3));
+            assertEquals(8, journal.read(8).sequence());
+        }
+    }
+
+    private static LedgerRecord entry(String transactionId, String description) {
+        return new LedgerRecord(LedgerRecord.Kind.ENTRY, -1, -1, transactionId, "ACC1", "DEPOSIT",
+                new BigDecimal("125.50"), new BigDecimal("-1000.25"), description,
+                LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000), "REF123", "COMPLETED");
+    }
+}
@@ -0,0 +1,125 @@
+package com.bmsp.bmsp.service.transaction.rollup;
+
+import com.bmsp.bmsp.model.account.Account;
+import com.bmsp.bmsp.model.account.AccountType;
+import com.bmsp.bmsp.model.auth.ERole;
+import com.bmsp.bmsp.model.auth.User;
+import com.bmsp.bmsp.model.transaction.Transaction;
+import com.bmsp.bmsp.model.transaction.TransactionRollup;
+import com.bmsp.bmsp.model.transaction.TransactionType;
+import com.bmsp.bmsp.repository.account.AccountRepository;
+import com.bmsp.bmsp.repository.auth.RoleRepository;
+import com.bmsp.bmsp.repository.auth.UserRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRepository;
+import com.bmsp.bmsp.repository.transaction.TransactionRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+class TransactionRollupJobTest {
+
+    // Older than anything the other tests write, so the first run starts here
+    private static final LocalDate MONDAY = LocalDate.of(2016, 3, 7);
+
+    @Autowired
+    private TransactionRollupJob rollupJob;
+
+    @Autowired
+    private TransactionRollups rollups;
+
+    @Autowired
+    private TransactionRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void rolledUpHoursAndTheLiveTailAddUpOnce() {
+        User user = new User("Rollup Test", "rollup.test@bmsp.test", "secret", "9000000019");
+        user.setRoles(Set.of(roleRepository.findByName(ERole.ROLE_CUSTOMER).orElseThrow()));
+        Account account = new Account();
+        account.setAccountNumber("ROLL1");
+        account.setAccountType(AccountType.SAVINGS);
+        account.setBalance(new BigDecimal("70.00"));
+        account.setUser(userRepository.save(user));
+        account.setBranchCode("001");
+        account.setBranchName("Rollup");
+        account.setCreatedAt(MONDAY.atStartOfDay());
+        accountRepository.save(account);
+
+        transactionRepository.saveAll(List.of(
+                row(account, TransactionType.DEPOSIT, "100.00", MONDAY.atTime(9, 15), 0),
+                row(account, TransactionType.WITHDRAWAL, "40.00", MONDAY.atTime(9, 45), 1),
+                row(account, TransactionType.DEPOSIT, "10.00", MONDAY.plusDays(1).atTime(14, 30), 2)));
+
+        // Monday is rolled up, Tuesday is still the live tail
+        assertEquals(2, rollupJob.rollUpTo(MONDAY.plusDays(1).atStartOfDay()));
+        LocalDateTime start = MONDAY.atStartOfDay();
+        LocalDateTime end = MONDAY.plusDays(2).atStartOfDay();
+        assertEquals(2, rollupRepository.findBuckets(TransactionRollup.Granularity.HOUR, start, end).size());
+        assertEquals(2, rollupRepository.findBuckets(TransactionRollup.Granularity.DAY, start, end).size());
+        assertSummary(rollups.summarize(MONDAY, MONDAY.plusDays(1)));
+
+        // Rolling Tuesday up moves it out of the tail without counting Monday again
+        assertEquals(1, rollupJob.rollUpTo(MONDAY.plusDays(2).atStartOfDay()));
+        assertEquals(0, rollupJob.rollUpTo(MONDAY.plusDays(2).atStartOfDay()));
+        assertSummary(rollups.summarize(MONDAY, MONDAY.plusDays(1)));
+
+        TransactionRollups.Summary monday = rollups.summarize(MONDAY, MONDAY);
+        assertEquals(2, monday.count());
+        assertEquals(0, new BigDecimal("140.00").compareTo(monday.amount()));
+    }
+
+    private static void assertSummary(TransactionRollups.Summary summary) {
+        assertEquals(3, summary.count());
+        assertEquals(0, new BigDecimal("150.00").compareTo(summary.amount()));
+        assertEquals(0, new BigDecimal("50.00").compareTo(summary.averageAmount()));
+        assertEquals(2L, summary.countByType().get(TransactionType.DEPOSIT));
+        assertEquals(0, new BigDecimal("110.00").compareTo(summary.amountByType().get(TransactionType.DEPOSIT)));
+        assertEquals(0, new BigDecimal("110.00").compareTo(
+                summary.amountIn(YearMonth.from(MONDAY), TransactionType.DEPOSIT)));
+        assertEquals(2, summary.countAtHour(9));
+        assertEquals(1, summary.countAtHour(14));
+        assertEquals(2, summary.countOn(DayOfWeek.MONDAY));
+        assertEquals(1, summary.countOn(DayOfWeek.TUESDAY));
+        assertEquals(Optional.of(9), summary.peakHour());
+        assertEquals(Optional.of(TransactionType.DEPOSIT), summary.mostCommonType());
+    }
+
+    private static Transaction row(Account account, TransactionType type, String amount, LocalDateTime at,
+                                   int index) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setBalanceAfter(new BigDecimal(amount));
+        transaction.setTransactionDate(at);
+        transaction.setReferenceNumber("ROLL1-" + index);
+        return transaction;
+    }
+}
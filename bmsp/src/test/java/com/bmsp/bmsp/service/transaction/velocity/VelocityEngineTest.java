@@ -0,0 +1,77 @@
+package com.bmsp.bmsp.service.transaction.velocity;
+
+import com.bmsp.bmsp.exception.TransactionException;
+import com.bmsp.bmsp.service.transaction.velocity.VelocityRule.Direction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VelocityEngineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toMillis(20_000));
+    private final VelocityEngine engine = new VelocityEngine(
+            List.of("rapid-withdrawals:out:1m:count:3:block", "large-inflow:in:1h:amount:1000:flag"),
+            meterRegistry, clock::get);
+
+    @Test
+    void blocksOnceTheWindowIsFullAndForgetsAfterIt() {
+        for (int i = 0; i < 3; i++) {
+            engine.screen("ACC1", Direction.OUT, BigDecimal.TEN);
+            engine.record("ACC1", Direction.OUT, BigDecimal.TEN);
+        }
+
+        TransactionException blocked = assertThrows(TransactionException.class,
+                () -> engine.screen("ACC1", Direction.OUT, BigDecimal.TEN));
+        assertEquals("Transaction blocked by velocity limit rapid-withdrawals", blocked.getMessage());
+        assertDoesNotThrow(() -> engine.screen("ACC2", Direction.OUT, BigDecimal.TEN));
+        assertDoesNotThrow(() -> engine.screen("ACC1", Direction.IN, BigDecimal.TEN));
+
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(2));
+        assertDoesNotThrow(() -> engine.screen("ACC1", Direction.OUT, BigDecimal.TEN));
+        assertEquals(1.0, meterRegistry.get("bmsp.velocity.hits").tag("rule", "rapid-withdrawals").counter().count());
+    }
+
+    @Test
+    void flaggedMovementsGoThroughAndAreSummarised() {
+        engine.screen("ACC1", Direction.IN, new BigDecimal("600.00"));
+        engine.record("ACC1", Direction.IN, new BigDecimal("600.00"));
+        engine.screen("ACC1", Direction.IN, new BigDecimal("500.50"));
+        engine.record("ACC1", Direction.IN, new BigDecimal("500.50"));
+
+        assertEquals(1, engine.suspiciousCount());
+        VelocityEngine.RuleHits top = engine.ruleHits().get(0);
+        assertEquals("large-inflow", top.rule());
+        assertEquals(1, top.count());
+        assertEquals(new BigDecimal("500.50"), top.exposure());
+
+        // Hits are kept for 30 days, the account's windows for a day
+        clock.addAndGet(TimeUnit.DAYS.toMillis(2));
+        engine.evictIdleAccounts();
+        assertEquals(1, engine.suspiciousCount());
+        clock.addAndGet(TimeUnit.DAYS.toMillis(30));
+        assertEquals(0, engine.suspiciousCount());
+    }
+
+    @Test
+    void laterItemsOfABatchAreScreenedAgainstTheEarlierOnes() {
+        engine.record("ACC1", Direction.OUT, BigDecimal.TEN);
+        VelocityEngine.Pending batch = new VelocityEngine.Pending();
+        for (int i = 0; i < 2; i++) {
+            engine.screen("ACC1", Direction.OUT, BigDecimal.TEN, batch);
+            batch.add("ACC1", Direction.OUT, BigDecimal.TEN);
+        }
+
+        assertThrows(TransactionException.class, () -> engine.screen("ACC1", Direction.OUT, BigDecimal.TEN, batch));
+        // Nothing of the batch reached the windows
+        assertDoesNotThrow(() -> engine.screen("ACC1", Direction.OUT, BigDecimal.TEN));
+    }
+}
@@ -0,0 +1,70 @@
+package com.bmsp.bmsp.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimisticRetryAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void retriesUntilTheConflictClears() {
+        ConflictingService service = proxy(new ConflictingService(2), 1.0, 10);
+
+        assertEquals("done", service.update());
+        assertEquals(3, service.attempts());
+        assertEquals(2.0, meterRegistry.counter("bmsp.optimistic.retries", "method", "ConflictingService.update").count());
+    }
+
+    @Test
+    void givesUpWhenAttemptsAreExhausted() {
+        ConflictingService service = proxy(new ConflictingService(5), 1.0, 10);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, service::update);
+        assertEquals(3, service.attempts());
+        assertEquals(1.0, meterRegistry.counter("bmsp.optimistic.exhausted", "method", "ConflictingService.update").count());
+    }
+
+    @Test
+    void givesUpWhenTheRetryBudgetIsSpent() {
+        ConflictingService service = proxy(new ConflictingService(1), 0.0, 0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, service::update);
+        assertEquals(1, service.attempts());
+    }
+
+    private ConflictingService proxy(ConflictingService target, double budgetRatio, long budgetCap) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new OptimisticRetryAspect(meterRegistry, budgetRatio, budgetCap));
+        return factory.getProxy();
+    }
+
+    static class ConflictingService {
+        private final int conflicts;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        ConflictingService(int conflicts) {
+            this.conflicts = conflicts;
+        }
+
+        @OptimisticRetry(maxAttempts = 3, backoffMillis = 1)
+        public String update() {
+            if (attempts.incrementAndGet() <= conflicts) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "done";
+        }
+
+        int attempts() {
+            return attempts.get();
+        }
+    }
+}
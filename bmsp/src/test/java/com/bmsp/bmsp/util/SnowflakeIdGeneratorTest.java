@@ -0,0 +1,78 @@
+package com.bmsp.bmsp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        Set<Long> seen = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            Future<?>[] workers = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                workers[t] = pool.submit(() -> {
+                    start.await();
+                    long previous = Long.MIN_VALUE;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        long id = generator.nextId();
+                        assertTrue(id > previous, "ids must increase within a thread");
+                        previous = id;
+                        seen.add(id);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(THREADS * IDS_PER_THREAD, seen.size());
+    }
+
+    @Test
+    void idCarriesNodeAndTimestamp() {
+        long before = System.currentTimeMillis();
+        long id = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID).nextId();
+
+        assertEquals(SnowflakeIdGenerator.MAX_NODE_ID, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS)
+                & SnowflakeIdGenerator.MAX_NODE_ID);
+        assertTrue(SnowflakeIdGenerator.timestampMillis(id) >= before);
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void base36FormKeepsOrderAndWidth() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        String previous = "";
+        for (int i = 0; i < 10_000; i++) {
+            String reference = SnowflakeIdGenerator.toBase36(generator.nextId(), 12);
+            assertEquals(12, reference.length());
+            assertTrue(reference.matches("[0-9A-Z]+"));
+            assertTrue(reference.compareTo(previous) > 0);
+            previous = reference;
+        }
+        assertEquals("00000000000Z", SnowflakeIdGenerator.toBase36(35, 12));
+    }
+}